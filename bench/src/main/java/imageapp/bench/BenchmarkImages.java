@@ -0,0 +1,104 @@
+package imageapp.bench;
+
+import imageapp.Picture;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * Makes the pictures the benchmarks run on.  A benchmark image name is
+ * either a path to one of the assets (like lib/beach.jpg or
+ * lib2/bird.png, found relative to the repository root) or a synthetic
+ * picture named synthetic-&lt;n&gt;mp, which is about n million pixels
+ * with a 4:3 shape and the same pixels every run.
+ */
+public final class BenchmarkImages
+{
+  /** the prefix of synthetic image names */
+  private static final String SYNTHETIC = "synthetic-";
+
+  /** no BenchmarkImages objects are made; all the methods are static */
+  private BenchmarkImages() { }
+
+  /**
+   * Method to make the picture for a benchmark image name
+   * @param name an asset path or synthetic-&lt;n&gt;mp
+   * @return a new picture
+   */
+  public static Picture load(String name)
+  {
+    if (name.startsWith(SYNTHETIC))
+    {
+      String megapixels = name.substring(SYNTHETIC.length(), name.length() - 2);
+      return synthetic(Double.parseDouble(megapixels));
+    }
+    File file = asset(name);
+    if (!file.canRead())
+      throw new IllegalStateException("benchmark image not found: " + file);
+    return new Picture(file.getPath());
+  }
+
+  /**
+   * Method to make a synthetic picture.  The pixels are a smooth
+   * gradient with some noise, so they compress like a photo and not
+   * like random data.
+   * @param megapixels the number of millions of pixels
+   * @return the new picture
+   */
+  public static Picture synthetic(double megapixels)
+  {
+    int width = (int) Math.round(Math.sqrt(megapixels * 1e6 * 4 / 3));
+    int height = (int) Math.round(megapixels * 1e6 / width);
+    Picture picture = new Picture(height, width);
+    Random random = new Random(width * 31L + height);
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++)
+    {
+      for (int x = 0; x < width; x++)
+      {
+        int red = (x * 255 / width + random.nextInt(16)) & 0xff;
+        int green = (y * 255 / height + random.nextInt(16)) & 0xff;
+        int blue = ((x + y) * 127 / (width + height) + random.nextInt(32)) & 0xff;
+        row[x] = 0xff000000 | (red << 16) | (green << 8) | blue;
+      }
+      picture.setRow(y, row);
+    }
+    return picture;
+  }
+
+  /**
+   * Method to find an asset file.  The directory comes from the
+   * imageapp.assets system property, else the closest folder at or
+   * above the working directory that has a lib folder in it.
+   * @param name the asset path like lib/beach.jpg
+   * @return the asset file
+   */
+  public static File asset(String name)
+  {
+    String root = System.getProperty("imageapp.assets");
+    if (root != null)
+      return new File(root, name);
+    File dir = new File(System.getProperty("user.dir")).getAbsoluteFile();
+    while (dir != null)
+    {
+      if (new File(dir, "lib").isDirectory())
+        return new File(dir, name);
+      dir = dir.getParentFile();
+    }
+    return new File(name);
+  }
+
+  /**
+   * Method to stop the picture code from printing while it is timed.
+   * Some ImageApp methods print a line every time they run.
+   * @return the old System.out so it can be put back
+   */
+  public static PrintStream silence()
+  {
+    PrintStream old = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    return old;
+  }
+}
@@ -0,0 +1,46 @@
+package imageapp.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main class of benchmarks.jar.  It takes the normal JMH command line
+ * but writes the results as JSON (to jmh-result.json unless -rff is
+ * given) and turns on the gc profiler, so every run records allocation
+ * rates next to throughput and the files can be compared over time.
+ */
+public final class BenchmarkRunner
+{
+  /** no BenchmarkRunner objects are made */
+  private BenchmarkRunner() { }
+
+  /**
+   * Method to run the benchmarks
+   * @param args JMH command line options
+   * @throws Exception if the options can't be parsed or a benchmark fails
+   */
+  public static void main(String[] args) throws Exception
+  {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    if (commandLine.shouldHelp() || commandLine.shouldList() ||
+        commandLine.shouldListProfilers() || commandLine.shouldListResultFormats() ||
+        commandLine.shouldListWithParams())
+    {
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+
+    ChainedOptionsBuilder options = new OptionsBuilder()
+      .parent(commandLine)
+      .addProfiler(GCProfiler.class);
+    if (!commandLine.getResultFormat().hasValue())
+      options.resultFormat(ResultFormatType.JSON);
+    if (!commandLine.getResult().hasValue())
+      options.result("jmh-result.json");
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,174 @@
+package imageapp.bench;
+
+import imageapp.CannyEdgeDetector;
+import imageapp.ChannelLut;
+import imageapp.EdgeOperator;
+import imageapp.ImageApp;
+import imageapp.Picture;
+import imageapp.PixelMask;
+
+import java.awt.Color;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the color filters in ImageApp and Picture.  The
+ * filters change the picture in place and run again on the result; the
+ * cost of a pass doesn't depend on the pixel values.  The Pixel[][]
+ * benchmarks include the getPixels2D call, since callers always pay it.
+ * chain runs four filters one pass after another and chainLazy fuses
+ * the same four into one pass through LazyPicture.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class FilterBenchmark
+{
+  @Param({"lib/beach.jpg", "lib2/bird.png", "synthetic-1mp", "synthetic-12mp", "synthetic-50mp"})
+  public String image;
+
+  private Picture picture;
+  private PrintStream out;
+  private final CannyEdgeDetector canny = new CannyEdgeDetector();
+  private final ChannelLut levels = ChannelLut.levels(16, 235, 1.2, 0, 255);
+
+  @Setup
+  public void setUp()
+  {
+    picture = BenchmarkImages.load(image);
+    out = BenchmarkImages.silence();
+  }
+
+  @TearDown
+  public void tearDown()
+  {
+    System.setOut(out);
+  }
+
+  @Benchmark
+  public void changeColorPixels()
+  {
+    ImageApp.changeColor(picture.getPixels2D());
+  }
+
+  @Benchmark
+  public void changeColor()
+  {
+    ImageApp.changeColor(picture);
+  }
+
+  @Benchmark
+  public void negativeColorPixels()
+  {
+    ImageApp.negativeColor(picture.getPixels2D());
+  }
+
+  @Benchmark
+  public void negativeColor()
+  {
+    ImageApp.negativeColor(picture);
+  }
+
+  @Benchmark
+  public void negativeLut()
+  {
+    ChannelLut.NEGATIVE.apply(picture);
+  }
+
+  @Benchmark
+  public void levels()
+  {
+    levels.apply(picture);
+  }
+
+  @Benchmark
+  public void grayscalePixels()
+  {
+    ImageApp.grayscale(picture.getPixels2D());
+  }
+
+  @Benchmark
+  public void grayscale()
+  {
+    ImageApp.grayscale(picture);
+  }
+
+  @Benchmark
+  public void chain()
+  {
+    ImageApp.grayscale(picture);
+    ImageApp.negativeColor(picture);
+    picture.setLow(Color.green);
+    picture.zeroBlue();
+  }
+
+  @Benchmark
+  public Picture chainLazy()
+  {
+    return picture.lazy().grayscale().negative().setLow(Color.green).zeroBlue().get();
+  }
+
+  @Benchmark
+  public void zeroBlue()
+  {
+    picture.zeroBlue();
+  }
+
+  @Benchmark
+  public void clearLow()
+  {
+    picture.clearLow();
+  }
+
+  @Benchmark
+  public void setLow()
+  {
+    picture.setLow(Color.green);
+  }
+
+  @Benchmark
+  public void reveal()
+  {
+    picture.reveal();
+  }
+
+  @Benchmark
+  public void edgeDetection()
+  {
+    picture.edgeDetection(10);
+  }
+
+  @Benchmark
+  public void blur()
+  {
+    picture.blur(2);
+  }
+
+  @Benchmark
+  public void sobel()
+  {
+    picture.edgeMagnitude(EdgeOperator.SOBEL);
+  }
+
+  @Benchmark
+  public PixelMask canny()
+  {
+    return canny.detect(picture);
+  }
+}
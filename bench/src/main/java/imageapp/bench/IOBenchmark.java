@@ -0,0 +1,81 @@
+package imageapp.bench;
+
+import imageapp.Picture;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for reading and writing picture files through ImageIO and
+ * for SimplePicture.scale.  The picture is written once in the chosen
+ * format during setup and that file is what the load benchmark reads.
+ * The ImageCache is turned off so every load really decodes the file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-DimageCache.maxBytes=0"})
+public class IOBenchmark
+{
+  @Param({"lib/beach.jpg", "lib2/bird.png", "synthetic-1mp", "synthetic-12mp", "synthetic-50mp"})
+  public String image;
+
+  @Param({"jpg", "png"})
+  public String format;
+
+  private Picture picture;
+  private File input;
+  private File output;
+
+  @Setup
+  public void setUp() throws IOException
+  {
+    picture = BenchmarkImages.load(image);
+    input = File.createTempFile("bench-in", "." + format);
+    output = File.createTempFile("bench-out", "." + format);
+    picture.writeOrFail(input.getPath());
+  }
+
+  @TearDown
+  public void tearDown()
+  {
+    input.delete();
+    output.delete();
+  }
+
+  @Benchmark
+  public Picture load() throws IOException
+  {
+    Picture loaded = new Picture(1, 1);
+    loaded.loadOrFail(input.getPath());
+    return loaded;
+  }
+
+  @Benchmark
+  public void write() throws IOException
+  {
+    picture.writeOrFail(output.getPath());
+  }
+
+  @Benchmark
+  public Picture scaleHalf()
+  {
+    return picture.scale(0.5, 0.5);
+  }
+}
@@ -0,0 +1,76 @@
+package imageapp.bench;
+
+import imageapp.PayloadCodec;
+import imageapp.Picture;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for hiding bytes in a picture with PayloadCodec, next to
+ * the picture-in-picture hide and unhide in SteganographyBenchmark.
+ * Every invocation streams a 4 MB payload and counts as 4 operations,
+ * so the scores are in MB/s.  The pictures are big enough to hold the
+ * payload at 1 bit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class PayloadBenchmark
+{
+  /** the megabytes in each payload */
+  private static final int PAYLOAD_MB = 4;
+
+  @Param({"synthetic-12mp", "synthetic-50mp"})
+  public String image;
+
+  @Param({"1", "2", "4"})
+  public int bits;
+
+  private Picture cover;
+  private PayloadCodec codec;
+  private byte[] payload;
+
+  @Setup
+  public void setUp() throws IOException
+  {
+    cover = BenchmarkImages.load(image);
+    codec = new PayloadCodec(bits);
+    payload = new byte[PAYLOAD_MB << 20];
+    new Random(42).nextBytes(payload);
+    codec.encode(new ByteArrayInputStream(payload), cover);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PAYLOAD_MB)
+  public long encode() throws IOException
+  {
+    return codec.encode(new ByteArrayInputStream(payload), cover);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PAYLOAD_MB)
+  public long decode() throws IOException
+  {
+    return codec.decode(cover, OutputStream.nullOutputStream());
+  }
+}
@@ -0,0 +1,94 @@
+package imageapp.bench;
+
+import imageapp.Picture;
+import imageapp.Pixel;
+import imageapp.PixelCursor;
+
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the ways of reading and writing single pixels: the
+ * Pixel[][] from getPixels2D, Pixel.getColor/setColor, a PixelCursor and
+ * the bulk row methods.  Each benchmark touches every pixel once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class PixelAccessBenchmark
+{
+  @Param({"lib/beach.jpg", "lib2/bird.png", "synthetic-1mp", "synthetic-12mp", "synthetic-50mp"})
+  public String image;
+
+  private Picture picture;
+
+  @Setup
+  public void setUp()
+  {
+    picture = BenchmarkImages.load(image);
+  }
+
+  @Benchmark
+  public Pixel[][] getPixels2D()
+  {
+    return picture.getPixels2D();
+  }
+
+  @Benchmark
+  public long pixelGetColor()
+  {
+    long sum = 0;
+    PixelCursor pixel = picture.getPixelCursor();
+    while (pixel.next())
+      sum += pixel.getColor().getRGB();
+    return sum;
+  }
+
+  @Benchmark
+  public void pixelSetColor()
+  {
+    Color color = Color.orange;
+    PixelCursor pixel = picture.getPixelCursor();
+    while (pixel.next())
+      pixel.setColor(color);
+  }
+
+  @Benchmark
+  public long cursorGetRed()
+  {
+    long sum = 0;
+    PixelCursor pixel = picture.getPixelCursor();
+    while (pixel.next())
+      sum += pixel.getRed();
+    return sum;
+  }
+
+  @Benchmark
+  public long rowGetRGB()
+  {
+    long sum = 0;
+    int[] row = null;
+    for (int y = 0; y < picture.getHeight(); y++)
+    {
+      row = picture.getRow(y, row);
+      for (int x = 0; x < picture.getWidth(); x++)
+        sum += Pixel.getRed(row[x]);
+    }
+    return sum;
+  }
+}
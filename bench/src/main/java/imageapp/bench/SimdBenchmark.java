@@ -0,0 +1,143 @@
+package imageapp.bench;
+
+import imageapp.ImageApp;
+import imageapp.KernelBackend;
+import imageapp.Picture;
+import imageapp.PointKernel;
+import imageapp.Steganography;
+
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the scalar and Vector API kernels of the simple color
+ * filters (see KernelBackend), run over all the pixels of a picture as
+ * one int array on one thread so only the loop is measured.  The
+ * megapixels counter is the speed in MP/s.  The forks add the
+ * jdk.incubator.vector module so both backends can run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules=jdk.incubator.vector"})
+public class SimdBenchmark
+{
+  @Param({"lib/beach.jpg", "lib2/bird.png", "synthetic-1mp", "synthetic-12mp", "synthetic-24mp",
+          "synthetic-50mp"})
+  public String image;
+
+  @Param({"SCALAR", "VECTOR"})
+  public KernelBackend backend;
+
+  private int[] pixels;
+  private PointKernel setLow;
+  private PointKernel clearLowFour;
+  private PointKernel revealFour;
+
+  /** Counts the pixels done, so JMH reports them per second */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Pixels
+  {
+    public double megapixels;
+
+    @Setup(Level.Iteration)
+    public void reset()
+    {
+      megapixels = 0;
+    }
+  }
+
+  @Setup
+  public void setUp()
+  {
+    KernelBackend.setActive(backend);
+    Picture picture = BenchmarkImages.load(image);
+    int width = picture.getWidth();
+    pixels = picture.getRGB(0, 0, width, picture.getHeight(), null, 0, width);
+    setLow = Steganography.TWO_BITS.setLowKernel(Color.green);
+    clearLowFour = Steganography.forBits(4).clearLowKernel();
+    revealFour = Steganography.forBits(4).revealKernel();
+  }
+
+  /**
+   * Method to run a kernel over all the pixels and count them
+   * @param kernel the kernel
+   * @param counter the counter
+   */
+  private void run(PointKernel kernel, Pixels counter)
+  {
+    kernel.apply(pixels, 0, pixels.length);
+    counter.megapixels += pixels.length / 1e6;
+  }
+
+  @Benchmark
+  public void grayscale(Pixels counter)
+  {
+    run(ImageApp.GRAYSCALE, counter);
+  }
+
+  @Benchmark
+  public void negativeColor(Pixels counter)
+  {
+    run(ImageApp.NEGATIVE_COLOR, counter);
+  }
+
+  @Benchmark
+  public void changeColor(Pixels counter)
+  {
+    run(ImageApp.CHANGE_COLOR, counter);
+  }
+
+  @Benchmark
+  public void zeroBlue(Pixels counter)
+  {
+    run(Picture.ZERO_BLUE, counter);
+  }
+
+  @Benchmark
+  public void clearLow(Pixels counter)
+  {
+    run(Picture.CLEAR_LOW, counter);
+  }
+
+  @Benchmark
+  public void setLow(Pixels counter)
+  {
+    run(setLow, counter);
+  }
+
+  @Benchmark
+  public void reveal(Pixels counter)
+  {
+    run(Picture.REVEAL, counter);
+  }
+
+  @Benchmark
+  public void clearLowFourBits(Pixels counter)
+  {
+    run(clearLowFour, counter);
+  }
+
+  @Benchmark
+  public void revealFourBits(Pixels counter)
+  {
+    run(revealFour, counter);
+  }
+}
@@ -0,0 +1,121 @@
+package imageapp.bench;
+
+import imageapp.ColorDistance;
+import imageapp.Picture;
+import imageapp.PixelMask;
+import imageapp.Point;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for hiding pictures and comparing pictures.  hide uses
+ * 2 bits of each color and hideFourBits uses 4.  isSame runs
+ * on two equal copies, which is its slowest case since it can't stop
+ * early.  findDifferences runs on a picture and a copy with a secret
+ * picture the same size hidden in it, so nearly every pixel is a
+ * difference.  findDifferenceMask does the same comparison as a bit
+ * mask, and colorDifference colors that mask without making points.
+ * findDifferenceMaskTolerance only counts colors more than 3 apart in
+ * L*a*b* (the hidden bits change each color by at most 3 of 255).
+ * findDifferenceMaskSmallEdit changes one pixel of a copy and compares
+ * it again, which only rehashes and rescans the tile that changed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class SteganographyBenchmark
+{
+  @Param({"lib/beach.jpg", "lib2/bird.png", "synthetic-1mp", "synthetic-12mp", "synthetic-50mp"})
+  public String image;
+
+  private Picture cover;
+  private Picture copy;
+  private Picture same;
+  private Picture secret;
+  private Picture hidden;
+  private Picture edited;
+  private int edits;
+
+  @Setup
+  public void setUp()
+  {
+    cover = BenchmarkImages.load(image);
+    copy = new Picture(cover);
+    same = new Picture(cover);
+    secret = BenchmarkImages.synthetic(cover.getWidth() * (double) cover.getHeight() / 1e6);
+    hidden = new Picture(cover);
+    hidden.hide(secret);
+    edited = new Picture(cover);
+  }
+
+  @Benchmark
+  public void hide()
+  {
+    copy.hide(secret);
+  }
+
+  @Benchmark
+  public void hideFourBits()
+  {
+    copy.hide(secret, 0, 0, 4);
+  }
+
+  @Benchmark
+  public void unhide()
+  {
+    copy.unhide();
+  }
+
+  @Benchmark
+  public boolean isSame()
+  {
+    return Picture.isSame(cover, same);
+  }
+
+  @Benchmark
+  public ArrayList<Point> findDifferences()
+  {
+    return Picture.findDifferences(cover, hidden);
+  }
+
+  @Benchmark
+  public PixelMask findDifferenceMask()
+  {
+    return Picture.findDifferenceMask(cover, hidden);
+  }
+
+  @Benchmark
+  public PixelMask findDifferenceMaskTolerance()
+  {
+    return Picture.findDifferenceMask(cover, hidden, ColorDistance.LAB, 3);
+  }
+
+  @Benchmark
+  public Picture colorDifference()
+  {
+    return Picture.colorDifference(hidden, Picture.findDifferenceMask(cover, hidden));
+  }
+
+  @Benchmark
+  public PixelMask findDifferenceMaskSmallEdit()
+  {
+    edited.setBasicPixel(edited.getWidth() / 2, edited.getHeight() / 2, ++edits);
+    return Picture.findDifferenceMask(cover, edited);
+  }
+}
@@ -0,0 +1,101 @@
+package imageapp.bench;
+
+import imageapp.ImageApp;
+import imageapp.Picture;
+import imageapp.RasterTransform;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for rotations and flips, comparing the Pixel[][] methods in
+ * ImageApp with RasterTransform.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class TransformBenchmark
+{
+  @Param({"lib/beach.jpg", "lib2/bird.png", "synthetic-1mp", "synthetic-12mp", "synthetic-50mp"})
+  public String image;
+
+  private Picture picture;
+  private PrintStream out;
+
+  @Setup
+  public void setUp()
+  {
+    picture = BenchmarkImages.load(image);
+    out = BenchmarkImages.silence();
+  }
+
+  @TearDown
+  public void tearDown()
+  {
+    System.setOut(out);
+  }
+
+  @Benchmark
+  public Picture rotate90Pixels()
+  {
+    return ImageApp.pixelsToPicture(ImageApp.rotate90(picture.getPixels2D()));
+  }
+
+  @Benchmark
+  public Picture rotateNeg90Pixels()
+  {
+    return ImageApp.pixelsToPicture(ImageApp.rotateNeg90(picture.getPixels2D()));
+  }
+
+  @Benchmark
+  public Picture rotateClockwise()
+  {
+    return RasterTransform.rotateClockwise(picture);
+  }
+
+  @Benchmark
+  public Picture rotateCounterclockwise()
+  {
+    return RasterTransform.rotateCounterclockwise(picture);
+  }
+
+  @Benchmark
+  public Picture rotate180()
+  {
+    return RasterTransform.rotate180(picture);
+  }
+
+  @Benchmark
+  public void rotate180InPlace()
+  {
+    RasterTransform.rotate180InPlace(picture);
+  }
+
+  @Benchmark
+  public void flipHorizontalInPlace()
+  {
+    RasterTransform.flipHorizontalInPlace(picture);
+  }
+
+  @Benchmark
+  public void flipVerticalInPlace()
+  {
+    RasterTransform.flipVerticalInPlace(picture);
+  }
+}
@@ -0,0 +1,599 @@
+package imageapp;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * The headless batch mode of ImageApp.  It runs a chain of operations on
+ * every image in a directory (or every file that matches a glob) and
+ * writes the results to an output directory, keeping the subdirectories
+ * a recursive glob found them in:
+ *
+ *   ImageApp --batch lib --ops grayscale,rotate90 --out out
+ *   ImageApp --batch "lib/*.jpg" --ops insert:lib2/bird.png:10:20 --out out --threads 4
+ *
+ * The files go through an ImagePipeline: --decode-threads read files,
+ * --threads run the operations and --encode-threads write the results,
+ * with at most --in-flight pictures in memory at once (by default one
+ * for each thread).  The filters themselves still split big pictures
+ * into bands with the TileEngine.  Nothing here opens a window or
+ * prints from inside an operation; one line of timings is printed per
+ * file as the files finish and the total throughput at the end.
+ */
+public final class BatchProcessor
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** how to run the batch mode */
+  public static final String USAGE =
+    "usage: ImageApp --batch <dir or glob> --ops <op,op,...> --out <dir> "
+    + "[--format ext]\n"
+    + "       [--threads n] [--decode-threads n] [--encode-threads n] [--in-flight n]\n"
+    + "  ops: recolor, negative, grayscale, rotate90, rotate180, rotate270,\n"
+    + "       sharpen, edges, blur:<sigma>, brightness:<n>, contrast:<f>,\n"
+    + "       gamma:<g>,\n"
+    + "       insert:<file>:<row>:<col>  (rotations are clockwise)";
+
+  /** the files to process, in order */
+  private final List<File> inputs;
+
+  /** the file each input is written to, in the same order */
+  private final List<File> outputs;
+
+  /** the operations to run on each picture, in order */
+  private final List<Operation> operations;
+
+  /** the directory the results are written to */
+  private final File outputDir;
+
+  /** the pipeline that loads, processes and writes the files */
+  private final ImagePipeline pipeline;
+
+  /////////////////////// Types /////////////////////////
+
+  /**
+   * One step of the operation chain.  The step may change the picture
+   * it is given and return it, or return a new picture.
+   */
+  public static final class Operation
+  {
+    /** the name the step was given on the command line */
+    private final String name;
+
+    /** the work the step does */
+    private final UnaryOperator<Picture> step;
+
+    /**
+     * Constructor that takes the name and the work of the step
+     * @param name the name of the step
+     * @param step the work the step does
+     */
+    public Operation(String name, UnaryOperator<Picture> step)
+    {
+      this.name = name;
+      this.step = step;
+    }
+
+    /**
+     * Method to run the step
+     * @param picture the picture to work on
+     * @return the resulting picture
+     */
+    public Picture apply(Picture picture) { return step.apply(picture); }
+
+    /**
+     * Method to get the name of the step
+     * @return the name given on the command line
+     */
+    public String toString() { return name; }
+  }
+
+  /** The timings for one file */
+  private static final class Result
+  {
+    File input;
+    File output;
+    Picture picture;
+    int width;
+    int height;
+    long loadNanos;
+    long opsNanos;
+    long writeNanos;
+    Throwable error;
+  }
+
+  /////////////////////// Constructors /////////////////////////
+
+  /**
+   * Constructor that takes everything a batch needs
+   * @param inputs the files to process
+   * @param operations the operations to run on each picture
+   * @param outputDir the directory to write the results to
+   * @param pipeline the pipeline to run the files through
+   * @param format the format to write or null to keep the input's
+   * @throws IllegalArgumentException if two inputs would be written to
+   * the same output file
+   */
+  public BatchProcessor(List<File> inputs, List<Operation> operations,
+                        File outputDir, ImagePipeline pipeline, String format)
+  {
+    this.inputs = new ArrayList<File>(inputs);
+    this.outputs = outputFiles(this.inputs, outputDir, format);
+    this.operations = new ArrayList<Operation>(operations);
+    this.outputDir = outputDir;
+    this.pipeline = pipeline;
+  }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to run the batch mode from the command line arguments that
+   * follow --batch
+   * @param args the arguments after --batch
+   * @return the exit status: 0 if every file worked, 1 if some failed
+   * and 2 if the arguments were wrong
+   */
+  public static int run(String[] args)
+  {
+    String input = null;
+    String ops = null;
+    String out = null;
+    String format = null;
+    int decodeThreads = ImagePipeline.DEFAULT_DECODE_THREADS;
+    int processThreads = ImagePipeline.DEFAULT_PROCESS_THREADS;
+    int encodeThreads = ImagePipeline.DEFAULT_ENCODE_THREADS;
+    int inFlight = 0;
+    try
+    {
+      for (int i = 0; i < args.length; i++)
+      {
+        String arg = args[i];
+        if (arg.equals("--ops"))
+          ops = args[++i];
+        else if (arg.equals("--out"))
+          out = args[++i];
+        else if (arg.equals("--threads"))
+          processThreads = Integer.parseInt(args[++i]);
+        else if (arg.equals("--decode-threads"))
+          decodeThreads = Integer.parseInt(args[++i]);
+        else if (arg.equals("--encode-threads"))
+          encodeThreads = Integer.parseInt(args[++i]);
+        else if (arg.equals("--in-flight"))
+          inFlight = Integer.parseInt(args[++i]);
+        else if (arg.equals("--format"))
+          format = args[++i];
+        else if (!arg.startsWith("--") && input == null)
+          input = arg;
+        else
+          throw new IllegalArgumentException("unknown argument: " + arg);
+      }
+      if (input == null || ops == null || out == null)
+        throw new IllegalArgumentException("an input, --ops and --out are needed");
+
+      List<File> files = findInputs(input);
+      if (files.isEmpty())
+        throw new IllegalArgumentException("no images found for " + input);
+      if (inFlight == 0)
+        inFlight = decodeThreads + processThreads + encodeThreads;
+      List<Operation> operations = parseOperations(ops);
+      try (ImagePipeline pipeline = new ImagePipeline(decodeThreads, processThreads,
+                                                      encodeThreads, inFlight))
+      {
+        BatchProcessor batch = new BatchProcessor(files, operations, new File(out),
+                                                  pipeline, format);
+        return batch.process() == files.size() ? 0 : 1;
+      }
+    }
+    catch (ArrayIndexOutOfBoundsException ex)
+    {
+      System.err.println("missing value after " + args[args.length - 1]);
+    }
+    catch (IllegalArgumentException | IOException ex)
+    {
+      System.err.println(ex.getMessage());
+    }
+    System.err.println(USAGE);
+    return 2;
+  }
+
+  /**
+   * Method to turn an operation chain like grayscale,rotate90 into
+   * operations.  An insert step loads its picture once here and every
+   * file shares it (it is only read).
+   * @param chain the operation names separated by commas
+   * @return the operations in order
+   * @throws IOException if the picture for an insert can't be loaded
+   */
+  public static List<Operation> parseOperations(String chain) throws IOException
+  {
+    List<Operation> operations = new ArrayList<Operation>();
+    for (String name : chain.split(","))
+    {
+      name = name.trim();
+      if (name.isEmpty())
+        continue;
+      operations.add(parseOperation(name));
+    }
+    if (operations.isEmpty())
+      throw new IllegalArgumentException("the operation chain is empty");
+    return operations;
+  }
+
+  /**
+   * Method to make one operation from its name
+   * @param name the name of the operation
+   * @return the operation
+   * @throws IOException if the picture for an insert can't be loaded
+   */
+  private static Operation parseOperation(String name) throws IOException
+  {
+    switch (name.toLowerCase(Locale.ROOT))
+    {
+      case "recolor":
+        return new Operation(name, p -> { TileEngine.apply(p, ImageApp.CHANGE_COLOR); return p; });
+      case "negative":
+        return new Operation(name, p -> { TileEngine.apply(p, ImageApp.NEGATIVE_COLOR); return p; });
+      case "grayscale":
+        return new Operation(name, p -> { TileEngine.apply(p, ImageApp.GRAYSCALE); return p; });
+      case "rotate90":
+        return new Operation(name, RasterTransform::rotateClockwise);
+      case "rotate180":
+        return new Operation(name, p -> { RasterTransform.rotate180InPlace(p); return p; });
+      case "rotate270":
+        return new Operation(name, RasterTransform::rotateCounterclockwise);
+      case "sharpen":
+        return new Operation(name, p -> { p.sharpen(); return p; });
+      case "edges":
+        return new Operation(name, p -> { p.edgeMagnitude(EdgeOperator.SOBEL); return p; });
+      default:
+        break;
+    }
+    String lower = name.toLowerCase(Locale.ROOT);
+    if (lower.startsWith("blur:"))
+    {
+      ConvolutionKernel kernel = ConvolutionKernel.gaussian(parseNumber(name, "blur:<sigma>"));
+      return new Operation(name, p -> { p.convolve(kernel, BorderMode.CLAMP); return p; });
+    }
+    if (lower.startsWith("brightness:"))
+      return lutOperation(name, ChannelLut.brightness((int) parseNumber(name, "brightness:<n>")));
+    if (lower.startsWith("contrast:"))
+      return lutOperation(name, ChannelLut.contrast(parseNumber(name, "contrast:<f>")));
+    if (lower.startsWith("gamma:"))
+      return lutOperation(name, ChannelLut.gamma(parseNumber(name, "gamma:<g>")));
+    if (!name.startsWith("insert:"))
+      throw new IllegalArgumentException("unknown operation: " + name);
+
+    // insert:<file>:<row>:<col>, read from the right so the file may have a colon
+    int colSep = name.lastIndexOf(':');
+    int rowSep = name.lastIndexOf(':', colSep - 1);
+    if (rowSep <= "insert".length())
+      throw new IllegalArgumentException("insert needs insert:<file>:<row>:<col>: " + name);
+    String fileName = name.substring("insert:".length(), rowSep);
+    int row;
+    int col;
+    try
+    {
+      row = Integer.parseInt(name.substring(rowSep + 1, colSep));
+      col = Integer.parseInt(name.substring(colSep + 1));
+    }
+    catch (NumberFormatException ex)
+    {
+      throw new IllegalArgumentException("insert needs a whole number row and column: " + name);
+    }
+    Picture small = new Picture();
+    small.loadOrFail(fileName);
+    return new Operation(name, p -> { ImageApp.insertPixels(p, small, row, col); return p; });
+  }
+
+  /**
+   * Method to get the number after the colon of an operation name
+   * @param name the name of the operation
+   * @param form how the operation is written, for the error message
+   * @return the number
+   */
+  static double parseNumber(String name, String form)
+  {
+    try
+    {
+      return Double.parseDouble(name.substring(name.indexOf(':') + 1));
+    }
+    catch (NumberFormatException ex)
+    {
+      throw new IllegalArgumentException(form.substring(0, form.indexOf(':'))
+                                         + " needs " + form + ": " + name);
+    }
+  }
+
+  /**
+   * Method to make an operation that runs a lookup table
+   * @param name the name of the operation
+   * @param lut the table
+   * @return the operation
+   */
+  private static Operation lutOperation(String name, ChannelLut lut)
+  {
+    return new Operation(name, p -> { lut.apply(p); return p; });
+  }
+
+  /**
+   * Method to find the image files for an input.  The input may be a
+   * directory (every image file directly in it), a single file, or a
+   * glob like lib/*.jpg or photos/**.png.
+   * @param input the directory, file or glob
+   * @return the files found, sorted by path
+   * @throws IOException if a directory can't be read
+   */
+  public static List<File> findInputs(String input) throws IOException
+  {
+    File file = new File(input);
+    if (file.isFile())
+      return Collections.singletonList(file);
+
+    Path base;
+    PathMatcher matcher;
+    int depth;
+    if (file.isDirectory())
+    {
+      base = file.toPath();
+      matcher = null;
+      depth = 1;
+    }
+    else
+    {
+      String glob = input.replace(File.separatorChar, '/');
+      int firstWild = indexOfWildcard(glob);
+      if (firstWild < 0)
+        throw new IllegalArgumentException("not a file, directory or glob: " + input);
+      int lastSep = glob.lastIndexOf('/', firstWild);
+      base = Paths.get(lastSep < 0 ? "." : glob.substring(0, lastSep + 1));
+      String pattern = glob.substring(lastSep + 1);
+      matcher = base.getFileSystem().getPathMatcher("glob:" + pattern);
+      depth = pattern.contains("/") || pattern.contains("**") ? Integer.MAX_VALUE : 1;
+    }
+
+    Set<String> suffixes = new HashSet<String>();
+    for (String suffix : ImageIO.getReaderFileSuffixes())
+      suffixes.add(suffix.toLowerCase(Locale.ROOT));
+
+    List<File> files = new ArrayList<File>();
+    try (Stream<Path> paths = Files.walk(base, depth))
+    {
+      paths.filter(Files::isRegularFile)
+           .filter(path -> matcher == null
+                   ? suffixes.contains(extensionOf(path.getFileName().toString()))
+                   : matcher.matches(base.relativize(path)))
+           .sorted()
+           .forEach(path -> files.add(path.toFile()));
+    }
+    return files;
+  }
+
+  /**
+   * Method to work out the output file for each input.  Each result
+   * keeps its path relative to the deepest directory that holds all the
+   * inputs, so photos/a/x.jpg and photos/b/x.jpg from photos/** go to
+   * out/a/x.jpg and out/b/x.jpg.  Inputs that still map to one file
+   * (like x.jpg and x.png with --format png) are an error, so no result
+   * silently overwrites another.
+   * @param inputs the files to process
+   * @param outputDir the directory to write the results to
+   * @param format the format to write or null to keep the input's
+   * @return the output files, in the same order as the inputs
+   * @throws IllegalArgumentException if two inputs map to the same file
+   */
+  static List<File> outputFiles(List<File> inputs, File outputDir, String format)
+  {
+    Path base = null;
+    for (File input : inputs)
+    {
+      Path parent = input.toPath().toAbsolutePath().normalize().getParent();
+      if (base == null)
+        base = parent;
+      while (!parent.startsWith(base))
+        base = base.getParent();
+    }
+
+    List<File> outputs = new ArrayList<File>();
+    Map<Path, File> taken = new HashMap<Path, File>();
+    for (File input : inputs)
+    {
+      Path path = input.toPath().toAbsolutePath().normalize();
+      String name = path.getFileName().toString();
+      int posDot = name.lastIndexOf('.');
+      String baseName = posDot < 0 ? name : name.substring(0, posDot);
+      String type = format != null ? format : extensionOf(name);
+      Path relative = base.relativize(path.getParent()).resolve(baseName + "." + type);
+      File output = new File(outputDir, relative.toString());
+      File other = taken.put(output.toPath().normalize(), input);
+      if (other != null)
+        throw new IllegalArgumentException(other.getPath() + " and " + input.getPath()
+                                           + " would both be written to " + output.getPath());
+      outputs.add(output);
+    }
+    return outputs;
+  }
+
+  /**
+   * Method to find the first glob wildcard in a string
+   * @param glob the string to look in
+   * @return the index of the first *, ?, [ or { or -1 if there is none
+   */
+  private static int indexOfWildcard(String glob)
+  {
+    for (int i = 0; i < glob.length(); i++)
+    {
+      if ("*?[{".indexOf(glob.charAt(i)) >= 0)
+        return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Method to get the lower case extension of a file name
+   * @param fileName the file name
+   * @return the part after the last dot or "" if there is none
+   */
+  private static String extensionOf(String fileName)
+  {
+    int posDot = fileName.lastIndexOf('.');
+    return posDot < 0 ? "" : fileName.substring(posDot + 1).toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Method to process every input file and print the timings.  The
+   * files go through the pipeline's decode, process and encode stages,
+   * so one file is read while another is filtered and a third written.
+   * Submitting blocks while the pipeline is full, which keeps the
+   * number of pictures in memory flat however many files there are.
+   * @return the number of files that were processed without errors
+   * @throws IOException if the output directory can't be made
+   */
+  public int process() throws IOException
+  {
+    Files.createDirectories(outputDir.toPath());
+    System.out.println("Batch: " + inputs.size() + " images, ops " + operations
+                       + ", threads " + pipeline.getDecodeThreads() + " decode / "
+                       + pipeline.getProcessThreads() + " process / "
+                       + pipeline.getEncodeThreads() + " encode, "
+                       + pipeline.getMaxInFlight() + " in flight -> " + outputDir);
+
+    long start = System.nanoTime();
+    List<CompletableFuture<Result>> jobs = new ArrayList<CompletableFuture<Result>>();
+    for (int i = 0; i < inputs.size(); i++)
+    {
+      Result result = new Result();
+      result.input = inputs.get(i);
+      result.output = outputs.get(i);
+      jobs.add(pipeline.run(() -> load(result), this::applyOperations, this::write)
+               .handle((done, ex) -> report(result, ex)));
+    }
+
+    int succeeded = 0;
+    long pixels = 0;
+    for (CompletableFuture<Result> job : jobs)
+    {
+      Result result = job.join();
+      if (result.error == null)
+      {
+        succeeded++;
+        pixels += (long) result.width * result.height;
+      }
+    }
+
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.out.printf("Processed %d of %d images in %.2f s: %.2f images/sec, %.2f MP/sec%n",
+                      succeeded, inputs.size(), seconds,
+                      succeeded / seconds, pixels / 1e6 / seconds);
+    return succeeded;
+  }
+
+  /**
+   * Method for the decode stage: load the input file
+   * @param result the job for the file
+   * @return the job with its picture loaded
+   * @throws IOException if the file can't be read
+   */
+  private Result load(Result result) throws IOException
+  {
+    long start = System.nanoTime();
+    Picture picture = new Picture();
+    picture.loadOrFail(result.input.getPath(), false);
+    result.picture = picture;
+    result.width = picture.getWidth();
+    result.height = picture.getHeight();
+    result.loadNanos = System.nanoTime() - start;
+    return result;
+  }
+
+  /**
+   * Method for the process stage: run the operations on the picture
+   * @param result the job for the file
+   * @return the job with its picture processed
+   */
+  private Result applyOperations(Result result)
+  {
+    long start = System.nanoTime();
+    Picture picture = result.picture;
+    for (Operation operation : operations)
+      picture = operation.apply(picture);
+    result.picture = picture;
+    result.opsNanos = System.nanoTime() - start;
+    return result;
+  }
+
+  /**
+   * Method for the encode stage: write the picture to its output file
+   * (see outputFiles), then let go of the picture
+   * @param result the job for the file
+   * @return the finished job
+   */
+  private Result write(Result result)
+  {
+    long start = System.nanoTime();
+    try
+    {
+      Files.createDirectories(result.output.toPath().getParent());
+      ImagePipeline.writeImage(result.picture, result.output);
+    }
+    catch (IOException ex)
+    {
+      throw new CompletionException(ex);
+    }
+    result.picture = null;
+    result.writeNanos = System.nanoTime() - start;
+    return result;
+  }
+
+  /**
+   * Method to print the line for a finished file.  It is called on
+   * whichever stage thread finished the file, so it is synchronized
+   * to keep the lines whole.
+   * @param result the job for the file
+   * @param error the exception the job failed with or null
+   * @return the job
+   */
+  private synchronized Result report(Result result, Throwable error)
+  {
+    result.picture = null;
+    if (error != null)
+    {
+      result.error = error instanceof CompletionException && error.getCause() != null
+        ? error.getCause() : error;
+      System.out.println(result.input.getPath() + " FAILED: " + result.error);
+    }
+    else
+    {
+      System.out.printf("%-40s %5dx%-5d load %8.1f ms  ops %8.1f ms  write %8.1f ms  total %8.1f ms%n",
+                        result.input.getPath(), result.width, result.height,
+                        millis(result.loadNanos), millis(result.opsNanos),
+                        millis(result.writeNanos),
+                        millis(result.loadNanos + result.opsNanos + result.writeNanos));
+    }
+    return result;
+  }
+
+  /**
+   * Method to turn nanoseconds into milliseconds
+   * @param nanos the time in nanoseconds
+   * @return the time in milliseconds
+   */
+  private static double millis(long nanos) { return nanos / 1e6; }
+}
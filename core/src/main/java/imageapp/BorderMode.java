@@ -0,0 +1,44 @@
+package imageapp;
+
+/**
+ * What a convolution uses for the pixels past the edge of a picture.
+ * For a row (or column) of size n, position -1 is:
+ * CLAMP: position 0 (the edge pixel is repeated),
+ * MIRROR: position 1 (the picture is reflected without repeating the
+ * edge),
+ * WRAP: position n - 1 (the picture repeats like a tiled floor),
+ * ZERO: no pixel; it counts as 0 (black).
+ */
+public enum BorderMode
+{
+  CLAMP, MIRROR, WRAP, ZERO;
+
+  /**
+   * Method to find the position to read for a position that may be
+   * past the edge
+   * @param i the position (may be negative or at least size)
+   * @param size the number of positions (at least 1)
+   * @return the position to read, or -1 for a 0 (ZERO only)
+   */
+  public int map(int i, int size)
+  {
+    if (i >= 0 && i < size)
+      return i;
+    switch (this)
+    {
+      case CLAMP:
+        return i < 0 ? 0 : size - 1;
+      case MIRROR:
+        if (size == 1)
+          return 0;
+        // reflect back and forth over a period of 2 * (size - 1)
+        int period = 2 * (size - 1);
+        int m = Math.floorMod(i, period);
+        return m < size ? m : period - m;
+      case WRAP:
+        return Math.floorMod(i, size);
+      default:
+        return -1;
+    }
+  }
+}
@@ -0,0 +1,349 @@
+package imageapp;
+
+import java.util.Arrays;
+
+/**
+ * Finds edges with the Canny method: thin lines one pixel wide along
+ * the places the gray level changes fast, not the two-pixel-neighbor
+ * test in Picture.edgeDetection.  The steps are:
+ * 1. make the picture gray and blur it with a Gaussian blur,
+ * 2. find how fast and which way it changes at each pixel (Sobel),
+ * 3. keep only the pixels that change faster than both neighbors
+ *    across the edge (non-maximum suppression),
+ * 4. keep the pixels that change faster than the high threshold, and
+ *    the ones over the low threshold that are joined to them
+ *    (hysteresis).
+ *
+ * Each step is done in parallel bands of rows with TileEngine.  The
+ * planes the steps use are kept in the detector and used again by the
+ * next picture the same size or smaller, so a detector used over and
+ * over doesn't make garbage.  That makes a detector safe for one
+ * thread at a time; detect is synchronized.
+ */
+public final class CannyEdgeDetector
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** a pixel that isn't an edge */
+  private static final byte NONE = 0;
+
+  /** a pixel over the low threshold, not yet joined to a strong one */
+  private static final byte WEAK = 1;
+
+  /** a pixel that is an edge */
+  private static final byte STRONG = 2;
+
+  /** directions across an edge: left-right, down-right, up-down, down-left */
+  private static final byte ACROSS = 0, DIAGONAL = 1, DOWN = 2, ANTI_DIAGONAL = 3;
+
+  /** tan(22.5 degrees) and tan(67.5 degrees), where the directions change */
+  private static final float TAN_22 = 0.41421356f, TAN_67 = 2.41421356f;
+
+  /** the Gaussian blur done first */
+  private final ConvolutionKernel blur;
+
+  /** the standard deviation of the blur in pixels */
+  private final double sigma;
+
+  /** the gradient length a weak edge pixel needs */
+  private final float low;
+
+  /** the gradient length a strong edge pixel needs */
+  private final float high;
+
+  /** the gray plane, and later the gradient lengths */
+  private float[] gray;
+
+  /** the blurred gray plane */
+  private float[] smooth;
+
+  /** the changes from left to right */
+  private float[] gradientX;
+
+  /** the changes from top to bottom */
+  private float[] gradientY;
+
+  /** the direction across the edge at each pixel */
+  private byte[] direction;
+
+  /** NONE, WEAK or STRONG for each pixel */
+  private byte[] state;
+
+  /** the pixels whose neighbors are still to be looked at */
+  private int[] worklist = new int[1024];
+
+  /////////////////////// Constructors /////////////////////////
+
+  /**
+   * Constructor that uses a blur of sigma 1.4 and thresholds of 20 and
+   * 50 (the gradient of a Sobel kernel on 0 to 255 gray goes up to about
+   * 1440)
+   */
+  public CannyEdgeDetector()
+  {
+    this(1.4, 20, 50);
+  }
+
+  /**
+   * Constructor that takes the blur and the thresholds
+   * @param sigma the standard deviation of the blur in pixels (more
+   * than 0)
+   * @param low the gradient length a pixel joined to an edge needs
+   * @param high the gradient length that starts an edge (at least low)
+   */
+  public CannyEdgeDetector(double sigma, double low, double high)
+  {
+    if (!(low >= 0) || !(high >= low))
+      throw new IllegalArgumentException("bad thresholds " + low + " and " + high);
+    this.blur = ConvolutionKernel.gaussian(sigma);
+    this.sigma = sigma;
+    this.low = (float) low;
+    this.high = (float) high;
+  }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to check if the detector uses a blur and thresholds
+   * @param sigma the standard deviation of the blur in pixels
+   * @param low the gradient length a pixel joined to an edge needs
+   * @param high the gradient length that starts an edge
+   * @return true if the detector finds the same edges as a new one
+   * made with these
+   */
+  public boolean hasSettings(double sigma, double low, double high)
+  {
+    return this.sigma == sigma && this.low == (float) low && this.high == (float) high;
+  }
+
+  /**
+   * Method to find the edges in a picture
+   * @param picture the picture
+   * @return a mask the size of the picture with the edge pixels set
+   */
+  public synchronized PixelMask detect(DigitalPicture picture)
+  {
+    int width = picture.getWidth();
+    int height = picture.getHeight();
+    allocate(width * height);
+
+    // 1. gray and blurred
+    Convolution.grayPlane(picture, gray);
+    Convolution.convolve(gray, smooth, width, height, blur, BorderMode.MIRROR);
+
+    // 2. how fast and which way it changes; the lengths go in gray
+    Convolution.convolve(smooth, gradientX, width, height, ConvolutionKernel.SOBEL_X,
+                         BorderMode.MIRROR);
+    Convolution.convolve(smooth, gradientY, width, height, ConvolutionKernel.SOBEL_Y,
+                         BorderMode.MIRROR);
+    float[] magnitude = gray;
+    TileEngine.forEachBand(width, height, (startRow, endRow) ->
+    {
+      for (int i = startRow * width; i < endRow * width; i++)
+      {
+        float gx = gradientX[i];
+        float gy = gradientY[i];
+        magnitude[i] = (float) Math.sqrt(gx * gx + gy * gy);
+        float ax = Math.abs(gx);
+        float ay = Math.abs(gy);
+        if (ay <= ax * TAN_22)
+          direction[i] = ACROSS;
+        else if (ay >= ax * TAN_67)
+          direction[i] = DOWN;
+        else
+          direction[i] = (gx > 0) == (gy > 0) ? DIAGONAL : ANTI_DIAGONAL;
+      }
+    });
+
+    // 3. thin the edges to the pixels that are the most on their line
+    TileEngine.forEachBand(width, height, (startRow, endRow) ->
+    {
+      for (int y = startRow; y < endRow; y++)
+      {
+        for (int x = 0, i = y * width; x < width; x++, i++)
+        {
+          float value = magnitude[i];
+          if (value < low)
+          {
+            state[i] = NONE;
+            continue;
+          }
+          int dx;
+          int dy;
+          switch (direction[i])
+          {
+            case ACROSS: dx = 1; dy = 0; break;
+            case DIAGONAL: dx = 1; dy = 1; break;
+            case DOWN: dx = 0; dy = 1; break;
+            default: dx = -1; dy = 1; break;
+          }
+          // ties go to the first of the two, so a flat ridge stays one pixel wide
+          if (value < at(magnitude, x + dx, y + dy, width, height)
+              || value <= at(magnitude, x - dx, y - dy, width, height))
+            state[i] = NONE;
+          else
+            state[i] = value >= high ? STRONG : WEAK;
+        }
+      }
+    });
+
+    // 4. follow the edges from the strong pixels, each band on its own,
+    // then across the bands from the strong pixels on their first and
+    // last rows
+    boolean[] bandEdge = new boolean[height];
+    TileEngine.forEachBand(width, height, (startRow, endRow) ->
+    {
+      bandEdge[startRow] = true;
+      bandEdge[endRow - 1] = true;
+      int[] band = new int[256];
+      for (int i = startRow * width; i < endRow * width; i++)
+      {
+        if (state[i] == STRONG)
+          band = follow(band, i, width, startRow, endRow);
+      }
+    });
+    for (int y = 0; y < height; y++)
+    {
+      if (!bandEdge[y])
+        continue;
+      for (int i = y * width; i < (y + 1) * width; i++)
+      {
+        if (state[i] == STRONG)
+          worklist = follow(worklist, i, width, 0, height);
+      }
+    }
+
+    PixelMask mask = new PixelMask(width, height);
+    TileEngine.forEachBand(width, height, (startRow, endRow) ->
+    {
+      for (int y = startRow; y < endRow; y++)
+      {
+        for (int x = 0, i = y * width; x < width; x++, i++)
+        {
+          if (state[i] == STRONG)
+            mask.set(x, y);
+        }
+      }
+    });
+    return mask;
+  }
+
+  /**
+   * Method to make sure the planes hold a number of pixels
+   * @param pixels the number of pixels
+   */
+  private void allocate(int pixels)
+  {
+    if (gray != null && gray.length >= pixels)
+      return;
+    gray = new float[pixels];
+    smooth = new float[pixels];
+    gradientX = new float[pixels];
+    gradientY = new float[pixels];
+    direction = new byte[pixels];
+    state = new byte[pixels];
+  }
+
+  /**
+   * Method to get a value of a plane, or 0 past its edges
+   * @param plane the plane
+   * @param x the x
+   * @param y the y
+   * @param width the width of the plane
+   * @param height the height of the plane
+   * @return the value
+   */
+  private static float at(float[] plane, int x, int y, int width, int height)
+  {
+    if (x < 0 || x >= width || y < 0 || y >= height)
+      return 0;
+    return plane[y * width + x];
+  }
+
+  /**
+   * Method to put a pixel on a worklist, making it bigger if it is full
+   * @param list the worklist
+   * @param size the number of pixels on it
+   * @param index the pixel (y * width + x)
+   * @return the worklist (a new one if it had to grow)
+   */
+  private static int[] push(int[] list, int size, int index)
+  {
+    if (size == list.length)
+      list = Arrays.copyOf(list, size * 2);
+    list[size] = index;
+    return list;
+  }
+
+  /**
+   * Method to make the weak pixels joined to a strong pixel strong, in
+   * rows startRow to endRow
+   * @param list the worklist to use (its contents don't matter)
+   * @param start the strong pixel (y * width + x)
+   * @param width the width of the plane
+   * @param startRow the first row to look at
+   * @param endRow the row after the last one to look at
+   * @return the worklist (a new one if it had to grow)
+   */
+  private int[] follow(int[] list, int start, int width, int startRow, int endRow)
+  {
+    list[0] = start;
+    int size = 1;
+    while (size > 0)
+    {
+      int index = list[--size];
+      int x = index % width;
+      int y = index / width;
+      for (int ny = Math.max(startRow, y - 1); ny <= Math.min(endRow - 1, y + 1); ny++)
+      {
+        for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+        {
+          int neighbor = ny * width + nx;
+          if (state[neighbor] == WEAK)
+          {
+            state[neighbor] = STRONG;
+            list = push(list, size++, neighbor);
+          }
+        }
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Method to draw the edges of a mask into a picture the way
+   * Picture.edgeDetection does: black on the edges and white everywhere
+   * else.  Alpha is kept.
+   * @param mask the edges
+   * @param target the picture to draw in (the same size as the mask)
+   */
+  public static void render(PixelMask mask, DigitalPicture target)
+  {
+    int width = target.getWidth();
+    if (mask.getWidth() != width || mask.getHeight() != target.getHeight())
+      throw new IllegalArgumentException("the mask is " + mask.getWidth() + "x"
+                                         + mask.getHeight() + " but the picture is "
+                                         + width + "x" + target.getHeight());
+    TileEngine.forEachBand(width, target.getHeight(), (startRow, endRow) ->
+    {
+      int[] row = new int[width];
+      for (int y = startRow; y < endRow; y++)
+      {
+        target.getRGB(0, y, width, 1, row, 0, width);
+        for (int x = 0; x < width; x++)
+          row[x] = (row[x] & 0xff000000) | (mask.get(x, y) ? 0 : 0x00ffffff);
+        target.setRGB(0, y, width, 1, row, 0, width);
+      }
+    });
+  }
+
+  /**
+   * Method to return a string with the blur and the thresholds
+   * @return a string with information about the detector
+   */
+  public String toString()
+  {
+    return "CannyEdgeDetector sigma " + sigma + " thresholds " + low + " and " + high;
+  }
+}
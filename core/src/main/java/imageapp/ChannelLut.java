@@ -0,0 +1,343 @@
+package imageapp;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A point operation that changes each color of a pixel on its own,
+ * looked up in a table: 256 bytes for red, 256 for green and 256 for
+ * blue.  Any mapping from a color value to a new value (negative,
+ * brightness, contrast, gamma, levels, clearing the low bits, ...) is
+ * worked out for all 256 values once, when the table is made, so a
+ * pixel costs three lookups however much math went into the mapping.
+ * Alpha is never changed.
+ *
+ * Two tables run one after the other are the same as one table, so
+ * andThen with another ChannelLut makes a single table instead of a
+ * chain.  apply runs a table over a picture's int array in place, in
+ * parallel bands, without making any arrays.
+ */
+public final class ChannelLut implements PointKernel
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** the table that changes nothing */
+  public static final ChannelLut IDENTITY = of(value -> value);
+
+  /** the table that makes a photographic negative (255 - value) */
+  public static final ChannelLut NEGATIVE = of(value -> 255 - value);
+
+  /** the table that sets the blue to 0 */
+  public static final ChannelLut ZERO_BLUE = of(value -> value, value -> value, value -> 0);
+
+  /** the new red for each old red */
+  private final byte[] red;
+
+  /** the new green for each old green */
+  private final byte[] green;
+
+  /** the new blue for each old blue */
+  private final byte[] blue;
+
+  /////////////////////// Constructors /////////////////////////
+
+  /**
+   * Constructor that takes the three tables (they are kept, not copied)
+   * @param red the new red for each old red
+   * @param green the new green for each old green
+   * @param blue the new blue for each old blue
+   */
+  private ChannelLut(byte[] red, byte[] green, byte[] blue)
+  {
+    this.red = red;
+    this.green = green;
+    this.blue = blue;
+  }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to make a table that maps red, green and blue the same way
+   * @param mapping the new value for each value from 0 to 255 (kept to
+   * 0 to 255)
+   * @return the new table
+   */
+  public static ChannelLut of(IntUnaryOperator mapping)
+  {
+    byte[] table = table(mapping);
+    return new ChannelLut(table, table, table);
+  }
+
+  /**
+   * Method to make a table that maps each color its own way
+   * @param red the new red for each red from 0 to 255
+   * @param green the new green for each green from 0 to 255
+   * @param blue the new blue for each blue from 0 to 255
+   * @return the new table
+   */
+  public static ChannelLut of(IntUnaryOperator red, IntUnaryOperator green,
+                              IntUnaryOperator blue)
+  {
+    return new ChannelLut(table(red), table(green), table(blue));
+  }
+
+  /**
+   * Method to work out one 256 entry table
+   * @param mapping the new value for each value
+   * @return the table
+   */
+  private static byte[] table(IntUnaryOperator mapping)
+  {
+    byte[] table = new byte[256];
+    for (int value = 0; value < 256; value++)
+      table[value] = (byte) clamp(mapping.applyAsInt(value));
+    return table;
+  }
+
+  /**
+   * Method to keep a value to 0 to 255
+   * @param value the value
+   * @return the value, 0 if it was less or 255 if it was more
+   */
+  private static int clamp(int value)
+  {
+    return value < 0 ? 0 : (value > 255 ? 255 : value);
+  }
+
+  /**
+   * Method to make a table that adds to every color
+   * @param amount the amount to add (less than 0 to darken)
+   * @return the new table
+   */
+  public static ChannelLut brightness(int amount)
+  {
+    return of(value -> value + amount);
+  }
+
+  /**
+   * Method to make a table that spreads the colors away from the middle
+   * (127.5) or pulls them toward it
+   * @param factor how much to spread (more than 1) or pull (less than 1)
+   * @return the new table
+   */
+  public static ChannelLut contrast(double factor)
+  {
+    return of(value -> (int) Math.round((value - 127.5) * factor + 127.5));
+  }
+
+  /**
+   * Method to make a gamma table: value is 255 * (value / 255) to the
+   * power 1 / gamma, so gamma more than 1 brightens the middle colors
+   * @param gamma the gamma (more than 0)
+   * @return the new table
+   */
+  public static ChannelLut gamma(double gamma)
+  {
+    return levels(0, 255, gamma, 0, 255);
+  }
+
+  /**
+   * Method to make a levels table like the one in photo editors: the
+   * colors from inBlack to inWhite are stretched to outBlack to
+   * outWhite, with a gamma in between; colors past inBlack and inWhite
+   * are kept to the ends
+   * @param inBlack the color that becomes outBlack
+   * @param inWhite the color that becomes outWhite (more than inBlack)
+   * @param gamma the gamma for the colors in between (more than 0)
+   * @param outBlack the darkest new color
+   * @param outWhite the brightest new color
+   * @return the new table
+   */
+  public static ChannelLut levels(int inBlack, int inWhite, double gamma,
+                                  int outBlack, int outWhite)
+  {
+    if (inWhite <= inBlack)
+      throw new IllegalArgumentException("inWhite must be more than inBlack: "
+                                         + inBlack + " " + inWhite);
+    if (!(gamma > 0))
+      throw new IllegalArgumentException("gamma must be more than 0: " + gamma);
+    return of(value ->
+    {
+      double t = Math.min(1, Math.max(0, (value - inBlack) / (double) (inWhite - inBlack)));
+      return (int) Math.round(Math.pow(t, 1 / gamma) * (outWhite - outBlack) + outBlack);
+    });
+  }
+
+  /**
+   * Method to make a table that clears the low bits of each color
+   * @param bits the number of low bits (0 to 8)
+   * @return the new table
+   */
+  public static ChannelLut clearLow(int bits)
+  {
+    int keep = ~((1 << bits) - 1);
+    return of(value -> value & keep);
+  }
+
+  /**
+   * Method to make a table that moves the low bits of each color to the
+   * top and clears the rest, like Steganography.reveal
+   * @param bits the number of low bits (1 to 8)
+   * @return the new table
+   */
+  public static ChannelLut reveal(int bits)
+  {
+    int low = (1 << bits) - 1;
+    return of(value -> (value & low) << (8 - bits));
+  }
+
+  /**
+   * Method to get the new red for a red
+   * @param value the old red (0 to 255)
+   * @return the new red
+   */
+  public int getRed(int value) { return red[value] & 0xff; }
+
+  /**
+   * Method to get the new green for a green
+   * @param value the old green (0 to 255)
+   * @return the new green
+   */
+  public int getGreen(int value) { return green[value] & 0xff; }
+
+  /**
+   * Method to get the new blue for a blue
+   * @param value the old blue (0 to 255)
+   * @return the new blue
+   */
+  public int getBlue(int value) { return blue[value] & 0xff; }
+
+  /**
+   * Method to compute the new value of one pixel
+   * @param argb the old pixel value (alpha, red, green, blue)
+   * @return the new pixel value
+   */
+  public int apply(int argb)
+  {
+    return (argb & 0xff000000) | ((red[(argb >> 16) & 0xff] & 0xff) << 16)
+      | ((green[(argb >> 8) & 0xff] & 0xff) << 8) | (blue[argb & 0xff] & 0xff);
+  }
+
+  /**
+   * Method to run the table over a run of pixels in an array
+   * @param pixels the pixels to change
+   * @param from the index of the first pixel
+   * @param to the index just past the last pixel
+   */
+  public void apply(int[] pixels, int from, int to)
+  {
+    byte[] r = red;
+    byte[] g = green;
+    byte[] b = blue;
+    for (int i = from; i < to; i++)
+    {
+      int argb = pixels[i];
+      pixels[i] = (argb & 0xff000000) | ((r[(argb >> 16) & 0xff] & 0xff) << 16)
+        | ((g[(argb >> 8) & 0xff] & 0xff) << 8) | (b[argb & 0xff] & 0xff);
+    }
+  }
+
+  /**
+   * Method to make a kernel that runs this table and then the next
+   * kernel.  If the next kernel is a ChannelLut too the result is one
+   * table.
+   * @param next the kernel to run after this one
+   * @return a kernel that does both in one step
+   */
+  public PointKernel andThen(PointKernel next)
+  {
+    if (next instanceof ChannelLut)
+      return andThen((ChannelLut) next);
+    return PointKernel.super.andThen(next);
+  }
+
+  /**
+   * Method to make the one table that does this table and then another
+   * @param next the table to run after this one
+   * @return the combined table
+   */
+  public ChannelLut andThen(ChannelLut next)
+  {
+    return new ChannelLut(compose(red, next.red), compose(green, next.green),
+                          compose(blue, next.blue));
+  }
+
+  /**
+   * Method to make the table for one table followed by another
+   * @param first the table run first
+   * @param second the table run on its results
+   * @return the combined table
+   */
+  private static byte[] compose(byte[] first, byte[] second)
+  {
+    byte[] table = new byte[256];
+    for (int value = 0; value < 256; value++)
+      table[value] = second[first[value] & 0xff];
+    return table;
+  }
+
+  /**
+   * Method to run the table over every pixel of a picture
+   * @param picture the picture to change
+   */
+  public void apply(DigitalPicture picture)
+  {
+    apply(picture, 0, 0, picture.getWidth(), picture.getHeight());
+  }
+
+  /**
+   * Method to run the table over a rectangle of a picture.  A picture
+   * stored as packed ints is changed right in its array, a band of rows
+   * at a time in parallel; the unused top 8 bits of a picture without
+   * transparency are left as they are.  Other pictures go through
+   * TileEngine.apply.
+   * @param picture the picture to change
+   * @param x the left x of the rectangle
+   * @param y the top y of the rectangle
+   * @param width the width of the rectangle
+   * @param height the height of the rectangle
+   */
+  public void apply(DigitalPicture picture, int x, int y, int width, int height)
+  {
+    if (width <= 0 || height <= 0)
+      return;
+    int pictureWidth = picture.getWidth();
+    if (x < 0 || y < 0 || x + width > pictureWidth || y + height > picture.getHeight())
+      throw new ArrayIndexOutOfBoundsException("Coordinate out of bounds!");
+    SimplePicture edited = picture instanceof SimplePicture ? (SimplePicture) picture : null;
+    int[] data = edited != null ? edited.editRasterData() : picture.getRasterData();
+    try
+    {
+      if (data == null)
+      {
+        TileEngine.apply(picture, this, x, y, width, height);
+        return;
+      }
+      TileEngine.forEachBand(width, height, (startRow, endRow) ->
+      {
+        for (int row = y + startRow; row < y + endRow; row++)
+        {
+          int from = row * pictureWidth + x;
+          apply(data, from, from + width);
+        }
+      });
+    }
+    finally
+    {
+      if (edited != null)
+        edited.endEdit();
+    }
+  }
+
+  /**
+   * Method to return a string that says what a table does to 0, 128 and
+   * 255
+   * @return a string with information about the table
+   */
+  public String toString()
+  {
+    return "ChannelLut red 0->" + getRed(0) + " 128->" + getRed(128) + " 255->" + getRed(255)
+      + ", green 0->" + getGreen(0) + " 128->" + getGreen(128) + " 255->" + getGreen(255)
+      + ", blue 0->" + getBlue(0) + " 128->" + getBlue(128) + " 255->" + getBlue(255);
+  }
+}
@@ -0,0 +1,165 @@
+package imageapp;
+
+/**
+ * Ways to measure how far apart two colors are, working on packed ints
+ * (alpha is ignored) so nothing has to make a Color.  Each one gives
+ * the square of the distance; code that only compares a distance to a
+ * tolerance compares the square to the tolerance squared (see
+ * squaredTolerance) and never takes a square root.
+ * EUCLIDEAN: the straight line between the red, green and blue values,
+ * like Pixel.colorDistance (0 to about 441).
+ * REDMEAN: red, green and blue weighted by how much red there is, which
+ * is closer to what people see and almost as cheap (0 to about 765).
+ * LAB: the CIE 1976 distance in L*a*b* (0 to about 259), the best of the
+ * three at matching what people see.  The sRGB to linear step and the
+ * cube root are looked up in tables.
+ */
+public enum ColorDistance
+{
+  EUCLIDEAN
+  {
+    public float squared(int rgb1, int rgb2)
+    {
+      int red = ((rgb1 >> 16) & 0xff) - ((rgb2 >> 16) & 0xff);
+      int green = ((rgb1 >> 8) & 0xff) - ((rgb2 >> 8) & 0xff);
+      int blue = (rgb1 & 0xff) - (rgb2 & 0xff);
+      return red * red + green * green + blue * blue;
+    }
+  },
+
+  REDMEAN
+  {
+    public float squared(int rgb1, int rgb2)
+    {
+      int red1 = (rgb1 >> 16) & 0xff;
+      int red2 = (rgb2 >> 16) & 0xff;
+      int redMean = (red1 + red2) >> 1;
+      int red = red1 - red2;
+      int green = ((rgb1 >> 8) & 0xff) - ((rgb2 >> 8) & 0xff);
+      int blue = (rgb1 & 0xff) - (rgb2 & 0xff);
+      return (((512 + redMean) * red * red) >> 8) + 4 * green * green
+        + (((767 - redMean) * blue * blue) >> 8);
+    }
+  },
+
+  LAB
+  {
+    public float squared(int rgb1, int rgb2)
+    {
+      return LabTables.squared(rgb1, rgb2);
+    }
+  };
+
+  /**
+   * Method to get the square of the distance between two colors
+   * @param rgb1 the first color as a packed int
+   * @param rgb2 the second color as a packed int
+   * @return the distance squared
+   */
+  public abstract float squared(int rgb1, int rgb2);
+
+  /**
+   * Method to get the distance between two colors
+   * @param rgb1 the first color as a packed int
+   * @param rgb2 the second color as a packed int
+   * @return the distance
+   */
+  public float distance(int rgb1, int rgb2)
+  {
+    return (float) Math.sqrt(squared(rgb1, rgb2));
+  }
+
+  /**
+   * Method to check if two colors are no farther apart than a tolerance
+   * @param rgb1 the first color as a packed int
+   * @param rgb2 the second color as a packed int
+   * @param squaredTolerance the tolerance squared (see squaredTolerance)
+   * @return true if the distance is at most the tolerance
+   */
+  public boolean within(int rgb1, int rgb2, float squaredTolerance)
+  {
+    return squared(rgb1, rgb2) <= squaredTolerance;
+  }
+
+  /**
+   * Method to square a tolerance to compare with squared distances.  A
+   * negative tolerance gives -1, so no distance is within it.
+   * @param tolerance the tolerance
+   * @return the tolerance squared, or -1
+   */
+  public static float squaredTolerance(double tolerance)
+  {
+    return tolerance < 0 ? -1 : (float) (tolerance * tolerance);
+  }
+
+  /**
+   * The tables for LAB.  They are in a class of their own so they are
+   * only made the first time LAB is used.
+   */
+  private static final class LabTables
+  {
+    /** the number of steps in the cube root table */
+    private static final int STEPS = 1024;
+
+    /** the linear light for each sRGB value */
+    private static final float[] LINEAR = new float[256];
+
+    /** the L*a*b* f(t) for t from 0 to 1 in STEPS steps (one extra at the end) */
+    private static final float[] F = new float[STEPS + 2];
+
+    static
+    {
+      for (int i = 0; i < 256; i++)
+      {
+        double c = i / 255.0;
+        LINEAR[i] = (float) (c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4));
+      }
+      double delta = 6.0 / 29;
+      for (int i = 0; i < F.length; i++)
+      {
+        double t = (double) i / STEPS;
+        F[i] = (float) (t > delta * delta * delta ? Math.cbrt(t)
+                        : t / (3 * delta * delta) + 4.0 / 29);
+      }
+    }
+
+    /**
+     * Method to look up f(t), between the table entries in a straight line
+     * @param t the value, kept to 0 to 1
+     * @return f(t)
+     */
+    private static float f(float t)
+    {
+      float position = Math.min(Math.max(t, 0f), 1f) * STEPS;
+      int i = (int) position;
+      return F[i] + (F[i + 1] - F[i]) * (position - i);
+    }
+
+    /**
+     * Method to get the square of the L*a*b* distance of two colors (D65
+     * white)
+     * @param rgb1 the first color as a packed int
+     * @param rgb2 the second color as a packed int
+     * @return the distance squared
+     */
+    private static float squared(int rgb1, int rgb2)
+    {
+      float r1 = LINEAR[(rgb1 >> 16) & 0xff];
+      float g1 = LINEAR[(rgb1 >> 8) & 0xff];
+      float b1 = LINEAR[rgb1 & 0xff];
+      float r2 = LINEAR[(rgb2 >> 16) & 0xff];
+      float g2 = LINEAR[(rgb2 >> 8) & 0xff];
+      float b2 = LINEAR[rgb2 & 0xff];
+      float fx1 = f((0.4124f * r1 + 0.3576f * g1 + 0.1805f * b1) / 0.95047f);
+      float fy1 = f(0.2126f * r1 + 0.7152f * g1 + 0.0722f * b1);
+      float fz1 = f((0.0193f * r1 + 0.1192f * g1 + 0.9505f * b1) / 1.08883f);
+      float fx2 = f((0.4124f * r2 + 0.3576f * g2 + 0.1805f * b2) / 0.95047f);
+      float fy2 = f(0.2126f * r2 + 0.7152f * g2 + 0.0722f * b2);
+      float fz2 = f((0.0193f * r2 + 0.1192f * g2 + 0.9505f * b2) / 1.08883f);
+      float lightness = 116 * (fy1 - fy2);
+      float a = 500 * ((fx1 - fy1) - (fx2 - fy2));
+      float b = 200 * ((fy1 - fz1) - (fy2 - fz2));
+      return lightness * lightness + a * a + b * b;
+    }
+  }
+}
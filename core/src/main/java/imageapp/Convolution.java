@@ -0,0 +1,398 @@
+package imageapp;
+
+import java.util.Arrays;
+
+/**
+ * Runs convolution kernels over pictures and over planes of floats (one
+ * number a pixel, like a gray picture).  The result always goes to a
+ * separate buffer, so every pixel is made from the old values around
+ * it and never from ones already changed.
+ *
+ * The rows are split into bands with TileEngine and done in parallel.
+ * Each band reads the rows it needs from the source, including the rows
+ * past its top and bottom the kernel reaches, so bands don't wait on
+ * each other.  A separable kernel is run across each of those rows and
+ * then down, in two 1-D passes.  Pixels past the edge of the picture
+ * come from the BorderMode.
+ *
+ * Picture colors are rounded and kept to 0 to 255; alpha is kept.
+ */
+public final class Convolution
+{
+
+  /////////////////////// Types /////////////////////////
+
+  /** Reads one source row as floats, the channels of a pixel together */
+  @FunctionalInterface
+  private interface RowReader
+  {
+    void read(int y, float[] buffer, int offset);
+  }
+
+  /** Takes one finished row */
+  @FunctionalInterface
+  private interface RowWriter
+  {
+    void write(int y, float[] buffer, int offset);
+  }
+
+  /** Takes one finished row of packed pixels */
+  @FunctionalInterface
+  private interface PixelRowWriter
+  {
+    void write(int y, int[] row);
+  }
+
+  /** Makes the reader and writer for one band, with their own arrays */
+  @FunctionalInterface
+  private interface BandIO
+  {
+    void run(RowReader[] reader, RowWriter[] writer);
+  }
+
+  /////////////////////// Constructors /////////////////////////
+
+  /** no Convolution objects are made; all the methods are static */
+  private Convolution() { }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to make a new picture that is a picture run through a kernel.
+   * Red, green and blue are done on their own.
+   * @param picture the picture to read
+   * @param kernel the kernel
+   * @param border what to use past the edges
+   * @return the new picture
+   */
+  public static Picture convolve(DigitalPicture picture, ConvolutionKernel kernel,
+                                 BorderMode border)
+  {
+    int width = picture.getWidth();
+    Picture result = RasterTransform.newPictureLike(picture, width, picture.getHeight());
+    convolve(picture, kernel, border,
+             (y, row) -> result.setRGB(0, y, width, 1, row, 0, width));
+    return result;
+  }
+
+  /**
+   * Method to run a picture through a kernel into an array of packed
+   * pixels (alpha, red, green, blue), row after row.  The picture isn't
+   * changed while the kernel runs, so the caller can put the array back
+   * into the same picture after.
+   * @param picture the picture to read
+   * @param kernel the kernel
+   * @param border what to use past the edges
+   * @param target the array for the pixels (at least width * height long)
+   */
+  public static void convolve(DigitalPicture picture, ConvolutionKernel kernel,
+                              BorderMode border, int[] target)
+  {
+    int width = picture.getWidth();
+    if (target.length < (long) width * picture.getHeight())
+      throw new IllegalArgumentException("a " + width + "x" + picture.getHeight()
+                                         + " picture needs " + (long) width * picture.getHeight()
+                                         + " values");
+    convolve(picture, kernel, border,
+             (y, row) -> System.arraycopy(row, 0, target, y * width, width));
+  }
+
+  /**
+   * Method to run a picture through a kernel, handing each finished row
+   * to a writer
+   * @param picture the picture to read
+   * @param kernel the kernel
+   * @param border what to use past the edges
+   * @param rows takes each row of packed pixels (the array is reused)
+   */
+  private static void convolve(DigitalPicture picture, ConvolutionKernel kernel,
+                               BorderMode border, PixelRowWriter rows)
+  {
+    int width = picture.getWidth();
+    int height = picture.getHeight();
+    run(width, height, 3, kernel, border, (reader, writer) ->
+    {
+      int[] pixels = new int[width];
+      int[] alpha = new int[width];
+      reader[0] = (y, buffer, offset) ->
+      {
+        picture.getRGB(0, y, width, 1, pixels, 0, width);
+        for (int x = 0, i = offset; x < width; x++, i += 3)
+        {
+          int pixel = pixels[x];
+          buffer[i] = (pixel >> 16) & 0xff;
+          buffer[i + 1] = (pixel >> 8) & 0xff;
+          buffer[i + 2] = pixel & 0xff;
+        }
+      };
+      writer[0] = (y, buffer, offset) ->
+      {
+        picture.getRGB(0, y, width, 1, alpha, 0, width);
+        for (int x = 0, i = offset; x < width; x++, i += 3)
+        {
+          alpha[x] = (alpha[x] & 0xff000000) | (toByte(buffer[i]) << 16)
+            | (toByte(buffer[i + 1]) << 8) | toByte(buffer[i + 2]);
+        }
+        rows.write(y, alpha);
+      };
+    });
+  }
+
+  /**
+   * Method to run a kernel over a plane of floats
+   * @param source the values, row after row (width * height of them)
+   * @param target where the results go (not the same array as source)
+   * @param width the width of the plane
+   * @param height the height of the plane
+   * @param kernel the kernel
+   * @param border what to use past the edges
+   */
+  public static void convolve(float[] source, float[] target, int width, int height,
+                              ConvolutionKernel kernel, BorderMode border)
+  {
+    if (source == target)
+      throw new IllegalArgumentException("the source and target must be different arrays");
+    checkPlane(source, width, height);
+    checkPlane(target, width, height);
+    run(width, height, 1, kernel, border, (reader, writer) ->
+    {
+      reader[0] = (y, buffer, offset) -> System.arraycopy(source, y * width, buffer, offset, width);
+      writer[0] = (y, buffer, offset) -> System.arraycopy(buffer, offset, target, y * width, width);
+    });
+  }
+
+  /**
+   * Method to check that a plane holds width * height values
+   * @param plane the plane
+   * @param width the width
+   * @param height the height
+   */
+  private static void checkPlane(float[] plane, int width, int height)
+  {
+    if (plane.length < (long) width * height)
+      throw new IllegalArgumentException("a " + width + "x" + height + " plane needs "
+                                         + (long) width * height + " values");
+  }
+
+  /**
+   * Method to make the gray plane of a picture, the average of red,
+   * green and blue like ImageApp.grayscale (without rounding)
+   * @param picture the picture
+   * @param target the plane to fill (at least width * height long), or
+   * null to make one
+   * @return the plane
+   */
+  public static float[] grayPlane(DigitalPicture picture, float[] target)
+  {
+    int width = picture.getWidth();
+    int height = picture.getHeight();
+    float[] plane = target != null ? target : new float[width * height];
+    checkPlane(plane, width, height);
+    TileEngine.forEachBand(width, height, (startRow, endRow) ->
+    {
+      int[] pixels = new int[width];
+      for (int y = startRow; y < endRow; y++)
+      {
+        picture.getRGB(0, y, width, 1, pixels, 0, width);
+        for (int x = 0, i = y * width; x < width; x++, i++)
+        {
+          int pixel = pixels[x];
+          plane[i] = (((pixel >> 16) & 0xff) + ((pixel >> 8) & 0xff) + (pixel & 0xff)) / 3f;
+        }
+      }
+    });
+    return plane;
+  }
+
+  /**
+   * Method to make a picture of how fast the gray level changes at each
+   * pixel: the length of the gradient from an edge operator, as gray
+   * (brighter is a stronger edge, kept to 255)
+   * @param picture the picture to read
+   * @param operator the kernels that find the changes
+   * @param border what to use past the edges
+   * @return the new picture
+   */
+  public static Picture gradientMagnitude(DigitalPicture picture, EdgeOperator operator,
+                                          BorderMode border)
+  {
+    Picture result = RasterTransform.newPictureLike(picture, picture.getWidth(),
+                                                    picture.getHeight());
+    gradientMagnitude(picture, operator, border, result);
+    return result;
+  }
+
+  /**
+   * Method to write how fast the gray level of a picture changes at each
+   * pixel into a picture the same size, like gradientMagnitude.  The
+   * gradient is found from a copy of the gray levels, so the target may
+   * be the picture itself.
+   * @param picture the picture to read
+   * @param operator the kernels that find the changes
+   * @param border what to use past the edges
+   * @param target the picture to write (alpha is taken from picture)
+   */
+  public static void gradientMagnitude(DigitalPicture picture, EdgeOperator operator,
+                                       BorderMode border, DigitalPicture target)
+  {
+    int width = picture.getWidth();
+    int height = picture.getHeight();
+    if (target.getWidth() != width || target.getHeight() != height)
+      throw new IllegalArgumentException("the target must be " + width + "x" + height);
+    float[] gray = grayPlane(picture, null);
+    float[] gx = new float[width * height];
+    float[] gy = new float[width * height];
+    convolve(gray, gx, width, height, operator.getXKernel(), border);
+    convolve(gray, gy, width, height, operator.getYKernel(), border);
+
+    TileEngine.forEachBand(width, height, (startRow, endRow) ->
+    {
+      int[] row = new int[width];
+      for (int y = startRow; y < endRow; y++)
+      {
+        picture.getRGB(0, y, width, 1, row, 0, width);
+        for (int x = 0, i = y * width; x < width; x++, i++)
+        {
+          int level = toByte((float) Math.sqrt(gx[i] * gx[i] + gy[i] * gy[i]));
+          row[x] = (row[x] & 0xff000000) | (level * 0x00010101);
+        }
+        target.setRGB(0, y, width, 1, row, 0, width);
+      }
+    });
+  }
+
+  /**
+   * Method to round a float to a color value from 0 to 255
+   * @param value the value
+   * @return the color value
+   */
+  private static int toByte(float value)
+  {
+    int rounded = Math.round(value);
+    return rounded < 0 ? 0 : (rounded > 255 ? 255 : rounded);
+  }
+
+  /**
+   * Method to run a kernel over all the rows in parallel bands
+   * @param width the width of the rows
+   * @param height the number of rows
+   * @param channels the floats in each pixel
+   * @param kernel the kernel
+   * @param border what to use past the edges
+   * @param io makes the reader and writer for each band
+   */
+  private static void run(int width, int height, int channels, ConvolutionKernel kernel,
+                          BorderMode border, BandIO io)
+  {
+    int radiusX = kernel.getWidth() / 2;
+    int radiusY = kernel.getHeight() / 2;
+    // where to read for each x the kernel reaches, -1 for a 0
+    int[] columnMap = new int[width + 2 * radiusX];
+    for (int i = 0; i < columnMap.length; i++)
+      columnMap[i] = border.map(i - radiusX, width);
+
+    TileEngine.forEachBand(width, height, (startRow, endRow) ->
+    {
+      RowReader[] reader = new RowReader[1];
+      RowWriter[] writer = new RowWriter[1];
+      io.run(reader, writer);
+      int stride = width * channels;
+      int rows = endRow - startRow + 2 * radiusY;
+      float[] input = new float[rows * stride];
+      for (int i = 0; i < rows; i++)
+      {
+        int y = border.map(startRow - radiusY + i, height);
+        if (y >= 0)
+          reader[0].read(y, input, i * stride);
+      }
+
+      float[] output = new float[stride];
+      if (kernel.isSeparable())
+      {
+        float[] across = new float[rows * stride];
+        float[] rowWeights = kernel.rowWeights();
+        for (int i = 0; i < rows; i++)
+        {
+          for (int k = 0; k < rowWeights.length; k++)
+            addShifted(input, i * stride, across, i * stride, rowWeights[k],
+                       k - radiusX, width, channels, columnMap, radiusX);
+        }
+        float[] columnWeights = kernel.columnWeights();
+        for (int y = startRow; y < endRow; y++)
+        {
+          Arrays.fill(output, 0f);
+          int first = (y - startRow) * stride;
+          for (int k = 0; k < columnWeights.length; k++)
+          {
+            float weight = columnWeights[k];
+            int from = first + k * stride;
+            for (int i = 0; i < stride; i++)
+              output[i] += weight * across[from + i];
+          }
+          writer[0].write(y, output, 0);
+        }
+      }
+      else
+      {
+        float[] weights = kernel.weights();
+        int kernelWidth = kernel.getWidth();
+        for (int y = startRow; y < endRow; y++)
+        {
+          Arrays.fill(output, 0f);
+          for (int ky = 0; ky < kernel.getHeight(); ky++)
+          {
+            int from = (y - startRow + ky) * stride;
+            for (int kx = 0; kx < kernelWidth; kx++)
+            {
+              float weight = weights[ky * kernelWidth + kx];
+              if (weight != 0)
+                addShifted(input, from, output, 0, weight, kx - radiusX,
+                           width, channels, columnMap, radiusX);
+            }
+          }
+          writer[0].write(y, output, 0);
+        }
+      }
+    });
+  }
+
+  /**
+   * Method to add a row shifted sideways times a weight to another row:
+   * target[x] += weight * source[x + dx] for every x (and channel),
+   * with the columns past the edges taken from the column map
+   * @param source the array with the source row
+   * @param sourceRow the index of the source row's first value
+   * @param target the array with the target row
+   * @param targetRow the index of the target row's first value
+   * @param weight the weight
+   * @param dx how far over to read
+   * @param width the pixels in a row
+   * @param channels the floats in each pixel
+   * @param columnMap where to read for x + dx (at x + dx + radius)
+   * @param radius the most the kernel reaches sideways
+   */
+  private static void addShifted(float[] source, int sourceRow, float[] target, int targetRow,
+                                 float weight, int dx, int width, int channels,
+                                 int[] columnMap, int radius)
+  {
+    // the columns whose x + dx is on the picture need no map
+    int low = Math.max(0, -dx);
+    int high = Math.min(width, width - dx);
+    int shift = dx * channels;
+    for (int i = low * channels; i < high * channels; i++)
+      target[targetRow + i] += weight * source[sourceRow + i + shift];
+    for (int x = 0; x < width; x++)
+    {
+      if (x == low && high > low)
+        x = high;
+      if (x >= width)
+        break;
+      int sourceX = columnMap[x + dx + radius];
+      if (sourceX >= 0)
+      {
+        for (int c = 0; c < channels; c++)
+          target[targetRow + x * channels + c] += weight * source[sourceRow + sourceX * channels + c];
+      }
+    }
+  }
+}
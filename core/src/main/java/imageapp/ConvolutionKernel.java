@@ -0,0 +1,250 @@
+package imageapp;
+
+import java.util.Arrays;
+
+/**
+ * The weights of a convolution: each new pixel is the sum of the pixels
+ * around it times these weights.  A kernel is width by height with odd
+ * sizes and its center on the pixel being made.  Kernels don't change
+ * once they are made.
+ *
+ * A kernel that is a column of weights times a row of weights (like a
+ * Gaussian blur or the Sobel kernels) is found to be separable when it
+ * is made, and Convolution runs it as two 1-D passes: a 9 by 9 blur
+ * then costs 18 multiplies a pixel instead of 81.
+ */
+public final class ConvolutionKernel
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** the Sobel kernel for changes from left to right */
+  public static final ConvolutionKernel SOBEL_X =
+    separable(new float[] { 1, 2, 1 }, new float[] { -1, 0, 1 });
+
+  /** the Sobel kernel for changes from top to bottom */
+  public static final ConvolutionKernel SOBEL_Y =
+    separable(new float[] { -1, 0, 1 }, new float[] { 1, 2, 1 });
+
+  /** the Prewitt kernel for changes from left to right */
+  public static final ConvolutionKernel PREWITT_X =
+    separable(new float[] { 1, 1, 1 }, new float[] { -1, 0, 1 });
+
+  /** the Prewitt kernel for changes from top to bottom */
+  public static final ConvolutionKernel PREWITT_Y =
+    separable(new float[] { -1, 0, 1 }, new float[] { 1, 1, 1 });
+
+  /** the Scharr kernel for changes from left to right */
+  public static final ConvolutionKernel SCHARR_X =
+    separable(new float[] { 3, 10, 3 }, new float[] { -1, 0, 1 });
+
+  /** the Scharr kernel for changes from top to bottom */
+  public static final ConvolutionKernel SCHARR_Y =
+    separable(new float[] { -1, 0, 1 }, new float[] { 3, 10, 3 });
+
+  /** a kernel that sharpens: 5 times the pixel less its 4 neighbors */
+  public static final ConvolutionKernel SHARPEN =
+    of(3, 3, 0, -1, 0,
+             -1, 5, -1,
+             0, -1, 0);
+
+  /** the number of columns */
+  private final int width;
+
+  /** the number of rows */
+  private final int height;
+
+  /** the weights, row after row */
+  private final float[] weights;
+
+  /** the column part of a separable kernel, or null */
+  private final float[] columnWeights;
+
+  /** the row part of a separable kernel, or null */
+  private final float[] rowWeights;
+
+  /////////////////////// Constructors /////////////////////////
+
+  /**
+   * Constructor that takes the weights and the parts if it is separable
+   * @param width the number of columns
+   * @param height the number of rows
+   * @param weights the weights, row after row
+   * @param columnWeights the column part or null
+   * @param rowWeights the row part or null
+   */
+  private ConvolutionKernel(int width, int height, float[] weights,
+                            float[] columnWeights, float[] rowWeights)
+  {
+    this.width = width;
+    this.height = height;
+    this.weights = weights;
+    this.columnWeights = columnWeights;
+    this.rowWeights = rowWeights;
+  }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to make a kernel from its weights.  Whether it is separable
+   * is worked out here.
+   * @param width the number of columns (odd)
+   * @param height the number of rows (odd)
+   * @param weights the width * height weights, row after row
+   * @return the new kernel
+   */
+  public static ConvolutionKernel of(int width, int height, float... weights)
+  {
+    if (width < 1 || height < 1 || width % 2 == 0 || height % 2 == 0)
+      throw new IllegalArgumentException("kernel sizes must be odd: " + width + "x" + height);
+    if (weights.length != width * height)
+      throw new IllegalArgumentException("a " + width + "x" + height + " kernel needs "
+                                         + width * height + " weights, not " + weights.length);
+    float[] copy = weights.clone();
+
+    // a separable kernel is the column through its biggest weight times
+    // the row through it, divided by that weight
+    int pivot = 0;
+    for (int i = 1; i < copy.length; i++)
+    {
+      if (Math.abs(copy[i]) > Math.abs(copy[pivot]))
+        pivot = i;
+    }
+    float biggest = copy[pivot];
+    if (biggest == 0)
+      return new ConvolutionKernel(width, height, copy, null, null);
+    int pivotRow = pivot / width;
+    int pivotColumn = pivot % width;
+    float[] column = new float[height];
+    float[] row = new float[width];
+    for (int r = 0; r < height; r++)
+      column[r] = copy[r * width + pivotColumn] / biggest;
+    for (int c = 0; c < width; c++)
+      row[c] = copy[pivotRow * width + c];
+    float tolerance = Math.abs(biggest) * 1e-6f;
+    for (int r = 0; r < height; r++)
+    {
+      for (int c = 0; c < width; c++)
+      {
+        if (Math.abs(copy[r * width + c] - column[r] * row[c]) > tolerance)
+          return new ConvolutionKernel(width, height, copy, null, null);
+      }
+    }
+    return new ConvolutionKernel(width, height, copy, column, row);
+  }
+
+  /**
+   * Method to make a separable kernel from its column and row parts
+   * @param column the weights down (odd length)
+   * @param row the weights across (odd length)
+   * @return the new kernel, column[r] * row[c] at row r, column c
+   */
+  public static ConvolutionKernel separable(float[] column, float[] row)
+  {
+    if (column.length % 2 == 0 || row.length % 2 == 0)
+      throw new IllegalArgumentException("kernel sizes must be odd: "
+                                         + row.length + "x" + column.length);
+    float[] weights = new float[column.length * row.length];
+    for (int r = 0; r < column.length; r++)
+    {
+      for (int c = 0; c < row.length; c++)
+        weights[r * row.length + c] = column[r] * row[c];
+    }
+    return new ConvolutionKernel(row.length, column.length, weights,
+                                 column.clone(), row.clone());
+  }
+
+  /**
+   * Method to make a Gaussian blur kernel.  It reaches out 3 sigma on
+   * each side and its weights add up to 1.
+   * @param sigma the standard deviation in pixels (more than 0)
+   * @return the new separable kernel
+   */
+  public static ConvolutionKernel gaussian(double sigma)
+  {
+    if (!(sigma > 0))
+      throw new IllegalArgumentException("sigma must be more than 0: " + sigma);
+    int radius = Math.max(1, (int) Math.ceil(3 * sigma));
+    float[] weights = new float[2 * radius + 1];
+    double sum = 0;
+    for (int i = -radius; i <= radius; i++)
+    {
+      double weight = Math.exp(-(i * i) / (2 * sigma * sigma));
+      weights[i + radius] = (float) weight;
+      sum += weight;
+    }
+    for (int i = 0; i < weights.length; i++)
+      weights[i] = (float) (weights[i] / sum);
+    return separable(weights, weights);
+  }
+
+  /**
+   * Method to make a box blur kernel, the average of a size by size
+   * square
+   * @param size the width and height (odd)
+   * @return the new separable kernel
+   */
+  public static ConvolutionKernel box(int size)
+  {
+    float[] weights = new float[size];
+    Arrays.fill(weights, 1f / size);
+    return separable(weights, weights);
+  }
+
+  /**
+   * Method to get the number of columns
+   * @return the width of the kernel
+   */
+  public int getWidth() { return width; }
+
+  /**
+   * Method to get the number of rows
+   * @return the height of the kernel
+   */
+  public int getHeight() { return height; }
+
+  /**
+   * Method to get one weight
+   * @param column the column (0 is the left)
+   * @param row the row (0 is the top)
+   * @return the weight
+   */
+  public float getWeight(int column, int row)
+  {
+    return weights[row * width + column];
+  }
+
+  /**
+   * Method to check if the kernel is a column times a row
+   * @return true if it can run as two 1-D passes
+   */
+  public boolean isSeparable() { return rowWeights != null; }
+
+  /**
+   * Method to get the weights, row after row, for Convolution
+   * @return the weights (don't change them)
+   */
+  float[] weights() { return weights; }
+
+  /**
+   * Method to get the column part of a separable kernel
+   * @return the weights down (don't change them) or null
+   */
+  float[] columnWeights() { return columnWeights; }
+
+  /**
+   * Method to get the row part of a separable kernel
+   * @return the weights across (don't change them) or null
+   */
+  float[] rowWeights() { return rowWeights; }
+
+  /**
+   * Method to return a string with the size of the kernel
+   * @return a string with information about the kernel
+   */
+  public String toString()
+  {
+    return "ConvolutionKernel " + width + "x" + height
+      + (isSeparable() ? " separable" : "");
+  }
+}
@@ -1,3 +1,5 @@
+package imageapp;
+
 import java.awt.Image;
 import java.awt.image.BufferedImage;
 
@@ -22,12 +24,20 @@ public interface DigitalPicture
   public BufferedImage getBufferedImage(); // get the buffered image
   public int getBasicPixel(int x, int y); // get the pixel information as an int   
   public void setBasicPixel(int x, int y, int rgb); // set the pixel information
+  public int[] getRGB(int x, int y, int width, int height, 
+                      int[] rgbArray, int offset, int scansize); // get a rectangle of pixels as ints
+  public void setRGB(int x, int y, int width, int height, 
+                     int[] rgbArray, int offset, int scansize); // set a rectangle of pixels from ints
+  public int[] getRow(int y, int[] row); // get one row of pixels as ints
+  public void setRow(int y, int[] row); // set one row of pixels from ints
+  public int[] getRasterData(); // get the int array behind the pixels (or null)
   public Pixel getPixel(int x, int y); // get the pixel information as an object
   public Pixel[] getPixels(); // get all pixels in row-major order
   public Pixel[][] getPixels2D(); // get 2-D array of pixels in row-major order
+  public PixelCursor getPixelCursor(); // get one reusable pixel to walk the picture
   public void load(Image image); // load the image into the picture
   public boolean load(String fileName); // load the picture from a file
   public void show(); // show the picture 
   public void explore(); // explore the picture
   public boolean write(String fileName); // write out a file
-}
\ No newline at end of file
+}
\ No newline at end of file
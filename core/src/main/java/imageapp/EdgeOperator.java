@@ -0,0 +1,44 @@
+package imageapp;
+
+/**
+ * The pairs of kernels that find edges: one finds changes from left to
+ * right and the other from top to bottom.  Convolution puts the two
+ * together as the length of the gradient.  Sobel is the usual choice,
+ * Prewitt weighs the neighbors evenly, and Scharr is better at edges
+ * that aren't straight across or down.
+ */
+public enum EdgeOperator
+{
+  SOBEL(ConvolutionKernel.SOBEL_X, ConvolutionKernel.SOBEL_Y),
+  PREWITT(ConvolutionKernel.PREWITT_X, ConvolutionKernel.PREWITT_Y),
+  SCHARR(ConvolutionKernel.SCHARR_X, ConvolutionKernel.SCHARR_Y);
+
+  /** the kernel for changes from left to right */
+  private final ConvolutionKernel xKernel;
+
+  /** the kernel for changes from top to bottom */
+  private final ConvolutionKernel yKernel;
+
+  /**
+   * Constructor that takes the two kernels
+   * @param xKernel the kernel for changes from left to right
+   * @param yKernel the kernel for changes from top to bottom
+   */
+  EdgeOperator(ConvolutionKernel xKernel, ConvolutionKernel yKernel)
+  {
+    this.xKernel = xKernel;
+    this.yKernel = yKernel;
+  }
+
+  /**
+   * Method to get the kernel for changes from left to right
+   * @return the x kernel
+   */
+  public ConvolutionKernel getXKernel() { return xKernel; }
+
+  /**
+   * Method to get the kernel for changes from top to bottom
+   * @return the y kernel
+   */
+  public ConvolutionKernel getYKernel() { return yKernel; }
+}
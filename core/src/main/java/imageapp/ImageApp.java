@@ -1,21 +1,54 @@
+package imageapp;
+
 /*
   ImageApp: Main application for image processing operations
   Includes recoloring, rotation, and image compositing
 */
 import java.awt.Color;
+import java.util.Arrays;
 import java.util.Scanner;
+import java.util.function.IntPredicate;
 import java.io.File;
 
 public class ImageApp
 {
   private static Scanner scanner = new Scanner(System.in);
   
+  /** Point kernel that swaps RGB to BRG (see changeColor) */
+  public static final PointKernel CHANGE_COLOR = new PointKernel() {
+    public int apply(int argb) { return changeColor(argb); }
+    public void apply(int[] pixels, int from, int to) { changeColor(pixels, from, to); }
+  };
+  
+  /** Point kernel that makes a photographic negative (see negativeColor) */
+  public static final PointKernel NEGATIVE_COLOR = new PointKernel() {
+    public int apply(int argb) { return negativeColor(argb); }
+    public void apply(int[] pixels, int from, int to) { negativeColor(pixels, from, to); }
+  };
+  
+  /** Point kernel that averages the colors into gray (see grayscale) */
+  public static final PointKernel GRAYSCALE = new PointKernel() {
+    public int apply(int argb) { return grayscale(argb); }
+    public void apply(int[] pixels, int from, int to) { grayscale(pixels, from, to); }
+  };
+  
   /**
-   * Main method to run all image processing operations
-   * @param args command line arguments (not used)
+   * Main method to run all image processing operations.  With --batch
+   * as the first argument it runs the headless batch mode instead of
+   * the menu (see BatchProcessor for the other arguments), and with
+   * --stream it filters one big file a stripe at a time (see
+   * StripeProcessor).
+   * @param args command line arguments
    */
   public static void main(String[] args)
   {
+    if (args.length > 0 && args[0].equals("--batch")) {
+      System.exit(BatchProcessor.run(Arrays.copyOfRange(args, 1, args.length)));
+    }
+    if (args.length > 0 && args[0].equals("--stream")) {
+      System.exit(StripeProcessor.run(Arrays.copyOfRange(args, 1, args.length)));
+    }
+    
     System.out.println("=== IMAGE PROCESSING APP ===");
     System.out.println("Current working directory: " + System.getProperty("user.dir"));
     
@@ -169,8 +202,7 @@ public class ImageApp
       System.out.println("Could not load image. Please check the filename.");
       return;
     }
-    Pixel[][] recoloredPixels = recoloredImg.getPixels2D();
-    changeColor(recoloredPixels);
+    changeColor(recoloredImg);
     recoloredImg.explore();
     
     String saveChoice = getStringInput("Save this image? (yes/no): ");
@@ -196,8 +228,7 @@ public class ImageApp
       System.out.println("Could not load image. Please check the filename.");
       return;
     }
-    Pixel[][] negPixels = negImg.getPixels2D();
-    negativeColor(negPixels);
+    negativeColor(negImg);
     negImg.explore();
     
     String saveChoice = getStringInput("Save this image? (yes/no): ");
@@ -223,8 +254,7 @@ public class ImageApp
       System.out.println("Could not load image. Please check the filename.");
       return;
     }
-    Pixel[][] grayscalePixels = grayscaleImg.getPixels2D();
-    grayscale(grayscalePixels);
+    grayscale(grayscaleImg);
     grayscaleImg.explore();
     
     String saveChoice = getStringInput("Save this image? (yes/no): ");
@@ -250,8 +280,7 @@ public class ImageApp
       System.out.println("Could not load image. Please check the filename.");
       return;
     }
-    Pixel[][] upsideDownPixels = upsidedownImage.getPixels2D();
-    rotate180(upsideDownPixels);
+    rotate180(upsidedownImage);
     upsidedownImage.explore();
     
     String saveChoice = getStringInput("Save this image? (yes/no): ");
@@ -277,9 +306,7 @@ public class ImageApp
       System.out.println("Could not load image. Please check the filename.");
       return;
     }
-    Pixel[][] rotatePixels = rotateImg.getPixels2D();
-    Pixel[][] rotated90 = rotate90(rotatePixels);
-    Picture rotated90Picture = pixelsToPicture(rotated90);
+    Picture rotated90Picture = rotate90(rotateImg);
     rotated90Picture.explore();
     
     String saveChoice = getStringInput("Save this image? (yes/no): ");
@@ -305,9 +332,7 @@ public class ImageApp
       System.out.println("Could not load image. Please check the filename.");
       return;
     }
-    Pixel[][] rotatePixels2 = rotateImg2.getPixels2D();
-    Pixel[][] rotatedNeg90 = rotateNeg90(rotatePixels2);
-    Picture rotatedNeg90Picture = pixelsToPicture(rotatedNeg90);
+    Picture rotatedNeg90Picture = rotateNeg90(rotateImg2);
     rotatedNeg90Picture.explore();
     
     String saveChoice = getStringInput("Save this image? (yes/no): ");
@@ -347,10 +372,7 @@ public class ImageApp
     int startRow = getIntInput("Enter starting row position: ");
     int startCol = getIntInput("Enter starting column position: ");
     
-    Pixel[][] finalPixels = finalImage.getPixels2D();
-    Pixel[][] smallPixels = smallImage.getPixels2D();
-    
-    insertImage(finalPixels, smallPixels, startRow, startCol);
+    insertImage(finalImage, smallImage, startRow, startCol);
     finalImage.explore();
     
     String saveChoice = getStringInput("Save this composite image? (yes/no): ");
@@ -497,7 +519,126 @@ public class ImageApp
   }
   
   /**
-   * Rotates an image 180 degrees by reversing rows and columns
+   * Changes the color of a picture by swapping RGB channels (BRG variation).
+   * Runs the CHANGE_COLOR kernel on packed ints (in parallel for big
+   * pictures), so no Pixel or Color objects are made.  The result is the
+   * same as changeColor(Pixel[][]).
+   * @param picture the picture to modify
+   */
+  public static void changeColor(DigitalPicture picture) {
+    System.out.println("Changing colors (BRG variation)...");
+    TileEngine.apply(picture, CHANGE_COLOR);
+  }
+  
+  /**
+   * Creates a photographic negative of a picture.
+   * Runs the NEGATIVE_COLOR kernel on packed ints (in parallel for big
+   * pictures), so no Pixel or Color objects are made.  The result is the
+   * same as negativeColor(Pixel[][]).
+   * @param picture the picture to modify
+   */
+  public static void negativeColor(DigitalPicture picture) {
+    System.out.println("Creating negative image...");
+    TileEngine.apply(picture, NEGATIVE_COLOR);
+  }
+  
+  /**
+   * Converts a picture to grayscale.
+   * Runs the GRAYSCALE kernel on packed ints (in parallel for big
+   * pictures), so no Pixel or Color objects are made.  The result is the
+   * same as grayscale(Pixel[][]).
+   * @param picture the picture to modify
+   */
+  public static void grayscale(DigitalPicture picture) {
+    System.out.println("Converting to grayscale...");
+    TileEngine.apply(picture, GRAYSCALE);
+  }
+  
+  /**
+   * Swaps the channels of a packed ARGB pixel from RGB to BRG
+   * @param argb the pixel as alpha, red, green, blue
+   * @return the recolored pixel (alpha is kept)
+   */
+  public static int changeColor(int argb) {
+    int red = (argb >> 16) & 0xff;
+    int green = (argb >> 8) & 0xff;
+    int blue = argb & 0xff;
+    return (argb & 0xff000000) | (blue << 16) | (red << 8) | green;
+  }
+  
+  /**
+   * Swaps the channels from RGB to BRG for a run of packed ARGB pixels
+   * @param pixels the pixels to modify
+   * @param from the index of the first pixel
+   * @param to the index just past the last pixel
+   */
+  public static void changeColor(int[] pixels, int from, int to) {
+    if (KernelBackend.vector()) {
+      VectorKernels.changeColor(pixels, from, to);
+      return;
+    }
+    for (int i = from; i < to; i++) {
+      pixels[i] = changeColor(pixels[i]);
+    }
+  }
+  
+  /**
+   * Makes the negative of a packed ARGB pixel
+   * @param argb the pixel as alpha, red, green, blue
+   * @return the pixel with each color value subtracted from 255 (alpha is kept)
+   */
+  public static int negativeColor(int argb) {
+    // 255 - x is the same as flipping all 8 bits of x
+    return argb ^ 0x00ffffff;
+  }
+  
+  /**
+   * Makes the negative of a run of packed ARGB pixels
+   * @param pixels the pixels to modify
+   * @param from the index of the first pixel
+   * @param to the index just past the last pixel
+   */
+  public static void negativeColor(int[] pixels, int from, int to) {
+    if (KernelBackend.vector()) {
+      VectorKernels.xor(pixels, from, to, 0x00ffffff);
+      return;
+    }
+    for (int i = from; i < to; i++) {
+      pixels[i] ^= 0x00ffffff;
+    }
+  }
+  
+  /**
+   * Makes a packed ARGB pixel gray using the average of its colors
+   * @param argb the pixel as alpha, red, green, blue
+   * @return the gray pixel (alpha is kept)
+   */
+  public static int grayscale(int argb) {
+    int avg = (((argb >> 16) & 0xff) + ((argb >> 8) & 0xff) + (argb & 0xff)) / 3;
+    return (argb & 0xff000000) | (avg << 16) | (avg << 8) | avg;
+  }
+  
+  /**
+   * Makes a run of packed ARGB pixels gray
+   * @param pixels the pixels to modify
+   * @param from the index of the first pixel
+   * @param to the index just past the last pixel
+   */
+  public static void grayscale(int[] pixels, int from, int to) {
+    if (KernelBackend.vector()) {
+      VectorKernels.grayscale(pixels, from, to);
+      return;
+    }
+    for (int i = from; i < to; i++) {
+      pixels[i] = grayscale(pixels[i]);
+    }
+  }
+  
+  /**
+   * Rotates an image 180 degrees by reversing rows and columns.
+   * This only reorders the Pixel references in the array; the picture
+   * they belong to is not changed.  Use rotate180(DigitalPicture) to 
+   * rotate the picture itself.
    * @param pixels 2D array of pixels to rotate
    */
   public static void rotate180(Pixel[][] pixels) {
@@ -579,6 +720,39 @@ public class ImageApp
     return rotated;
   }
   
+  /**
+   * Rotates a picture 180 degrees in place in one pass over its pixels
+   * @param picture the picture to rotate
+   */
+  public static void rotate180(DigitalPicture picture) {
+    System.out.println("Rotating 180 degrees...");
+    RasterTransform.rotate180InPlace(picture);
+  }
+  
+  /**
+   * Makes a rotated copy of a picture with the same pixel mapping as
+   * rotate90(Pixel[][]), without building Pixel arrays
+   * @param picture the picture to rotate
+   * @return the new rotated picture
+   */
+  public static Picture rotate90(DigitalPicture picture) {
+    System.out.println("Rotating 90 degrees counterclockwise...");
+    // row r, column c moves to row c, column height-1-r
+    return RasterTransform.rotateClockwise(picture);
+  }
+  
+  /**
+   * Makes a rotated copy of a picture with the same pixel mapping as
+   * rotateNeg90(Pixel[][]), without building Pixel arrays
+   * @param picture the picture to rotate
+   * @return the new rotated picture
+   */
+  public static Picture rotateNeg90(DigitalPicture picture) {
+    System.out.println("Rotating 90 degrees clockwise...");
+    // row r, column c moves to row width-1-c, column r
+    return RasterTransform.rotateCounterclockwise(picture);
+  }
+  
   /**
    * Inserts a small image into a larger one at specified position
    * @param largePixels 2D array of the large image
@@ -614,6 +788,97 @@ public class ImageApp
     }
   }
   
+  /**
+   * Inserts a small picture into a larger one at the specified position,
+   * skipping the small picture's white background the same way as
+   * insertImage(Pixel[][], Pixel[][], int, int).  Works a row of packed
+   * ints at a time; the parts of the small picture that fall outside the
+   * large one are left out.
+   * @param large the picture to insert into
+   * @param small the picture to insert
+   * @param startRow starting row position in the large picture
+   * @param startCol starting column position in the large picture
+   */
+  public static void insertImage(DigitalPicture large, DigitalPicture small,
+                                 int startRow, int startCol) {
+    System.out.println("Inserting small image at (" + startRow + ", " + startCol + ")...");
+    insertPixels(large, small, startRow, startCol);
+  }
+  
+  /**
+   * Inserts a small picture into a larger one at the specified position,
+   * skipping the small picture's pixels that are within a tolerance of a
+   * background color.  The squared distance of each pixel is compared to
+   * the tolerance squared, so there is no square root or Color for each
+   * pixel.
+   * @param large the picture to insert into
+   * @param small the picture to insert
+   * @param startRow starting row position in the large picture
+   * @param startCol starting column position in the large picture
+   * @param background the background color of the small picture
+   * @param metric how to measure the distance between colors
+   * @param tolerance how far from the background a pixel can be and
+   * still be skipped (negative to skip none)
+   */
+  public static void insertImage(DigitalPicture large, DigitalPicture small,
+                                 int startRow, int startCol, Color background,
+                                 ColorDistance metric, double tolerance) {
+    System.out.println("Inserting small image at (" + startRow + ", " + startCol + ")...");
+    int key = background.getRGB();
+    float limit = ColorDistance.squaredTolerance(tolerance);
+    insertPixels(large, small, startRow, startCol, s -> metric.within(s, key, limit));
+  }
+  
+  /**
+   * Does the work of insertImage(DigitalPicture, DigitalPicture, int, int)
+   * without printing anything, for the batch mode
+   * @param large the picture to insert into
+   * @param small the picture to insert
+   * @param startRow starting row position in the large picture
+   * @param startCol starting column position in the large picture
+   */
+  static void insertPixels(DigitalPicture large, DigitalPicture small,
+                           int startRow, int startCol) {
+    // Remove white background (skip pixels that are mostly white)
+    insertPixels(large, small, startRow, startCol,
+                 s -> ((s >> 16) & 0xff) >= 250 && ((s >> 8) & 0xff) >= 250 && (s & 0xff) >= 250);
+  }
+  
+  /**
+   * Inserts the pixels of a small picture that aren't background into a
+   * large one, a row of packed ints at a time
+   * @param large the picture to insert into
+   * @param small the picture to insert
+   * @param startRow starting row position in the large picture
+   * @param startCol starting column position in the large picture
+   * @param isBackground true for the packed colors to skip
+   */
+  private static void insertPixels(DigitalPicture large, DigitalPicture small,
+                                   int startRow, int startCol, IntPredicate isBackground) {
+    int firstRow = Math.max(0, startRow);
+    int endRow = Math.min(large.getHeight(), startRow + small.getHeight());
+    int firstCol = Math.max(0, startCol);
+    int endCol = Math.min(large.getWidth(), startCol + small.getWidth());
+    if (firstRow >= endRow || firstCol >= endCol) {
+      return;
+    }
+    
+    int width = endCol - firstCol;
+    int[] largeRow = new int[width];
+    int[] smallRow = new int[width];
+    for (int row = firstRow; row < endRow; row++) {
+      large.getRGB(firstCol, row, width, 1, largeRow, 0, width);
+      small.getRGB(firstCol - startCol, row - startRow, width, 1, smallRow, 0, width);
+      for (int i = 0; i < width; i++) {
+        int s = smallRow[i];
+        if (!isBackground.test(s)) {
+          largeRow[i] = (largeRow[i] & 0xff000000) | (s & 0x00ffffff);
+        }
+      }
+      large.setRGB(firstCol, row, width, 1, largeRow, 0, width);
+    }
+  }
+  
   /**
    * Converts a 2D array of Pixels to a Picture object
    * @param pixels 2D array of pixels
@@ -0,0 +1,301 @@
+package imageapp;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A cache of decoded images so the same file isn't decoded again every
+ * time a picture is loaded from it.  SimplePicture.loadOrFail goes
+ * through the shared cache.  Files that are read only once (the batch
+ * and pipeline jobs) are looked up but not added, so they don't fill
+ * the cache or push out the images that will be read again.
+ *
+ * An entry is found by the file's canonical path together with its
+ * last-modified time and length, so a file that is written again is
+ * decoded again.  The cache holds at most maxBytes of pixels (4 bytes
+ * a pixel); when it is full the least recently used images are dropped.
+ * An image bigger than the whole cache is decoded but not kept.
+ *
+ * The images in the cache are shared and must never be changed.  A
+ * picture loaded from the cache uses the shared image until its first
+ * write and then makes its own copy (see SimplePicture), so callers can
+ * change their pictures freely.
+ *
+ * The shared cache holds up to a quarter of the heap or 256 MB, which
+ * ever is less.  The imageCache.maxBytes system property changes that,
+ * and 0 turns caching off.
+ */
+public final class ImageCache
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** the cache SimplePicture loads through */
+  private static ImageCache shared;
+
+  /** the images by key, least recently used first */
+  private final LinkedHashMap<Key, BufferedImage> entries =
+    new LinkedHashMap<Key, BufferedImage>(16, 0.75f, true);
+
+  /** the most bytes of pixels the cache holds */
+  private final long maxBytes;
+
+  /** the bytes of pixels the cache holds now */
+  private long bytes;
+
+  /** the number of loads that found their image in the cache */
+  private long hits;
+
+  /** the number of loads that had to decode the file */
+  private long misses;
+
+  /** the number of images dropped to make room */
+  private long evictions;
+
+  /////////////////////// Types /////////////////////////
+
+  /** What an image is cached under: the file and its version */
+  private static final class Key
+  {
+    private final String path;
+    private final long modified;
+    private final long length;
+
+    Key(File file) throws IOException
+    {
+      this.path = file.getCanonicalPath();
+      this.modified = file.lastModified();
+      this.length = file.length();
+    }
+
+    public boolean equals(Object other)
+    {
+      if (!(other instanceof Key))
+        return false;
+      Key key = (Key) other;
+      return path.equals(key.path) && modified == key.modified && length == key.length;
+    }
+
+    public int hashCode()
+    {
+      return (path.hashCode() * 31 + Long.hashCode(modified)) * 31 + Long.hashCode(length);
+    }
+  }
+
+  /////////////////////// Constructors /////////////////////////
+
+  /**
+   * Constructor that takes the size of the cache
+   * @param maxBytes the most bytes of pixels to keep (0 keeps nothing)
+   */
+  public ImageCache(long maxBytes)
+  {
+    if (maxBytes < 0)
+      throw new IllegalArgumentException("maxBytes must not be negative: " + maxBytes);
+    this.maxBytes = maxBytes;
+  }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to get the shared cache, making it the first time
+   * @return the shared cache
+   */
+  public static synchronized ImageCache shared()
+  {
+    if (shared == null)
+    {
+      long defaultBytes = Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 4);
+      shared = new ImageCache(Long.getLong("imageCache.maxBytes", defaultBytes));
+    }
+    return shared;
+  }
+
+  /**
+   * Method to get the decoded image for a file, decoding it if it isn't
+   * in the cache.  The image is TYPE_INT_RGB or TYPE_INT_ARGB.  It may
+   * be shared with other callers, so don't change it.
+   * @param file the file to read
+   * @return the decoded image
+   * @throws IOException if the file can't be read or isn't an image
+   */
+  public BufferedImage get(File file) throws IOException
+  {
+    return get(file, true);
+  }
+
+  /**
+   * Method to get the decoded image for a file, decoding it if it isn't
+   * in the cache.  The image may be shared with other callers, so don't
+   * change it.
+   * @param file the file to read
+   * @param keep true to add a newly decoded image to the cache, false
+   * for a file that won't be read again
+   * @return the decoded image
+   * @throws IOException if the file can't be read or isn't an image
+   */
+  public BufferedImage get(File file, boolean keep) throws IOException
+  {
+    Key key = new Key(file);
+    synchronized (this)
+    {
+      BufferedImage image = entries.get(key);
+      if (image != null)
+      {
+        hits++;
+        return image;
+      }
+      misses++;
+    }
+
+    // decode outside the lock so other files can load at the same time
+    BufferedImage image = decode(file);
+    long size = bytesOf(image);
+    if (!keep || size > maxBytes)
+      return image;
+    synchronized (this)
+    {
+      BufferedImage other = entries.get(key);
+      if (other != null)
+        return other;   // another thread decoded it first
+      entries.put(key, image);
+      bytes += size;
+      Iterator<BufferedImage> oldest = entries.values().iterator();
+      while (bytes > maxBytes)
+      {
+        bytes -= bytesOf(oldest.next());
+        oldest.remove();
+        evictions++;
+      }
+    }
+    return image;
+  }
+
+  /**
+   * Method to read and decode an image file without the cache
+   * @param file the file to read
+   * @return the image as TYPE_INT_RGB or TYPE_INT_ARGB
+   * @throws IOException if the file can't be read or isn't an image
+   */
+  public static BufferedImage decode(File file) throws IOException
+  {
+    BufferedImage image = ImageIO.read(file);
+    if (image == null)
+      throw new IOException(file.getPath() + " is not an image file ImageIO can read");
+    return SimplePicture.toPackedImage(image);
+  }
+
+  /**
+   * Method to decode a small copy of an image file for showing, without
+   * the cache.  The reader keeps only every nth pixel of every nth row
+   * (ImageReadParam.setSourceSubsampling), with n as big as it can be
+   * while the image still is at least as big as the picture fit in
+   * maxWidth by maxHeight.  That skips most of the work of decoding, so
+   * a 40 megapixel jpg comes back in a fraction of the time a full
+   * decode takes.
+   * @param file the file to read
+   * @param maxWidth the width it will be shown in
+   * @param maxHeight the height it will be shown in
+   * @return the image as TYPE_INT_RGB or TYPE_INT_ARGB
+   * @throws IOException if the file can't be read or isn't an image
+   */
+  public static BufferedImage decodePreview(File file, int maxWidth, int maxHeight)
+    throws IOException
+  {
+    try (ImageInputStream in = ImageIO.createImageInputStream(file))
+    {
+      Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+      if (readers == null || !readers.hasNext())
+        throw new IOException(file.getPath() + " is not an image file ImageIO can read");
+      ImageReader reader = readers.next();
+      try
+      {
+        reader.setInput(in, true, true);
+        int width = reader.getWidth(0);
+        int height = reader.getHeight(0);
+        double scale = Math.max((double) width / Math.max(1, maxWidth),
+                                (double) height / Math.max(1, maxHeight));
+        int step = Math.max(1, (int) scale);
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(step, step, 0, 0);
+        return SimplePicture.toPackedImage(reader.read(0, param));
+      }
+      finally
+      {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * Method to get the bytes of pixels an image takes in the cache
+   * @param image the image
+   * @return 4 bytes for each pixel
+   */
+  private static long bytesOf(BufferedImage image)
+  {
+    return 4L * image.getWidth() * image.getHeight();
+  }
+
+  /**
+   * Method to drop every image from the cache.  The counters are kept.
+   */
+  public synchronized void clear()
+  {
+    entries.clear();
+    bytes = 0;
+  }
+
+  /**
+   * Method to get the number of loads that found their image cached
+   * @return the number of hits
+   */
+  public synchronized long getHits() { return hits; }
+
+  /**
+   * Method to get the number of loads that had to decode the file
+   * @return the number of misses
+   */
+  public synchronized long getMisses() { return misses; }
+
+  /**
+   * Method to get the number of images dropped to make room
+   * @return the number of evictions
+   */
+  public synchronized long getEvictions() { return evictions; }
+
+  /**
+   * Method to get the number of images in the cache
+   * @return the number of images
+   */
+  public synchronized int getSize() { return entries.size(); }
+
+  /**
+   * Method to get the bytes of pixels the cache holds now
+   * @return the bytes in use
+   */
+  public synchronized long getBytes() { return bytes; }
+
+  /**
+   * Method to get the most bytes of pixels the cache holds
+   * @return the byte limit
+   */
+  public long getMaxBytes() { return maxBytes; }
+
+  /**
+   * Method to return a string with the counters of the cache
+   * @return the counters as text
+   */
+  public synchronized String toString()
+  {
+    return "ImageCache " + entries.size() + " images, " + bytes + " of " + maxBytes
+      + " bytes, " + hits + " hits, " + misses + " misses, " + evictions + " evictions";
+  }
+}
@@ -0,0 +1,393 @@
+package imageapp;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs picture jobs as three stages, decode, process and encode, so that
+ * reading and writing files overlaps with the filters instead of taking
+ * turns with them.  Each stage has its own threads and its own bounded
+ * queue.  A job holds a permit from the moment it is submitted until its
+ * last stage is done, and submitting blocks while all the permits are
+ * taken, so no more than maxInFlight pictures are ever in memory no
+ * matter how many files a caller hands over.
+ *
+ * The shared pipeline is sized from the number of processors and can be
+ * changed with the imagePipeline.decodeThreads, processThreads,
+ * encodeThreads and maxInFlight system properties.  Its threads are
+ * daemons, so it never has to be closed.
+ *
+ * Don't submit to a pipeline from inside one of its own stages: if all
+ * the permits are taken the stage would wait for itself.
+ */
+public final class ImagePipeline implements AutoCloseable
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** the default number of decode threads (half the processors) */
+  public static final int DEFAULT_DECODE_THREADS =
+    Integer.getInteger("imagePipeline.decodeThreads",
+                       Math.max(1, (Runtime.getRuntime().availableProcessors() + 1) / 2));
+
+  /** the default number of process threads (one for each processor) */
+  public static final int DEFAULT_PROCESS_THREADS =
+    Integer.getInteger("imagePipeline.processThreads",
+                       Runtime.getRuntime().availableProcessors());
+
+  /** the default number of encode threads (half the processors) */
+  public static final int DEFAULT_ENCODE_THREADS =
+    Integer.getInteger("imagePipeline.encodeThreads", DEFAULT_DECODE_THREADS);
+
+  /** the default most jobs in flight (one for each thread) */
+  public static final int DEFAULT_MAX_IN_FLIGHT =
+    Integer.getInteger("imagePipeline.maxInFlight",
+                       DEFAULT_DECODE_THREADS + DEFAULT_PROCESS_THREADS + DEFAULT_ENCODE_THREADS);
+
+  /** the pipeline used by Picture.loadAsync and the batch mode */
+  private static ImagePipeline shared;
+
+  /** the threads that read and decode files */
+  private final ThreadPoolExecutor decoders;
+
+  /** the threads that run the filters */
+  private final ThreadPoolExecutor processors;
+
+  /** the threads that encode and write files */
+  private final ThreadPoolExecutor encoders;
+
+  /** one permit for each job that may be in the pipeline at once */
+  private final Semaphore permits;
+
+  /** the most jobs that may be in the pipeline at once */
+  private final int maxInFlight;
+
+  /////////////////////// Constructors /////////////////////////
+
+  /**
+   * Constructor that takes the thread budget of each stage
+   * @param decodeThreads the number of threads that decode files
+   * @param processThreads the number of threads that run the filters
+   * @param encodeThreads the number of threads that write files
+   * @param maxInFlight the most jobs that may be in the pipeline at once
+   */
+  public ImagePipeline(int decodeThreads, int processThreads,
+                       int encodeThreads, int maxInFlight)
+  {
+    if (decodeThreads < 1 || processThreads < 1 || encodeThreads < 1 || maxInFlight < 1)
+      throw new IllegalArgumentException("thread counts and maxInFlight must be at least 1");
+    this.maxInFlight = maxInFlight;
+    this.permits = new Semaphore(maxInFlight);
+    this.decoders = newStage("decode", decodeThreads, maxInFlight);
+    this.processors = newStage("process", processThreads, maxInFlight);
+    this.encoders = newStage("encode", encodeThreads, maxInFlight);
+  }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to get the shared pipeline, making it the first time
+   * @return the shared pipeline
+   */
+  public static synchronized ImagePipeline shared()
+  {
+    if (shared == null)
+      shared = new ImagePipeline(DEFAULT_DECODE_THREADS, DEFAULT_PROCESS_THREADS,
+                                 DEFAULT_ENCODE_THREADS, DEFAULT_MAX_IN_FLIGHT);
+    return shared;
+  }
+
+  /**
+   * Method to make the thread pool for one stage.  The queue can hold
+   * every job that has a permit, so a task is never turned away.
+   * @param name the name of the stage (used in the thread names)
+   * @param threads the number of threads
+   * @param queueSize the size of the queue
+   * @return the new pool
+   */
+  private static ThreadPoolExecutor newStage(String name, int threads, int queueSize)
+  {
+    AtomicInteger count = new AtomicInteger();
+    return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                  new ArrayBlockingQueue<Runnable>(queueSize),
+                                  r -> {
+                                    Thread thread = new Thread(r, "imageapp-" + name + "-"
+                                                               + count.incrementAndGet());
+                                    thread.setDaemon(true);
+                                    return thread;
+                                  });
+  }
+
+  /**
+   * Method to get the number of decode threads
+   * @return the decode thread budget
+   */
+  public int getDecodeThreads() { return decoders.getCorePoolSize(); }
+
+  /**
+   * Method to get the number of process threads
+   * @return the process thread budget
+   */
+  public int getProcessThreads() { return processors.getCorePoolSize(); }
+
+  /**
+   * Method to get the number of encode threads
+   * @return the encode thread budget
+   */
+  public int getEncodeThreads() { return encoders.getCorePoolSize(); }
+
+  /**
+   * Method to get the most jobs that may be in the pipeline at once
+   * @return the number of permits
+   */
+  public int getMaxInFlight() { return maxInFlight; }
+
+  /**
+   * Method to load a picture on a decode thread.  Blocks while the
+   * pipeline is full.  The decoded image isn't kept in the ImageCache.
+   * @param fileName the file to load (the media path is tried too)
+   * @return a future for the loaded picture; it fails with the
+   * IOException if the file can't be read
+   */
+  public CompletableFuture<Picture> load(String fileName)
+  {
+    return run(() -> {
+      Picture picture = new Picture();
+      picture.loadOrFail(fileName, false);
+      return picture;
+    }, null, null);
+  }
+
+  /**
+   * Method to write a picture on an encode thread.  Blocks while the
+   * pipeline is full.  The picture must not change until the future is
+   * done.
+   * @param picture the picture to write
+   * @param file the file to write (the format comes from its extension)
+   * @return a future that is done when the file is written
+   */
+  public CompletableFuture<File> write(DigitalPicture picture, File file)
+  {
+    CompletableFuture<File> result = new CompletableFuture<File>();
+    if (!acquire(result))
+      return result;
+    CompletableFuture<Void> job;
+    try
+    {
+      job = CompletableFuture.runAsync(() -> writeStep(picture, file), encoders);
+    }
+    catch (RuntimeException ex)
+    {
+      throw submitFailed(ex);
+    }
+    job.whenComplete((ignored, ex) -> {
+      permits.release();
+      if (ex != null)
+        result.completeExceptionally(unwrap(ex));
+      else
+        result.complete(file);
+    });
+    return result;
+  }
+
+  /**
+   * Method to load a picture, run work on it and write the result, with
+   * each step on its own stage
+   * @param input the file to load
+   * @param work the filters to run (may return a new picture)
+   * @param output the file to write
+   * @return a future for the written picture
+   */
+  public CompletableFuture<Picture> run(String input, UnaryOperator<Picture> work,
+                                        File output)
+  {
+    return run(() -> {
+      Picture picture = new Picture();
+      picture.loadOrFail(input, false);
+      return picture;
+    }, work, picture -> {
+      writeStep(picture, output);
+      return picture;
+    });
+  }
+
+  /**
+   * Method to run a job through the three stages.  The caller blocks
+   * while the pipeline is full.  A null process or encode step is
+   * skipped.  If any step throws, the later steps don't run and the
+   * future fails with that exception.
+   * @param decode the step to run on a decode thread
+   * @param process the step to run on a process thread or null
+   * @param encode the step to run on an encode thread or null
+   * @param <T> the type of the job
+   * @return a future for the result of the last step
+   */
+  public <T> CompletableFuture<T> run(Callable<T> decode, UnaryOperator<T> process,
+                                      UnaryOperator<T> encode)
+  {
+    CompletableFuture<T> result = new CompletableFuture<T>();
+    if (!acquire(result))
+      return result;
+    CompletableFuture<T> job;
+    try
+    {
+      job = CompletableFuture.supplyAsync(() -> {
+        try
+        {
+          return decode.call();
+        }
+        catch (Exception ex)
+        {
+          throw new CompletionException(ex);
+        }
+      }, decoders);
+    }
+    catch (RuntimeException ex)
+    {
+      throw submitFailed(ex);
+    }
+    if (process != null)
+      job = job.thenApplyAsync(process, processors);
+    if (encode != null)
+      job = job.thenApplyAsync(encode, encoders);
+    job.whenComplete((value, ex) -> {
+      permits.release();
+      if (ex != null)
+        result.completeExceptionally(unwrap(ex));
+      else
+        result.complete(value);
+    });
+    return result;
+  }
+
+  /**
+   * Method to take a permit for a new job, waiting while the pipeline is
+   * full
+   * @param result the future to fail if the wait is interrupted
+   * @return true if a permit was taken
+   */
+  private boolean acquire(CompletableFuture<?> result)
+  {
+    try
+    {
+      permits.acquire();
+    }
+    catch (InterruptedException ex)
+    {
+      Thread.currentThread().interrupt();
+      result.completeExceptionally(ex);
+      return false;
+    }
+    if (decoders.isShutdown())
+    {
+      permits.release();
+      throw new IllegalStateException("the pipeline is closed");
+    }
+    return true;
+  }
+
+  /**
+   * Method to give back the permit of a job whose first step couldn't
+   * be handed to its stage, like when close races the isShutdown check
+   * in acquire
+   * @param ex the exception the submission threw
+   * @return the exception to throw to the caller
+   */
+  private RuntimeException submitFailed(RuntimeException ex)
+  {
+    permits.release();
+    if (ex instanceof RejectedExecutionException)
+      return new IllegalStateException("the pipeline is closed", ex);
+    return ex;
+  }
+
+  /**
+   * Method to get the exception a step threw from the CompletionException
+   * the future wraps it in
+   * @param ex the exception the future failed with
+   * @return the exception the step threw
+   */
+  private static Throwable unwrap(Throwable ex)
+  {
+    if (ex instanceof CompletionException && ex.getCause() != null)
+      return ex.getCause();
+    return ex;
+  }
+
+  /**
+   * Method to write a picture to a file.  The format comes from the
+   * file's extension.  Formats without alpha (like jpg) get only the
+   * colors, since ImageIO won't write them from an image with alpha.
+   * @param picture the picture to write
+   * @param file the file to write
+   * @throws IOException if the file can't be written
+   */
+  public static void writeImage(DigitalPicture picture, File file) throws IOException
+  {
+    String name = file.getName();
+    String type = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    BufferedImage image = SimplePicture.readImage(picture);
+    if (image.getColorModel().hasAlpha()
+        && !Arrays.asList("png", "gif", "tif", "tiff").contains(type))
+    {
+      int width = image.getWidth();
+      BufferedImage rgb = new BufferedImage(width, image.getHeight(),
+                                            BufferedImage.TYPE_INT_RGB);
+      int[] row = new int[width];
+      for (int y = 0; y < image.getHeight(); y++)
+      {
+        picture.getRow(y, row);
+        rgb.setRGB(0, y, width, 1, row, 0, width);
+      }
+      image = rgb;
+    }
+    if (!ImageIO.write(image, type, file))
+      throw new IOException("no image writer for " + type);
+  }
+
+  /**
+   * Method to write a picture from inside a stage, where checked
+   * exceptions can't be thrown
+   * @param picture the picture to write
+   * @param file the file to write
+   */
+  private static void writeStep(DigitalPicture picture, File file)
+  {
+    try
+    {
+      writeImage(picture, file);
+    }
+    catch (IOException ex)
+    {
+      throw new CompletionException(ex);
+    }
+  }
+
+  /**
+   * Method to stop the pipeline's threads.  Waits for the jobs already
+   * submitted to finish; submitting after this throws an
+   * IllegalStateException.
+   */
+  public void close()
+  {
+    permits.acquireUninterruptibly(maxInFlight);
+    decoders.shutdown();
+    processors.shutdown();
+    encoders.shutdown();
+    permits.release(maxInFlight);
+  }
+}
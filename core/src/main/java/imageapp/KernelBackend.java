@@ -0,0 +1,158 @@
+package imageapp;
+
+/**
+ * Which code runs the simple color filters (grayscale, negative,
+ * changeColor, zeroBlue and the steganography bit masks) over runs of
+ * packed ints.
+ * SCALAR: plain Java loops, one pixel at a time.
+ * VECTOR: the jdk.incubator.vector API, a whole SIMD register of pixels
+ * at a time (8 on AVX2, 16 on AVX-512).
+ *
+ * VECTOR is used when the JVM was started with
+ * --add-modules jdk.incubator.vector and the CPU has registers at least
+ * 128 bits wide; otherwise SCALAR is.  Setting the system property
+ * imageapp.kernels to scalar turns VECTOR off.  Both give exactly the
+ * same pixels.
+ */
+public enum KernelBackend
+{
+  SCALAR, VECTOR;
+
+  /** true if the Vector API can be used */
+  private static final boolean VECTOR_AVAILABLE = checkVector();
+
+  /** the backend in use */
+  private static volatile KernelBackend active =
+    VECTOR_AVAILABLE && !"scalar".equalsIgnoreCase(System.getProperty("imageapp.kernels"))
+    ? VECTOR : SCALAR;
+
+  /**
+   * Method to check if the Vector API is there and worth using.  Nothing
+   * from jdk.incubator.vector is loaded unless the module is.
+   * @return true if it is
+   */
+  private static boolean checkVector()
+  {
+    if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+      return false;
+    try
+    {
+      // fewer than 4 ints at a time is no faster than the scalar loops
+      return VectorKernels.lanes() >= 4;
+    }
+    catch (LinkageError ex)
+    {
+      return false;
+    }
+  }
+
+  /**
+   * Method to check if this backend can be used on this JVM
+   * @return true if it can
+   */
+  public boolean isAvailable()
+  {
+    return this == SCALAR || VECTOR_AVAILABLE;
+  }
+
+  /**
+   * Method to get the backend in use
+   * @return the backend
+   */
+  public static KernelBackend getActive() { return active; }
+
+  /**
+   * Method to pick the backend to use, like for comparing them
+   * @param backend the backend
+   */
+  public static void setActive(KernelBackend backend)
+  {
+    if (!backend.isAvailable())
+      throw new IllegalArgumentException(backend + " kernels need --add-modules "
+                                         + "jdk.incubator.vector and a SIMD CPU");
+    active = backend;
+  }
+
+  /**
+   * Method to check if the vector kernels are in use
+   * @return true for VECTOR
+   */
+  static boolean vector() { return active == VECTOR; }
+
+  /**
+   * Method to make a kernel that keeps the bits of each pixel in a mask
+   * (the others become 0)
+   * @param mask the bits to keep
+   * @return the kernel
+   */
+  static PointKernel andKernel(int mask)
+  {
+    return new PointKernel()
+    {
+      public int apply(int argb) { return argb & mask; }
+
+      public void apply(int[] pixels, int from, int to)
+      {
+        if (vector())
+          VectorKernels.and(pixels, from, to, mask);
+        else
+        {
+          for (int i = from; i < to; i++)
+            pixels[i] &= mask;
+        }
+      }
+    };
+  }
+
+  /**
+   * Method to make a kernel that keeps the bits of each pixel in a mask
+   * and then sets some bits
+   * @param mask the bits to keep
+   * @param bits the bits to set
+   * @return the kernel
+   */
+  static PointKernel andOrKernel(int mask, int bits)
+  {
+    return new PointKernel()
+    {
+      public int apply(int argb) { return (argb & mask) | bits; }
+
+      public void apply(int[] pixels, int from, int to)
+      {
+        if (vector())
+          VectorKernels.andOr(pixels, from, to, mask, bits);
+        else
+        {
+          for (int i = from; i < to; i++)
+            pixels[i] = (pixels[i] & mask) | bits;
+        }
+      }
+    };
+  }
+
+  /**
+   * Method to make a kernel that moves the low bits of each color up to
+   * the top and clears the rest (alpha is kept)
+   * @param lowMask the low bits of the three colors
+   * @param shift how far to move them up
+   * @return the kernel
+   */
+  static PointKernel revealKernel(int lowMask, int shift)
+  {
+    return new PointKernel()
+    {
+      public int apply(int argb) { return (argb & 0xff000000) | ((argb & lowMask) << shift); }
+
+      public void apply(int[] pixels, int from, int to)
+      {
+        if (vector())
+          VectorKernels.reveal(pixels, from, to, lowMask, shift);
+        else
+        {
+          for (int i = from; i < to; i++)
+            pixels[i] = apply(pixels[i]);
+        }
+      }
+    };
+  }
+}
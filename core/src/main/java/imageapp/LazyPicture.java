@@ -0,0 +1,447 @@
+package imageapp;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * A picture with a chain of filters still to do.  Each filter method
+ * just records the step and returns this LazyPicture, so a chain like
+ *
+ *   picture.lazy().grayscale().negative().setLow(Color.red).zeroBlue().write("out.png")
+ *
+ * touches the pixels only when write (or explore or get) needs them,
+ * and then as few times as it can:
+ * - point filters in a row (grayscale, negative, zeroBlue, setLow, any
+ *   PointKernel) are fused into one pass, each pixel going through all
+ *   of them while it is in the cache, and ChannelLuts in a row become
+ *   one table;
+ * - turns and flips in a row are put together into one (two clockwise
+ *   turns are one 180 degree turn, two flips cancel out), and point
+ *   filters after them are moved before them, since changing a pixel's
+ *   color doesn't care where it is.
+ *
+ * The steganography filters (clearLow, setLow, reveal) leave the last
+ * column alone, like the Picture methods do, so they can't be moved
+ * past a turn or flip; a turn or flip before one of them is done first.
+ *
+ * The picture the chain starts from is never changed.
+ */
+public final class LazyPicture
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** the picture the steps start from */
+  private Picture source;
+
+  /** the steps, each a run of point filters and turns that go together */
+  private final List<Stage> stages = new ArrayList<Stage>();
+
+  /** the last stage, still taking steps, or null */
+  private Stage current;
+
+  /////////////////////// Types /////////////////////////
+
+  /**
+   * One pass of point filters followed by a turn or flip, or a step
+   * that can't be fused (when step isn't null)
+   */
+  private static final class Stage
+  {
+    /** the point filters for all the columns but the last */
+    private final List<PointKernel> kernels = new ArrayList<PointKernel>();
+
+    /** the point filters for the last column */
+    private final List<PointKernel> lastColumnKernels = new ArrayList<PointKernel>();
+
+    /** the number of clockwise quarter turns, after the flip */
+    private int turns;
+
+    /** true to flip left to right before the turns */
+    private boolean flipped;
+
+    /** a step to run as it is, or null */
+    private UnaryOperator<Picture> step;
+
+    /**
+     * Method to add a point filter, fusing two ChannelLuts in a row
+     * @param list the filters to add to
+     * @param kernel the filter
+     */
+    private static void add(List<PointKernel> list, PointKernel kernel)
+    {
+      int last = list.size() - 1;
+      if (last >= 0 && list.get(last) instanceof ChannelLut && kernel instanceof ChannelLut)
+        list.set(last, ((ChannelLut) list.get(last)).andThen((ChannelLut) kernel));
+      else
+        list.add(kernel);
+    }
+
+    /**
+     * Method to check if the stage turns or flips the picture
+     * @return true if it does
+     */
+    private boolean moves() { return turns != 0 || flipped; }
+  }
+
+  /**
+   * A point filter that runs a list of filters on each run of pixels,
+   * so the pixels are still in the cache for every filter after the first
+   */
+  private static final class FusedKernel implements PointKernel
+  {
+    /** the filters, in order */
+    private final PointKernel[] kernels;
+
+    /**
+     * Constructor that takes the filters
+     * @param kernels the filters, in order
+     */
+    private FusedKernel(List<PointKernel> kernels)
+    {
+      this.kernels = kernels.toArray(new PointKernel[0]);
+    }
+
+    public int apply(int argb)
+    {
+      for (PointKernel kernel : kernels)
+        argb = kernel.apply(argb);
+      return argb;
+    }
+
+    public void apply(int[] pixels, int from, int to)
+    {
+      for (PointKernel kernel : kernels)
+        kernel.apply(pixels, from, to);
+    }
+  }
+
+  /////////////////////// Constructors /////////////////////////
+
+  /**
+   * Constructor that takes the picture to start from
+   * @param source the picture (it is not changed)
+   */
+  public LazyPicture(Picture source)
+  {
+    this.source = source;
+  }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to add a point filter for every pixel
+   * @param kernel the filter
+   * @return this LazyPicture
+   */
+  public LazyPicture point(PointKernel kernel)
+  {
+    Stage stage = pointStage();
+    Stage.add(stage.kernels, kernel);
+    Stage.add(stage.lastColumnKernels, kernel);
+    return this;
+  }
+
+  /**
+   * Method to add a point filter for every pixel but the last column
+   * @param kernel the filter
+   * @return this LazyPicture
+   */
+  public LazyPicture pointButLastColumn(PointKernel kernel)
+  {
+    // the last column then is a different column of the picture before
+    // a turn or flip, so one has to be done first
+    if (current != null && current.moves())
+      current = null;
+    Stage.add(pointStage().kernels, kernel);
+    return this;
+  }
+
+  /**
+   * Method to get the stage point filters go in
+   * @return the stage
+   */
+  private Stage pointStage()
+  {
+    if (current == null)
+    {
+      current = new Stage();
+      stages.add(current);
+    }
+    return current;
+  }
+
+  /**
+   * Method to average the colors into gray (see ImageApp.grayscale)
+   * @return this LazyPicture
+   */
+  public LazyPicture grayscale() { return point(ImageApp.GRAYSCALE); }
+
+  /**
+   * Method to make a photographic negative (see ImageApp.negativeColor)
+   * @return this LazyPicture
+   */
+  public LazyPicture negative() { return point(ImageApp.NEGATIVE_COLOR); }
+
+  /**
+   * Method to swap red, green and blue (see ImageApp.changeColor)
+   * @return this LazyPicture
+   */
+  public LazyPicture recolor() { return point(ImageApp.CHANGE_COLOR); }
+
+  /**
+   * Method to set the blue to 0
+   * @return this LazyPicture
+   */
+  public LazyPicture zeroBlue() { return point(Picture.ZERO_BLUE); }
+
+  /**
+   * Method to clear the low two bits of each color but in the last
+   * column (see Picture.clearLow)
+   * @return this LazyPicture
+   */
+  public LazyPicture clearLow() { return pointButLastColumn(Picture.CLEAR_LOW); }
+
+  /**
+   * Method to set the low two bits of each color but in the last column
+   * to the low bits of a color (see Picture.setLow)
+   * @param c the color to take the low bits from
+   * @return this LazyPicture
+   */
+  public LazyPicture setLow(Color c)
+  {
+    return pointButLastColumn(Steganography.TWO_BITS.setLowKernel(c));
+  }
+
+  /**
+   * Method to move the low two bits of each color but in the last column
+   * to the top (see Picture.reveal)
+   * @return this LazyPicture
+   */
+  public LazyPicture reveal() { return pointButLastColumn(Picture.REVEAL); }
+
+  /**
+   * Method to turn the picture 90 degrees clockwise
+   * @return this LazyPicture
+   */
+  public LazyPicture rotateClockwise() { return move(1, false); }
+
+  /**
+   * Method to turn the picture 90 degrees counterclockwise
+   * @return this LazyPicture
+   */
+  public LazyPicture rotateCounterclockwise() { return move(3, false); }
+
+  /**
+   * Method to turn the picture 180 degrees
+   * @return this LazyPicture
+   */
+  public LazyPicture rotate180() { return move(2, false); }
+
+  /**
+   * Method to mirror the picture left to right
+   * @return this LazyPicture
+   */
+  public LazyPicture flipHorizontal() { return move(0, true); }
+
+  /**
+   * Method to mirror the picture top to bottom
+   * @return this LazyPicture
+   */
+  public LazyPicture flipVertical() { return move(2, true); }
+
+  /**
+   * Method to flip the picture around its main diagonal
+   * @return this LazyPicture
+   */
+  public LazyPicture transpose() { return move(3, true); }
+
+  /**
+   * Method to add a flip left to right followed by some clockwise turns
+   * after what the current stage does.  A flip after turns is the same
+   * as the turns the other way after a flip, so the stage always stays
+   * one flip and then 0 to 3 turns.
+   * @param turns the number of clockwise quarter turns
+   * @param flip true to flip before the turns
+   * @return this LazyPicture
+   */
+  private LazyPicture move(int turns, boolean flip)
+  {
+    Stage stage = pointStage();
+    if (flip)
+    {
+      stage.turns = -stage.turns;
+      stage.flipped = !stage.flipped;
+    }
+    stage.turns = Math.floorMod(stage.turns + turns, 4);
+    return this;
+  }
+
+  /**
+   * Method to add a step that can't be fused, like a blur.  The step
+   * gets a picture of its own that it may change, and returns the
+   * result (it may be the same picture).
+   * @param step the step
+   * @return this LazyPicture
+   */
+  public LazyPicture apply(UnaryOperator<Picture> step)
+  {
+    Stage stage = new Stage();
+    stage.step = step;
+    stages.add(stage);
+    current = null;
+    return this;
+  }
+
+  /**
+   * Method to do the steps and get the resulting picture.  The steps
+   * are only done once; later steps start from this picture without
+   * changing it.
+   * @return the resulting picture (a new one even if there are no steps)
+   */
+  public Picture get()
+  {
+    Picture result = source;
+    boolean owned = false;
+    for (Stage stage : stages)
+    {
+      if (stage.step != null)
+      {
+        result = stage.step.apply(owned ? result : new Picture(result));
+        owned = true;
+        continue;
+      }
+      if (!stage.kernels.isEmpty() || !stage.lastColumnKernels.isEmpty())
+      {
+        result = applyPoint(result, owned, stage);
+        owned = true;
+      }
+      if (stage.moves())
+      {
+        result = applyMove(result, owned, stage);
+        owned = true;
+      }
+    }
+    if (!owned)
+      result = new Picture(result);
+    stages.clear();
+    current = null;
+    source = result;
+    return result;
+  }
+
+  /**
+   * Method to run the point filters of a stage in one pass
+   * @param picture the picture to filter
+   * @param owned true if the picture may be changed
+   * @param stage the stage
+   * @return the filtered picture
+   */
+  private static Picture applyPoint(Picture picture, boolean owned, Stage stage)
+  {
+    int width = picture.getWidth();
+    int height = picture.getHeight();
+    PointKernel kernel = fuse(stage.kernels);
+    PointKernel lastColumn = fuse(stage.lastColumnKernels);
+    Picture target = owned ? picture : RasterTransform.newPictureLike(picture, width, height);
+    // read from the old picture and write the new one in the same pass
+    TileEngine.forEachBand(width, height, (startRow, endRow) ->
+    {
+      int[] row = new int[width];
+      for (int y = startRow; y < endRow; y++)
+      {
+        picture.getRGB(0, y, width, 1, row, 0, width);
+        kernel.apply(row, 0, width - 1);
+        lastColumn.apply(row, width - 1, width);
+        target.setRGB(0, y, width, 1, row, 0, width);
+      }
+    });
+    return target;
+  }
+
+  /**
+   * Method to make one kernel from a list of point filters
+   * @param kernels the filters
+   * @return the kernel
+   */
+  private static PointKernel fuse(List<PointKernel> kernels)
+  {
+    if (kernels.isEmpty())
+      return ChannelLut.IDENTITY;
+    if (kernels.size() == 1)
+      return kernels.get(0);
+    return new FusedKernel(kernels);
+  }
+
+  /**
+   * Method to do the flip and turns of a stage with as few passes as
+   * it can
+   * @param picture the picture to move
+   * @param owned true if the picture may be changed
+   * @param stage the stage
+   * @return the moved picture
+   */
+  private static Picture applyMove(Picture picture, boolean owned, Stage stage)
+  {
+    if (!stage.flipped)
+    {
+      if (stage.turns == 1)
+        return RasterTransform.rotateClockwise(picture);
+      if (stage.turns == 3)
+        return RasterTransform.rotateCounterclockwise(picture);
+      if (!owned)
+        return RasterTransform.rotate180(picture);
+      RasterTransform.rotate180InPlace(picture);
+      return picture;
+    }
+    switch (stage.turns)
+    {
+      case 0:
+        if (!owned)
+          return RasterTransform.flipHorizontal(picture);
+        RasterTransform.flipHorizontalInPlace(picture);
+        return picture;
+      case 2:
+        if (!owned)
+          return RasterTransform.flipVertical(picture);
+        RasterTransform.flipVerticalInPlace(picture);
+        return picture;
+      case 3:
+        return RasterTransform.transpose(picture);
+      default:
+        // flip across the other diagonal: a transpose turned 180 degrees
+        Picture turned = RasterTransform.transpose(picture);
+        RasterTransform.rotate180InPlace(turned);
+        return turned;
+    }
+  }
+
+  /**
+   * Method to do the steps and write the result to a file
+   * @param fileName the name of the file to write to
+   * @return true if the file was written
+   */
+  public boolean write(String fileName)
+  {
+    return get().write(fileName);
+  }
+
+  /**
+   * Method to do the steps and open the result in a PictureExplorer
+   */
+  public void explore()
+  {
+    get().explore();
+  }
+
+  /**
+   * Method to return a string with the number of steps still to do
+   * @return a string with information about the LazyPicture
+   */
+  public String toString()
+  {
+    return "LazyPicture of " + source + ", " + stages.size() + " passes to do";
+  }
+}
@@ -1,3 +1,5 @@
+package imageapp;
+
 /**
  * Matrix2by2 class represents a 2x2 transformation matrix.
  * Used for image transformations like rotation.
@@ -0,0 +1,824 @@
+package imageapp;
+
+import javax.imageio.ImageWriter;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * A picture whose pixels are kept outside the Java heap, so a 20000 by
+ * 20000 scan (1.6 GB of packed ints) doesn't need a 2 GB heap or make
+ * the garbage collector copy it around.  The pixels are packed ints
+ * (alpha, red, green, blue) in int buffers of up to 1 GB each, a whole
+ * number of rows in each, so any row is in one buffer.  They come from
+ * one of three places:
+ * allocate: direct buffers, which count against -XX:MaxDirectMemorySize
+ * (the same as -Xmx unless it is set);
+ * temporary: a mapped file that is deleted right away, so the operating
+ * system pages the pixels in and out and no Java memory limit applies;
+ * create and open: a mapped file that is kept, with a 16 byte header
+ * (magic, width, height, flags), so the picture can be opened again.
+ *
+ * It works through the DigitalPicture methods, so TileEngine.apply,
+ * ChannelLut, the ImageApp filters on DigitalPicture, Steganography,
+ * PayloadCodec and PixelMask.difference all work on it a band of rows
+ * at a time.  getRasterData is null (there is no int array).  Nothing
+ * copies the whole picture onto the heap: getBufferedImage is a view of
+ * the buffers (so show and explore use the picture itself), write hands
+ * the rows to the image writer a stripe at a time, and load draws an
+ * image a stripe at a time.
+ *
+ * The buffers are given back when the picture is garbage, or right away
+ * by close.  Different threads may work on different rows at the same
+ * time.
+ */
+public final class OffHeapPicture implements DigitalPicture, AutoCloseable
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** the first 4 bytes of a picture file ("IAR1") */
+  private static final int MAGIC = 0x49415231;
+
+  /** the size of the file header in bytes */
+  private static final int HEADER_BYTES = 16;
+
+  /** the flag for a picture with transparency */
+  private static final int FLAG_ALPHA = 1;
+
+  /** the flag for pixels stored little endian */
+  private static final int FLAG_LITTLE_ENDIAN = 2;
+
+  /** the most bytes in one buffer */
+  private static final long MAX_CHUNK_BYTES = 1L << 30;
+
+  /** about the most pixels in a stripe for load and write */
+  private static final int STRIPE_PIXELS = 1 << 20;
+
+  /** Unsafe.invokeCleaner bound to the Unsafe, to free a direct or
+    * mapped buffer right away, or null if this JVM doesn't have it */
+  private static final MethodHandle CLEANER = findCleaner();
+
+  /** the file name the picture was loaded from, or null */
+  private String fileName;
+
+  /** the title of the picture */
+  private String title = "None";
+
+  /** the width in pixels */
+  private int width;
+
+  /** the height in pixels */
+  private int height;
+
+  /** true if alpha is kept; if not, pixels read back as opaque */
+  private boolean hasAlpha;
+
+  /** the number of rows in each buffer (the last may have fewer) */
+  private int rowsPerChunk;
+
+  /** the pixels, rowsPerChunk rows in each buffer */
+  private IntBuffer[] chunks;
+
+  /** the mapped buffers behind chunks, to force to the file, or null */
+  private MappedByteBuffer[] mapped;
+
+  /** the direct or mapped buffers behind chunks, to free on close */
+  private ByteBuffer[] buffers;
+
+  /** the BufferedImage view of the pixels, made when first asked for */
+  private volatile BufferedImage view;
+
+  /** the display the picture is shown in, or null */
+  private PictureDisplay display;
+
+  /////////////////////// Types /////////////////////////
+
+  /**
+   * The pixels as a DataBuffer, so a BufferedImage can show them with no
+   * copy on the heap.  Each element is read from or written to the
+   * buffers as it is used.  It always goes through the picture's current
+   * buffers, so a view kept past close throws instead of reading freed
+   * memory.
+   */
+  private final class PixelDataBuffer extends DataBuffer
+  {
+    /** the pixels in each buffer */
+    private final int chunkPixels = rowsPerChunk * width;
+
+    /**
+     * Constructor for the view of the whole picture
+     */
+    private PixelDataBuffer()
+    {
+      super(DataBuffer.TYPE_INT, width * height);
+    }
+
+    public int getElem(int bank, int i)
+    {
+      return chunks[i / chunkPixels].get(i % chunkPixels);
+    }
+
+    public void setElem(int bank, int i, int value)
+    {
+      chunks[i / chunkPixels].put(i % chunkPixels, value);
+    }
+  }
+
+  /** The pixels as a StripedImage, for the image writers */
+  private final class RowImage extends StripedImage
+  {
+    /**
+     * Constructor that takes the type of the result
+     * @param alpha true to keep alpha
+     */
+    private RowImage(boolean alpha)
+    {
+      super(width, height, stripeRows(), alpha);
+    }
+
+    void fillStripe(int top, WritableRaster tile)
+    {
+      int[] data = ((DataBufferInt) tile.getDataBuffer()).getData();
+      getRGB(0, top, width, tile.getHeight(), data, 0, width);
+    }
+  }
+
+  /////////////////////// Constructors /////////////////////////
+
+  /**
+   * Constructor that takes the size and the buffers
+   * @param width the width in pixels
+   * @param height the height in pixels
+   * @param hasAlpha true to keep alpha
+   * @param rowsPerChunk the number of rows in each buffer
+   * @param chunks the pixel buffers
+   * @param mapped the mapped buffers or null
+   * @param buffers the direct or mapped buffers behind chunks
+   */
+  private OffHeapPicture(int width, int height, boolean hasAlpha, int rowsPerChunk,
+                         IntBuffer[] chunks, MappedByteBuffer[] mapped, ByteBuffer[] buffers)
+  {
+    this.width = width;
+    this.height = height;
+    this.hasAlpha = hasAlpha;
+    this.rowsPerChunk = rowsPerChunk;
+    this.chunks = chunks;
+    this.mapped = mapped;
+    this.buffers = buffers;
+  }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to make a black picture in direct buffers
+   * @param width the width in pixels
+   * @param height the height in pixels
+   * @param hasAlpha true to keep alpha (the pixels start clear)
+   * @return the new picture
+   */
+  public static OffHeapPicture allocate(int width, int height, boolean hasAlpha)
+  {
+    int rows = rowsPerChunk(width, height);
+    IntBuffer[] chunks = new IntBuffer[chunkCount(height, rows)];
+    ByteBuffer[] buffers = new ByteBuffer[chunks.length];
+    for (int i = 0; i < chunks.length; i++)
+    {
+      int chunkRows = Math.min(rows, height - i * rows);
+      buffers[i] = ByteBuffer.allocateDirect(chunkRows * width * 4);
+      chunks[i] = buffers[i].order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+    return new OffHeapPicture(width, height, hasAlpha, rows, chunks, null, buffers);
+  }
+
+  /**
+   * Method to make a black picture in a mapped file that is deleted at
+   * once (the mapping keeps the space until the picture is garbage)
+   * @param width the width in pixels
+   * @param height the height in pixels
+   * @param hasAlpha true to keep alpha (the pixels start clear)
+   * @return the new picture
+   * @throws IOException if the file can't be made
+   */
+  public static OffHeapPicture temporary(int width, int height, boolean hasAlpha)
+    throws IOException
+  {
+    Path file = Files.createTempFile("imageapp", ".iar");
+    try
+    {
+      return create(file, width, height, hasAlpha);
+    }
+    finally
+    {
+      try
+      {
+        Files.delete(file);
+      }
+      catch (IOException ex)
+      {
+        // some systems can't delete a mapped file
+        file.toFile().deleteOnExit();
+      }
+    }
+  }
+
+  /**
+   * Method to make a black picture in a new mapped file (an old file is
+   * replaced)
+   * @param file the file
+   * @param width the width in pixels
+   * @param height the height in pixels
+   * @param hasAlpha true to keep alpha (the pixels start clear)
+   * @return the new picture
+   * @throws IOException if the file can't be made
+   */
+  public static OffHeapPicture create(Path file, int width, int height, boolean hasAlpha)
+    throws IOException
+  {
+    checkSize(width, height);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                StandardOpenOption.TRUNCATE_EXISTING,
+                                                StandardOpenOption.READ,
+                                                StandardOpenOption.WRITE))
+    {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      header.putInt(MAGIC).putInt(width).putInt(height)
+        .putInt((hasAlpha ? FLAG_ALPHA : 0)
+                | (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? FLAG_LITTLE_ENDIAN : 0));
+      header.flip();
+      while (header.hasRemaining())
+        channel.write(header, header.position());
+      return map(channel, width, height, hasAlpha, ByteOrder.nativeOrder());
+    }
+  }
+
+  /**
+   * Method to open a picture file made by create
+   * @param file the file
+   * @return the picture; changes to it go to the file
+   * @throws IOException if the file can't be read or isn't a picture file
+   */
+  public static OffHeapPicture open(Path file) throws IOException
+  {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                                                StandardOpenOption.WRITE))
+    {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      while (header.hasRemaining())
+      {
+        if (channel.read(header, header.position()) < 0)
+          throw new IOException(file + " is not a picture file");
+      }
+      header.flip();
+      int magic = header.getInt();
+      int width = header.getInt();
+      int height = header.getInt();
+      int flags = header.getInt();
+      if (magic != MAGIC || width < 0 || height < 0)
+        throw new IOException(file + " is not a picture file");
+      if (channel.size() < HEADER_BYTES + 4L * width * height)
+        throw new IOException(file + " is too short for a " + width + "x" + height + " picture");
+      ByteOrder order = (flags & FLAG_LITTLE_ENDIAN) != 0 ?
+        ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+      OffHeapPicture picture = map(channel, width, height, (flags & FLAG_ALPHA) != 0, order);
+      picture.fileName = file.toString();
+      picture.title = picture.fileName;
+      return picture;
+    }
+  }
+
+  /**
+   * Method to map the pixels of a picture file
+   * @param channel the open file
+   * @param width the width in pixels
+   * @param height the height in pixels
+   * @param hasAlpha true to keep alpha
+   * @param order the byte order of the pixels
+   * @return the picture
+   * @throws IOException if the file can't be mapped
+   */
+  private static OffHeapPicture map(FileChannel channel, int width, int height,
+                                    boolean hasAlpha, ByteOrder order) throws IOException
+  {
+    int rows = rowsPerChunk(width, height);
+    IntBuffer[] chunks = new IntBuffer[chunkCount(height, rows)];
+    MappedByteBuffer[] mapped = new MappedByteBuffer[chunks.length];
+    for (int i = 0; i < chunks.length; i++)
+    {
+      int chunkRows = Math.min(rows, height - i * rows);
+      long position = HEADER_BYTES + 4L * width * i * rows;
+      mapped[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, 4L * width * chunkRows);
+      chunks[i] = mapped[i].order(order).asIntBuffer();
+    }
+    return new OffHeapPicture(width, height, hasAlpha, rows, chunks, mapped, mapped);
+  }
+
+  /**
+   * Method to copy any picture into direct buffers
+   * @param source the picture to copy
+   * @return the copy
+   */
+  public static OffHeapPicture copyOf(DigitalPicture source)
+  {
+    int width = source.getWidth();
+    boolean alpha;
+    if (source instanceof OffHeapPicture)
+      alpha = ((OffHeapPicture) source).hasAlpha;
+    else
+    {
+      BufferedImage image = SimplePicture.readImage(source);
+      alpha = image != null && image.getColorModel().hasAlpha();
+    }
+    OffHeapPicture copy = allocate(width, source.getHeight(), alpha);
+    copy.copyRowsFrom(source);
+    copy.fileName = source.getFileName();
+    copy.title = source.getTitle();
+    return copy;
+  }
+
+  /**
+   * Method to check a picture size
+   * @param width the width in pixels
+   * @param height the height in pixels
+   */
+  private static void checkSize(int width, int height)
+  {
+    if (width < 0 || height < 0)
+      throw new IllegalArgumentException("bad picture size " + width + "x" + height);
+  }
+
+  /**
+   * Method to work out how many rows go in each buffer
+   * @param width the width in pixels
+   * @param height the height in pixels
+   * @return the number of rows (at least 1)
+   */
+  private static int rowsPerChunk(int width, int height)
+  {
+    checkSize(width, height);
+    if (4L * width > MAX_CHUNK_BYTES)
+      throw new IllegalArgumentException("a row of " + width + " pixels is too long");
+    long rows = MAX_CHUNK_BYTES / Math.max(1, 4L * width);
+    return (int) Math.max(1, Math.min(rows, Math.max(1, height)));
+  }
+
+  /**
+   * Method to work out how many buffers a picture needs
+   * @param height the height in pixels
+   * @param rows the rows in each buffer
+   * @return the number of buffers
+   */
+  private static int chunkCount(int height, int rows)
+  {
+    return (height + rows - 1) / rows;
+  }
+
+  /**
+   * Method to copy all the rows of a picture the same size into this one
+   * @param source the picture to copy
+   */
+  private void copyRowsFrom(DigitalPicture source)
+  {
+    TileEngine.forEachBand(width, height, (startRow, endRow) ->
+    {
+      int[] row = new int[width];
+      for (int y = startRow; y < endRow; y++)
+        setRow(y, source.getRow(y, row));
+    });
+  }
+
+  /**
+   * Method to work out how many rows go in a stripe for load and write
+   * @return the number of rows (at least 1)
+   */
+  private int stripeRows()
+  {
+    return Math.max(1, Math.min(height, STRIPE_PIXELS / Math.max(1, width)));
+  }
+
+  /**
+   * Method to find Unsafe.invokeCleaner, which frees a direct or mapped
+   * buffer without waiting for the garbage collector
+   * @return the method bound to the Unsafe, or null if there is none
+   */
+  private static MethodHandle findCleaner()
+  {
+    try
+    {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field field = unsafeClass.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      return MethodHandles.lookup()
+        .findVirtual(unsafeClass, "invokeCleaner",
+                     MethodType.methodType(void.class, ByteBuffer.class))
+        .bindTo(field.get(null));
+    }
+    catch (ReflectiveOperationException | RuntimeException ex)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Method to free buffers right away if this JVM can; if not they are
+   * freed when they are garbage
+   * @param old the buffers, which must not be used again
+   */
+  private static void free(ByteBuffer[] old)
+  {
+    if (CLEANER == null || old == null)
+      return;
+    for (ByteBuffer buffer : old)
+    {
+      try
+      {
+        CLEANER.invokeExact(buffer);
+      }
+      catch (Throwable ex)
+      {
+        // left for the garbage collector
+      }
+    }
+  }
+
+  /**
+   * Method to give back the memory of the pixels, or unmap the file they
+   * are in, right away instead of when the picture is garbage.  A mapped
+   * file is forced to the disk first, and a display showing the picture
+   * is hidden.  The picture is 0 by 0 after.  No other thread may be
+   * using the picture or its BufferedImage while it closes, since the
+   * memory behind them is gone.
+   */
+  public void close()
+  {
+    force();
+    if (display != null)
+    {
+      display.setVisible(false);
+      display = null;
+    }
+    ByteBuffer[] old = buffers;
+    width = 0;
+    height = 0;
+    rowsPerChunk = 1;
+    chunks = new IntBuffer[0];
+    mapped = null;
+    buffers = null;
+    view = null;
+    free(old);
+  }
+
+  /**
+   * Method to write the pixels of a mapped file out to the disk
+   */
+  public void force()
+  {
+    if (mapped != null)
+    {
+      for (MappedByteBuffer buffer : mapped)
+        buffer.force();
+    }
+  }
+
+  /**
+   * Method to check if the pixels are in a mapped file
+   * @return true if they are
+   */
+  public boolean isMapped() { return mapped != null; }
+
+  /**
+   * Method to check if the picture keeps alpha
+   * @return true if it does
+   */
+  public boolean hasAlpha() { return hasAlpha; }
+
+  public String getFileName() { return fileName; }
+
+  public String getTitle() { return title; }
+
+  public void setTitle(String title) { this.title = title; }
+
+  public int getWidth() { return width; }
+
+  public int getHeight() { return height; }
+
+  /**
+   * Method to get the picture as a BufferedImage (see getBufferedImage)
+   * @return the image
+   */
+  public Image getImage() { return getBufferedImage(); }
+
+  /**
+   * Method to get a BufferedImage that is a view of the pixels, with no
+   * copy on the heap: drawing on the image changes the picture and the
+   * image shows changes to the picture.  A view is slower to draw than
+   * an image on the heap.  The view of a picture with no pixels is one
+   * clear pixel; a picture of more than Integer.MAX_VALUE pixels can't
+   * be a BufferedImage at all (java.awt.image indexes pixels with ints).
+   * @return the image
+   */
+  public BufferedImage getBufferedImage()
+  {
+    BufferedImage image = view;
+    if (image != null)
+      return image;
+    if (width == 0 || height == 0)
+      return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    ColorModel model = new BufferedImage(1, 1, hasAlpha ? BufferedImage.TYPE_INT_ARGB
+                                         : BufferedImage.TYPE_INT_RGB).getColorModel();
+    WritableRaster raster = Raster.createWritableRaster(
+      model.createCompatibleSampleModel(width, height), new PixelDataBuffer(), null);
+    image = new BufferedImage(model, raster, false, null);
+    view = image;
+    return image;
+  }
+
+  /**
+   * Method to check that a rectangle is on the picture
+   * @param x the left x
+   * @param y the top y
+   * @param w the width
+   * @param h the height
+   */
+  private void checkRegion(int x, int y, int w, int h)
+  {
+    if (x < 0 || y < 0 || w < 0 || h < 0 || x + w > width || y + h > height)
+      throw new ArrayIndexOutOfBoundsException("Coordinate out of bounds!");
+  }
+
+  /**
+   * Method to get the buffer that holds a row
+   * @param y the row
+   * @return the buffer
+   */
+  private IntBuffer chunk(int y) { return chunks[y / rowsPerChunk]; }
+
+  /**
+   * Method to get the index in its buffer of a pixel
+   * @param x the x
+   * @param y the y
+   * @return the index
+   */
+  private int index(int x, int y) { return (y % rowsPerChunk) * width + x; }
+
+  public int getBasicPixel(int x, int y)
+  {
+    checkRegion(x, y, 1, 1);
+    int value = chunk(y).get(index(x, y));
+    return hasAlpha ? value : value | 0xff000000;
+  }
+
+  public void setBasicPixel(int x, int y, int rgb)
+  {
+    checkRegion(x, y, 1, 1);
+    chunk(y).put(index(x, y), rgb);
+  }
+
+  public int[] getRGB(int x, int y, int w, int h, int[] rgbArray, int offset, int scansize)
+  {
+    checkRegion(x, y, w, h);
+    if (rgbArray == null)
+      rgbArray = new int[offset + h * scansize];
+    for (int row = 0; row < h; row++)
+    {
+      int to = offset + row * scansize;
+      chunk(y + row).get(index(x, y + row), rgbArray, to, w);
+      if (!hasAlpha)
+      {
+        for (int i = to; i < to + w; i++)
+          rgbArray[i] |= 0xff000000;
+      }
+    }
+    return rgbArray;
+  }
+
+  public void setRGB(int x, int y, int w, int h, int[] rgbArray, int offset, int scansize)
+  {
+    checkRegion(x, y, w, h);
+    for (int row = 0; row < h; row++)
+      chunk(y + row).put(index(x, y + row), rgbArray, offset + row * scansize, w);
+  }
+
+  public int[] getRow(int y, int[] row)
+  {
+    if (row == null || row.length < width)
+      row = new int[width];
+    return getRGB(0, y, width, 1, row, 0, width);
+  }
+
+  public void setRow(int y, int[] row)
+  {
+    setRGB(0, y, width, 1, row, 0, width);
+  }
+
+  /**
+   * Method to get the int array behind the pixels; there isn't one
+   * @return null
+   */
+  public int[] getRasterData() { return null; }
+
+  public Pixel getPixel(int x, int y) { return new Pixel(this, x, y); }
+
+  public Pixel[] getPixels()
+  {
+    Pixel[] pixels = new Pixel[width * height];
+    for (int y = 0; y < height; y++)
+    {
+      for (int x = 0; x < width; x++)
+        pixels[y * width + x] = new Pixel(this, x, y);
+    }
+    return pixels;
+  }
+
+  public Pixel[][] getPixels2D()
+  {
+    Pixel[][] pixels = new Pixel[height][width];
+    for (int y = 0; y < height; y++)
+    {
+      for (int x = 0; x < width; x++)
+        pixels[y][x] = new Pixel(this, x, y);
+    }
+    return pixels;
+  }
+
+  public PixelCursor getPixelCursor() { return new PixelCursor(this); }
+
+  /**
+   * Method to draw an image into the picture, at the top left and at its
+   * own size.  The rows it covers are drawn a stripe at a time, each
+   * stripe copied onto the heap and back.
+   * @param image the image to draw
+   */
+  public void load(Image image)
+  {
+    int imageHeight = image.getHeight(null);
+    int rows = imageHeight < 0 ? height : Math.min(height, imageHeight);
+    if (width == 0 || rows == 0)
+      return;
+    int stripe = stripeRows();
+    BufferedImage part = new BufferedImage(width, stripe, hasAlpha ? BufferedImage.TYPE_INT_ARGB
+                                           : BufferedImage.TYPE_INT_RGB);
+    int[] data = ((DataBufferInt) part.getRaster().getDataBuffer()).getData();
+    for (int top = 0; top < rows; top += stripe)
+    {
+      int count = Math.min(stripe, rows - top);
+      getRGB(0, top, width, count, data, 0, width);
+      Graphics2D graphics = part.createGraphics();
+      graphics.drawImage(image, 0, -top, null);
+      graphics.dispose();
+      setRGB(0, top, width, count, data, 0, width);
+    }
+  }
+
+  /**
+   * Method to load a picture file into this picture.  If the file's
+   * picture is a different size, the pixels move to new direct buffers
+   * (and no longer go to a mapped file).
+   * @param fileName the name of the file
+   * @return true if it was loaded
+   */
+  public boolean load(String fileName)
+  {
+    SimplePicture loaded = new SimplePicture();
+    try
+    {
+      loaded.loadOrFail(fileName, false);
+    }
+    catch (IOException ex)
+    {
+      System.out.println("There was an error trying to open " + fileName);
+      return false;
+    }
+    if (loaded.getWidth() != width || loaded.getHeight() != height)
+    {
+      OffHeapPicture resized = allocate(loaded.getWidth(), loaded.getHeight(), hasAlpha);
+      ByteBuffer[] old = buffers;
+      force();
+      width = resized.width;
+      height = resized.height;
+      rowsPerChunk = resized.rowsPerChunk;
+      chunks = resized.chunks;
+      mapped = null;
+      buffers = resized.buffers;
+      view = null;
+      free(old);
+    }
+    copyRowsFrom(loaded);
+    this.fileName = fileName;
+    this.title = fileName;
+    return true;
+  }
+
+  /**
+   * Method to show the picture through its BufferedImage view, or show
+   * it again if it is shown already
+   */
+  public void show()
+  {
+    if (display != null)
+    {
+      display.updateImageAndShowIt();
+      return;
+    }
+    PictureViewer viewer = PictureViewer.find();
+    if (viewer == null)
+      System.out.println("No picture viewer available to show " + title);
+    else
+      display = viewer.show(this);
+  }
+
+  /**
+   * Method to explore the picture through its BufferedImage view.  Unlike
+   * SimplePicture.explore it explores the picture itself, not a copy, so
+   * later changes show when the explorer repaints.
+   */
+  public void explore()
+  {
+    PictureViewer viewer = PictureViewer.find();
+    if (viewer == null)
+      System.out.println("No picture viewer available to explore " + title);
+    else
+      viewer.explore(this);
+  }
+
+  /**
+   * Method to write the picture to an image file without throwing errors
+   * (see writeOrFail)
+   * @param fileName the name of the file to write to
+   * @return true if it was written
+   */
+  public boolean write(String fileName)
+  {
+    try
+    {
+      writeOrFail(fileName);
+      return true;
+    }
+    catch (IOException ex)
+    {
+      System.out.println("There was an error trying to write " + fileName);
+      ex.printStackTrace();
+      return false;
+    }
+  }
+
+  /**
+   * Method to write the picture to an image file, handing the rows to
+   * the image writer a stripe at a time so there is no copy of the whole
+   * picture on the heap (but the jpg writer asks for all of it at once;
+   * see StripedImage).  The format comes from the extension (jpg if
+   * there is none), and a name with no folder goes in the media folder,
+   * like SimplePicture.write.  Alpha is kept if the format can hold it.
+   * @param fileName the name of the file to write to
+   * @throws IOException if the file can't be written
+   */
+  public void writeOrFail(String fileName) throws IOException
+  {
+    if (width == 0 || height == 0)
+      throw new IOException("a picture with no pixels can't be written");
+    File file = new File(fileName);
+    if (file.getParentFile() == null)
+      file = new File(SimplePicture.getMediaPath(fileName));
+    int dot = file.getName().lastIndexOf('.');
+    String type = dot >= 0 ? file.getName().substring(dot + 1).toLowerCase(Locale.ROOT) : "jpg";
+    ImageWriter writer = StripedImage.writerFor(type);
+    try
+    {
+      new RowImage(hasAlpha && StripedImage.keepsAlpha(type)).write(writer, file);
+    }
+    finally
+    {
+      writer.dispose();
+    }
+  }
+
+  /**
+   * Method to return a string with information about the picture
+   * @return a string with the size and where the pixels are
+   */
+  public String toString()
+  {
+    return "OffHeapPicture, filename " + fileName + " height " + height + " width " + width
+      + (mapped != null ? " mapped" : " direct");
+  }
+}
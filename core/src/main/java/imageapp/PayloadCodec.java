@@ -0,0 +1,341 @@
+package imageapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+
+/**
+ * Hides any bytes (a record of where a picture came from, a zip file,
+ * and so on) in the low bits of the colors of a picture and gets them
+ * back out.  Each color of each pixel holds 1 to 4 bits of the bytes,
+ * red then green then blue, starting at the top left pixel, so a 12
+ * megapixel picture holds about 9 MB at 2 bits.
+ *
+ * The bytes come after a 16 byte header: a magic number, the number of
+ * bytes and their CRC-32.  Both ways stream: encode reads the bytes a
+ * buffer at a time and writes each row of the picture as it goes, and
+ * writes the header at the end, once the length and CRC are known (the
+ * old header is cleared first, so a failed encode leaves none);
+ * decode writes the bytes out as it reads the rows.  So a payload is
+ * never all in memory.  The low bits past the end of the payload are
+ * left as they were.
+ */
+public final class PayloadCodec
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** the first 4 bytes of the header ("IAP1") */
+  private static final int MAGIC = 0x49415031;
+
+  /** the size of the header in bytes */
+  private static final int HEADER_BYTES = 16;
+
+  /** the size of the buffers the bytes are streamed through */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /** the number of low bits of each color used */
+  private final int bits;
+
+  /** the low bits of one color, like 3 for 2 bits */
+  private final int mask;
+
+  /////////////////////// Constructors /////////////////////////
+
+  /**
+   * Constructor that takes the number of bits of each color to use
+   * @param bits the number of low bits of each color (1 to 4)
+   */
+  public PayloadCodec(int bits)
+  {
+    Steganography.forBits(bits);   // checks the number of bits
+    this.bits = bits;
+    this.mask = (1 << bits) - 1;
+  }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to get the number of low bits of each color used
+   * @return the number of bits
+   */
+  public int getBits() { return bits; }
+
+  /**
+   * Method to get the number of pixels the header takes.  The payload
+   * starts on the next pixel.
+   * @return the number of header pixels
+   */
+  private int headerPixels()
+  {
+    int bitsPerPixel = 3 * bits;
+    return (HEADER_BYTES * 8 + bitsPerPixel - 1) / bitsPerPixel;
+  }
+
+  /**
+   * Method to get the most bytes a picture can hold
+   * @param cover the picture
+   * @return the number of bytes (0 if the header doesn't fit)
+   */
+  public long getCapacity(DigitalPicture cover)
+  {
+    long pixels = (long) cover.getWidth() * cover.getHeight() - headerPixels();
+    return pixels <= 0 ? 0 : pixels * 3 * bits / 8;
+  }
+
+  /**
+   * Method to hide all the bytes of a stream in a picture.  The stream
+   * is read to its end but not closed.  If the bytes don't fit or can't
+   * be read, an IOException is thrown and the picture holds no payload:
+   * the header pixels are cleared before any of the bytes are written
+   * and the new header is only written once all the bytes are in.  The
+   * bytes written before the failure stay in the low bits.
+   * @param in the bytes to hide
+   * @param cover the picture to hide them in
+   * @return the number of bytes hidden
+   * @throws IOException if the stream can't be read or the bytes don't
+   * fit in the picture
+   */
+  public long encode(InputStream in, DigitalPicture cover) throws IOException
+  {
+    if (getCapacity(cover) == 0)
+      throw new IOException("the picture is too small to hold a payload");
+    // clear an old header first, so a payload that fails part way
+    // doesn't leave the picture looking like it holds the old payload
+    embed(new ByteArrayInputStream(new byte[HEADER_BYTES]), cover, 0, null);
+    CRC32 crc = new CRC32();
+    long length = embed(in, cover, headerPixels(), crc);
+
+    ByteArrayOutputStream headerBytes = new ByteArrayOutputStream(HEADER_BYTES);
+    DataOutputStream header = new DataOutputStream(headerBytes);
+    header.writeInt(MAGIC);
+    header.writeLong(length);
+    header.writeInt((int) crc.getValue());
+    embed(new ByteArrayInputStream(headerBytes.toByteArray()), cover, 0, null);
+    return length;
+  }
+
+  /**
+   * Method to get back the bytes hidden in a picture by encode.  The
+   * bytes are written to the stream as they are read, so if the CRC
+   * doesn't match they have already been written when the IOException
+   * is thrown.  The stream is not closed.
+   * @param cover the picture holding the bytes
+   * @param out the stream to write the bytes to
+   * @return the number of bytes written
+   * @throws IOException if the picture has no payload hidden with this
+   * many bits, the CRC doesn't match, or the stream can't be written
+   */
+  public long decode(DigitalPicture cover, OutputStream out) throws IOException
+  {
+    long capacity = getCapacity(cover);
+    if (capacity == 0)
+      throw new IOException("the picture is too small to hold a payload");
+    ByteArrayOutputStream headerBytes = new ByteArrayOutputStream(HEADER_BYTES);
+    extract(cover, 0, HEADER_BYTES, headerBytes, null);
+    DataInputStream header =
+      new DataInputStream(new ByteArrayInputStream(headerBytes.toByteArray()));
+    int magic = header.readInt();
+    long length = header.readLong();
+    int expectedCrc = header.readInt();
+    if (magic != MAGIC)
+      throw new IOException("no payload hidden with " + bits + " bits in the picture");
+    if (length < 0 || length > capacity)
+      throw new IOException("bad payload length " + length);
+
+    CRC32 crc = new CRC32();
+    extract(cover, headerPixels(), length, out, crc);
+    if ((int) crc.getValue() != expectedCrc)
+      throw new IOException("the payload's CRC doesn't match; the picture was changed");
+    return length;
+  }
+
+  /**
+   * Method to write the bits of a stream into the low bits of a picture,
+   * a row at a time, starting at a pixel.  The last bits are padded with
+   * zeros to fill a color.
+   * @param in the bytes to write
+   * @param cover the picture
+   * @param firstPixel the index (y * width + x) of the first pixel
+   * @param crc the checksum to add the bytes to or null
+   * @return the number of bytes written
+   * @throws IOException if the stream can't be read or runs past the
+   * end of the picture
+   */
+  private long embed(InputStream in, DigitalPicture cover, long firstPixel, CRC32 crc)
+    throws IOException
+  {
+    int width = cover.getWidth();
+    long pixels = (long) width * cover.getHeight();
+    byte[] buffer = new byte[BUFFER_SIZE];
+    int[] row = new int[width];
+    int filled = 0;
+    int next = 0;
+    boolean end = false;
+    long count = 0;
+    long bitBuffer = 0;
+    int bitCount = 0;
+
+    for (long pixel = firstPixel; pixel < pixels; pixel = (pixel / width + 1) * width)
+    {
+      int y = (int) (pixel / width);
+      int x = (int) (pixel % width);
+      cover.getRGB(x, y, width - x, 1, row, 0, width);
+      boolean done = false;
+      int col = 0;
+      for (; col < width - x && !done; col++)
+      {
+        int value = row[col];
+        for (int shift = 16; shift >= 0; shift -= 8)
+        {
+          if (bitCount < bits)
+          {
+            if (next == filled && !end)
+            {
+              filled = readSome(in, buffer);
+              next = 0;
+              end = filled < 0;
+              if (end)
+                filled = 0;
+              else
+              {
+                count += filled;
+                if (crc != null)
+                  crc.update(buffer, 0, filled);
+              }
+            }
+            if (next < filled)
+            {
+              bitBuffer = (bitBuffer << 8) | (buffer[next++] & 0xff);
+              bitCount += 8;
+            }
+            else if (bitCount == 0)
+            {
+              done = true;
+              break;
+            }
+            else
+            {
+              // the last few bits: pad them with zeros
+              bitBuffer <<= bits - bitCount;
+              bitCount = bits;
+            }
+          }
+          bitCount -= bits;
+          int part = (int) (bitBuffer >>> bitCount) & mask;
+          value = (value & ~(mask << shift)) | (part << shift);
+        }
+        row[col] = value;
+      }
+      cover.setRGB(x, y, col, 1, row, 0, width);
+      if (done)
+        return count;
+    }
+
+    // out of pixels: every bit must be in
+    if (bitCount > 0 || next < filled || (!end && in.read() >= 0))
+      throw new IOException("the payload is bigger than the " + getCapacity(cover)
+                            + " bytes the picture can hold");
+    return count;
+  }
+
+  /**
+   * Method to read at least one byte from a stream, unless it is at its
+   * end
+   * @param in the stream
+   * @param buffer the buffer to read into
+   * @return the number of bytes read or -1 at the end of the stream
+   * @throws IOException if the stream can't be read
+   */
+  private static int readSome(InputStream in, byte[] buffer) throws IOException
+  {
+    int read;
+    do
+    {
+      read = in.read(buffer);
+    } while (read == 0);
+    return read;
+  }
+
+  /**
+   * Method to read bytes from the low bits of a picture, a row at a
+   * time, starting at a pixel
+   * @param cover the picture
+   * @param firstPixel the index (y * width + x) of the first pixel
+   * @param length the number of bytes to read (they must fit)
+   * @param out the stream to write the bytes to
+   * @param crc the checksum to add the bytes to or null
+   * @throws IOException if the stream can't be written
+   */
+  private void extract(DigitalPicture cover, long firstPixel, long length,
+                       OutputStream out, CRC32 crc) throws IOException
+  {
+    int width = cover.getWidth();
+    byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(1, length))];
+    int[] row = new int[width];
+    int used = 0;
+    long left = length;
+    long bitBuffer = 0;
+    int bitCount = 0;
+
+    for (long pixel = firstPixel; left > 0; pixel = (pixel / width + 1) * width)
+    {
+      int y = (int) (pixel / width);
+      int x = (int) (pixel % width);
+      cover.getRGB(x, y, width - x, 1, row, 0, width);
+      for (int col = 0; col < width - x && left > 0; col++)
+      {
+        int value = row[col];
+        for (int shift = 16; shift >= 0 && left > 0; shift -= 8)
+        {
+          bitBuffer = (bitBuffer << bits) | ((value >>> shift) & mask);
+          bitCount += bits;
+          if (bitCount >= 8)
+          {
+            bitCount -= 8;
+            buffer[used++] = (byte) (bitBuffer >>> bitCount);
+            left--;
+            if (used == buffer.length)
+            {
+              flush(out, buffer, used, crc);
+              used = 0;
+            }
+          }
+        }
+      }
+    }
+    flush(out, buffer, used, crc);
+  }
+
+  /**
+   * Method to write out a buffer of bytes
+   * @param out the stream to write to
+   * @param buffer the bytes
+   * @param length the number of bytes to write
+   * @param crc the checksum to add the bytes to or null
+   * @throws IOException if the stream can't be written
+   */
+  private static void flush(OutputStream out, byte[] buffer, int length, CRC32 crc)
+    throws IOException
+  {
+    if (length == 0)
+      return;
+    if (crc != null)
+      crc.update(buffer, 0, length);
+    out.write(buffer, 0, length);
+  }
+
+  /**
+   * Method to return a string with the number of bits
+   * @return a string with information about the codec
+   */
+  public String toString()
+  {
+    return "PayloadCodec " + bits + " bits";
+  }
+}
@@ -0,0 +1,773 @@
+package imageapp;
+
+import java.awt.*;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A class that represents a picture.  This class inherits from 
+ * SimplePicture and allows the student to add functionality to
+ * the Picture class.  
+ * 
+ * @author Barbara Ericson ericson@cc.gatech.edu
+ */
+public class Picture extends SimplePicture 
+{
+  ///////////////////// kernels //////////////////////////////////////
+  
+  /** Point kernel that sets the blue to 0 */
+  public static final PointKernel ZERO_BLUE = KernelBackend.andKernel(0xffffff00);
+  
+  /** Point kernel that clears the lowest two bits of each color */
+  public static final PointKernel CLEAR_LOW = Steganography.TWO_BITS.clearLowKernel();
+  
+  /** Point kernel that moves the lowest two bits of each color to the highest two */
+  public static final PointKernel REVEAL = Steganography.TWO_BITS.revealKernel();
+  
+  /** the last Canny detector each thread used, kept with its planes for
+    * the next call; it is soft so the planes of a big picture can be
+    * taken back when memory runs low */
+  private static final ThreadLocal<SoftReference<CannyEdgeDetector>> CANNY =
+    new ThreadLocal<SoftReference<CannyEdgeDetector>>();
+  
+  ///////////////////// constructors //////////////////////////////////
+  
+  /**
+   * Constructor that takes no arguments 
+   */
+  public Picture ()
+  {
+    /* not needed but use it to show students the implicit call to super()
+     * child constructors always call a parent constructor 
+     */
+    super();  
+  }
+  
+  /**
+   * Constructor that takes a file name and creates the picture 
+   * @param fileName the name of the file to create the picture from
+   */
+  public Picture(String fileName)
+  {
+    // let the parent class handle this fileName
+    super(fileName);
+  }
+  
+  /**
+   * Constructor that takes the width and height
+   * @param height the height of the desired picture
+   * @param width the width of the desired picture
+   */
+  public Picture(int height, int width)
+  {
+    // let the parent class handle this width and height
+    super(width,height);
+  }
+  
+  /**
+   * Constructor that takes a picture and creates a 
+   * copy of that picture
+   * @param copyPicture the picture to copy
+   */
+  public Picture(Picture copyPicture)
+  {
+    // let the parent class do the copy
+    super(copyPicture);
+  }
+  
+  /**
+   * Constructor that takes a buffered image
+   * @param image the buffered image to use
+   */
+  public Picture(BufferedImage image)
+  {
+    super(image);
+  }
+  
+  ////////////////////// methods ///////////////////////////////////////
+  
+  /**
+   * Method to load a picture on a decode thread of the shared
+   * ImagePipeline, so several files can be read while the caller
+   * does other work
+   * @param fileName the name of the file to load
+   * @return a future for the picture; it fails with an IOException if
+   * the file can't be read
+   */
+  public static CompletableFuture<Picture> loadAsync(String fileName)
+  {
+    return ImagePipeline.shared().load(fileName);
+  }
+  
+  /**
+   * Method to return a string with information about this picture.
+   * @return a string with information about the picture such as fileName,
+   * height and width.
+   */
+  public String toString()
+  {
+    String output = "Picture, filename " + getFileName() + 
+      " height " + getHeight() 
+      + " width " + getWidth();
+    return output;
+    
+  }
+  
+  /** Method to start a chain of filters that are only done when the
+    * result is needed, fused into as few passes as possible (see
+    * LazyPicture).  This picture is not changed.
+    * @return the LazyPicture to add filters to
+    */
+  public LazyPicture lazy()
+  {
+    return new LazyPicture(this);
+  }
+  
+  /** Method to set the blue to 0 */
+  public void zeroBlue()
+  {
+    TileEngine.apply(this, ZERO_BLUE);
+  }
+  
+  /** Method to make the picture brighter or darker
+    * @param amount the amount to add to each color (less than 0 to darken)
+    */
+  public void adjustBrightness(int amount)
+  {
+    ChannelLut.brightness(amount).apply(this);
+  }
+  
+  /** Method to spread the colors away from the middle or pull them in
+    * @param factor more than 1 for more contrast, less than 1 for less
+    */
+  public void adjustContrast(double factor)
+  {
+    ChannelLut.contrast(factor).apply(this);
+  }
+  
+  /** Method to brighten (gamma more than 1) or darken the middle colors
+    * @param gamma the gamma
+    */
+  public void adjustGamma(double gamma)
+  {
+    ChannelLut.gamma(gamma).apply(this);
+  }
+  
+  /** Method that mirrors the picture around a 
+    * vertical mirror in the center of the picture
+    * from left to right */
+  public void mirrorVertical()
+  {
+    PixelCursor leftPixel = this.getPixelCursor();
+    PixelCursor rightPixel = this.getPixelCursor();
+    int width = this.getWidth();
+    for (int row = 0; row < this.getHeight(); row++)
+    {
+      for (int col = 0; col < width / 2; col++)
+      {
+        leftPixel.moveTo(col,row);
+        rightPixel.moveTo(width - 1 - col,row);
+        rightPixel.updatePicture(rightPixel.getAlpha(),leftPixel.getRed(),
+                                 leftPixel.getGreen(),leftPixel.getBlue());
+      }
+    } 
+  }
+  
+  /** Mirror just part of a picture of a temple */
+  public void mirrorTemple()
+  {
+    int mirrorPoint = 276;
+    PixelCursor leftPixel = this.getPixelCursor();
+    PixelCursor rightPixel = this.getPixelCursor();
+    
+    // loop through the rows
+    for (int row = 27; row < 97; row++)
+    {
+      // loop from 13 to just before the mirror point
+      for (int col = 13; col < mirrorPoint; col++)
+      {
+        
+        leftPixel.moveTo(col,row);      
+        rightPixel.moveTo(mirrorPoint - col + mirrorPoint,row);
+        rightPixel.updatePicture(rightPixel.getAlpha(),leftPixel.getRed(),
+                                 leftPixel.getGreen(),leftPixel.getBlue());
+      }
+    }
+  }
+  
+  /** copy from the passed fromPic to the
+    * specified startRow and startCol in the
+    * current picture
+    * @param fromPic the picture to copy from
+    * @param startRow the start row to copy to
+    * @param startCol the start col to copy to
+    */
+  public void copy(Picture fromPic, 
+                 int startRow, int startCol)
+  {
+    PixelCursor fromPixel = fromPic.getPixelCursor();
+    PixelCursor toPixel = this.getPixelCursor();
+    for (int fromRow = 0, toRow = startRow; 
+         fromRow < fromPic.getHeight() &&
+         toRow < this.getHeight(); 
+         fromRow++, toRow++)
+    {
+      for (int fromCol = 0, toCol = startCol; 
+           fromCol < fromPic.getWidth() &&
+           toCol < this.getWidth();  
+           fromCol++, toCol++)
+      {
+        fromPixel.moveTo(fromCol,fromRow);
+        toPixel.moveTo(toCol,toRow);
+        toPixel.updatePicture(toPixel.getAlpha(),fromPixel.getRed(),
+                              fromPixel.getGreen(),fromPixel.getBlue());
+      }
+    }   
+  }
+
+  /** Method to create a collage of several pictures */
+  public void createCollage()
+  {
+    // start reading both files before waiting for either
+    CompletableFuture<Picture> loading1 = loadAsync("flower1.jpg");
+    CompletableFuture<Picture> loading2 = loadAsync("flower2.jpg");
+    Picture flower1 = loading1.join();
+    Picture flower2 = loading2.join();
+    this.copy(flower1,0,0);
+    this.copy(flower2,100,0);
+    this.copy(flower1,200,0);
+    Picture flowerNoBlue = new Picture(flower2);
+    flowerNoBlue.zeroBlue();
+    this.copy(flowerNoBlue,300,0);
+    this.copy(flower1,400,0);
+    this.copy(flower2,500,0);
+    this.mirrorVertical();
+    this.write("collage.jpg");
+  }
+  
+  
+  /** Method to show large changes in color 
+    * @param edgeDist the distance for finding edges
+    */
+  public void edgeDetection(int edgeDist)
+  {
+    this.edgeDetection(edgeDist, ColorDistance.EUCLIDEAN);
+  }
+
+  /** Method to show large changes in color: a pixel turns black if its
+    * color is farther than edgeDist from its right neighbor's and white
+    * if not.  The squared distance is compared to edgeDist squared, so
+    * there is no square root for each pixel.
+    * @param edgeDist the distance for finding edges
+    * @param metric how to measure the distance between colors
+    */
+  public void edgeDetection(double edgeDist, ColorDistance metric)
+  {
+    int width = this.getWidth();
+    float limit = ColorDistance.squaredTolerance(edgeDist);
+    TileEngine.forEachBand(width, this.getHeight(), (startRow, endRow) ->
+    {
+      int[] row = new int[width];
+      for (int y = startRow; y < endRow; y++)
+      {
+        // each pixel only looks at its right neighbor in the same row,
+        // which hasn't been changed yet, so one row at a time is enough
+        this.getRow(y, row);
+        for (int col = 0; col < width-1; col++)
+        {
+          int left = row[col];
+          if (metric.squared(left, row[col+1]) > limit)
+            row[col] = (left & 0xff000000);
+          else
+            row[col] = (left & 0xff000000) | 0x00ffffff;
+        }
+        this.setRow(y, row);
+      }
+    });
+  }
+
+  /** Method to run a convolution kernel over the picture.  Every pixel
+    * is made from the old pixels around it, so the new pixels go to one
+    * array and are copied back once they are all made.
+    * @param kernel the kernel
+    * @param border what to use past the edges
+    */
+  public void convolve(ConvolutionKernel kernel, BorderMode border)
+  {
+    int width = this.getWidth();
+    int height = this.getHeight();
+    int[] result = new int[width * height];
+    Convolution.convolve(this, kernel, border, result);
+    this.setRGB(0, 0, width, height, result, 0, width);
+  }
+
+  /** Method to blur the picture with a Gaussian blur
+    * @param sigma how far the blur reaches, in pixels
+    */
+  public void blur(double sigma)
+  {
+    this.convolve(ConvolutionKernel.gaussian(sigma), BorderMode.CLAMP);
+  }
+
+  /** Method to sharpen the picture */
+  public void sharpen()
+  {
+    this.convolve(ConvolutionKernel.SHARPEN, BorderMode.CLAMP);
+  }
+
+  /** Method to show how strong the edges are as gray: black where the
+    * color doesn't change and brighter where it changes fast
+    * @param operator the edge kernels to use
+    */
+  public void edgeMagnitude(EdgeOperator operator)
+  {
+    Convolution.gradientMagnitude(this, operator, BorderMode.CLAMP, this);
+  }
+
+  /** Method to show the edges found by the Canny method in black on
+    * white, like edgeDetection but with thin, joined lines
+    * @param low the gradient length a pixel joined to an edge needs
+    * @param high the gradient length that starts an edge
+    */
+  public void cannyEdgeDetection(double low, double high)
+  {
+    SoftReference<CannyEdgeDetector> kept = CANNY.get();
+    CannyEdgeDetector detector = kept == null ? null : kept.get();
+    if (detector == null || !detector.hasSettings(1.4, low, high))
+    {
+      detector = new CannyEdgeDetector(1.4, low, high);
+      CANNY.set(new SoftReference<CannyEdgeDetector>(detector));
+    }
+    this.cannyEdgeDetection(detector);
+  }
+  
+  /** Method to show the edges found by a Canny detector in black on
+    * white.  A detector used for many pictures keeps its planes, so
+    * this makes no garbage for pictures the same size or smaller.
+    * @param detector the detector to use
+    */
+  public void cannyEdgeDetection(CannyEdgeDetector detector)
+  {
+    CannyEdgeDetector.render(detector.detect(this), this);
+  }
+
+  /**
+   * Hides secret in picture
+   */
+  public void hide(Picture secret)
+  {
+    hide(secret, 0, 0);
+  }
+  
+  /**
+   * Hides secret in picture, starting at a given point in picture
+   */
+  public void hide(Picture secret, int startX, int startY)
+  {
+    // the last column of the picture is never changed
+    Steganography.TWO_BITS.hide(this, secret, startX, startY);
+  }
+  
+  /**
+   * Hides secret in picture using the given number of low bits of each
+   * color (1 to 4; hide uses 2)
+   */
+  public void hide(Picture secret, int startX, int startY, int bits)
+  {
+    Steganography.forBits(bits).hide(this, secret, startX, startY);
+  }
+  
+  /**
+   * Hides several secrets in picture in one pass, the same as calling
+   * hide for each in order
+   */
+  public void hideAll(Steganography.Secret... secrets)
+  {
+    Steganography.TWO_BITS.hide(this, Arrays.asList(secrets));
+  }
+
+  
+  /**
+   * Hides the bytes of a stream in the lowest two bits of each color (see
+   * PayloadCodec), returning how many bytes were hidden
+   */
+  public long hideBytes(InputStream in) throws IOException
+  {
+    return new PayloadCodec(2).encode(in, this);
+  }
+  
+  /**
+   * Writes the bytes hidden by hideBytes to a stream, returning how many
+   * bytes were written
+   */
+  public long unhideBytes(OutputStream out) throws IOException
+  {
+    return new PayloadCodec(2).decode(this, out);
+  }
+
+  
+/**
+ * Revels the hidden picture
+ */
+  public void unhide()
+  {
+    Steganography.TWO_BITS.reveal(this);
+  }
+  
+/**
+ * Revels a picture hidden with the given number of bits
+ */
+  public void unhide(int bits)
+  {
+    Steganography.forBits(bits).reveal(this);
+  }
+
+/**
+ * Clear the lower two bits in all pixels
+ */
+public void clearLow(){
+    Steganography.TWO_BITS.clearLow(this);
+}
+
+/**
+ * Set the lower two bits in all pixels
+ */
+public void setLow(Color c){
+    // clear the lowest two bits and set them from c in the same pass
+    Steganography.TWO_BITS.setLow(this, c);
+}
+
+/**
+ * Method to make a point kernel that clears the lowest two bits of each 
+ * color and then sets them to the lowest two bits of the passed color
+ * @param c the color to take the low bits from
+ * @return the kernel that setLow runs
+ */
+public static PointKernel setLowKernel(Color c){
+    return Steganography.TWO_BITS.setLowKernel(c);
+}
+
+/**
+ * Sets the highest two bits of each pixel's colors to the lowest two bits of each pixel's colors
+ */
+public void reveal(){
+    Steganography.TWO_BITS.reveal(this);
+}
+
+/**
+ * Method to check if two pictures are the same size with the same
+ * colors (alpha is not compared).  When both pictures already have
+ * their content hashes, pictures that differ are told apart without
+ * looking at their pixels.  Otherwise (or when the hashes match) the
+ * rows are compared as packed ints and the first different color ends
+ * the search; big pictures are compared a band of rows at a time in
+ * parallel.  Making a hash here would read every pixel once more than
+ * just comparing them, so no hash is made.
+ * @param pic1 the first picture
+ * @param pic2 the second picture
+ * @return true if the pictures have the same size and colors
+ */
+public static boolean isSame(Picture pic1, Picture pic2)
+{
+   if(pic1.getWidth() != pic2.getWidth() || pic1.getHeight() != pic2.getHeight())
+      return false;
+   if (pic1 == pic2)
+      return true;
+   if (pic1.hasContentHash() && pic2.hasContentHash()
+       && pic1.getContentHash() != pic2.getContentHash())
+      return false;
+   return !rowsDiffer(pic1, pic2);
+}
+
+/**
+ * Method to compare the colors of two pictures of the same size row
+ * by row, stopping every band as soon as one finds a difference
+ * @param pic1 the first picture
+ * @param pic2 the second picture
+ * @return true if some pixel has a different color
+ */
+private static boolean rowsDiffer(Picture pic1, Picture pic2)
+{
+   int width = pic1.getWidth();
+   int[] data1 = pic1.peekRasterData();
+   int[] data2 = pic2.peekRasterData();
+   AtomicBoolean differ = new AtomicBoolean();
+   TileEngine.forEachBand(width, pic1.getHeight(), (startRow, endRow) ->
+   {
+      int[] row1 = data1 == null ? new int[width] : null;
+      int[] row2 = data2 == null ? new int[width] : null;
+      for (int y = startRow; y < endRow && !differ.get(); y++)
+      {
+         int[] a = data1 != null ? data1 : pic1.getRGB(0, y, width, 1, row1, 0, width);
+         int[] b = data2 != null ? data2 : pic2.getRGB(0, y, width, 1, row2, 0, width);
+         int aFrom = data1 != null ? y * width : 0;
+         int bFrom = data2 != null ? y * width : 0;
+         if (rowDiffers(a, aFrom, b, bFrom, width))
+            differ.set(true);
+      }
+   });
+   return differ.get();
+}
+
+/**
+ * Method to check if two rows of packed ints have a different color.
+ * Arrays.mismatch finds the next different int; a difference only in
+ * the top 8 bits (alpha, or nothing for TYPE_INT_RGB arrays) is skipped.
+ * @param a the array with the first row
+ * @param aFrom the index of the first row's first pixel
+ * @param b the array with the second row
+ * @param bFrom the index of the second row's first pixel
+ * @param width the number of pixels in a row
+ * @return true if some pixel has a different color
+ */
+private static boolean rowDiffers(int[] a, int aFrom, int[] b, int bFrom, int width)
+{
+   int i = Arrays.mismatch(a, aFrom, aFrom + width, b, bFrom, bFrom + width);
+   while (i >= 0)
+   {
+      if (((a[aFrom + i] ^ b[bFrom + i]) & 0x00ffffff) != 0)
+         return true;
+      int next = i + 1;
+      int found = Arrays.mismatch(a, aFrom + next, aFrom + width, b, bFrom + next, bFrom + width);
+      i = found < 0 ? -1 : next + found;
+   }
+   return false;
+}
+
+//pre-condition - pictures are the same size, returns empty list if they are not the same size
+//the list is made from findDifferenceMask, which is much smaller and faster for big pictures
+public static ArrayList<Point> findDifferences(Picture pic1, Picture pic2)
+{
+   return findDifferenceMask(pic1, pic2).toPoints();
+}
+
+/**
+ * Method to find the pixels whose colors (not alpha) differ between two
+ * pictures, as a bit mask instead of a list of points.  Big pictures are
+ * compared a band of rows at a time in parallel.
+ * @param pic1 the first picture
+ * @param pic2 the second picture
+ * @return the mask of different pixels, empty if the pictures are not
+ * the same size
+ */
+public static PixelMask findDifferenceMask(Picture pic1, Picture pic2)
+{
+   return PixelMask.difference(pic1, pic2);
+}
+
+/**
+ * Method to find the pixels whose colors are farther apart than a
+ * tolerance between two pictures, so small changes like JPEG noise
+ * don't count.  The squared distances are compared to the tolerance
+ * squared, with no square root for each pixel.
+ * @param pic1 the first picture
+ * @param pic2 the second picture
+ * @param metric how to measure the distance between colors
+ * @param tolerance the most two colors can be apart and count as the same
+ * @return the mask of different pixels, empty if the pictures are not
+ * the same size
+ */
+public static PixelMask findDifferenceMask(Picture pic1, Picture pic2,
+                                           ColorDistance metric, double tolerance)
+{
+   return PixelMask.difference(pic1, pic2, metric, tolerance);
+}
+
+//pre-condtion - all point in Arraylist are on the picture calling this method.
+public static Picture colorDifference(Picture pic, ArrayList<Point> myPoints)
+{
+   return colorDifference(pic, PixelMask.fromPoints(pic.getWidth(), pic.getHeight(), myPoints));
+}
+
+/**
+ * Method to make a copy of a picture with the pixels in a mask colored
+ * magenta (alpha is kept)
+ * @param pic the picture to copy
+ * @param mask the pixels to color, the same size as pic
+ * @return the new picture
+ */
+public static Picture colorDifference(Picture pic, PixelMask mask)
+{
+   Picture result = new Picture(pic);
+   int width = result.getWidth();
+   TileEngine.forEachBand(width, result.getHeight(), (startRow, endRow) ->
+   {
+      int[] row = new int[width];
+      for (int y = startRow; y < endRow; y++)
+      {
+         int x = mask.nextSetInRow(y, 0);
+         if (x < 0)
+            continue;
+         result.getRow(y, row);
+         while (x >= 0)
+         {
+            int end = mask.nextClearInRow(y, x);
+            for (; x < end; x++)
+               row[x] = (row[x] & 0xff000000) | 0x00ff00ff;
+            x = mask.nextSetInRow(y, end);
+         }
+         result.setRow(y, row);
+      }
+   });
+   return result;
+}
+
+// pre-condition all of myPoints are on the Picture pic
+// pre-condition - myPoints contains at least two points, otherwise what is the point
+public static Picture showDifferentArea (Picture pic, ArrayList<Point> myPoints)
+{
+   Picture result = new Picture(pic);
+   //set starting points so that first Point examined changes it, could also set to myPoints.get(0).getX()
+   //but that assumes myPoints is not empty, which a pre-condition
+   int minRow = pic.getHeight()-1, minCol = pic.getWidth() - 1;  // students may forget to subtract 1, 
+   int maxRow = 0, maxCol = 0;
+   // find the upper left and lower right point in the arraylist myPoints
+   for(Point p: myPoints)
+   {
+      int row = p. getRow();
+      int col = p.getCol();
+      if(row < minRow)
+         minRow = row;
+      if(row > maxRow)
+         maxRow = row;
+      if(col < minCol)
+         minCol = col;
+      if(col > maxCol)
+        maxCol = col;
+   }
+   drawBox(result, minRow, minCol, maxRow, maxCol);
+   return result;
+}
+
+/**
+ * Method to make a copy of a picture with a red box around the pixels
+ * in a mask.  The box comes from the mask's bounds, so no points are
+ * made.
+ * @param pic the picture to copy
+ * @param mask the pixels to box, the same size as pic
+ * @return the new picture (just a copy if the mask is empty)
+ */
+public static Picture showDifferentArea(Picture pic, PixelMask mask)
+{
+   Picture result = new Picture(pic);
+   Rectangle bounds = mask.getBounds();
+   if (bounds != null)
+      drawBox(result, bounds.y, bounds.x,
+              bounds.y + bounds.height - 1, bounds.x + bounds.width - 1);
+   return result;
+}
+
+/**
+ * Method to make a copy of a picture with a red box around each
+ * connected group of pixels in a mask, like each of several hidden
+ * pictures.  Groups smaller than minArea (stray pixels whose low bits
+ * happened to match) get no box.
+ * @param pic the picture to copy
+ * @param mask the pixels to box, the same size as pic
+ * @param minArea the fewest pixels a group needs to get a box
+ * @return the new picture
+ */
+public static Picture showDifferentAreas(Picture pic, PixelMask mask, int minArea)
+{
+   Picture result = new Picture(pic);
+   for (PixelRegion region : mask.findRegions(minArea))
+      drawBox(result, region.getY(), region.getX(),
+              region.getY() + region.getHeight() - 1, region.getX() + region.getWidth() - 1);
+   return result;
+}
+
+//draws a one pixel red box with the given corners on the picture
+private static void drawBox(Picture result, int minRow, int minCol, int maxRow, int maxCol)
+{
+   PixelCursor pixel = result.getPixelCursor();
+   //color top and bottom of bounding rectangle
+   for(int col = minCol; col <= maxCol; col++)
+   {
+      pixel.moveTo(col, minRow);
+      pixel.setColor(Color.red);
+      pixel.moveTo(col, maxRow);
+      pixel.setColor(Color.red);
+   }
+   //color sides of bounding rectangle
+   for(int row = minRow + 1; row < maxRow; row++)
+   {
+      pixel.moveTo(minCol,row);
+      pixel.setColor(Color.red);
+      pixel.moveTo(maxCol, row);
+      pixel.setColor(Color.red);
+   }
+    /*
+   Outside of AP subset, but easy way to accomplish the task
+   int width = maxCol - minCol;
+   int height = maxRow - minRow;   
+   Graphics g = result.getGraphics();
+   g.setColor(Color.red);
+   g.drawRect(minCol, minRow, width, height);
+   */
+}
+
+ 
+  /* Main method for testing - each class in Java can have a main 
+   * method 
+   */
+  public static void main(String[] args) 
+  {
+    Picture beach = new Picture("beach.jpg");
+    Picture beach2 = new Picture("beach.jpg");  //unaltered beach pic
+    Picture swan = new Picture("swan.jpg");
+    Picture swan2 = new Picture("swan.jpg");
+    //Picture robot = new Picture("robot.jpg");
+    //Picture flower1 = new Picture("flower1.jpg");
+    //Picture flower2 = new Picture("flower2.jpg");
+    System.out.println("Beach and swan: " + isSame(beach, swan));
+    System.out.println("Swan and swan2: " + isSame(swan, swan2));
+    //swan.clearLow();
+    System.out.println("Swan and swan2 after clearLow on swan: " + isSame(swan, swan2));
+    ArrayList<Point> pointList = findDifferences(swan2, swan2);
+    System.out.println("PointList has a size of " + pointList.size());
+    for(int i = 0; i < pointList.size(); i++)
+      System.out.println(pointList.get(i));
+  // these lines hide and revel a hidden pic
+    beach.explore();
+    swan.explore();
+    beach.hide(swan);
+    beach.explore();
+    beach.unhide();
+    beach.explore();
+
+
+   // swan.explore();
+    //beach.hide(robot, 65, 208);
+    //beach.hide(flower1, 280, 110);
+    //beach.hide(flower2, 322, 432);
+    //beach.explore();
+    pointList = findDifferences(beach2, beach);
+    System.out.println("PointList has a size of " + pointList.size());
+   
+    //Picture beach3 = colorDifference(beach, pointList);
+    //beach3.show();
+    //Picture beach4 = showDifferentArea(beach, pointList);
+    //beach.explore();
+    //beach4.show();
+    //beach.explore();
+    //beach.unhide();
+    //beach.explore();
+        
+   /* // these next lines call Activity 1 methods
+    beach.explore();
+    beach.clearLow();
+    beach.explore();
+    beach.setLow(Color.GREEN);
+    beach.explore();
+    beach.reveal();
+    beach.explore();*/
+  }
+  
+} // this } is the end of class Picture, put all new methods before this
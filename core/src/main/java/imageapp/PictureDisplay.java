@@ -0,0 +1,34 @@
+package imageapp;
+
+/**
+ * Interface for something that shows a picture on the screen, like the
+ * PictureFrame in the gui module.  A simple picture keeps the display
+ * it was shown in and tells it when the picture changes.  The core
+ * module only knows about this interface so it never loads any window
+ * classes.
+ */
+public interface PictureDisplay
+{
+  /**
+   * Method to update the shown image from the picture and make the
+   * display visible
+   */
+  public void updateImageAndShowIt();
+
+  /**
+   * Method to redraw the display after the pixels have changed
+   */
+  public void repaint();
+
+  /**
+   * Method to show or hide the display
+   * @param flag true to show it, false to hide it
+   */
+  public void setVisible(boolean flag);
+
+  /**
+   * Method to set the title of the display
+   * @param title the title to use
+   */
+  public void setTitle(String title);
+}
@@ -0,0 +1,43 @@
+package imageapp;
+
+import java.awt.GraphicsEnvironment;
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * Interface for the code that can put a picture on the screen.  The core
+ * module has no windows of its own, so show, repaint and explore in
+ * SimplePicture ask for a viewer with {@link #find()}.  The gui module
+ * provides one (listed in META-INF/services/imageapp.PictureViewer); when
+ * it is not on the class path, or there is no screen, there is no viewer
+ * and the picture is only kept in memory.
+ */
+public interface PictureViewer
+{
+  /**
+   * Method to make a new display that shows the passed picture
+   * @param picture the picture to show
+   * @return the display the picture is shown in
+   */
+  public PictureDisplay show(DigitalPicture picture);
+
+  /**
+   * Method to open an explorer on the passed picture
+   * @param picture the picture to explore
+   */
+  public void explore(DigitalPicture picture);
+
+  /**
+   * Method to get the viewer to use
+   * @return the first viewer found on the class path, or null if there
+   * is none or the program is running headless
+   */
+  public static PictureViewer find()
+  {
+    if (GraphicsEnvironment.isHeadless())
+      return null;
+    Iterator<PictureViewer> viewers =
+      ServiceLoader.load(PictureViewer.class).iterator();
+    return viewers.hasNext() ? viewers.next() : null;
+  }
+}
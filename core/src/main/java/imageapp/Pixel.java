@@ -1,3 +1,5 @@
+package imageapp;
+
 import java.awt.Color;
 
 /**
@@ -49,6 +51,19 @@ public class Pixel
   
   ///////////////////////// methods //////////////////////////////
   
+  /**
+   * Method to move this pixel to a new location in the same picture.
+   * Only subclasses that reuse one object for many locations (like
+   * PixelCursor) should need this.
+   * @param x the new x location of the pixel in the picture
+   * @param y the new y location of the pixel in the picture
+   */
+  protected void setLocation(int x, int y)
+  {
+    this.x = x;
+    this.y = y;
+  }
+  
   /**
    * Method to get the x location of this pixel.  
    * @return the x location of the pixel in the picture
@@ -365,4 +380,4 @@ public class Pixel
       " blue=" + getBlue();
   }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
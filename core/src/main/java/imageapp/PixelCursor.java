@@ -0,0 +1,120 @@
+package imageapp;
+
+/**
+ * A pixel that can be moved around a picture.  Instead of creating one
+ * Pixel object for every location (like getPixels2D does) you can create
+ * one cursor and move it from pixel to pixel.  It has all the same
+ * methods as a Pixel (getRed, setRed, getColor, setColor, ...) and they
+ * always work on the location the cursor is currently at.
+ *
+ * To visit every pixel in row-major order:
+ * <pre>
+ *   PixelCursor cursor = picture.getPixelCursor();
+ *   while (cursor.next())
+ *   {
+ *     cursor.setBlue(0);
+ *   }
+ * </pre>
+ *
+ * A cursor is not safe to share between threads, but it is cheap to
+ * make one cursor per thread.
+ */
+public class PixelCursor extends Pixel
+{
+
+  ////////////////////////// fields ///////////////////////////////////
+
+  /** the width of the picture when the cursor was made */
+  private int width;
+
+  /** the number of pixels in the picture when the cursor was made */
+  private int size;
+
+  /** the row-major index of the current location (-1 is before the first) */
+  private int index;
+
+  ////////////////////// constructors /////////////////////////////////
+
+  /**
+   * A constructor that makes a cursor positioned just before the
+   * first pixel (0,0) in the passed picture.  Call next() to move
+   * onto the first pixel.
+   * @param picture the picture the cursor walks over
+   */
+  public PixelCursor(DigitalPicture picture)
+  {
+    super(picture,0,0);
+    this.width = picture.getWidth();
+    this.size = width * picture.getHeight();
+    this.index = -1;
+  }
+
+  ///////////////////////// methods //////////////////////////////
+
+  /**
+   * Method to move the cursor to the next pixel in row-major order
+   * (left to right then top to bottom)
+   * @return true if the cursor is on a pixel, false if it has gone
+   * past the last pixel
+   */
+  public boolean next()
+  {
+    if (index + 1 >= size)
+    {
+      index = size;
+      return false;
+    }
+    index++;
+    int x = getX() + 1;
+    int y = getY();
+    if (index == 0 || x == width)
+    {
+      x = 0;
+      y = index / width;
+    }
+    setLocation(x,y);
+    return true;
+  }
+
+  /**
+   * Method to move the cursor to the given location
+   * @param x the x (column) to move to
+   * @param y the y (row) to move to
+   * @return this cursor so calls can be chained
+   */
+  public PixelCursor moveTo(int x, int y)
+  {
+    index = y * width + x;
+    setLocation(x,y);
+    return this;
+  }
+
+  /**
+   * Method to move the cursor to the given row-major index
+   * @param index the index (y * width + x) to move to
+   * @return this cursor so calls can be chained
+   */
+  public PixelCursor moveToIndex(int index)
+  {
+    this.index = index;
+    setLocation(index % width, index / width);
+    return this;
+  }
+
+  /**
+   * Method to get the row-major index of the current location
+   * @return the index (y * width + x) of the current pixel
+   */
+  public int getIndex() { return index; }
+
+  /**
+   * Method to move the cursor back to just before the first pixel so
+   * it can walk the picture again
+   */
+  public void reset()
+  {
+    index = -1;
+    setLocation(0,0);
+  }
+
+}
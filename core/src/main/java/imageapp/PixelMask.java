@@ -0,0 +1,698 @@
+package imageapp;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A set of pixel locations kept as one bit per pixel, like the pixels
+ * that differ between two pictures.  A 12 megapixel mask takes 1.5 MB
+ * however many pixels are set, where a list of Points takes about 24
+ * bytes for every pixel in it.
+ *
+ * Each row starts on a new long, so bands of rows can be filled from
+ * different threads without touching the same long.  Counting, the
+ * bounding box and visiting the set pixels all work a long (64 pixels)
+ * at a time, so they never make a Point.  toPoints makes the old
+ * ArrayList&lt;Point&gt; for code that still wants it.
+ */
+public final class PixelMask
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** the width of the mask in pixels */
+  private final int width;
+
+  /** the height of the mask in pixels */
+  private final int height;
+
+  /** the number of longs in each row */
+  private final int wordsPerRow;
+
+  /** the bits, row after row; bit x % 64 of word x / 64 is column x */
+  private final long[] words;
+
+  /////////////////////// Types /////////////////////////
+
+  /** Something to do for each set pixel of a mask */
+  @FunctionalInterface
+  public interface PixelVisitor
+  {
+    /**
+     * Method to handle one set pixel
+     * @param x the x (column) of the pixel
+     * @param y the y (row) of the pixel
+     */
+    public void visit(int x, int y);
+  }
+
+  /////////////////////// Constructors /////////////////////////
+
+  /**
+   * Constructor that makes an empty mask
+   * @param width the width in pixels
+   * @param height the height in pixels
+   */
+  public PixelMask(int width, int height)
+  {
+    if (width < 0 || height < 0)
+      throw new IllegalArgumentException("bad mask size " + width + "x" + height);
+    this.width = width;
+    this.height = height;
+    this.wordsPerRow = (width + 63) >>> 6;
+    this.words = new long[wordsPerRow * height];
+  }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to make the mask of the pixels whose colors differ between
+   * two pictures (alpha is not compared).  Big pictures are compared a
+   * band of rows at a time in parallel.
+   *
+   * Two SimplePictures are compared through their tile hashes first
+   * (see SimplePicture.getTileHashes), and only the tiles whose hashes
+   * differ are compared pixel by pixel.  The grids are kept between
+   * calls, so comparing versions of a big picture that changed in just
+   * a few places costs about the number of tiles plus the changed area.
+   * A picture whose array or image was handed out for writing has no
+   * tile hashes it can trust, so then every pixel is compared.
+   * @param pic1 the first picture
+   * @param pic2 the second picture
+   * @return the mask of different pixels, empty (and the size of pic1)
+   * if the pictures are not the same size
+   */
+  public static PixelMask difference(DigitalPicture pic1, DigitalPicture pic2)
+  {
+    return difference(pic1, pic2, null, 0);
+  }
+
+  /**
+   * Method to make the mask of the pixels whose colors are farther apart
+   * than a tolerance between two pictures, the same way as
+   * difference(DigitalPicture, DigitalPicture).  Each squared distance is
+   * compared to the tolerance squared, so there is no square root for
+   * each pixel.
+   * @param pic1 the first picture
+   * @param pic2 the second picture
+   * @param metric how to measure the distance between colors
+   * @param tolerance the most two colors can be apart and count as the
+   * same (at least 0)
+   * @return the mask of different pixels, empty (and the size of pic1)
+   * if the pictures are not the same size
+   */
+  public static PixelMask difference(DigitalPicture pic1, DigitalPicture pic2,
+                                     ColorDistance metric, double tolerance)
+  {
+    if (!(tolerance >= 0))
+      throw new IllegalArgumentException("the tolerance must be at least 0: " + tolerance);
+    return difference(pic1, pic2, metric, ColorDistance.squaredTolerance(tolerance));
+  }
+
+  /**
+   * Method to make the mask of different pixels
+   * @param pic1 the first picture
+   * @param pic2 the second picture
+   * @param metric how to measure the distance between colors, or null
+   * for any difference
+   * @param limit the squared distance a pixel must be over to differ
+   * @return the mask of different pixels
+   */
+  private static PixelMask difference(DigitalPicture pic1, DigitalPicture pic2,
+                                      ColorDistance metric, float limit)
+  {
+    int width = pic1.getWidth();
+    int height = pic1.getHeight();
+    PixelMask mask = new PixelMask(width, height);
+    if (width != pic2.getWidth() || height != pic2.getHeight())
+      return mask;
+
+    // with no tile hashes the whole picture is one tile that differs
+    int tileSize = Math.max(1, Math.max(width, height));
+    int columns = 1;
+    boolean[] differentTiles = { true };
+    TileHashGrid grid1 = pic1 instanceof SimplePicture ?
+      ((SimplePicture) pic1).getTileHashes() : null;
+    TileHashGrid grid2 = grid1 != null && pic2 instanceof SimplePicture ?
+      ((SimplePicture) pic2).getTileHashes() : null;
+    if (grid2 != null)
+    {
+      tileSize = grid1.getTileSize();
+      columns = grid1.getColumns();
+      differentTiles = grid1.differentTiles(grid2);
+    }
+    int size = tileSize;
+    int tileColumns = columns;
+    int[] firstDifferent = firstDifferentTiles(differentTiles, columns);
+    boolean[] different = differentTiles;
+
+    int[] data1 = SimplePicture.readRaster(pic1);
+    int[] data2 = SimplePicture.readRaster(pic2);
+    TileEngine.forEachBand(width, height, (startRow, endRow) ->
+    {
+      int[] row1 = data1 == null ? new int[width] : null;
+      int[] row2 = data2 == null ? new int[width] : null;
+      for (int y = startRow; y < endRow; y++)
+      {
+        int tileRow = y / size;
+        int firstColumn = firstDifferent[tileRow];
+        if (firstColumn < 0)
+          continue;
+        int[] a = data1 != null ? data1 : pic1.getRGB(0, y, width, 1, row1, 0, width);
+        int[] b = data2 != null ? data2 : pic2.getRGB(0, y, width, 1, row2, 0, width);
+        int aFrom = data1 != null ? y * width : 0;
+        int bFrom = data2 != null ? y * width : 0;
+        int rowStart = tileRow * tileColumns;
+        for (int column = firstColumn; column < tileColumns; column++)
+        {
+          if (!different[rowStart + column])
+            continue;
+          if (metric == null)
+            mask.setSpanDifference(y, a, aFrom, b, bFrom, column * size,
+                                   Math.min(width, (column + 1) * size));
+          else
+            mask.setSpanDistance(y, a, aFrom, b, bFrom, column * size,
+                                 Math.min(width, (column + 1) * size), metric, limit);
+        }
+      }
+    });
+    return mask;
+  }
+
+  /**
+   * Method to find the first tile in each row of tiles that differs
+   * @param differentTiles true for each tile that differs, row after row
+   * @param columns the number of tiles in a row
+   * @return the column of the first different tile in each row, or -1
+   */
+  private static int[] firstDifferentTiles(boolean[] differentTiles, int columns)
+  {
+    int[] first = new int[differentTiles.length / columns];
+    for (int row = 0; row < first.length; row++)
+    {
+      first[row] = -1;
+      for (int column = 0; column < columns; column++)
+      {
+        if (differentTiles[row * columns + column])
+        {
+          first[row] = column;
+          break;
+        }
+      }
+    }
+    return first;
+  }
+
+  /**
+   * Method to add to one row of the mask the pixels whose colors differ
+   * between two rows of packed ints, for a span of the row
+   * @param y the row of the mask
+   * @param a the array with the first row
+   * @param aFrom the index of the first row's first pixel
+   * @param b the array with the second row
+   * @param bFrom the index of the second row's first pixel
+   * @param startX the first x of the span
+   * @param endX the x just past the span
+   */
+  private void setSpanDifference(int y, int[] a, int aFrom, int[] b, int bFrom,
+                                 int startX, int endX)
+  {
+    int rowStart = y * wordsPerRow;
+    int x = startX;
+    while (x < endX)
+    {
+      int w = x >>> 6;
+      int wordEnd = Math.min(endX, (w + 1) << 6);
+      long word = 0;
+      for (; x < wordEnd; x++)
+      {
+        int diff = (a[aFrom + x] ^ b[bFrom + x]) & 0x00ffffff;
+        // (diff | -diff) >>> 31 is 1 when diff isn't 0, without a branch
+        word |= (long) ((diff | -diff) >>> 31) << x;
+      }
+      words[rowStart + w] |= word;
+    }
+  }
+
+  /**
+   * Method to add to one row of the mask the pixels whose colors are
+   * farther apart than a limit between two rows of packed ints, for a
+   * span of the row
+   * @param y the row of the mask
+   * @param a the array with the first row
+   * @param aFrom the index of the first row's first pixel
+   * @param b the array with the second row
+   * @param bFrom the index of the second row's first pixel
+   * @param startX the first x of the span
+   * @param endX the x just past the span
+   * @param metric how to measure the distance between colors
+   * @param limit the squared distance a pixel must be over to differ
+   */
+  private void setSpanDistance(int y, int[] a, int aFrom, int[] b, int bFrom,
+                               int startX, int endX, ColorDistance metric, float limit)
+  {
+    int rowStart = y * wordsPerRow;
+    int x = startX;
+    while (x < endX)
+    {
+      int w = x >>> 6;
+      int wordEnd = Math.min(endX, (w + 1) << 6);
+      long word = 0;
+      for (; x < wordEnd; x++)
+      {
+        int pixel1 = a[aFrom + x];
+        int pixel2 = b[bFrom + x];
+        if (pixel1 != pixel2 && metric.squared(pixel1, pixel2) > limit)
+          word |= 1L << x;
+      }
+      words[rowStart + w] |= word;
+    }
+  }
+
+  /**
+   * Method to make a mask from a list of points
+   * @param width the width of the mask
+   * @param height the height of the mask
+   * @param points the points to set (row and col must be on the mask)
+   * @return the new mask
+   */
+  public static PixelMask fromPoints(int width, int height, List<Point> points)
+  {
+    PixelMask mask = new PixelMask(width, height);
+    for (Point p : points)
+      mask.set(p.getCol(), p.getRow());
+    return mask;
+  }
+
+  /**
+   * Method to get the width of the mask
+   * @return the width in pixels
+   */
+  public int getWidth() { return width; }
+
+  /**
+   * Method to get the height of the mask
+   * @return the height in pixels
+   */
+  public int getHeight() { return height; }
+
+  /**
+   * Method to check that a location is on the mask
+   * @param x the x of the pixel
+   * @param y the y of the pixel
+   */
+  private void checkLocation(int x, int y)
+  {
+    if (x < 0 || x >= width || y < 0 || y >= height)
+      throw new ArrayIndexOutOfBoundsException("Coordinate out of bounds!");
+  }
+
+  /**
+   * Method to check if a pixel is in the mask
+   * @param x the x of the pixel
+   * @param y the y of the pixel
+   * @return true if the pixel is set
+   */
+  public boolean get(int x, int y)
+  {
+    checkLocation(x, y);
+    return (words[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+  }
+
+  /**
+   * Method to add a pixel to the mask
+   * @param x the x of the pixel
+   * @param y the y of the pixel
+   */
+  public void set(int x, int y)
+  {
+    checkLocation(x, y);
+    words[y * wordsPerRow + (x >>> 6)] |= 1L << x;
+  }
+
+  /**
+   * Method to take a pixel out of the mask
+   * @param x the x of the pixel
+   * @param y the y of the pixel
+   */
+  public void clear(int x, int y)
+  {
+    checkLocation(x, y);
+    words[y * wordsPerRow + (x >>> 6)] &= ~(1L << x);
+  }
+
+  /**
+   * Method to count the pixels in the mask
+   * @return the number of set pixels
+   */
+  public long count()
+  {
+    long count = 0;
+    for (long word : words)
+      count += Long.bitCount(word);
+    return count;
+  }
+
+  /**
+   * Method to count the pixels in one row of the mask
+   * @param y the row
+   * @return the number of set pixels in the row
+   */
+  public int countRow(int y)
+  {
+    int count = 0;
+    int rowStart = y * wordsPerRow;
+    for (int w = rowStart; w < rowStart + wordsPerRow; w++)
+      count += Long.bitCount(words[w]);
+    return count;
+  }
+
+  /**
+   * Method to check if no pixel is set
+   * @return true if the mask is empty
+   */
+  public boolean isEmpty()
+  {
+    for (long word : words)
+    {
+      if (word != 0)
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Method to find the next set pixel in a row
+   * @param y the row to look in
+   * @param fromX the first x to look at
+   * @return the x of the next set pixel at or after fromX, or -1 if
+   * there is none in the row
+   */
+  public int nextSetInRow(int y, int fromX)
+  {
+    if (fromX >= width)
+      return -1;
+    int rowStart = y * wordsPerRow;
+    int w = fromX >>> 6;
+    long word = words[rowStart + w] & (-1L << fromX);
+    while (true)
+    {
+      if (word != 0)
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+      if (++w == wordsPerRow)
+        return -1;
+      word = words[rowStart + w];
+    }
+  }
+
+  /**
+   * Method to find the next pixel in a row that is not set
+   * @param y the row to look in
+   * @param fromX the first x to look at
+   * @return the x of the next clear pixel at or after fromX, or width
+   * if the rest of the row is set
+   */
+  public int nextClearInRow(int y, int fromX)
+  {
+    if (fromX >= width)
+      return width;
+    int rowStart = y * wordsPerRow;
+    int w = fromX >>> 6;
+    long word = ~words[rowStart + w] & (-1L << fromX);
+    while (true)
+    {
+      if (word != 0)
+        return Math.min(width, (w << 6) + Long.numberOfTrailingZeros(word));
+      if (++w == wordsPerRow)
+        return width;
+      word = ~words[rowStart + w];
+    }
+  }
+
+  /**
+   * Method to get the smallest rectangle that holds every set pixel
+   * @return the bounding box or null if the mask is empty
+   */
+  public Rectangle getBounds()
+  {
+    int minRow = -1;
+    int maxRow = -1;
+    int minCol = width;
+    int maxCol = -1;
+    for (int y = 0; y < height; y++)
+    {
+      int rowStart = y * wordsPerRow;
+      for (int w = 0; w < wordsPerRow; w++)
+      {
+        long word = words[rowStart + w];
+        if (word == 0)
+          continue;
+        if (minRow < 0)
+          minRow = y;
+        maxRow = y;
+        minCol = Math.min(minCol, (w << 6) + Long.numberOfTrailingZeros(word));
+        break;
+      }
+      if (maxRow != y)
+        continue;
+      for (int w = wordsPerRow - 1; w >= 0; w--)
+      {
+        long word = words[rowStart + w];
+        if (word != 0)
+        {
+          maxCol = Math.max(maxCol, (w << 6) + 63 - Long.numberOfLeadingZeros(word));
+          break;
+        }
+      }
+    }
+    if (minRow < 0)
+      return null;
+    return new Rectangle(minCol, minRow, maxCol - minCol + 1, maxRow - minRow + 1);
+  }
+
+  /**
+   * Method to find the connected groups of set pixels.  Pixels that
+   * touch on a side or a corner are in the same group.
+   *
+   * The mask is worked on as runs of set pixels in each row.  Each band
+   * of rows finds its runs and joins them to the runs they touch in the
+   * row above with a union-find, all bands in parallel.  Then the rows
+   * where two bands meet are joined, and a last pass gives every run its
+   * group and adds up the boxes and counts.
+   * @param minArea the fewest pixels a group needs to be kept
+   * @return the groups with at least minArea pixels, in the order of
+   * their first pixel (row by row from the top left)
+   */
+  public List<PixelRegion> findRegions(int minArea)
+  {
+    // count the runs in each row so every run gets a fixed index
+    int[] runStart = new int[height + 1];
+    TileEngine.forEachBand(width, height, (startRow, endRow) ->
+    {
+      for (int y = startRow; y < endRow; y++)
+        runStart[y + 1] = countRuns(y);
+    });
+    for (int y = 0; y < height; y++)
+      runStart[y + 1] += runStart[y];
+
+    int runs = runStart[height];
+    int[] runX0 = new int[runs];
+    int[] runX1 = new int[runs];
+    int[] parent = new int[runs];
+    boolean[] joined = new boolean[height];
+    TileEngine.forEachBand(width, height, (startRow, endRow) ->
+    {
+      for (int y = startRow; y < endRow; y++)
+      {
+        int run = runStart[y];
+        int x = nextSetInRow(y, 0);
+        while (x >= 0)
+        {
+          int end = nextClearInRow(y, x);
+          runX0[run] = x;
+          runX1[run] = end;
+          parent[run] = run;
+          run++;
+          x = nextSetInRow(y, end);
+        }
+        // the first row of a band is joined after all the bands are done
+        if (y > startRow)
+        {
+          joinRows(y, runStart, runX0, runX1, parent);
+          joined[y] = true;
+        }
+      }
+    });
+    for (int y = 1; y < height; y++)
+    {
+      if (!joined[y])
+        joinRows(y, runStart, runX0, runX1, parent);
+    }
+
+    // a parent always has a smaller index, so one pass from the front
+    // points every run at its root, and roots come in first pixel order
+    int regions = 0;
+    int[] region = new int[runs];
+    for (int run = 0; run < runs; run++)
+    {
+      parent[run] = parent[parent[run]];
+      region[run] = parent[run] == run ? regions++ : region[parent[run]];
+    }
+    int[] minX = new int[regions];
+    int[] maxX = new int[regions];
+    int[] minY = new int[regions];
+    int[] maxY = new int[regions];
+    long[] count = new long[regions];
+    Arrays.fill(minX, Integer.MAX_VALUE);
+    Arrays.fill(minY, Integer.MAX_VALUE);
+    for (int y = 0; y < height; y++)
+    {
+      for (int run = runStart[y]; run < runStart[y + 1]; run++)
+      {
+        int r = region[run];
+        minX[r] = Math.min(minX[r], runX0[run]);
+        maxX[r] = Math.max(maxX[r], runX1[run] - 1);
+        minY[r] = Math.min(minY[r], y);
+        maxY[r] = y;
+        count[r] += runX1[run] - runX0[run];
+      }
+    }
+
+    List<PixelRegion> list = new ArrayList<PixelRegion>();
+    for (int r = 0; r < regions; r++)
+    {
+      if (count[r] >= minArea)
+        list.add(new PixelRegion(minX[r], minY[r], maxX[r] - minX[r] + 1,
+                                 maxY[r] - minY[r] + 1, count[r]));
+    }
+    return list;
+  }
+
+  /**
+   * Method to count the runs of set pixels in a row
+   * @param y the row
+   * @return the number of runs
+   */
+  private int countRuns(int y)
+  {
+    int count = 0;
+    long carry = 0;
+    int rowStart = y * wordsPerRow;
+    for (int w = rowStart; w < rowStart + wordsPerRow; w++)
+    {
+      long word = words[w];
+      // a run starts at each set bit whose left neighbor is clear
+      count += Long.bitCount(word & ~((word << 1) | carry));
+      carry = word >>> 63;
+    }
+    return count;
+  }
+
+  /**
+   * Method to join the runs of a row with the runs they touch (on a
+   * side or a corner) in the row above
+   * @param y the row (not 0)
+   * @param runStart the index of the first run of each row
+   * @param runX0 the first x of each run
+   * @param runX1 the x just past the end of each run
+   * @param parent the union-find parent of each run
+   */
+  private static void joinRows(int y, int[] runStart, int[] runX0, int[] runX1,
+                               int[] parent)
+  {
+    int above = runStart[y - 1];
+    int aboveEnd = runStart[y];
+    int run = runStart[y];
+    int runEnd = runStart[y + 1];
+    while (above < aboveEnd && run < runEnd)
+    {
+      if (runX0[above] <= runX1[run] && runX0[run] <= runX1[above])
+        union(parent, above, run);
+      // move past whichever run ends first; it can't touch anything later
+      if (runX1[above] < runX1[run])
+        above++;
+      else
+        run++;
+    }
+  }
+
+  /**
+   * Method to put two runs in the same group.  The root with the larger
+   * index is hung under the smaller one.
+   * @param parent the union-find parent of each run
+   * @param a one run
+   * @param b the other run
+   */
+  private static void union(int[] parent, int a, int b)
+  {
+    int rootA = find(parent, a);
+    int rootB = find(parent, b);
+    if (rootA < rootB)
+      parent[rootB] = rootA;
+    else if (rootB < rootA)
+      parent[rootA] = rootB;
+  }
+
+  /**
+   * Method to find the root of a run's group, halving the path on the way
+   * @param parent the union-find parent of each run
+   * @param run the run
+   * @return the root run of the group
+   */
+  private static int find(int[] parent, int run)
+  {
+    while (parent[run] != run)
+    {
+      parent[run] = parent[parent[run]];
+      run = parent[run];
+    }
+    return run;
+  }
+
+  /**
+   * Method to visit every set pixel, row by row from the top left
+   * @param visitor what to do for each pixel
+   */
+  public void forEach(PixelVisitor visitor)
+  {
+    for (int y = 0; y < height; y++)
+    {
+      int rowStart = y * wordsPerRow;
+      for (int w = 0; w < wordsPerRow; w++)
+      {
+        long word = words[rowStart + w];
+        while (word != 0)
+        {
+          visitor.visit((w << 6) + Long.numberOfTrailingZeros(word), y);
+          word &= word - 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * Method to make the list of points the old findDifferences returned:
+   * a new Point(row, col) for each set pixel, row by row
+   * @return the list of points
+   */
+  public ArrayList<Point> toPoints()
+  {
+    long count = count();
+    if (count > Integer.MAX_VALUE - 8)
+      throw new IllegalStateException("too many points for a list: " + count);
+    ArrayList<Point> points = new ArrayList<Point>((int) count);
+    forEach((x, y) -> points.add(new Point(y, x)));
+    return points;
+  }
+
+  /**
+   * Method to return a string with the size and count of the mask
+   * @return a string with information about the mask
+   */
+  public String toString()
+  {
+    return "PixelMask " + width + "x" + height + ", " + count() + " set";
+  }
+}
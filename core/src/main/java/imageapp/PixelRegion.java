@@ -0,0 +1,97 @@
+package imageapp;
+
+import java.awt.Rectangle;
+
+/**
+ * One connected group of set pixels in a PixelMask, like one of the
+ * pictures hidden in another.  It keeps the bounding box of the group
+ * and how many pixels are in it.  Regions are found by
+ * PixelMask.findRegions.
+ */
+public final class PixelRegion
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** the left x of the bounding box */
+  private final int x;
+
+  /** the top y of the bounding box */
+  private final int y;
+
+  /** the width of the bounding box */
+  private final int width;
+
+  /** the height of the bounding box */
+  private final int height;
+
+  /** the number of set pixels in the region */
+  private final long pixelCount;
+
+  /////////////////////// Constructors /////////////////////////
+
+  /**
+   * Constructor that takes the bounding box and pixel count
+   * @param x the left x of the bounding box
+   * @param y the top y of the bounding box
+   * @param width the width of the bounding box
+   * @param height the height of the bounding box
+   * @param pixelCount the number of pixels in the region
+   */
+  public PixelRegion(int x, int y, int width, int height, long pixelCount)
+  {
+    this.x = x;
+    this.y = y;
+    this.width = width;
+    this.height = height;
+    this.pixelCount = pixelCount;
+  }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to get the left x of the bounding box
+   * @return the smallest x in the region
+   */
+  public int getX() { return x; }
+
+  /**
+   * Method to get the top y of the bounding box
+   * @return the smallest y in the region
+   */
+  public int getY() { return y; }
+
+  /**
+   * Method to get the width of the bounding box
+   * @return the width in pixels
+   */
+  public int getWidth() { return width; }
+
+  /**
+   * Method to get the height of the bounding box
+   * @return the height in pixels
+   */
+  public int getHeight() { return height; }
+
+  /**
+   * Method to get the bounding box
+   * @return a new rectangle holding every pixel of the region
+   */
+  public Rectangle getBounds() { return new Rectangle(x, y, width, height); }
+
+  /**
+   * Method to get the number of set pixels in the region
+   * @return the pixel count (at most width times height)
+   */
+  public long getPixelCount() { return pixelCount; }
+
+  /**
+   * Method to return a string with the box and count of the region
+   * @return a string with information about the region
+   */
+  public String toString()
+  {
+    return "PixelRegion (" + x + ", " + y + ") " + width + "x" + height
+      + ", " + pixelCount + " pixels";
+  }
+}
@@ -1,3 +1,5 @@
+package imageapp;
+
 /**
  * Represents a point at [row,col]
  */
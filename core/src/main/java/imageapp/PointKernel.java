@@ -0,0 +1,45 @@
+package imageapp;
+
+/**
+ * A point operation: a filter where the new value of each pixel only
+ * depends on the old value of that same pixel.  Negative, grayscale,
+ * zeroBlue and clearLow are all point operations.  Pixels are packed
+ * ints (alpha, red, green, blue) like the ones from getBasicPixel.
+ *
+ * A kernel can be run over a whole picture (in parallel for big
+ * pictures) with TileEngine.apply.
+ */
+@FunctionalInterface
+public interface PointKernel
+{
+  /**
+   * Method to compute the new value of one pixel
+   * @param argb the old pixel value (alpha, red, green, blue)
+   * @return the new pixel value
+   */
+  public int apply(int argb);
+
+  /**
+   * Method to run this kernel over a run of pixels in an array.
+   * Kernels can override this with a faster loop.
+   * @param pixels the pixels to change
+   * @param from the index of the first pixel
+   * @param to the index just past the last pixel
+   */
+  public default void apply(int[] pixels, int from, int to)
+  {
+    for (int i = from; i < to; i++)
+      pixels[i] = apply(pixels[i]);
+  }
+
+  /**
+   * Method to make a kernel that runs this kernel and then the next one
+   * @param next the kernel to run after this one
+   * @return a kernel that does both in one step
+   */
+  public default PointKernel andThen(PointKernel next)
+  {
+    PointKernel first = this;
+    return argb -> next.apply(first.apply(argb));
+  }
+}
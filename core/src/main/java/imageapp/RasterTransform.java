@@ -0,0 +1,334 @@
+package imageapp;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Rotates and flips pictures by moving packed int pixels instead of
+ * Pixel objects.  Quarter turns and transposes swap rows and columns, so
+ * they are done in square tiles: a tile of the source and a tile of the
+ * result both fit in the CPU cache, so neither side is read a whole
+ * column at a time.  Big pictures are split into row bands with
+ * TileEngine and done in parallel.
+ *
+ * Rotations that keep the width and height (180 degrees and the flips)
+ * can also be done in place in one pass.
+ */
+public final class RasterTransform
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** the width and height of the square tiles used for quarter turns */
+  public static final int TILE_SIZE = 64;
+
+  /** rotate 90 degrees clockwise */
+  private static final int CLOCKWISE = 0;
+
+  /** rotate 90 degrees counterclockwise */
+  private static final int COUNTERCLOCKWISE = 1;
+
+  /** flip around the diagonal from the top left to the bottom right */
+  private static final int TRANSPOSE = 2;
+
+  /////////////////////// Constructors /////////////////////////
+
+  /** no RasterTransform objects are made; all the methods are static */
+  private RasterTransform() { }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to make a new picture that is the passed picture turned 90
+   * degrees clockwise (the top row becomes the right column)
+   * @param picture the picture to rotate
+   * @return a new picture that is picture.getHeight() wide
+   */
+  public static Picture rotateClockwise(DigitalPicture picture)
+  {
+    return quarterTurn(picture, CLOCKWISE);
+  }
+
+  /**
+   * Method to make a new picture that is the passed picture turned 90
+   * degrees counterclockwise (the top row becomes the left column)
+   * @param picture the picture to rotate
+   * @return a new picture that is picture.getHeight() wide
+   */
+  public static Picture rotateCounterclockwise(DigitalPicture picture)
+  {
+    return quarterTurn(picture, COUNTERCLOCKWISE);
+  }
+
+  /**
+   * Method to make a new picture that is the passed picture flipped
+   * around its main diagonal (row y becomes column y)
+   * @param picture the picture to transpose
+   * @return a new picture that is picture.getHeight() wide
+   */
+  public static Picture transpose(DigitalPicture picture)
+  {
+    return quarterTurn(picture, TRANSPOSE);
+  }
+
+  /**
+   * Method to make a new picture that is the passed picture turned 180
+   * degrees
+   * @param picture the picture to rotate
+   * @return the new picture
+   */
+  public static Picture rotate180(DigitalPicture picture)
+  {
+    return flip(picture, true, true);
+  }
+
+  /**
+   * Method to make a new picture that is the passed picture mirrored
+   * left to right
+   * @param picture the picture to flip
+   * @return the new picture
+   */
+  public static Picture flipHorizontal(DigitalPicture picture)
+  {
+    return flip(picture, true, false);
+  }
+
+  /**
+   * Method to make a new picture that is the passed picture mirrored
+   * top to bottom
+   * @param picture the picture to flip
+   * @return the new picture
+   */
+  public static Picture flipVertical(DigitalPicture picture)
+  {
+    return flip(picture, false, true);
+  }
+
+  /**
+   * Method to turn a picture 180 degrees without making a new one
+   * @param picture the picture to rotate
+   */
+  public static void rotate180InPlace(DigitalPicture picture)
+  {
+    flipInPlace(picture, true, true);
+  }
+
+  /**
+   * Method to mirror a picture left to right without making a new one
+   * @param picture the picture to flip
+   */
+  public static void flipHorizontalInPlace(DigitalPicture picture)
+  {
+    flipInPlace(picture, true, false);
+  }
+
+  /**
+   * Method to mirror a picture top to bottom without making a new one
+   * @param picture the picture to flip
+   */
+  public static void flipVerticalInPlace(DigitalPicture picture)
+  {
+    flipInPlace(picture, false, true);
+  }
+
+  /**
+   * Method to make an empty picture of the given size that keeps alpha
+   * if the source picture has it
+   * @param source the picture the new one is made from
+   * @param width the width of the new picture
+   * @param height the height of the new picture
+   * @return the new picture (its pixels are all 0)
+   */
+  static Picture newPictureLike(DigitalPicture source, int width, int height)
+  {
+    BufferedImage image = SimplePicture.readImage(source);
+    boolean hasAlpha = image != null && image.getColorModel().hasAlpha();
+    return new Picture(new BufferedImage(width, height, hasAlpha ?
+                                         BufferedImage.TYPE_INT_ARGB :
+                                         BufferedImage.TYPE_INT_RGB));
+  }
+
+  /**
+   * Method to get all the pixels of a picture as one int array to read
+   * from.  This is the picture's own array if it has one (without
+   * copying an image shared with the ImageCache), else a copy.
+   * @param picture the picture to read
+   * @return the pixels in row-major order
+   */
+  static int[] pixelsOf(DigitalPicture picture)
+  {
+    int[] data = SimplePicture.readRaster(picture);
+    if (data != null)
+      return data;
+    int width = picture.getWidth();
+    return picture.getRGB(0, 0, width, picture.getHeight(), null, 0, width);
+  }
+
+  /**
+   * Method to do a quarter turn or transpose a tile at a time
+   * @param picture the source picture
+   * @param direction CLOCKWISE, COUNTERCLOCKWISE or TRANSPOSE
+   * @return the new picture
+   */
+  private static Picture quarterTurn(DigitalPicture picture, int direction)
+  {
+    int width = picture.getWidth();
+    int height = picture.getHeight();
+    int[] src = pixelsOf(picture);
+    Picture result = newPictureLike(picture, height, width);
+    int[] dst = result.editRasterData();
+
+    // the result is height wide and width tall; each band is some of
+    // its rows and is filled in square tiles
+    TileEngine.forEachBand(height, width, (startRow, endRow) ->
+    {
+      for (int tileRow = startRow; tileRow < endRow; tileRow += TILE_SIZE)
+      {
+        int tileRowEnd = Math.min(endRow, tileRow + TILE_SIZE);
+        for (int tileCol = 0; tileCol < height; tileCol += TILE_SIZE)
+        {
+          int tileColEnd = Math.min(height, tileCol + TILE_SIZE);
+          for (int dy = tileRow; dy < tileRowEnd; dy++)
+          {
+            int to = dy * height;
+            for (int dx = tileCol; dx < tileColEnd; dx++)
+            {
+              int from;
+              if (direction == CLOCKWISE)
+                from = (height - 1 - dx) * width + dy;
+              else if (direction == COUNTERCLOCKWISE)
+                from = dx * width + (width - 1 - dy);
+              else
+                from = dx * width + dy;
+              dst[to + dx] = src[from];
+            }
+          }
+        }
+      }
+    });
+    // the result isn't handed out until it is filled in, so no finally
+    result.endEdit();
+    return result;
+  }
+
+  /**
+   * Method to make a flipped copy of a picture in one pass
+   * @param picture the source picture
+   * @param horizontal true to mirror left to right
+   * @param vertical true to mirror top to bottom
+   * @return the new picture
+   */
+  private static Picture flip(DigitalPicture picture, boolean horizontal,
+                              boolean vertical)
+  {
+    int width = picture.getWidth();
+    int height = picture.getHeight();
+    int[] src = pixelsOf(picture);
+    Picture result = newPictureLike(picture, width, height);
+    int[] dst = result.editRasterData();
+
+    TileEngine.forEachBand(width, height, (startRow, endRow) ->
+    {
+      for (int y = startRow; y < endRow; y++)
+      {
+        int from = (vertical ? height - 1 - y : y) * width;
+        int to = y * width;
+        if (horizontal)
+        {
+          for (int x = 0; x < width; x++)
+            dst[to + x] = src[from + width - 1 - x];
+        }
+        else
+          System.arraycopy(src, from, dst, to, width);
+      }
+    });
+    result.endEdit();
+    return result;
+  }
+
+  /**
+   * Method to flip a picture in place.  Row y is swapped with its mirror
+   * row, so each band takes rows from the top half and their partners
+   * from the bottom half.
+   * @param picture the picture to flip
+   * @param horizontal true to mirror left to right
+   * @param vertical true to mirror top to bottom
+   */
+  private static void flipInPlace(DigitalPicture picture, boolean horizontal,
+                                  boolean vertical)
+  {
+    int width = picture.getWidth();
+    int height = picture.getHeight();
+    SimplePicture edited = picture instanceof SimplePicture ? (SimplePicture) picture : null;
+    int[] data = edited != null ? edited.editRasterData() : picture.getRasterData();
+
+    // with a vertical flip only the top half (and the middle row) is
+    // visited; each visit handles the row and its partner
+    int rows = vertical ? (height + 1) / 2 : height;
+    try
+    {
+      TileEngine.forEachBand(width, rows, (startRow, endRow) ->
+      {
+        int[] top = (data == null) ? new int[width] : null;
+        int[] bottom = (data == null) ? new int[width] : null;
+        for (int y = startRow; y < endRow; y++)
+        {
+          int partner = vertical ? height - 1 - y : y;
+          if (data != null)
+            flipRows(data, y * width, data, partner * width, width, horizontal);
+          else
+          {
+            picture.getRow(y, top);
+            picture.getRow(partner, bottom);
+            flipRows(top, 0, bottom, 0, width, horizontal);
+            picture.setRow(y, top);
+            picture.setRow(partner, bottom);
+          }
+        }
+      });
+    }
+    finally
+    {
+      if (edited != null)
+        edited.endEdit();
+    }
+  }
+
+  /**
+   * Method to swap two rows, reversing them too if asked.  The two rows
+   * can be the same row.
+   * @param a the array holding the first row
+   * @param aStart the index of the first row
+   * @param b the array holding the second row
+   * @param bStart the index of the second row
+   * @param width the length of the rows
+   * @param reverse true to reverse the rows as they are swapped
+   */
+  private static void flipRows(int[] a, int aStart, int[] b, int bStart,
+                               int width, boolean reverse)
+  {
+    boolean sameRow = (a == b && aStart == bStart);
+    if (!reverse)
+    {
+      if (sameRow)
+        return;
+      for (int x = 0; x < width; x++)
+      {
+        int temp = a[aStart + x];
+        a[aStart + x] = b[bStart + x];
+        b[bStart + x] = temp;
+      }
+      return;
+    }
+
+    // a[x] takes b[width-1-x] and b[width-1-x] takes a[x]; for one row
+    // that is a plain reverse, so stop half way
+    int end = sameRow ? width / 2 : width;
+    for (int x = 0; x < end; x++)
+    {
+      int temp = a[aStart + x];
+      a[aStart + x] = b[bStart + width - 1 - x];
+      b[bStart + width - 1 - x] = temp;
+    }
+  }
+
+}
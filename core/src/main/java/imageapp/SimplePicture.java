@@ -0,0 +1,1429 @@
+package imageapp;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.awt.*;
+import java.io.*;
+import java.awt.geom.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class that represents a simple picture.  A simple picture may have
+ * an associated file name and a title.  A simple picture has pixels, 
+ * width, and height.  A simple picture uses a BufferedImage to 
+ * hold the pixels.  You can show a simple picture in a 
+ * PictureFrame (a JFrame).  You can also explore a simple picture.
+ * Showing and exploring need the gui module (see PictureViewer); 
+ * without it a simple picture only lives in memory.
+ * 
+ * A picture loaded from a file shares its decoded image with the
+ * ImageCache until the first change to its pixels, when it makes its
+ * own copy.  Every method that writes pixels or hands out the image
+ * (getBufferedImage, getRasterData, getGraphics and so on) makes the
+ * copy first, so the cached image is never changed.  Callers that only
+ * read the image, like the viewers, use peekBufferedImage instead.
+ * 
+ * @author Barb Ericson ericson@cc.gatech.edu
+ */
+public class SimplePicture implements DigitalPicture
+{
+  
+  /////////////////////// Fields /////////////////////////
+  
+  /**
+   * the file name associated with the simple picture
+   */
+  private String fileName;
+  
+  /**
+   * the title of the simple picture
+   */
+  private String title;
+  
+  /**
+   * buffered image to hold pixels for the simple picture
+   */
+  private BufferedImage bufferedImage;
+  
+  /**
+   * the int array behind the buffered image when it is TYPE_INT_RGB or 
+   * TYPE_INT_ARGB (null for any other kind of image)
+   */
+  private int[] rasterData;
+  
+  /**
+   * true if the values in rasterData have a real alpha in the top 8 bits
+   */
+  private boolean rasterHasAlpha;
+  
+  /**
+   * true while bufferedImage is the ImageCache's copy, which must not be
+   * changed
+   */
+  private volatile boolean sharedImage;
+  
+  /**
+   * the number of writes to the pixels (or times write access was handed
+   * out), used to know when contentHash is out of date.  Bands of a
+   * filter write from several threads, so it is counted atomically, and
+   * each write counts after its pixels are set so a hash made at the new
+   * count sees them.
+   */
+  private final AtomicLong modCount = new AtomicLong();
+  
+  /**
+   * the hash of the colors of all the pixels and the modCount it was
+   * made at, or null if there is no hash
+   */
+  private volatile ContentHash contentHash;
+  
+  /**
+   * the hashes of the tiles of the picture, or null if they aren't made
+   * (see getTileHashes)
+   */
+  private volatile TileHashGrid tileHashes;
+  
+  /**
+   * true once the int array, the image or a graphics object was handed
+   * out to change the pixels.  The picture can't see writes made through
+   * them later, so it no longer trusts its tile hashes.
+   */
+  private volatile boolean writeAccess;
+  
+  /**
+   * frame used to display the simple picture
+   */
+  private PictureDisplay pictureFrame;
+  
+  /** 
+   * extension for this file (jpg or bmp)
+   */
+  private String extension;
+  
+  /////////////////////// Types /////////////////////////
+  
+  /**
+   * A content hash with the modCount it was made at.  The two are kept
+   * in one object so another thread never sees the hash of one version
+   * with the count of another.
+   */
+  private static final class ContentHash
+  {
+    private final long stamp;
+    private final long hash;
+    
+    ContentHash(long stamp, long hash)
+    {
+      this.stamp = stamp;
+      this.hash = hash;
+    }
+  }
+  
+ 
+ /////////////////////// Constructors /////////////////////////
+ 
+ /**
+  * A Constructor that takes no arguments.  It creates a picture with
+  * a width of 200 and a height of 100 that is all white.
+  * A no-argument constructor must be given in order for a class to
+  * be able to be subclassed.  By default all subclasses will implicitly
+  * call this in their parent's no-argument constructor unless a 
+  * different call to super() is explicitly made as the first line 
+  * of code in a constructor.
+  */
+ public SimplePicture() 
+ {this(200,100);}
+ 
+ /**
+  * A Constructor that takes a file name and uses the file to create
+  * a picture
+  * @param fileName the file name to use in creating the picture
+  */
+ public SimplePicture(String fileName)
+ {
+   
+   // load the picture into the buffered image 
+   load(fileName);
+   
+ }
+ 
+ /**
+  * A constructor that takes the width and height desired for a picture and
+  * creates a buffered image of that size.  This constructor doesn't 
+  * show the picture.  The pixels will all be white.
+  * @param width the desired width
+  * @param height the desired height
+  */
+ public  SimplePicture(int width, int height)
+ {
+   setBufferedImage(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+   title = "None";
+   fileName = "None";
+   extension = "jpg";
+   setAllPixelsToAColor(Color.white);
+ }
+ 
+ /**
+  * A constructor that takes the width and height desired for a picture and
+  * creates a buffered image of that size.  It also takes the
+  * color to use for the background of the picture.
+  * @param width the desired width
+  * @param height the desired height
+  * @param theColor the background color for the picture
+  */
+ public  SimplePicture(int width, int height, Color theColor)
+ {
+   this(width,height);
+   setAllPixelsToAColor(theColor);
+ }
+ 
+ /**
+  * A Constructor that takes a picture to copy information from
+  * @param copyPicture the picture to copy from
+  */
+ public SimplePicture(SimplePicture copyPicture)
+ {
+   if (copyPicture.fileName != null)
+   {
+      this.fileName = new String(copyPicture.fileName);
+      this.extension = copyPicture.extension;
+   }
+   if (copyPicture.title != null)
+      this.title = new String(copyPicture.title);
+   if (copyPicture.bufferedImage != null)
+   {
+     setBufferedImage(new BufferedImage(copyPicture.getWidth(),
+                                        copyPicture.getHeight(), BufferedImage.TYPE_INT_RGB));
+     this.copyPicture(copyPicture);
+     // the colors are the same, so the copy can start from the same tile
+     // hashes (unless they may have missed writes through an array)
+     TileHashGrid grid = copyPicture.tileHashes;
+     if (grid != null && !copyPicture.writeAccess)
+       this.tileHashes = grid.copy();
+   }
+ }
+ 
+ /**
+  * A constructor that takes a buffered image
+  * @param image the buffered image
+  */
+ public SimplePicture(BufferedImage image)
+ {
+   setBufferedImage(image);
+   title = "None";
+   fileName = "None";
+   extension = "jpg";
+ }
+ 
+ ////////////////////////// Methods //////////////////////////////////
+ 
+ /**
+  * Method to get the extension for this picture
+  * @return the extension (jpg, bmp, giff, etc)
+  */
+ public String getExtension() { return extension; }
+
+ 
+ /**
+  * Method that will copy all of the passed source picture into
+  * the current picture object 
+  * @param sourcePicture  the picture object to copy
+  */
+ public void copyPicture(SimplePicture sourcePicture)
+ {
+   int width = Math.min(sourcePicture.getWidth(), this.getWidth());
+   int height = Math.min(sourcePicture.getHeight(), this.getHeight());
+   int[] sourceRow = new int[width];
+   int[] targetRow = new int[width];
+   
+   // copy a row at a time, keeping the alpha of the target pixels
+   for (int y = 0; y < height; y++)
+   {
+     sourcePicture.getRGB(0, y, width, 1, sourceRow, 0, width);
+     this.getRGB(0, y, width, 1, targetRow, 0, width);
+     for (int x = 0; x < width; x++)
+       targetRow[x] = (targetRow[x] & 0xff000000) | (sourceRow[x] & 0x00ffffff);
+     this.setRGB(0, y, width, 1, targetRow, 0, width);
+   }
+   
+ }
+ 
+ /**
+  * Method to set the color in the picture to the passed color
+  * @param color the color to set to
+  */
+ public void setAllPixelsToAColor(Color color)
+ {
+   // loop through all the pixels with one cursor
+   PixelCursor cursor = getPixelCursor();
+   while (cursor.next())
+   {
+     cursor.setColor(color);
+   }
+ }
+ 
+ /**
+  * Method to get the buffered image
+  * @return the buffered image 
+  */
+ public BufferedImage getBufferedImage() 
+ {
+    handOut();
+    return bufferedImage;
+ }
+ 
+ /**
+  * Method to get the buffered image to read from, like for showing the
+  * picture.  Unlike getBufferedImage this doesn't make the picture's own
+  * copy of an image shared with the ImageCache, so don't change the
+  * image: draw on the picture or use getBufferedImage for that.
+  * @return the buffered image
+  */
+ public BufferedImage peekBufferedImage()
+ {
+   return bufferedImage;
+ }
+ 
+ /**
+  * Method to change the buffered image that holds the pixels.  This
+  * also finds the int array behind the image if it has one.
+  * @param image the new buffered image
+  */
+ private void setBufferedImage(BufferedImage image)
+ {
+   sharedImage = false;
+   writeAccess = false;
+   modCount.incrementAndGet();
+   tileHashes = null;
+   bufferedImage = image;
+   rasterData = null;
+   rasterHasAlpha = false;
+   if (image == null)
+     return;
+   
+   // only TYPE_INT_RGB and TYPE_INT_ARGB keep one pixel per int
+   int type = image.getType();
+   if (type != BufferedImage.TYPE_INT_RGB && type != BufferedImage.TYPE_INT_ARGB)
+     return;
+   
+   // the array must start at (0,0) with exactly one row after another
+   WritableRaster raster = image.getRaster();
+   if (!(raster.getDataBuffer() instanceof DataBufferInt) ||
+       !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel))
+     return;
+   DataBufferInt dataBuffer = (DataBufferInt) raster.getDataBuffer();
+   SinglePixelPackedSampleModel sampleModel = 
+     (SinglePixelPackedSampleModel) raster.getSampleModel();
+   if (dataBuffer.getNumBanks() != 1 || dataBuffer.getOffset() != 0 ||
+       raster.getSampleModelTranslateX() != 0 ||
+       raster.getSampleModelTranslateY() != 0 ||
+       sampleModel.getScanlineStride() != image.getWidth())
+     return;
+   
+   rasterData = dataBuffer.getData();
+   rasterHasAlpha = (type == BufferedImage.TYPE_INT_ARGB);
+ }
+ 
+ /**
+  * Method to use an image from the ImageCache.  The picture reads from
+  * it until the first write, then copies it (see ownImage).
+  * @param image the shared image (TYPE_INT_RGB or TYPE_INT_ARGB)
+  */
+ private void setSharedImage(BufferedImage image)
+ {
+   setBufferedImage(image);
+   sharedImage = true;
+ }
+ 
+ /**
+  * Method to make sure the picture has its own image and not the
+  * shared one from the ImageCache, copying the shared one if needed.
+  * Bands of a filter may write the same picture from several threads,
+  * so the copy is made only once under a lock.
+  */
+ private void ownImage()
+ {
+   if (!sharedImage)
+     return;
+   synchronized (this)
+   {
+     if (!sharedImage)
+       return;
+     BufferedImage shared = bufferedImage;
+     BufferedImage copy = new BufferedImage(shared.getColorModel(), 
+                                            shared.copyData(null),
+                                            shared.isAlphaPremultiplied(), null);
+     
+     // the copy has the same layout, so only the array changes; the flag
+     // is cleared last so other threads see the new image with it
+     bufferedImage = copy;
+     if (rasterData != null)
+       rasterData = ((DataBufferInt) copy.getRaster().getDataBuffer()).getData();
+     sharedImage = false;
+   }
+ }
+ 
+ /**
+  * Method to get ready to hand out the array, the image or a graphics
+  * object for writing: the picture gets its own image, the content hash
+  * and tile hashes are dropped, and the tile hashes aren't trusted again
+  * (see getTileHashes)
+  */
+ private void handOut()
+ {
+   ownImage();
+   writeAccess = true;
+   modCount.incrementAndGet();
+   tileHashes = null;
+ }
+ 
+ /**
+  * Method to get ready for a method of this package to change the
+  * pixels through the int array, the image or a graphics object before
+  * it returns.  The edit is counted by endEdit once the pixels are
+  * written, like setRGB does, so a hash made while the edit runs isn't
+  * kept.  Unlike handing them out, the hashes are only made again.
+  */
+ private void startEdit()
+ {
+   ownImage();
+ }
+ 
+ /**
+  * Method to count an edit started with startEdit or editRasterData,
+  * after the pixels are written (call it in a finally): modCount goes
+  * up before the tile hashes are dropped, so a grid made while the edit
+  * ran is either dropped or marked stale
+  */
+ void endEdit()
+ {
+   modCount.incrementAndGet();
+   tileHashes = null;
+ }
+ 
+ /**
+  * Method to convert an image to TYPE_INT_RGB (or TYPE_INT_ARGB if it
+  * has transparency) so its pixels can be read straight from an int
+  * array.  The pixel values are the same ones getRGB gave for the 
+  * original image.
+  * @param image the image to convert (may be null)
+  * @return the same image if it was already packed ints, else a copy
+  */
+ static BufferedImage toPackedImage(BufferedImage image)
+ {
+   if (image == null ||
+       image.getType() == BufferedImage.TYPE_INT_RGB ||
+       image.getType() == BufferedImage.TYPE_INT_ARGB)
+     return image;
+   
+   int width = image.getWidth();
+   int height = image.getHeight();
+   int type = image.getColorModel().hasAlpha() ? 
+     BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+   BufferedImage packed = new BufferedImage(width, height, type);
+   int[] row = new int[width];
+   for (int y = 0; y < height; y++)
+   {
+     image.getRGB(0, y, width, 1, row, 0, width);
+     packed.setRGB(0, y, width, 1, row, 0, width);
+   }
+   return packed;
+ }
+ 
+ /**
+  * Method to get the int array that holds the pixels of this picture.
+  * Pixel (x,y) is at index y * getWidth() + x.  For a picture without 
+  * transparency the top 8 bits of each value are not used, so mask 
+  * them off (or set them to 0xff) when you read the array directly.
+  * Changes to the array change the picture.
+  * @return the int array or null if the picture isn't stored as 
+  * packed ints (TYPE_INT_RGB or TYPE_INT_ARGB)
+  */
+ public int[] getRasterData()
+ {
+   handOut();
+   return rasterData;
+ }
+ 
+ /**
+  * Method to get the int array to read from, without making the
+  * picture's own copy of a shared image.  Don't change the array.
+  * @return the int array or null (see getRasterData)
+  */
+ int[] peekRasterData()
+ {
+   return rasterData;
+ }
+ 
+ /**
+  * Method to get the buffered image of any picture to read from: for a
+  * SimplePicture the one peekBufferedImage gives, so an image shared
+  * with the ImageCache isn't copied, else getBufferedImage.  Don't
+  * change the image.
+  * @param picture the picture to read
+  * @return the buffered image
+  */
+ public static BufferedImage readImage(DigitalPicture picture)
+ {
+   if (picture instanceof SimplePicture)
+     return ((SimplePicture) picture).peekBufferedImage();
+   return picture.getBufferedImage();
+ }
+ 
+ /**
+  * Method to get the int array of any picture to read from, the same
+  * way as readImage.  Don't change the array.
+  * @param picture the picture to read
+  * @return the int array or null if the picture has none
+  */
+ static int[] readRaster(DigitalPicture picture)
+ {
+   if (picture instanceof SimplePicture)
+     return ((SimplePicture) picture).peekRasterData();
+   return picture.getRasterData();
+ }
+ 
+ /**
+  * Method to get the int array for a filter of this package to change
+  * before it returns (it must not keep the array), calling endEdit in a
+  * finally once it is written.  Unlike getRasterData the picture keeps
+  * using tile hashes afterwards.
+  * @return the int array or null (see getRasterData)
+  */
+ int[] editRasterData()
+ {
+   startEdit();
+   return rasterData;
+ }
+ 
+ /**
+  * Method to get a rectangle of pixels as packed ints (alpha, red, 
+  * green, blue) in the same form as getBasicPixel.  This works like
+  * BufferedImage.getRGB but copies straight from the int array when
+  * the picture has one.
+  * @param x the left x of the rectangle
+  * @param y the top y of the rectangle
+  * @param width the width of the rectangle
+  * @param height the height of the rectangle
+  * @param rgbArray the array to put the pixels in (if null a new one 
+  * is made)
+  * @param offset the index in rgbArray of the first pixel
+  * @param scansize how far apart rows are in rgbArray
+  * @return the array of pixels
+  */
+ public int[] getRGB(int x, int y, int width, int height, 
+                     int[] rgbArray, int offset, int scansize)
+ {
+   if (rasterData == null)
+     return bufferedImage.getRGB(x, y, width, height, rgbArray, offset, scansize);
+   
+   checkRegion(x, y, width, height);
+   if (rgbArray == null)
+     rgbArray = new int[offset + height * scansize];
+   int pictureWidth = getWidth();
+   for (int row = 0; row < height; row++)
+   {
+     int from = (y + row) * pictureWidth + x;
+     int to = offset + row * scansize;
+     System.arraycopy(rasterData, from, rgbArray, to, width);
+     if (!rasterHasAlpha)
+     {
+       for (int i = to; i < to + width; i++)
+         rgbArray[i] |= 0xff000000;
+     }
+   }
+   return rgbArray;
+ }
+ 
+ /**
+  * Method to set a rectangle of pixels from packed ints (alpha, red,
+  * green, blue) in the same form as setBasicPixel.  This works like 
+  * BufferedImage.setRGB but copies straight into the int array when 
+  * the picture has one.
+  * @param x the left x of the rectangle
+  * @param y the top y of the rectangle
+  * @param width the width of the rectangle
+  * @param height the height of the rectangle
+  * @param rgbArray the array to get the pixels from
+  * @param offset the index in rgbArray of the first pixel
+  * @param scansize how far apart rows are in rgbArray
+  */
+ public void setRGB(int x, int y, int width, int height,
+                    int[] rgbArray, int offset, int scansize)
+ {
+   ownImage();
+   try
+   {
+     if (rasterData == null)
+     {
+       bufferedImage.setRGB(x, y, width, height, rgbArray, offset, scansize);
+       return;
+     }
+     
+     checkRegion(x, y, width, height);
+     int pictureWidth = getWidth();
+     for (int row = 0; row < height; row++)
+     {
+       int from = offset + row * scansize;
+       int to = (y + row) * pictureWidth + x;
+       if (rasterHasAlpha)
+         System.arraycopy(rgbArray, from, rasterData, to, width);
+       else
+       {
+         for (int i = 0; i < width; i++)
+           rasterData[to + i] = rgbArray[from + i] & 0x00ffffff;
+       }
+     }
+   }
+   finally
+   {
+     written(x, y, width, height);
+   }
+ }
+ 
+ /**
+  * Method to count a write to a rectangle of pixels, after the pixels
+  * are set: the tiles under it are marked stale and modCount goes up,
+  * so the content hash is made again
+  * @param x the left x of the rectangle
+  * @param y the top y of the rectangle
+  * @param width the width of the rectangle
+  * @param height the height of the rectangle
+  */
+ private void written(int x, int y, int width, int height)
+ {
+   TileHashGrid grid = tileHashes;
+   if (grid != null)
+     grid.markStale(x, y, width, height);
+   modCount.incrementAndGet();
+ }
+ 
+ /**
+  * Method to get one row of pixels as packed ints
+  * @param y the row to get
+  * @param row the array to put the row in (if it is null or too short
+  * a new one is made)
+  * @return the array holding the row
+  */
+ public int[] getRow(int y, int[] row)
+ {
+   int width = getWidth();
+   if (row == null || row.length < width)
+     row = new int[width];
+   return getRGB(0, y, width, 1, row, 0, width);
+ }
+ 
+ /**
+  * Method to set one row of pixels from packed ints
+  * @param y the row to set
+  * @param row the array holding at least getWidth() pixels
+  */
+ public void setRow(int y, int[] row)
+ {
+   int width = getWidth();
+   setRGB(0, y, width, 1, row, 0, width);
+ }
+ 
+ /**
+  * Method to check that a rectangle is inside the picture
+  * @param x the left x of the rectangle
+  * @param y the top y of the rectangle
+  * @param width the width of the rectangle
+  * @param height the height of the rectangle
+  */
+ private void checkRegion(int x, int y, int width, int height)
+ {
+   if (x < 0 || y < 0 || width < 0 || height < 0 ||
+       x + width > getWidth() || y + height > getHeight())
+     throw new ArrayIndexOutOfBoundsException("Coordinate out of bounds!");
+ }
+ 
+ /**
+  * Method to get a 64-bit hash of the colors of all the pixels (alpha
+  * is left out, the same as in Picture.isSame).  Two pictures with the
+  * same size and colors always have the same hash.  The hash is kept
+  * until the pixels change, so asking again is free; big pictures are
+  * hashed a band of rows at a time in parallel.  It is safe to ask from
+  * any thread once the writes are done.
+  * 
+  * Writes through setBasicPixel, setRGB and the Pixel methods are seen
+  * right away.  Code that keeps the array from getRasterData (or the 
+  * image or a graphics object) and changes it later must call
+  * invalidateContentHash.
+  * @return the hash of the pixel colors
+  */
+ public long getContentHash()
+ {
+   long stamp = modCount.get();
+   ContentHash known = contentHash;
+   if (known != null && known.stamp == stamp)
+     return known.hash;
+   
+   int width = getWidth();
+   int height = getHeight();
+   int[] data = rasterData;
+   long[] rowHashes = new long[height];
+   TileEngine.forEachBand(width, height, (startRow, endRow) ->
+   {
+     int[] row = data == null ? new int[width] : null;
+     for (int y = startRow; y < endRow; y++)
+     {
+       int[] pixels = data;
+       int start = y * width;
+       if (data == null)
+       {
+         pixels = getRGB(0, y, width, 1, row, 0, width);
+         start = 0;
+       }
+       // four independent lanes so the multiplies don't wait on each other
+       long h0 = 0, h1 = 1, h2 = 2, h3 = 3;
+       int end = start + width;
+       int i = start;
+       for (; i + 3 < end; i += 4)
+       {
+         h0 = (h0 + (pixels[i] & 0x00ffffff)) * 0x9e3779b97f4a7c15L;
+         h1 = (h1 + (pixels[i + 1] & 0x00ffffff)) * 0x9e3779b97f4a7c15L;
+         h2 = (h2 + (pixels[i + 2] & 0x00ffffff)) * 0x9e3779b97f4a7c15L;
+         h3 = (h3 + (pixels[i + 3] & 0x00ffffff)) * 0x9e3779b97f4a7c15L;
+       }
+       for (; i < end; i++)
+         h0 = (h0 + (pixels[i] & 0x00ffffff)) * 0x9e3779b97f4a7c15L;
+       rowHashes[y] = ((h0 * 31 + h1) * 31 + h2) * 31 + h3;
+     }
+   });
+   
+   long hash = width * 0x100000001b3L + height;
+   for (long rowHash : rowHashes)
+     hash = (hash ^ rowHash) * 0x100000001b3L;
+   hash ^= hash >>> 33;
+   hash *= 0xff51afd7ed558ccdL;
+   hash ^= hash >>> 33;
+   
+   contentHash = new ContentHash(stamp, hash);
+   return hash;
+ }
+ 
+ /**
+  * Method to check if the content hash is already made and up to date
+  * @return true if getContentHash won't have to look at the pixels
+  */
+ public boolean hasContentHash()
+ {
+   ContentHash known = contentHash;
+   return known != null && known.stamp == modCount.get();
+ }
+ 
+ /**
+  * Method to say that the pixels changed in a way the picture can't
+  * see (through an array or image kept from earlier), so the content
+  * hash has to be made again
+  */
+ public void invalidateContentHash()
+ {
+   modCount.incrementAndGet();
+   tileHashes = null;
+ }
+
+ /**
+  * Method to get the hashes of the 64 by 64 tiles of the picture (see
+  * TileHashGrid).  The grid is kept: the first call hashes every tile,
+  * and later calls only hash again the tiles written since through
+  * setBasicPixel or setRGB.  A copy made with the copy constructor
+  * starts with the same grid.  The grid is good for the same modCount
+  * as the content hash, so a call with no writes since is free.
+  * 
+  * Once the int array, the image or a graphics object has been handed
+  * out (getRasterData, getBufferedImage, getGraphics and so on), writes
+  * through it can come at any time without the picture seeing them, so
+  * there is no grid until a new image is set (null is returned and
+  * callers like PixelMask.difference compare every pixel).
+  * @return the up to date grid (don't keep it past the next write), or
+  * null if the pixels may be changed where the picture can't see
+  */
+ public synchronized TileHashGrid getTileHashes()
+ {
+   if (writeAccess)
+     return null;
+   long stamp = modCount.get();
+   TileHashGrid grid = tileHashes;
+   if (grid != null && grid.getStamp() == stamp)
+     return grid;
+   boolean made = grid == null;
+   if (made)
+   {
+     grid = new TileHashGrid(getWidth(), getHeight(), TileHashGrid.DEFAULT_TILE_SIZE);
+     tileHashes = grid;
+   }
+   grid.refresh(this);
+   
+   // a write that came while a new grid was made may not have marked
+   // its tiles, so the next call hashes every tile again
+   if (made && modCount.get() != stamp)
+     grid.markStale(0, 0, getWidth(), getHeight());
+   else
+     grid.setStamp(stamp);
+   return grid;
+ }
+ 
+ /**
+  * Method to get a graphics object for this picture to use to draw on
+  * @return a graphics object to use for drawing
+  */
+ public Graphics getGraphics()
+ {
+   handOut();
+   return bufferedImage.getGraphics();
+ }
+ 
+ /**
+  * Method to get a Graphics2D object for this picture which can
+  * be used to do 2D drawing on the picture
+  */
+ public Graphics2D createGraphics()
+ {
+   handOut();
+   return bufferedImage.createGraphics();
+ }
+ 
+ /**
+  * Method to get the file name associated with the picture
+  * @return  the file name associated with the picture
+  */
+ public String getFileName() { return fileName; }
+ 
+ /**
+  * Method to set the file name
+  * @param name the full pathname of the file
+  */
+ public void setFileName(String name)
+ {
+   fileName = name;
+ }
+ 
+ /**
+  * Method to get the title of the picture
+  * @return the title of the picture
+  */
+ public String getTitle() 
+ { return title; }
+ 
+ /**
+  * Method to set the title for the picture
+  * @param title the title to use for the picture
+  */
+ public void setTitle(String title) 
+ {
+   this.title = title;
+   if (pictureFrame != null)
+       pictureFrame.setTitle(title);
+ }
+ 
+ /**
+  * Method to get the width of the picture in pixels
+  * @return the width of the picture in pixels
+  */
+ public int getWidth() { return bufferedImage.getWidth(); }
+ 
+ /**
+  * Method to get the height of the picture in pixels
+  * @return  the height of the picture in pixels
+  */
+ public int getHeight() { return bufferedImage.getHeight(); }
+ 
+ /**
+  * Method to get the picture frame for the picture
+  * @return the picture frame associated with this picture
+  * (it may be null)
+  */
+ public PictureDisplay getPictureFrame() { return pictureFrame; }
+ 
+ /**
+  * Method to set the picture frame for this picture
+  * @param pictureFrame the picture frame to use 
+  */
+ public void setPictureFrame(PictureDisplay pictureFrame)
+ {
+   // set this picture object's picture frame to the passed one
+   this.pictureFrame = pictureFrame;
+ }
+ 
+ /**
+  * Method to get an image from the picture
+  * @return  the buffered image since it is an image
+  */
+ public Image getImage()
+ {
+   handOut();
+   return bufferedImage;
+ }
+ 
+ /**
+  * Method to return the pixel value as an int for the given x and y location
+  * @param x the x coordinate of the pixel
+  * @param y the y coordinate of the pixel
+  * @return the pixel value as an integer (alpha, red, green, blue)
+  */
+ public int getBasicPixel(int x, int y)
+ {
+   if (rasterData == null)
+     return bufferedImage.getRGB(x,y);
+   
+   int width = getWidth();
+   if (x < 0 || x >= width || y < 0 || y >= getHeight())
+     throw new ArrayIndexOutOfBoundsException("Coordinate out of bounds!");
+   int value = rasterData[y * width + x];
+   return rasterHasAlpha ? value : (value | 0xff000000);
+ }
+    
+ /** 
+  * Method to set the value of a pixel in the picture from an int
+  * @param x the x coordinate of the pixel
+  * @param y the y coordinate of the pixel
+  * @param rgb the new rgb value of the pixel (alpha, red, green, blue)
+  */     
+ public void setBasicPixel(int x, int y, int rgb)
+ {
+   ownImage();
+   if (rasterData == null)
+     bufferedImage.setRGB(x,y,rgb);
+   else
+   {
+     int width = getWidth();
+     if (x < 0 || x >= width || y < 0 || y >= getHeight())
+       throw new ArrayIndexOutOfBoundsException("Coordinate out of bounds!");
+     rasterData[y * width + x] = rasterHasAlpha ? rgb : (rgb & 0x00ffffff);
+   }
+   written(x, y, 1, 1);
+ }
+  
+ /**
+  * Method to get a pixel object for the given x and y location
+  * @param x  the x location of the pixel in the picture
+  * @param y  the y location of the pixel in the picture
+  * @return a Pixel object for this location
+  */
+ public Pixel getPixel(int x, int y)
+ {
+   // create the pixel object for this picture and the given x and y location
+   Pixel pixel = new Pixel(this,x,y);
+   return pixel;
+ }
+ 
+ /**
+  * Method to get a one-dimensional array of Pixels for this simple picture
+  * @return a one-dimensional array of Pixel objects starting with y=0
+  * to y=height-1 and x=0 to x=width-1.
+  */
+ public Pixel[] getPixels()
+ {
+   int width = getWidth();
+   int height = getHeight();
+   Pixel[] pixelArray = new Pixel[width * height];
+   
+   // loop through height rows from top to bottom
+   for (int row = 0; row < height; row++) 
+     for (int col = 0; col < width; col++) 
+       pixelArray[row * width + col] = new Pixel(this,col,row);
+    
+   return pixelArray;
+ }
+ 
+ /**
+  * Method to get a two-dimensional array of Pixels for this simple picture
+  * @return a two-dimensional array of Pixel objects in row-major order.
+  */
+ public Pixel[][] getPixels2D()
+ {
+   int width = getWidth();
+   int height = getHeight();
+   Pixel[][] pixelArray = new Pixel[height][width];
+   
+   // loop through height rows from top to bottom
+   for (int row = 0; row < height; row++) 
+     for (int col = 0; col < width; col++) 
+       pixelArray[row][col] = new Pixel(this,col,row);
+    
+   return pixelArray;
+ }
+ 
+ /**
+  * Method to get a pixel cursor for this simple picture.  A cursor is
+  * one Pixel object that can be moved to any location, so walking the
+  * whole picture with it doesn't create a Pixel for every location
+  * the way getPixels and getPixels2D do.
+  * @return a cursor positioned just before the first pixel (0,0)
+  */
+ public PixelCursor getPixelCursor()
+ {
+   return new PixelCursor(this);
+ }
+ 
+ /**
+  * Method to load the buffered image with the passed image
+  * @param image  the image to use
+  */
+ public void load(Image image)
+ {
+   // get a graphics context to use to draw on the buffered image
+   startEdit();
+   try
+   {
+     Graphics2D graphics2d = bufferedImage.createGraphics();
+     
+     // draw the image on the buffered image starting at 0,0
+     graphics2d.drawImage(image,0,0,null);
+   }
+   finally
+   {
+     endEdit();
+   }
+   
+   // show the new image
+   show();
+ }
+ 
+ /**
+  * Method to show the picture in a picture frame
+  */
+ public void show()
+ {
+    // if there is a current picture frame then use it 
+   if (pictureFrame != null)
+     pictureFrame.updateImageAndShowIt();
+   
+   // else create a new picture frame with this picture 
+   else
+     pictureFrame = newPictureFrame();
+ }
+ 
+ /**
+  * Method to hide the picture display
+  */
+ public void hide()
+ {
+   if (pictureFrame != null)
+     pictureFrame.setVisible(false);
+ }
+ 
+ /**
+  * Method to make this picture visible or not
+  * @param flag true if you want it visible else false
+  */
+ public void setVisible(boolean flag)
+ {
+   if (flag)
+     this.show();
+   else 
+     this.hide();
+ }
+
+ /**
+  * Method to open a picture explorer on a copy (in memory) of this 
+  * simple picture
+  */
+ public void explore()
+ {
+   // create a copy of the current picture and explore it
+   PictureViewer viewer = PictureViewer.find();
+   if (viewer == null)
+     System.out.println("No picture viewer available to explore " + title);
+   else
+     viewer.explore(new SimplePicture(this));
+ }
+ 
+ /**
+  * Method to force the picture to repaint itself.  This is very
+  * useful after you have changed the pixels in a picture and
+  * you want to see the change.
+  */
+ public void repaint()
+ {
+   // if there is a picture frame tell it to repaint
+   if (pictureFrame != null)
+     pictureFrame.repaint();
+   
+   // else create a new picture frame
+   else
+     pictureFrame = newPictureFrame();
+ }
+ 
+ /**
+  * Method to make a picture frame for this picture with the viewer
+  * from the gui module
+  * @return the new picture frame or null if there is no viewer
+  */
+ private PictureDisplay newPictureFrame()
+ {
+   PictureViewer viewer = PictureViewer.find();
+   if (viewer == null)
+   {
+     System.out.println("No picture viewer available to show " + title);
+     return null;
+   }
+   return viewer.show(this);
+ }
+ 
+ /**
+  * Method to load the picture from the passed file name
+  * @param fileName the file name to use to load the picture from
+  * @throws IOException if the picture isn't found
+  */
+ public void loadOrFail(String fileName) throws IOException
+ {
+   loadOrFail(fileName, true);
+ }
+ 
+ /**
+  * Method to load the picture from the passed file name
+  * @param fileName the file name to use to load the picture from
+  * @param keep true to keep the decoded image in the ImageCache for
+  * later loads, false for a file that is read only once (like a batch
+  * job), so it doesn't take up room in the cache
+  * @throws IOException if the picture isn't found
+  */
+ public void loadOrFail(String fileName, boolean keep) throws IOException
+ {
+    // set the current picture's file name
+   this.fileName = fileName;
+   
+   // set the extension
+   int posDot = fileName.indexOf('.');
+   if (posDot >= 0)
+     this.extension = fileName.substring(posDot + 1);
+   
+   // if the current title is null use the file name
+   if (title == null)
+     title = fileName;
+   
+   File file = new File(this.fileName);
+
+   if (!file.canRead()) 
+   {
+     // try adding the media path 
+     file = new File(getMediaPath(this.fileName));
+     if (!file.canRead())
+     {
+       throw new IOException(this.fileName +
+                             " could not be opened. Check that you specified the path");
+     }
+   }
+   
+   // decoded images are shared through the cache until they change
+   setSharedImage(ImageCache.shared().get(file, keep));
+ }
+
+
+ /**
+  * Method to read the contents of the picture from a filename  
+  * without throwing errors
+  * @param fileName the name of the file to write the picture to
+  * @return true if success else false
+  */
+ public boolean load(String fileName)
+ {
+     try {
+         this.loadOrFail(fileName);
+         return true;
+
+     } catch (Exception ex) {
+         System.out.println("There was an error trying to open " + fileName);
+         setBufferedImage(new BufferedImage(600,200,
+                                            BufferedImage.TYPE_INT_RGB));
+         addMessage("Couldn't load " + fileName,5,100);
+         return false;
+     }
+         
+ }
+
+ /**
+  * Method to load the picture from the passed file name
+  * this just calls load(fileName) and is for name compatibility
+  * @param fileName the file name to use to load the picture from
+  * @return true if success else false
+  */
+ public boolean loadImage(String fileName)
+ {
+     return load(fileName);
+ }
+ 
+ /**
+  * Method to draw a message as a string on the buffered image 
+  * @param message the message to draw on the buffered image
+  * @param xPos  the x coordinate of the leftmost point of the string  
+  * @param yPos  the y coordinate of the bottom of the string 
+  */
+ public void addMessage(String message, int xPos, int yPos)
+ {
+   // get a graphics context to use to draw on the buffered image
+   startEdit();
+   try
+   {
+     Graphics2D graphics2d = bufferedImage.createGraphics();
+     
+     // set the color to white
+     graphics2d.setPaint(Color.white);
+     
+     // set the font to Helvetica bold style and size 16
+     graphics2d.setFont(new Font("Helvetica",Font.BOLD,16));
+     
+     // draw the message
+     graphics2d.drawString(message,xPos,yPos);
+   }
+   finally
+   {
+     endEdit();
+   }
+   
+ }
+ 
+ /**
+  * Method to draw a string at the given location on the picture
+  * @param text the text to draw
+  * @param xPos the left x for the text 
+  * @param yPos the top y for the text
+  */
+ public void drawString(String text, int xPos, int yPos)
+ {
+   addMessage(text,xPos,yPos);
+ }
+ 
+ /**
+   * Method to create a new picture by scaling the current
+   * picture by the given x and y factors
+   * @param xFactor the amount to scale in x
+   * @param yFactor the amount to scale in y
+   * @return the resulting picture
+   */
+  public Picture scale(double xFactor, double yFactor)
+  {
+    // set up the scale transform
+    AffineTransform scaleTransform = new AffineTransform();
+    scaleTransform.scale(xFactor,yFactor);
+    
+    // create a new picture object that is the right size
+    Picture result = new Picture((int) (getWidth() * xFactor),
+                                 (int) (getHeight() * yFactor));
+    
+    // get the graphics 2d object to draw on the result
+    Graphics graphics = result.getGraphics();
+    Graphics2D g2 = (Graphics2D) graphics;
+    
+    // draw the current image onto the result image scaled
+    g2.drawImage(this.bufferedImage,scaleTransform,null);
+    
+    return result;
+  }
+  
+  /**
+   * Method to create a new picture of the passed width. 
+   * The aspect ratio of the width and height will stay
+   * the same.
+   * @param width the desired width
+   * @return the resulting picture
+   */
+  public Picture getPictureWithWidth(int width)
+  {
+    // set up the scale transform
+    double xFactor = (double) width / this.getWidth();
+    Picture result = scale(xFactor,xFactor);
+    return result;
+  }
+  
+  /**
+   * Method to create a new picture of the passed height. 
+   * The aspect ratio of the width and height will stay
+   * the same.
+   * @param height the desired height
+   * @return the resulting picture
+   */
+  public Picture getPictureWithHeight(int height)
+  {
+    // set up the scale transform
+    double yFactor = (double) height / this.getHeight();
+    Picture result = scale(yFactor,yFactor);
+    return result;
+  }
+ 
+ /**
+  * Method to load a picture from a file name and show it in a picture frame
+  * @param fileName the file name to load the picture from
+  * @return true if success else false
+  */
+ public boolean loadPictureAndShowIt(String fileName)
+ {
+   boolean result = true;  // the default is that it worked
+   
+   // try to load the picture into the buffered image from the file name
+   result = load(fileName);
+   
+   // show the picture in a picture frame
+   show();
+   
+   return result;
+ }
+ 
+ /**
+  * Method to write the contents of the picture to a file with 
+  * the passed name
+  * @param fileName the name of the file to write the picture to
+  */
+ public void writeOrFail(String fileName) throws IOException
+ {
+   String extension = this.extension; // the default is current
+   
+   // create the file object
+   File file = new File(fileName);
+   File fileLoc = file.getParentFile(); // directory name
+   
+   // if there is no parent directory use the current media dir
+   if (fileLoc == null)
+   {
+     fileName = getMediaPath(fileName);
+     file = new File(fileName);
+     fileLoc = file.getParentFile(); 
+   }
+   
+   // check that you can write to the directory 
+   if (!fileLoc.canWrite()) {
+        throw new IOException(fileName +
+        " could not be opened. Check to see if you can write to the directory.");
+   }
+   
+   // get the extension
+   int posDot = fileName.indexOf('.');
+   if (posDot >= 0)
+       extension = fileName.substring(posDot + 1);
+   
+   // write the contents of the buffered image to the file
+   ImageIO.write(bufferedImage, extension, file);
+     
+ }
+
+ /**
+  * Method to write the contents of the picture to a file with 
+  * the passed name without throwing errors
+  * @param fileName the name of the file to write the picture to
+  * @return true if success else false
+  */
+ public boolean write(String fileName)
+ {
+     try {
+         this.writeOrFail(fileName);
+         return true;
+     } catch (Exception ex) {
+         System.out.println("There was an error trying to write " + fileName);
+         ex.printStackTrace();
+         return false;
+     }
+         
+ }
+ 
+ /**
+  * Method to get the directory for the media
+  * @param fileName the base file name to use
+  * @return the full path name by appending
+  * the file name to the media directory
+  */
+ public static String getMediaPath(String fileName) {
+   return getMediaDirectory() + fileName;
+ }
+ 
+ /**
+  * Method to get the directory for the media: the current directory,
+  * else an images folder next to this class
+  * @return the media directory ending in a file separator
+  */
+ public static String getMediaDirectory() {
+   // First, try the current directory
+   String directory = System.getProperty("user.dir");
+   if (directory != null && new File(directory).exists())
+     return directory + File.separator;
+   
+   // try to find the images directory next to this class
+   try {
+     java.net.URL classURL = SimplePicture.class.getResource("SimplePicture.class");
+     if (classURL != null) {
+       File classFile = new File(classURL.toURI().getPath());
+       File imagesDir = new File(classFile.getParentFile(), "images");
+       if (imagesDir.exists())
+         return imagesDir.getPath() + File.separator;
+     }
+   } catch (Exception ex) {
+     // Fall through to default directory
+   }
+   
+   // Last resort: try current directory
+   return System.getProperty("user.dir") + File.separator;
+ }
+ 
+  /**
+   * Method to get the coordinates of the enclosing rectangle after this
+   * transformation is applied to the current picture
+   * @return the enclosing rectangle
+   */
+  public Rectangle2D getTransformEnclosingRect(AffineTransform trans)
+  {
+    int width = getWidth();
+    int height = getHeight();
+    double maxX = width - 1;
+    double maxY = height - 1;
+    double minX, minY;
+    Point2D.Double p1 = new Point2D.Double(0,0);
+    Point2D.Double p2 = new Point2D.Double(maxX,0);
+    Point2D.Double p3 = new Point2D.Double(maxX,maxY);
+    Point2D.Double p4 = new Point2D.Double(0,maxY);
+    Point2D.Double result = new Point2D.Double(0,0);
+    Rectangle2D.Double rect = null;
+    
+    // get the new points and min x and y and max x and y
+    trans.deltaTransform(p1,result);
+    minX = result.getX();
+    maxX = result.getX();
+    minY = result.getY();
+    maxY = result.getY();
+    trans.deltaTransform(p2,result);
+    minX = Math.min(minX,result.getX());
+    maxX = Math.max(maxX,result.getX());
+    minY = Math.min(minY,result.getY());
+    maxY = Math.max(maxY,result.getY());
+    trans.deltaTransform(p3,result);
+    minX = Math.min(minX,result.getX());
+    maxX = Math.max(maxX,result.getX());
+    minY = Math.min(minY,result.getY());
+    maxY = Math.max(maxY,result.getY());
+    trans.deltaTransform(p4,result);
+    minX = Math.min(minX,result.getX());
+    maxX = Math.max(maxX,result.getX());
+    minY = Math.min(minY,result.getY());
+    maxY = Math.max(maxY,result.getY());
+    
+    // create the bounding rectangle to return
+    rect = new Rectangle2D.Double(minX,minY,maxX - minX + 1, maxY - minY + 1);
+    return rect;
+  }
+  
+  /**
+   * Method to get the coordinates of the enclosing rectangle after this
+   * transformation is applied to the current picture
+   * @return the enclosing rectangle
+   */
+  public Rectangle2D getTranslationEnclosingRect(AffineTransform trans)
+  {
+    return getTransformEnclosingRect(trans);
+  }
+ 
+ /**
+  * Method to return a string with information about this picture
+  * @return a string with information about the picture 
+  */
+ public String toString()
+ {
+   String output = "Simple Picture, filename " + fileName + 
+     " height " + getHeight() + " width " + getWidth();
+   return output;
+ }
+
+} // end of SimplePicture class
@@ -0,0 +1,304 @@
+package imageapp;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hides pictures in the low bits of the colors of another picture and
+ * gets them back out.  Each engine works with 1 to 4 bits of each color:
+ * hiding keeps the top 8 - bits bits of the cover and puts the top bits
+ * of the secret in the bottom ones, and revealing moves the bottom bits
+ * back up to the top.  More bits give a better secret and a worse cover.
+ * Picture.hide and the other Picture methods use TWO_BITS.
+ *
+ * Everything works on packed ints with masks and shifts.  Big pictures
+ * are done a band of rows at a time in parallel, and several secrets
+ * can be hidden in one pass over the cover.  As in the original Picture
+ * methods, the last column of the cover is never changed.
+ */
+public final class Steganography
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** the engine for 2 bits, the one Picture uses */
+  public static final Steganography TWO_BITS = new Steganography(2);
+
+  /** the engine for each number of bits */
+  private static final Steganography[] ENGINES =
+  {
+    null, new Steganography(1), TWO_BITS, new Steganography(3), new Steganography(4)
+  };
+
+  /** the number of low bits of each color that are used */
+  private final int bits;
+
+  /** how far the bits move between the top and the bottom of a color */
+  private final int shift;
+
+  /** the low bits of each color (like 0x00030303 for 2 bits) */
+  private final int lowMask;
+
+  /** the bits a cover keeps: alpha and the high bits of each color */
+  private final int keepMask;
+
+  /////////////////////// Types /////////////////////////
+
+  /** A secret picture and where its top left corner goes in the cover */
+  public static final class Secret
+  {
+    private final DigitalPicture picture;
+    private final int x;
+    private final int y;
+
+    /**
+     * Constructor that takes the secret and its place
+     * @param picture the picture to hide
+     * @param x the x in the cover of the secret's left column
+     * @param y the y in the cover of the secret's top row
+     */
+    public Secret(DigitalPicture picture, int x, int y)
+    {
+      this.picture = picture;
+      this.x = x;
+      this.y = y;
+    }
+
+    /**
+     * Method to get the picture to hide
+     * @return the secret picture
+     */
+    public DigitalPicture getPicture() { return picture; }
+
+    /**
+     * Method to get the x in the cover of the secret's left column
+     * @return the x
+     */
+    public int getX() { return x; }
+
+    /**
+     * Method to get the y in the cover of the secret's top row
+     * @return the y
+     */
+    public int getY() { return y; }
+  }
+
+  /////////////////////// Constructors /////////////////////////
+
+  /**
+   * Constructor that takes the number of bits (use forBits)
+   * @param bits the number of low bits of each color to use
+   */
+  private Steganography(int bits)
+  {
+    this.bits = bits;
+    this.shift = 8 - bits;
+    this.lowMask = ((1 << bits) - 1) * 0x00010101;
+    this.keepMask = ~lowMask;
+  }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to get the engine for a number of bits
+   * @param bits the number of low bits of each color to use (1 to 4)
+   * @return the engine
+   */
+  public static Steganography forBits(int bits)
+  {
+    if (bits < 1 || bits >= ENGINES.length)
+      throw new IllegalArgumentException("bits must be 1 to 4: " + bits);
+    return ENGINES[bits];
+  }
+
+  /**
+   * Method to get the number of low bits of each color used
+   * @return the number of bits
+   */
+  public int getBits() { return bits; }
+
+  /**
+   * Method to get a kernel that clears the low bits of each color
+   * @return the kernel
+   */
+  public PointKernel clearLowKernel()
+  {
+    return KernelBackend.andKernel(keepMask);
+  }
+
+  /**
+   * Method to get a kernel that sets the low bits of each color to the
+   * low bits of a color, clearing them in the same step
+   * @param c the color to take the low bits from
+   * @return the kernel
+   */
+  public PointKernel setLowKernel(Color c)
+  {
+    int low = ((c.getRed() << 16) | (c.getGreen() << 8) | c.getBlue()) & lowMask;
+    return KernelBackend.andOrKernel(keepMask, low);
+  }
+
+  /**
+   * Method to get a kernel that moves the low bits of each color to the
+   * top and clears the rest (alpha is kept)
+   * @return the kernel
+   */
+  public PointKernel revealKernel()
+  {
+    return KernelBackend.revealKernel(lowMask, shift);
+  }
+
+  /**
+   * Method to clear the low bits of every color of a picture (but the
+   * last column)
+   * @param picture the picture to change
+   */
+  public void clearLow(DigitalPicture picture)
+  {
+    applyToCover(picture, clearLowKernel());
+  }
+
+  /**
+   * Method to set the low bits of every color of a picture (but the last
+   * column) to the low bits of a color
+   * @param picture the picture to change
+   * @param c the color to take the low bits from
+   */
+  public void setLow(DigitalPicture picture, Color c)
+  {
+    applyToCover(picture, setLowKernel(c));
+  }
+
+  /**
+   * Method to show the pictures hidden in a picture (but the last
+   * column) by moving the low bits of each color to the top
+   * @param picture the picture to change
+   */
+  public void reveal(DigitalPicture picture)
+  {
+    applyToCover(picture, revealKernel());
+  }
+
+  /**
+   * Method to run a kernel over all of a cover but the last column
+   * @param picture the cover
+   * @param kernel the kernel to run
+   */
+  private static void applyToCover(DigitalPicture picture, PointKernel kernel)
+  {
+    TileEngine.apply(picture, kernel, 0, 0, picture.getWidth() - 1, picture.getHeight());
+  }
+
+  /**
+   * Method to hide one picture in another
+   * @param cover the picture to hide the secret in
+   * @param secret the picture to hide
+   * @param x the x in the cover of the secret's left column
+   * @param y the y in the cover of the secret's top row
+   */
+  public void hide(DigitalPicture cover, DigitalPicture secret, int x, int y)
+  {
+    hide(cover, Arrays.asList(new Secret(secret, x, y)));
+  }
+
+  /**
+   * Method to hide several pictures in one pass over the cover.  The
+   * result is the same as hiding them one after another in list order,
+   * so where two secrets overlap the later one wins.  Each secret is cut
+   * off at the right (before the last column) and bottom of the cover.
+   * @param cover the picture to hide the secrets in
+   * @param secrets the pictures to hide and where they go
+   */
+  public void hide(DigitalPicture cover, List<Secret> secrets)
+  {
+    int coverWidth = cover.getWidth();
+    List<Secret> kept = new ArrayList<Secret>();
+    List<int[]> sizes = new ArrayList<int[]>();
+    int firstRow = Integer.MAX_VALUE;
+    int endRow = Integer.MIN_VALUE;
+    int widest = 0;
+    for (Secret secret : secrets)
+    {
+      int width = Math.min(secret.picture.getWidth(), coverWidth - 1 - secret.x);
+      int height = Math.min(secret.picture.getHeight(), cover.getHeight() - secret.y);
+      if (width <= 0 || height <= 0)
+        continue;
+      kept.add(secret);
+      sizes.add(new int[] { width, height });
+      firstRow = Math.min(firstRow, secret.y);
+      endRow = Math.max(endRow, secret.y + height);
+      widest = Math.max(widest, width);
+    }
+    if (kept.isEmpty())
+      return;
+
+    int top = firstRow;
+    int rowWidth = widest;
+    TileEngine.forEachBand(coverWidth, endRow - firstRow, (startBand, endBand) ->
+    {
+      int[] row = new int[coverWidth];
+      int[] secretRow = new int[rowWidth];
+      for (int y = top + startBand; y < top + endBand; y++)
+        hideRow(cover, y, kept, sizes, row, secretRow);
+    });
+  }
+
+  /**
+   * Method to hide the rows of all the secrets that cross one row of the
+   * cover.  The cover row is read and written once for all of them.
+   * @param cover the cover
+   * @param y the row of the cover
+   * @param secrets the secrets, already cut to fit
+   * @param sizes the width and height of each secret after cutting
+   * @param row an array for the cover row
+   * @param secretRow an array for a secret row
+   */
+  private void hideRow(DigitalPicture cover, int y, List<Secret> secrets,
+                       List<int[]> sizes, int[] row, int[] secretRow)
+  {
+    int left = Integer.MAX_VALUE;
+    int right = Integer.MIN_VALUE;
+    for (int i = 0; i < secrets.size(); i++)
+    {
+      Secret secret = secrets.get(i);
+      if (y >= secret.y && y < secret.y + sizes.get(i)[1])
+      {
+        left = Math.min(left, secret.x);
+        right = Math.max(right, secret.x + sizes.get(i)[0]);
+      }
+    }
+    if (left > right)
+      return;
+
+    int span = right - left;
+    cover.getRGB(left, y, span, 1, row, 0, span);
+    for (int i = 0; i < secrets.size(); i++)
+    {
+      Secret secret = secrets.get(i);
+      int width = sizes.get(i)[0];
+      if (y < secret.y || y >= secret.y + sizes.get(i)[1])
+        continue;
+      secret.picture.getRGB(0, y - secret.y, width, 1, secretRow, 0, width);
+      int offset = secret.x - left;
+      for (int col = 0; col < width; col++)
+      {
+        // keep the high bits of the cover and put the top bits of the
+        // secret in the low bits of each color
+        row[offset + col] = (row[offset + col] & keepMask)
+          | ((secretRow[col] >> shift) & lowMask);
+      }
+    }
+    cover.setRGB(left, y, span, 1, row, 0, span);
+  }
+
+  /**
+   * Method to return a string with the number of bits
+   * @return a string with information about the engine
+   */
+  public String toString()
+  {
+    return "Steganography " + bits + " bits";
+  }
+}
@@ -0,0 +1,434 @@
+package imageapp;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Runs a chain of filters over an image file a stripe of rows at a time,
+ * so a picture far too big for the heap can be filtered into a new file:
+ *
+ *   ImageApp --stream scan.png --ops blur:2,grayscale --out small.png --stripe 256
+ *
+ * Each stripe is decoded by itself with ImageReadParam.setSourceRegion,
+ * run through the filters and handed to the image writer, so only about
+ * width x (stripe height + 2 x halo) pixels are in memory, however tall
+ * the picture is.  The halo is the extra rows above and below a stripe
+ * that its convolutions need (half the kernel height for each one in the
+ * chain); they are read with the stripe and dropped after the filters,
+ * so the result is the same as filtering the whole picture at once.
+ *
+ * Only filters that work on each pixel or a small neighborhood can be
+ * run this way: point filters, lookup tables, convolutions and the edge
+ * magnitude.  Turns and flips need the whole picture.
+ *
+ * The png and bmp writers ask for the result a row at a time, so those
+ * outputs stream (see StripedImage).  The jpg writer asks for the whole
+ * picture at once, which would all be made in memory, so jpg output is
+ * refused.  Most readers decode a file from the start for each stripe,
+ * so taller stripes read faster and use more memory.
+ */
+public final class StripeProcessor
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** how to run the stream mode */
+  public static final String USAGE =
+    "usage: ImageApp --stream <file> --ops <op,op,...> --out <file> [--stripe rows]\n"
+    + "  ops: recolor, negative, grayscale, sharpen, edges, blur:<sigma>,\n"
+    + "       brightness:<n>, contrast:<f>, gamma:<g>\n"
+    + "  out: png or bmp (jpg needs the whole picture in memory)";
+
+  /** the number of rows in a stripe when none is given */
+  public static final int DEFAULT_STRIPE_HEIGHT = 256;
+
+  /** the number of rows in each stripe */
+  private final int stripeHeight;
+
+  /** the filters to run on each stripe, in order */
+  private final List<Step> steps = new ArrayList<Step>();
+
+  /** the rows above and below a stripe the filters need */
+  private int haloRows;
+
+  /////////////////////// Types /////////////////////////
+
+  /** One filter of the chain and the rows around a stripe it needs */
+  private static final class Step
+  {
+    /** the name of the filter */
+    private final String name;
+
+    /** the rows above and below each pixel the filter reads */
+    private final int haloRows;
+
+    /** the work the filter does to a stripe */
+    private final Consumer<Picture> work;
+
+    /**
+     * Constructor that takes the name, the halo and the work
+     * @param name the name of the filter
+     * @param haloRows the rows above and below each pixel the filter reads
+     * @param work the work the filter does to a stripe
+     */
+    private Step(String name, int haloRows, Consumer<Picture> work)
+    {
+      this.name = name;
+      this.haloRows = haloRows;
+      this.work = work;
+    }
+  }
+
+  /**
+   * The filtered picture for the image writer.  Each stripe is decoded
+   * with its halo, run through the filters, and its own rows kept.
+   */
+  private final class StripeImage extends StripedImage
+  {
+    /** the reader of the input file */
+    private final ImageReader reader;
+
+    /** the width of the picture */
+    private final int width;
+
+    /** the height of the picture */
+    private final int height;
+
+    /**
+     * Constructor that takes the reader and the result's type
+     * @param reader the reader of the input file
+     * @param hasAlpha true to keep alpha in the result
+     * @throws IOException if the size can't be read
+     */
+    private StripeImage(ImageReader reader, boolean hasAlpha) throws IOException
+    {
+      super(reader.getWidth(0), reader.getHeight(0), stripeHeight, hasAlpha);
+      this.reader = reader;
+      this.width = reader.getWidth(0);
+      this.height = reader.getHeight(0);
+    }
+
+    /**
+     * Method to decode a stripe with its halo, run the filters on it and
+     * keep the stripe's own rows
+     * @param top the first row of the stripe
+     * @param tile the stripe to fill
+     * @throws IOException if the stripe can't be decoded
+     */
+    void fillStripe(int top, WritableRaster tile) throws IOException
+    {
+      int rows = tile.getHeight();
+      int readTop = Math.max(0, top - haloRows);
+      int readBottom = Math.min(height, top + rows + haloRows);
+      ImageReadParam param = reader.getDefaultReadParam();
+      param.setSourceRegion(new Rectangle(0, readTop, width, readBottom - readTop));
+      BufferedImage decoded = reader.read(0, param);
+
+      // one int a pixel so the filters can work on it
+      BufferedImage packed = new BufferedImage(width, readBottom - readTop,
+                                               decoded.getColorModel().hasAlpha() ?
+                                               BufferedImage.TYPE_INT_ARGB
+                                               : BufferedImage.TYPE_INT_RGB);
+      int[] data = ((DataBufferInt) packed.getRaster().getDataBuffer()).getData();
+      decoded.getRGB(0, 0, width, readBottom - readTop, data, 0, width);
+      decoded = null;
+      Picture stripe = new Picture(packed);
+      for (Step step : steps)
+        step.work.accept(stripe);
+
+      int[] row = new int[width];
+      for (int y = 0; y < rows; y++)
+      {
+        stripe.getRow(top - readTop + y, row);
+        tile.setDataElements(0, top + y, width, 1, row);
+      }
+    }
+  }
+
+  /////////////////////// Constructors /////////////////////////
+
+  /**
+   * Constructor that takes the stripe height
+   * @param stripeHeight the number of rows in each stripe
+   */
+  public StripeProcessor(int stripeHeight)
+  {
+    if (stripeHeight < 1)
+      throw new IllegalArgumentException("a stripe needs at least 1 row");
+    this.stripeHeight = stripeHeight;
+  }
+
+  /**
+   * Constructor that uses stripes of DEFAULT_STRIPE_HEIGHT rows
+   */
+  public StripeProcessor()
+  {
+    this(DEFAULT_STRIPE_HEIGHT);
+  }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to add a filter to the chain
+   * @param name the name of the filter
+   * @param haloRows the rows above and below each pixel the filter reads
+   * (0 for a point filter)
+   * @param work the work the filter does to a stripe; it must only read
+   * pixels at most haloRows rows away
+   * @return this StripeProcessor
+   */
+  public StripeProcessor add(String name, int haloRows, Consumer<Picture> work)
+  {
+    if (haloRows < 0)
+      throw new IllegalArgumentException("the halo can't be negative");
+    steps.add(new Step(name, haloRows, work));
+    // the rows a filter gets wrong at a stripe edge grow with each one
+    this.haloRows += haloRows;
+    return this;
+  }
+
+  /**
+   * Method to add a point filter to the chain
+   * @param kernel the filter
+   * @return this StripeProcessor
+   */
+  public StripeProcessor point(PointKernel kernel)
+  {
+    return add("point", 0, p -> TileEngine.apply(p, kernel));
+  }
+
+  /**
+   * Method to add a convolution to the chain
+   * @param kernel the kernel
+   * @param border what to use past the edges of the picture
+   * @return this StripeProcessor
+   */
+  public StripeProcessor convolve(ConvolutionKernel kernel, BorderMode border)
+  {
+    return add("convolve", kernel.getHeight() / 2, p -> p.convolve(kernel, border));
+  }
+
+  /**
+   * Method to add the edge magnitude (see Picture.edgeMagnitude)
+   * @param operator the edge kernels to use
+   * @return this StripeProcessor
+   */
+  public StripeProcessor edgeMagnitude(EdgeOperator operator)
+  {
+    int halo = Math.max(operator.getXKernel().getHeight(), operator.getYKernel().getHeight()) / 2;
+    return add("edges " + operator, halo, p -> p.edgeMagnitude(operator));
+  }
+
+  /**
+   * Method to get the number of rows in each stripe
+   * @return the stripe height
+   */
+  public int getStripeHeight() { return stripeHeight; }
+
+  /**
+   * Method to get the rows read above and below each stripe
+   * @return the halo of the whole chain
+   */
+  public int getHaloRows() { return haloRows; }
+
+  /**
+   * Method to make a StripeProcessor from an operation chain like
+   * blur:2,grayscale (the names are the batch mode's)
+   * @param chain the operation names separated by commas
+   * @param stripeHeight the number of rows in each stripe
+   * @return the processor
+   */
+  public static StripeProcessor parse(String chain, int stripeHeight)
+  {
+    StripeProcessor processor = new StripeProcessor(stripeHeight);
+    for (String name : chain.split(","))
+    {
+      name = name.trim();
+      if (!name.isEmpty())
+        processor.addOperation(name);
+    }
+    if (processor.steps.isEmpty())
+      throw new IllegalArgumentException("the operation chain is empty");
+    return processor;
+  }
+
+  /**
+   * Method to add one operation from its name
+   * @param name the name of the operation
+   */
+  private void addOperation(String name)
+  {
+    String lower = name.toLowerCase(Locale.ROOT);
+    switch (lower)
+    {
+      case "recolor":
+        point(ImageApp.CHANGE_COLOR);
+        return;
+      case "negative":
+        point(ImageApp.NEGATIVE_COLOR);
+        return;
+      case "grayscale":
+        point(ImageApp.GRAYSCALE);
+        return;
+      case "sharpen":
+        convolve(ConvolutionKernel.SHARPEN, BorderMode.CLAMP);
+        return;
+      case "edges":
+        edgeMagnitude(EdgeOperator.SOBEL);
+        return;
+      default:
+        break;
+    }
+    if (lower.startsWith("blur:"))
+      convolve(ConvolutionKernel.gaussian(BatchProcessor.parseNumber(name, "blur:<sigma>")),
+               BorderMode.CLAMP);
+    else if (lower.startsWith("brightness:"))
+      point(ChannelLut.brightness((int) BatchProcessor.parseNumber(name, "brightness:<n>")));
+    else if (lower.startsWith("contrast:"))
+      point(ChannelLut.contrast(BatchProcessor.parseNumber(name, "contrast:<f>")));
+    else if (lower.startsWith("gamma:"))
+      point(ChannelLut.gamma(BatchProcessor.parseNumber(name, "gamma:<g>")));
+    else if (lower.startsWith("rotate") || lower.startsWith("insert:"))
+      throw new IllegalArgumentException(name + " needs the whole picture and can't be streamed");
+    else
+      throw new IllegalArgumentException("unknown operation: " + name);
+  }
+
+  /**
+   * Method to filter an image file into a new file a stripe at a time.
+   * The output format comes from its extension; the result keeps alpha
+   * if the input has it and the format can hold it.  The output can't be
+   * jpg (its writer asks for the whole picture at once) or the input
+   * itself (it is replaced while it is still being read).
+   * @param input the file to read
+   * @param output the file to write
+   * @throws IOException if a file can't be read or written, or the
+   * output is jpg or the input
+   */
+  public void process(File input, File output) throws IOException
+  {
+    String name = output.getName();
+    String type = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    if (type.equals("jpg") || type.equals("jpeg"))
+      throw new IOException("jpg output needs the whole picture in memory; write png or bmp");
+    if (input.getCanonicalFile().equals(output.getCanonicalFile()))
+      throw new IOException(output.getPath() + " is the input; write to another file");
+    ImageWriter writer = StripedImage.writerFor(type);
+    try (ImageInputStream in = ImageIO.createImageInputStream(input))
+    {
+      if (in == null)
+        throw new IOException("can't read " + input.getPath());
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+      if (!readers.hasNext())
+        throw new IOException(input.getPath() + " is not an image file ImageIO can read");
+      ImageReader reader = readers.next();
+      try
+      {
+        // not forward only, so each stripe can seek back to the image
+        reader.setInput(in, false, true);
+        boolean alpha = reader.getRawImageType(0) != null
+          && reader.getRawImageType(0).getColorModel().hasAlpha()
+          && StripedImage.keepsAlpha(type);
+        new StripeImage(reader, alpha).write(writer, output);
+      }
+      finally
+      {
+        reader.dispose();
+      }
+    }
+    finally
+    {
+      writer.dispose();
+    }
+  }
+
+  /**
+   * Method to run the stream mode from the command line arguments that
+   * follow --stream
+   * @param args the arguments after --stream
+   * @return the exit status: 0 if it worked, 1 if a file failed and 2 if
+   * the arguments were wrong
+   */
+  public static int run(String[] args)
+  {
+    String input = null;
+    String ops = null;
+    String out = null;
+    int stripe = DEFAULT_STRIPE_HEIGHT;
+    StripeProcessor processor;
+    try
+    {
+      for (int i = 0; i < args.length; i++)
+      {
+        String arg = args[i];
+        if (arg.equals("--ops"))
+          ops = args[++i];
+        else if (arg.equals("--out"))
+          out = args[++i];
+        else if (arg.equals("--stripe"))
+          stripe = Integer.parseInt(args[++i]);
+        else if (!arg.startsWith("--") && input == null)
+          input = arg;
+        else
+          throw new IllegalArgumentException("unknown argument: " + arg);
+      }
+      if (input == null || ops == null || out == null)
+        throw new IllegalArgumentException("an input, --ops and --out are needed");
+      processor = parse(ops, stripe);
+    }
+    catch (ArrayIndexOutOfBoundsException ex)
+    {
+      System.err.println("missing value after " + args[args.length - 1]);
+      System.err.println(USAGE);
+      return 2;
+    }
+    catch (IllegalArgumentException ex)
+    {
+      System.err.println(ex.getMessage());
+      System.err.println(USAGE);
+      return 2;
+    }
+
+    long start = System.nanoTime();
+    try
+    {
+      processor.process(new File(input), new File(out));
+    }
+    catch (IOException ex)
+    {
+      System.err.println(input + ": " + ex.getMessage());
+      return 1;
+    }
+    System.out.printf("%s -> %s in %.1f ms (%d row stripes, %d halo rows)%n", input, out,
+                      (System.nanoTime() - start) / 1e6, processor.stripeHeight,
+                      processor.haloRows);
+    return 0;
+  }
+
+  /**
+   * Method to return a string with the filters and stripe size
+   * @return a string with information about the processor
+   */
+  public String toString()
+  {
+    List<String> names = new ArrayList<String>();
+    for (Step step : steps)
+      names.add(step.name);
+    return "StripeProcessor " + names + ", " + stripeHeight + " row stripes, "
+      + haloRows + " halo rows";
+  }
+}
@@ -0,0 +1,216 @@
+package imageapp;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Vector;
+
+/**
+ * A picture handed to an image writer a stripe of rows at a time: a
+ * RenderedImage with one tile for each stripe.  A stripe is made when
+ * the writer first asks for one of its rows, and only the last one made
+ * is kept, so a picture far too big for the heap can be written.
+ *
+ * The png and bmp writers ask for the result a row at a time, so those
+ * outputs stream.  The jpg writer asks for the whole picture at once
+ * with getData, which then is all made in memory.
+ *
+ * StripeProcessor makes its stripes by decoding and filtering part of a
+ * file; OffHeapPicture copies its rows.
+ */
+abstract class StripedImage implements RenderedImage
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** the width of the picture */
+  private final int width;
+
+  /** the height of the picture */
+  private final int height;
+
+  /** the number of rows in each stripe */
+  private final int stripeHeight;
+
+  /** the color model of the pixels (packed ints) */
+  private final ColorModel colorModel;
+
+  /** the layout of one stripe */
+  private final SampleModel sampleModel;
+
+  /** the index of the stripe kept, or -1 */
+  private int cachedIndex = -1;
+
+  /** the pixels of the stripe kept */
+  private Raster cachedTile;
+
+  /////////////////////// Constructors /////////////////////////
+
+  /**
+   * Constructor that takes the size and the type of the pixels
+   * @param width the width of the picture (at least 1)
+   * @param height the height of the picture (at least 1)
+   * @param stripeHeight the number of rows in each stripe
+   * @param hasAlpha true to keep alpha
+   */
+  StripedImage(int width, int height, int stripeHeight, boolean hasAlpha)
+  {
+    this.width = width;
+    this.height = height;
+    this.stripeHeight = stripeHeight;
+    BufferedImage type = new BufferedImage(1, 1, hasAlpha ? BufferedImage.TYPE_INT_ARGB
+                                           : BufferedImage.TYPE_INT_RGB);
+    this.colorModel = type.getColorModel();
+    this.sampleModel = colorModel.createCompatibleSampleModel(width, stripeHeight);
+  }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to fill in the pixels of a stripe
+   * @param top the first row of the stripe in the picture
+   * @param tile the stripe to fill, one packed int a pixel in a
+   * DataBufferInt, placed at its rows in the picture
+   * @throws IOException if the pixels can't be read
+   */
+  abstract void fillStripe(int top, WritableRaster tile) throws IOException;
+
+  /**
+   * Method to find the image writer for a format
+   * @param type the format, like png
+   * @return the writer (dispose of it when done)
+   * @throws IOException if there is none
+   */
+  static ImageWriter writerFor(String type) throws IOException
+  {
+    Iterator<ImageWriter> writers = ImageIO.getImageWritersBySuffix(type);
+    if (!writers.hasNext())
+      throw new IOException("no image writer for " + type);
+    return writers.next();
+  }
+
+  /**
+   * Method to check if a format can hold alpha
+   * @param type the format, like png
+   * @return true if it can
+   */
+  static boolean keepsAlpha(String type)
+  {
+    return Arrays.asList("png", "gif", "tif", "tiff").contains(type);
+  }
+
+  /**
+   * Method to write the picture to a file with a writer.  An old file is
+   * replaced.
+   * @param writer the writer
+   * @param output the file to write
+   * @throws IOException if the file can't be written or a stripe can't
+   * be made
+   */
+  void write(ImageWriter writer, File output) throws IOException
+  {
+    output.delete();
+    try (ImageOutputStream out = ImageIO.createImageOutputStream(output))
+    {
+      if (out == null)
+        throw new IOException("can't write " + output.getPath());
+      writer.setOutput(out);
+      writer.write(null, new IIOImage(this, null, null), writer.getDefaultWriteParam());
+    }
+    catch (UncheckedIOException ex)
+    {
+      throw ex.getCause();
+    }
+  }
+
+  public Vector<RenderedImage> getSources() { return null; }
+
+  public Object getProperty(String name) { return java.awt.Image.UndefinedProperty; }
+
+  public String[] getPropertyNames() { return null; }
+
+  public ColorModel getColorModel() { return colorModel; }
+
+  public SampleModel getSampleModel() { return sampleModel; }
+
+  public int getWidth() { return width; }
+
+  public int getHeight() { return height; }
+
+  public int getMinX() { return 0; }
+
+  public int getMinY() { return 0; }
+
+  public int getNumXTiles() { return 1; }
+
+  public int getNumYTiles() { return (height + stripeHeight - 1) / stripeHeight; }
+
+  public int getMinTileX() { return 0; }
+
+  public int getMinTileY() { return 0; }
+
+  public int getTileWidth() { return width; }
+
+  public int getTileHeight() { return stripeHeight; }
+
+  public int getTileGridXOffset() { return 0; }
+
+  public int getTileGridYOffset() { return 0; }
+
+  public Raster getTile(int tileX, int tileY)
+  {
+    if (tileY != cachedIndex)
+    {
+      int top = tileY * stripeHeight;
+      WritableRaster tile = Raster.createWritableRaster(
+        sampleModel.createCompatibleSampleModel(width, Math.min(stripeHeight, height - top)),
+        new Point(0, top));
+      try
+      {
+        fillStripe(top, tile);
+      }
+      catch (IOException ex)
+      {
+        throw new UncheckedIOException(ex);
+      }
+      cachedTile = tile;
+      cachedIndex = tileY;
+    }
+    return cachedTile;
+  }
+
+  public Raster getData() { return getData(new Rectangle(0, 0, width, height)); }
+
+  public Raster getData(Rectangle rect)
+  {
+    WritableRaster raster = Raster.createWritableRaster(
+      sampleModel.createCompatibleSampleModel(rect.width, rect.height),
+      new Point(rect.x, rect.y));
+    return copyData(raster);
+  }
+
+  public WritableRaster copyData(WritableRaster raster)
+  {
+    if (raster == null)
+      raster = (WritableRaster) getData();
+    int first = Math.max(0, raster.getMinY()) / stripeHeight;
+    int last = (Math.min(height, raster.getMinY() + raster.getHeight()) - 1) / stripeHeight;
+    for (int index = first; index <= last; index++)
+      raster.setRect(getTile(0, index));
+    return raster;
+  }
+}
@@ -0,0 +1,225 @@
+package imageapp;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs per-pixel filters over a picture in parallel.  The picture is
+ * split into bands of whole rows and each band is handled by a task in
+ * a ForkJoinPool.  Pictures with fewer pixels than the parallel
+ * threshold are done on the calling thread, since splitting a small
+ * picture costs more than it saves.
+ *
+ * Every band writes only its own rows, so the result is the same no
+ * matter how many threads run or in what order the bands finish.
+ */
+public final class TileEngine
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** pictures with at least this many pixels are split into bands */
+  private static volatile long parallelThreshold =
+    Long.getLong("tileEngine.parallelThreshold", 512 * 512);
+
+  /** rows in each band (0 picks a height from the pool's parallelism) */
+  private static volatile int bandHeight =
+    Integer.getInteger("tileEngine.bandHeight", 0);
+
+  /** the pool that runs the bands */
+  private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+  /////////////////////// Types /////////////////////////
+
+  /**
+   * Work to do on a band of rows.  Every call gets a range of rows that
+   * no other call gets.
+   */
+  @FunctionalInterface
+  public interface BandTask
+  {
+    /**
+     * Method to process the rows from startRow up to (not including) endRow
+     * @param startRow the first row of the band
+     * @param endRow the row just past the last row of the band
+     */
+    public void run(int startRow, int endRow);
+  }
+
+  /////////////////////// Constructors /////////////////////////
+
+  /** no TileEngine objects are made; all the methods are static */
+  private TileEngine() { }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to get the number of pixels a picture needs before it is
+   * processed in parallel
+   * @return the parallel threshold in pixels
+   */
+  public static long getParallelThreshold() { return parallelThreshold; }
+
+  /**
+   * Method to set the number of pixels a picture needs before it is
+   * processed in parallel.  Use Long.MAX_VALUE to always run on the
+   * calling thread and 0 to always split.
+   * @param pixels the new parallel threshold in pixels
+   */
+  public static void setParallelThreshold(long pixels)
+  {
+    if (pixels < 0)
+      throw new IllegalArgumentException("threshold must not be negative: " + pixels);
+    parallelThreshold = pixels;
+  }
+
+  /**
+   * Method to get the number of rows in each band
+   * @return the band height (0 means it is picked from the pool size)
+   */
+  public static int getBandHeight() { return bandHeight; }
+
+  /**
+   * Method to set the number of rows in each band
+   * @param rows the band height (0 picks it from the pool size)
+   */
+  public static void setBandHeight(int rows)
+  {
+    if (rows < 0)
+      throw new IllegalArgumentException("band height must not be negative: " + rows);
+    bandHeight = rows;
+  }
+
+  /**
+   * Method to get the pool that runs the bands
+   * @return the fork join pool
+   */
+  public static ForkJoinPool getPool() { return pool; }
+
+  /**
+   * Method to set the pool that runs the bands
+   * @param newPool the fork join pool to use
+   */
+  public static void setPool(ForkJoinPool newPool)
+  {
+    if (newPool == null)
+      throw new IllegalArgumentException("pool must not be null");
+    pool = newPool;
+  }
+
+  /**
+   * Method to check if work on this many pixels will be split into bands
+   * @param pixels the number of pixels
+   * @return true if the work will run in parallel
+   */
+  public static boolean isParallel(long pixels)
+  {
+    return pixels >= parallelThreshold && pool.getParallelism() > 1;
+  }
+
+  /**
+   * Method to run a task over all the rows of a width by height area.
+   * Small areas are done in one call on this thread; big areas are
+   * split into bands that run in the pool.
+   * @param width the width of the area (used to decide on parallelism)
+   * @param height the number of rows
+   * @param task the work to do on each band
+   */
+  public static void forEachBand(int width, int height, BandTask task)
+  {
+    if (height <= 0)
+      return;
+    if (!isParallel((long) width * height) || height == 1)
+    {
+      task.run(0, height);
+      return;
+    }
+
+    int rows = bandHeight;
+    if (rows <= 0)
+    {
+      // about four bands per thread so uneven bands still balance
+      int bands = pool.getParallelism() * 4;
+      rows = Math.max(1, (height + bands - 1) / bands);
+    }
+    int bandCount = (height + rows - 1) / rows;
+    pool.invoke(new BandAction(task, height, rows, 0, bandCount));
+  }
+
+  /**
+   * Method to run a point kernel over every pixel of a picture
+   * @param picture the picture to change
+   * @param kernel the kernel to run on each pixel
+   */
+  public static void apply(DigitalPicture picture, PointKernel kernel)
+  {
+    apply(picture, kernel, 0, 0, picture.getWidth(), picture.getHeight());
+  }
+
+  /**
+   * Method to run a point kernel over a rectangle of a picture
+   * @param picture the picture to change
+   * @param kernel the kernel to run on each pixel
+   * @param x the left x of the rectangle
+   * @param y the top y of the rectangle
+   * @param width the width of the rectangle
+   * @param height the height of the rectangle
+   */
+  public static void apply(DigitalPicture picture, PointKernel kernel,
+                           int x, int y, int width, int height)
+  {
+    if (width <= 0 || height <= 0)
+      return;
+
+    // rows are copied out with getRGB so the kernel always sees a real
+    // alpha, even for a TYPE_INT_RGB picture whose array doesn't keep one
+    forEachBand(width, height, (startRow, endRow) ->
+    {
+      int[] row = new int[width];
+      for (int r = y + startRow; r < y + endRow; r++)
+      {
+        picture.getRGB(x, r, width, 1, row, 0, width);
+        kernel.apply(row, 0, width);
+        picture.setRGB(x, r, width, 1, row, 0, width);
+      }
+    });
+  }
+
+  /**
+   * A fork join action that splits a range of bands in half until it
+   * has just one band to run
+   */
+  private static class BandAction extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final BandTask task;
+    private final int height;
+    private final int rows;
+    private final int firstBand;
+    private final int endBand;
+
+    BandAction(BandTask task, int height, int rows, int firstBand, int endBand)
+    {
+      this.task = task;
+      this.height = height;
+      this.rows = rows;
+      this.firstBand = firstBand;
+      this.endBand = endBand;
+    }
+
+    protected void compute()
+    {
+      if (endBand - firstBand == 1)
+      {
+        int startRow = firstBand * rows;
+        task.run(startRow, Math.min(height, startRow + rows));
+        return;
+      }
+      int middle = (firstBand + endBand) >>> 1;
+      invokeAll(new BandAction(task, height, rows, firstBand, middle),
+                new BandAction(task, height, rows, middle, endBand));
+    }
+  }
+
+}
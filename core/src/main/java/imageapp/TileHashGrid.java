@@ -0,0 +1,332 @@
+package imageapp;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A 64-bit hash of the colors of each square tile of a picture (64 by 64
+ * pixels by default; the tiles on the right and bottom edges may be
+ * smaller).  Alpha is left out, the same as in Picture.isSame and
+ * findDifferences.
+ *
+ * Comparing two grids tells which tiles can't have changed, so a diff
+ * only has to look at the pixels of the tiles whose hashes differ.  A
+ * SimplePicture keeps its grid and marks the tiles under each write
+ * through setBasicPixel or setRGB as stale, so only those tiles are
+ * hashed again; once the array, image or a graphics object is handed
+ * out the picture has no grid (see SimplePicture.getTileHashes).  Two
+ * different tiles get the same hash with a chance of about one in 2^64.
+ *
+ * Writes may mark tiles from several threads while another thread
+ * refreshes the grid.  A writer marks a tile after setting its pixels,
+ * and the refresh clears a mark before hashing the tile, so a write the
+ * refresh doesn't see leaves its tile marked for the next refresh.
+ */
+public final class TileHashGrid
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** the tile size SimplePicture uses */
+  public static final int DEFAULT_TILE_SIZE = 64;
+
+  /** the width of the picture in pixels */
+  private final int width;
+
+  /** the height of the picture in pixels */
+  private final int height;
+
+  /** the width and height of a tile in pixels */
+  private final int tileSize;
+
+  /** the number of tiles across */
+  private final int columns;
+
+  /** the number of tiles down */
+  private final int rows;
+
+  /** the hash of each tile, row after row */
+  private final long[] hashes;
+
+  /** 1 for each tile whose hash has to be made again */
+  private final AtomicIntegerArray stale;
+
+  /**
+   * the picture's modCount when the grid was last refreshed, or -1 (see
+   * SimplePicture.getTileHashes)
+   */
+  private long stamp = -1;
+
+  /////////////////////// Constructors /////////////////////////
+
+  /**
+   * Constructor that makes a grid with every tile stale
+   * @param width the width of the picture
+   * @param height the height of the picture
+   * @param tileSize the width and height of a tile
+   */
+  TileHashGrid(int width, int height, int tileSize)
+  {
+    if (tileSize < 1)
+      throw new IllegalArgumentException("tileSize must be at least 1: " + tileSize);
+    this.width = width;
+    this.height = height;
+    this.tileSize = tileSize;
+    this.columns = (width + tileSize - 1) / tileSize;
+    this.rows = (height + tileSize - 1) / tileSize;
+    this.hashes = new long[columns * rows];
+    this.stale = new AtomicIntegerArray(columns * rows);
+    for (int tile = 0; tile < columns * rows; tile++)
+      stale.set(tile, 1);
+  }
+
+  /**
+   * Constructor that copies another grid (but not its stamp, which is
+   * for the other picture)
+   * @param other the grid to copy
+   */
+  private TileHashGrid(TileHashGrid other)
+  {
+    this.width = other.width;
+    this.height = other.height;
+    this.tileSize = other.tileSize;
+    this.columns = other.columns;
+    this.rows = other.rows;
+    this.hashes = other.hashes.clone();
+    this.stale = new AtomicIntegerArray(other.hashes.length);
+    for (int tile = 0; tile < other.hashes.length; tile++)
+      stale.set(tile, other.stale.get(tile));
+  }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to hash the tiles of any picture.  For a SimplePicture use
+   * getTileHashes instead, which keeps the grid.
+   * @param picture the picture to hash
+   * @param tileSize the width and height of a tile
+   * @return the new grid
+   */
+  public static TileHashGrid of(DigitalPicture picture, int tileSize)
+  {
+    TileHashGrid grid = new TileHashGrid(picture.getWidth(), picture.getHeight(), tileSize);
+    grid.refresh(picture);
+    return grid;
+  }
+
+  /**
+   * Method to make a copy of the grid, for a copy of the picture
+   * @return the new grid
+   */
+  TileHashGrid copy()
+  {
+    return new TileHashGrid(this);
+  }
+
+  /**
+   * Method to mark the tiles under a rectangle of pixels as stale, after
+   * the pixels are written.  The part of the rectangle off the picture
+   * is left out.
+   * @param x the left x of the rectangle
+   * @param y the top y of the rectangle
+   * @param width the width of the rectangle
+   * @param height the height of the rectangle
+   */
+  void markStale(int x, int y, int width, int height)
+  {
+    int endX = Math.min(this.width, x + width);
+    int endY = Math.min(this.height, y + height);
+    x = Math.max(0, x);
+    y = Math.max(0, y);
+    if (endX <= x || endY <= y)
+      return;
+    int firstColumn = x / tileSize;
+    int lastColumn = (endX - 1) / tileSize;
+    int lastRow = (endY - 1) / tileSize;
+    for (int row = y / tileSize; row <= lastRow; row++)
+    {
+      for (int column = firstColumn; column <= lastColumn; column++)
+        stale.set(row * columns + column, 1);
+    }
+  }
+
+  /**
+   * Method to hash the stale tiles again.  Many stale tiles are hashed
+   * in parallel.
+   * @param picture the picture the grid is for
+   */
+  void refresh(DigitalPicture picture)
+  {
+    int count = 0;
+    int[] tiles = new int[hashes.length];
+    for (int tile = 0; tile < hashes.length; tile++)
+    {
+      if (stale.get(tile) != 0)
+        tiles[count++] = tile;
+    }
+    if (count == 0)
+      return;
+
+    int[] data = SimplePicture.readRaster(picture);
+    // each tile is handed out like a row of tileSize * tileSize pixels
+    TileEngine.forEachBand(tileSize * tileSize, count, (first, end) ->
+    {
+      int[] row = data == null ? new int[tileSize] : null;
+      for (int i = first; i < end; i++)
+      {
+        int tile = tiles[i];
+        stale.set(tile, 0);
+        hashes[tile] = hashTile(picture, data, row, tile % columns, tile / columns);
+      }
+    });
+  }
+
+  /**
+   * Method to get the picture's modCount when the grid was last
+   * refreshed
+   * @return the stamp, or -1 if it isn't known
+   */
+  long getStamp() { return stamp; }
+
+  /**
+   * Method to set the picture's modCount the grid was refreshed at
+   * @param stamp the picture's modCount read before the refresh
+   */
+  void setStamp(long stamp) { this.stamp = stamp; }
+
+  /**
+   * Method to hash the colors of one tile
+   * @param picture the picture
+   * @param data the picture's int array or null
+   * @param row an array for one row of the tile when data is null
+   * @param column the tile's column
+   * @param tileRow the tile's row
+   * @return the hash of the tile
+   */
+  private long hashTile(DigitalPicture picture, int[] data, int[] row,
+                        int column, int tileRow)
+  {
+    int x = column * tileSize;
+    int y = tileRow * tileSize;
+    int tileWidth = Math.min(tileSize, width - x);
+    int tileHeight = Math.min(tileSize, height - y);
+    // four independent lanes so the multiplies don't wait on each other
+    long h0 = 0, h1 = 1, h2 = 2, h3 = 3;
+    for (int r = y; r < y + tileHeight; r++)
+    {
+      int[] pixels = data;
+      int start = r * width + x;
+      if (data == null)
+      {
+        pixels = picture.getRGB(x, r, tileWidth, 1, row, 0, tileWidth);
+        start = 0;
+      }
+      int end = start + tileWidth;
+      int i = start;
+      for (; i + 3 < end; i += 4)
+      {
+        h0 = mix(h0, pixels[i]);
+        h1 = mix(h1, pixels[i + 1]);
+        h2 = mix(h2, pixels[i + 2]);
+        h3 = mix(h3, pixels[i + 3]);
+      }
+      for (; i < end; i++)
+        h0 = mix(h0, pixels[i]);
+    }
+    long hash = ((h0 * 31 + h1) * 31 + h2) * 31 + h3;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  /**
+   * Method to add one pixel's color to a lane of a tile hash.  Each step
+   * can be undone for a known pixel, so two tiles that differ in just
+   * one pixel never get the same hash; the rotate keeps it from being a
+   * plain polynomial, which some patterns of many pixels could fool.
+   * @param hash the lane so far
+   * @param pixel the packed pixel (alpha is left out)
+   * @return the new lane
+   */
+  private static long mix(long hash, int pixel)
+  {
+    return Long.rotateLeft((hash ^ (pixel & 0x00ffffff)) * 0x9e3779b97f4a7c15L, 29);
+  }
+
+  /**
+   * Method to get the width of the picture the grid is for
+   * @return the width in pixels
+   */
+  public int getWidth() { return width; }
+
+  /**
+   * Method to get the height of the picture the grid is for
+   * @return the height in pixels
+   */
+  public int getHeight() { return height; }
+
+  /**
+   * Method to get the width and height of a tile
+   * @return the tile size in pixels
+   */
+  public int getTileSize() { return tileSize; }
+
+  /**
+   * Method to get the number of tiles across
+   * @return the number of tile columns
+   */
+  public int getColumns() { return columns; }
+
+  /**
+   * Method to get the number of tiles down
+   * @return the number of tile rows
+   */
+  public int getRows() { return rows; }
+
+  /**
+   * Method to get the hash of one tile
+   * @param column the tile's column
+   * @param row the tile's row
+   * @return the hash of the tile's colors
+   */
+  public long getHash(int column, int row)
+  {
+    return hashes[row * columns + column];
+  }
+
+  /**
+   * Method to check if another grid has the same picture size and tile
+   * size, so its tiles can be compared with this grid's
+   * @param other the other grid
+   * @return true if the tiles line up
+   */
+  public boolean sameLayout(TileHashGrid other)
+  {
+    return width == other.width && height == other.height && tileSize == other.tileSize;
+  }
+
+  /**
+   * Method to check which tiles have different hashes in two grids
+   * @param other a grid with the same layout
+   * @return true for each tile (row after row) that may have changed
+   */
+  public boolean[] differentTiles(TileHashGrid other)
+  {
+    if (!sameLayout(other))
+      throw new IllegalArgumentException("the grids don't have the same layout");
+    boolean[] different = new boolean[hashes.length];
+    for (int tile = 0; tile < hashes.length; tile++)
+      different[tile] = hashes[tile] != other.hashes[tile];
+    return different;
+  }
+
+  /**
+   * Method to return a string with the size of the grid
+   * @return a string with information about the grid
+   */
+  public String toString()
+  {
+    return "TileHashGrid " + columns + "x" + rows + " tiles of " + tileSize
+      + " for " + width + "x" + height;
+  }
+}
@@ -1,3 +1,5 @@
+package imageapp;
+
 /**
  * Vector1by2 class represents a 2D vector with row and column components.
  * This class is used for pixel coordinates in image transformations.
@@ -0,0 +1,159 @@
+package imageapp;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The VECTOR backend of KernelBackend: the simple color filters written
+ * with the jdk.incubator.vector API, so the JIT runs each one over a
+ * whole SIMD register of packed ints at a time.  Each method works on
+ * pixels[from] to pixels[to - 1] and does the few pixels past the last
+ * full register one at a time.  The results are the same as the scalar
+ * loops, bit for bit.
+ *
+ * Only KernelBackend loads this class, and only once it has checked the
+ * module is there.
+ */
+final class VectorKernels
+{
+
+  /////////////////////// Fields /////////////////////////
+
+  /** the widest register the CPU has */
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+  /////////////////////// Constructors /////////////////////////
+
+  /** no VectorKernels objects are made; all the methods are static */
+  private VectorKernels() { }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to get the number of ints in a register
+   * @return the number of lanes
+   */
+  static int lanes() { return SPECIES.length(); }
+
+  /**
+   * Method to keep the bits of each pixel in a mask
+   * @param pixels the pixels to change
+   * @param from the index of the first pixel
+   * @param to the index just past the last pixel
+   * @param mask the bits to keep
+   */
+  static void and(int[] pixels, int from, int to, int mask)
+  {
+    int i = from;
+    for (int end = from + SPECIES.loopBound(to - from); i < end; i += SPECIES.length())
+      IntVector.fromArray(SPECIES, pixels, i).and(mask).intoArray(pixels, i);
+    for (; i < to; i++)
+      pixels[i] &= mask;
+  }
+
+  /**
+   * Method to keep the bits of each pixel in a mask and then set some
+   * bits
+   * @param pixels the pixels to change
+   * @param from the index of the first pixel
+   * @param to the index just past the last pixel
+   * @param mask the bits to keep
+   * @param bits the bits to set
+   */
+  static void andOr(int[] pixels, int from, int to, int mask, int bits)
+  {
+    int i = from;
+    for (int end = from + SPECIES.loopBound(to - from); i < end; i += SPECIES.length())
+      IntVector.fromArray(SPECIES, pixels, i).and(mask).or(bits).intoArray(pixels, i);
+    for (; i < to; i++)
+      pixels[i] = (pixels[i] & mask) | bits;
+  }
+
+  /**
+   * Method to flip bits of each pixel
+   * @param pixels the pixels to change
+   * @param from the index of the first pixel
+   * @param to the index just past the last pixel
+   * @param bits the bits to flip
+   */
+  static void xor(int[] pixels, int from, int to, int bits)
+  {
+    int i = from;
+    for (int end = from + SPECIES.loopBound(to - from); i < end; i += SPECIES.length())
+      IntVector.fromArray(SPECIES, pixels, i).lanewise(VectorOperators.XOR, bits)
+        .intoArray(pixels, i);
+    for (; i < to; i++)
+      pixels[i] ^= bits;
+  }
+
+  /**
+   * Method to move the low bits of each color up to the top and clear the
+   * rest (alpha is kept)
+   * @param pixels the pixels to change
+   * @param from the index of the first pixel
+   * @param to the index just past the last pixel
+   * @param lowMask the low bits of the three colors
+   * @param shift how far to move them up
+   */
+  static void reveal(int[] pixels, int from, int to, int lowMask, int shift)
+  {
+    int i = from;
+    for (int end = from + SPECIES.loopBound(to - from); i < end; i += SPECIES.length())
+    {
+      IntVector v = IntVector.fromArray(SPECIES, pixels, i);
+      v.and(0xff000000).or(v.and(lowMask).lanewise(VectorOperators.LSHL, shift))
+        .intoArray(pixels, i);
+    }
+    for (; i < to; i++)
+      pixels[i] = (pixels[i] & 0xff000000) | ((pixels[i] & lowMask) << shift);
+  }
+
+  /**
+   * Method to make pixels gray with the average of their colors, like
+   * ImageApp.grayscale.  Dividing by 3 is done as multiplying by 43691
+   * and shifting right 17, which gives the same answer for every sum up
+   * to 765.
+   * @param pixels the pixels to change
+   * @param from the index of the first pixel
+   * @param to the index just past the last pixel
+   */
+  static void grayscale(int[] pixels, int from, int to)
+  {
+    int i = from;
+    for (int end = from + SPECIES.loopBound(to - from); i < end; i += SPECIES.length())
+    {
+      IntVector v = IntVector.fromArray(SPECIES, pixels, i);
+      IntVector sum = v.lanewise(VectorOperators.LSHR, 16).and(0xff)
+        .add(v.lanewise(VectorOperators.LSHR, 8).and(0xff))
+        .add(v.and(0xff));
+      IntVector average = sum.mul(43691).lanewise(VectorOperators.LSHR, 17);
+      v.and(0xff000000).or(average.mul(0x010101)).intoArray(pixels, i);
+    }
+    for (; i < to; i++)
+      pixels[i] = ImageApp.grayscale(pixels[i]);
+  }
+
+  /**
+   * Method to swap the colors of pixels from RGB to BRG, like
+   * ImageApp.changeColor
+   * @param pixels the pixels to change
+   * @param from the index of the first pixel
+   * @param to the index just past the last pixel
+   */
+  static void changeColor(int[] pixels, int from, int to)
+  {
+    int i = from;
+    for (int end = from + SPECIES.loopBound(to - from); i < end; i += SPECIES.length())
+    {
+      IntVector v = IntVector.fromArray(SPECIES, pixels, i);
+      // blue moves up to red; red and green move down together
+      v.and(0xff000000)
+        .or(v.and(0xff).lanewise(VectorOperators.LSHL, 16))
+        .or(v.lanewise(VectorOperators.LSHR, 8).and(0xffff))
+        .intoArray(pixels, i);
+    }
+    for (; i < to; i++)
+      pixels[i] = ImageApp.changeColor(pixels[i]);
+  }
+}
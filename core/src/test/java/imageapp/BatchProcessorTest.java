@@ -0,0 +1,79 @@
+package imageapp;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for BatchProcessor: operation parsing, and output names that
+ * keep subdirectories and never let two inputs share a file.
+ */
+public final class BatchProcessorTest
+{
+  /**
+   * Tests that inputs in different directories keep their subpaths
+   */
+  public void testOutputsKeepSubdirectories()
+  {
+    File root = new File("photos").getAbsoluteFile();
+    List<File> inputs = Arrays.asList(new File(root, "a/x.jpg"), new File(root, "b/x.jpg"),
+                                      new File(root, "b/c/y.png"));
+    List<File> outputs = BatchProcessor.outputFiles(inputs, new File("out"), null);
+    assert outputs.get(0).equals(new File("out", "a/x.jpg")) : outputs.get(0);
+    assert outputs.get(1).equals(new File("out", "b/x.jpg")) : outputs.get(1);
+    assert outputs.get(2).equals(new File("out", "b/c/y.png")) : outputs.get(2);
+  }
+
+  /**
+   * Tests that inputs in one directory go straight into the output one,
+   * with the format's extension
+   */
+  public void testOutputsInOneDirectory()
+  {
+    List<File> inputs = Arrays.asList(new File("lib/beach.jpg"), new File("lib/arch.jpg"));
+    List<File> outputs = BatchProcessor.outputFiles(inputs, new File("out"), "png");
+    assert outputs.get(0).equals(new File("out", "beach.png")) : outputs.get(0);
+    assert outputs.get(1).equals(new File("out", "arch.png")) : outputs.get(1);
+  }
+
+  /**
+   * Tests that two inputs that would share an output are refused
+   */
+  public void testCollidingOutputsAreRefused()
+  {
+    List<File> inputs = Arrays.asList(new File("lib/x.jpg"), new File("lib/x.png"));
+    BatchProcessor.outputFiles(inputs, new File("out"), null);
+    try
+    {
+      BatchProcessor.outputFiles(inputs, new File("out"), "png");
+      assert false : "x.jpg and x.png both became x.png";
+    }
+    catch (IllegalArgumentException ex)
+    {
+      assert ex.getMessage().contains("x.png") : ex.getMessage();
+    }
+  }
+
+  /**
+   * Tests that operation chains parse and bad ones are refused
+   */
+  public void testParseOperations() throws Exception
+  {
+    List<BatchProcessor.Operation> operations =
+      BatchProcessor.parseOperations("grayscale, rotate90,blur:1.5,gamma:0.8");
+    assert operations.size() == 4 : operations;
+    assert operations.get(1).toString().equals("rotate90") : operations;
+    for (String bad : new String[] {"", "bogus", "blur:x"})
+    {
+      try
+      {
+        BatchProcessor.parseOperations(bad);
+        assert false : "parsed " + bad;
+      }
+      catch (IllegalArgumentException ex)
+      {
+        // expected
+      }
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package imageapp;
+
+import java.util.ArrayDeque;
+
+/**
+ * Tests for CannyEdgeDetector: the edges match a plain one-thread Canny
+ * with the edges followed over the whole picture at once, also when the
+ * detector runs in small bands on several threads, and a detector used
+ * again for other sizes finds the same edges as a new one.
+ */
+public final class CannyEdgeDetectorTest
+{
+  /**
+   * Method to find the edges the plain way: the same blur and Sobel
+   * planes, then thinning and following on one thread
+   * @param picture the picture
+   * @param low the gradient length a pixel joined to an edge needs
+   * @param high the gradient length that starts an edge
+   * @return the edge pixels
+   */
+  private static PixelMask reference(Picture picture, float low, float high)
+  {
+    int width = picture.getWidth();
+    int height = picture.getHeight();
+    int size = width * height;
+    float[] gray = Convolution.grayPlane(picture, null);
+    float[] smooth = new float[size];
+    float[] gx = new float[size];
+    float[] gy = new float[size];
+    Convolution.convolve(gray, smooth, width, height, ConvolutionKernel.gaussian(1.4),
+                         BorderMode.MIRROR);
+    Convolution.convolve(smooth, gx, width, height, ConvolutionKernel.SOBEL_X, BorderMode.MIRROR);
+    Convolution.convolve(smooth, gy, width, height, ConvolutionKernel.SOBEL_Y, BorderMode.MIRROR);
+
+    float[] magnitude = new float[size];
+    for (int i = 0; i < size; i++)
+      magnitude[i] = (float) Math.sqrt(gx[i] * gx[i] + gy[i] * gy[i]);
+
+    // 0 none, 1 weak, 2 strong
+    int[] state = new int[size];
+    for (int y = 0; y < height; y++)
+    {
+      for (int x = 0; x < width; x++)
+      {
+        int i = y * width + x;
+        float value = magnitude[i];
+        if (value < low)
+          continue;
+        double angle = Math.toDegrees(Math.atan2(Math.abs(gy[i]), Math.abs(gx[i])));
+        int dx = angle <= 22.5 ? 1 : (angle >= 67.5 ? 0 : ((gx[i] > 0) == (gy[i] > 0) ? 1 : -1));
+        int dy = angle <= 22.5 ? 0 : 1;
+        if (value >= at(magnitude, x + dx, y + dy, width, height)
+            && value > at(magnitude, x - dx, y - dy, width, height))
+          state[i] = value >= high ? 2 : 1;
+      }
+    }
+
+    ArrayDeque<Integer> todo = new ArrayDeque<Integer>();
+    for (int i = 0; i < size; i++)
+    {
+      if (state[i] == 2)
+        todo.add(i);
+    }
+    while (!todo.isEmpty())
+    {
+      int i = todo.poll();
+      int x = i % width;
+      int y = i / width;
+      for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+      {
+        for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+        {
+          if (state[ny * width + nx] == 1)
+          {
+            state[ny * width + nx] = 2;
+            todo.add(ny * width + nx);
+          }
+        }
+      }
+    }
+
+    PixelMask mask = new PixelMask(width, height);
+    for (int i = 0; i < size; i++)
+    {
+      if (state[i] == 2)
+        mask.set(i % width, i / width);
+    }
+    return mask;
+  }
+
+  /**
+   * Method to get a value of a plane, or 0 past its edges
+   * @param plane the plane
+   * @param x the x
+   * @param y the y
+   * @param width the width of the plane
+   * @param height the height of the plane
+   * @return the value
+   */
+  private static float at(float[] plane, int x, int y, int width, int height)
+  {
+    if (x < 0 || x >= width || y < 0 || y >= height)
+      return 0;
+    return plane[y * width + x];
+  }
+
+  /**
+   * Method to check two masks set the same pixels
+   * @param expected the mask it should be
+   * @param actual the mask it is
+   * @param what what is being checked, for the message
+   */
+  private static void assertSameMask(PixelMask expected, PixelMask actual, String what)
+  {
+    assert expected.getWidth() == actual.getWidth()
+      && expected.getHeight() == actual.getHeight() : what + ": sizes differ";
+    for (int y = 0; y < expected.getHeight(); y++)
+    {
+      for (int x = 0; x < expected.getWidth(); x++)
+        assert expected.get(x, y) == actual.get(x, y) : what + ": pixel (" + x + ", " + y + ")";
+    }
+  }
+
+  /**
+   * Tests the detector against the plain Canny on shapes and on noise,
+   * serially and in bands of three rows
+   */
+  public void testMatchesReference()
+  {
+    Picture[] pictures = {PictureFixtures.shapes(97, 71), PictureFixtures.random(60, 45, 1)};
+    for (Picture picture : pictures)
+    {
+      PixelMask expected = reference(picture, 20, 50);
+      CannyEdgeDetector detector = new CannyEdgeDetector(1.4, 20, 50);
+      PixelMask[] masks = new PixelMask[2];
+      PictureFixtures.serially(() -> masks[0] = detector.detect(picture));
+      PictureFixtures.inParallel(() -> masks[1] = detector.detect(picture));
+      assert !expected.isEmpty() : "the reference found no edges";
+      assertSameMask(expected, masks[0], picture.getWidth() + "x" + picture.getHeight());
+      assertSameMask(expected, masks[1], picture.getWidth() + "x" + picture.getHeight()
+                     + " in parallel");
+    }
+  }
+
+  /**
+   * Tests that a straight step gives one line one pixel wide and nothing
+   * else
+   */
+  public void testStepIsThinLine()
+  {
+    Picture picture = new Picture(30, 40);
+    for (int y = 0; y < 30; y++)
+    {
+      for (int x = 0; x < 40; x++)
+        picture.setBasicPixel(x, y, x < 20 ? 0xff000000 : 0xffffffff);
+    }
+    PixelMask mask = new CannyEdgeDetector().detect(picture);
+    assert mask.count() == 30 : mask.toString();
+    for (int y = 0; y < 30; y++)
+      assert mask.countRow(y) == 1 && Math.abs(mask.nextSetInRow(y, 0) - 19.5) < 1 : "row " + y;
+  }
+
+  /**
+   * Tests that one detector used for a big picture, then a smaller one,
+   * then another big one finds the same edges as new detectors
+   */
+  public void testReusedDetector()
+  {
+    Picture big = PictureFixtures.shapes(120, 90);
+    Picture small = PictureFixtures.random(33, 21, 2);
+    Picture other = PictureFixtures.shapes(90, 120);
+    CannyEdgeDetector detector = new CannyEdgeDetector(1.4, 20, 50);
+    for (Picture picture : new Picture[] {big, small, other})
+    {
+      assertSameMask(new CannyEdgeDetector(1.4, 20, 50).detect(picture), detector.detect(picture),
+                     "reused for " + picture.getWidth() + "x" + picture.getHeight());
+    }
+  }
+
+  /**
+   * Tests that Picture.cannyEdgeDetection draws the same edges each time
+   * and when the thresholds change
+   */
+  public void testPictureMethod()
+  {
+    Picture source = PictureFixtures.shapes(80, 60);
+    for (double high : new double[] {50, 50, 200})
+    {
+      Picture picture = new Picture(source);
+      picture.cannyEdgeDetection(20, high);
+      Picture expected = new Picture(source);
+      CannyEdgeDetector.render(reference(source, 20, (float) high), expected);
+      PictureFixtures.assertSameColors(expected, picture, "thresholds 20 and " + high);
+    }
+    assert new CannyEdgeDetector(1.4, 20, 50).hasSettings(1.4, 20, 50);
+    assert !new CannyEdgeDetector(1.4, 20, 50).hasSettings(1.4, 20, 60);
+  }
+}
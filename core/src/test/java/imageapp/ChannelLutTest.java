@@ -0,0 +1,183 @@
+package imageapp;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Tests for ChannelLut: each table matches its formula for all 256
+ * values, two tables joined with andThen match running them one after
+ * the other, and apply changes only its rectangle and never alpha, on
+ * pictures with an int array and without one.
+ */
+public final class ChannelLutTest
+{
+  /**
+   * Method to check a table maps every value of every color like a
+   * formula, kept to 0 to 255
+   * @param lut the table
+   * @param formula the new value for each value
+   * @param what what is being checked, for the message
+   */
+  private static void assertTable(ChannelLut lut, IntUnaryOperator formula, String what)
+  {
+    for (int value = 0; value < 256; value++)
+    {
+      int expected = Math.max(0, Math.min(255, formula.applyAsInt(value)));
+      assert lut.getRed(value) == expected && lut.getGreen(value) == expected
+        && lut.getBlue(value) == expected : what + ": " + value + " -> " + lut.getRed(value)
+        + ", not " + expected;
+    }
+  }
+
+  /**
+   * Method to change each pixel of a rectangle of a picture one at a
+   * time with a kernel
+   * @param picture the picture to change
+   * @param kernel the kernel
+   * @param x the left x of the rectangle
+   * @param y the top y of the rectangle
+   * @param width the width of the rectangle
+   * @param height the height of the rectangle
+   */
+  private static void applyByPixel(DigitalPicture picture, PointKernel kernel,
+                                   int x, int y, int width, int height)
+  {
+    for (int row = y; row < y + height; row++)
+    {
+      for (int col = x; col < x + width; col++)
+        picture.setBasicPixel(col, row, kernel.apply(picture.getBasicPixel(col, row)));
+    }
+  }
+
+  /**
+   * Tests the tables the factory methods make against their formulas
+   */
+  public void testFactories()
+  {
+    assertTable(ChannelLut.IDENTITY, v -> v, "identity");
+    assertTable(ChannelLut.NEGATIVE, v -> 255 - v, "negative");
+    assertTable(ChannelLut.brightness(40), v -> v + 40, "brightness 40");
+    assertTable(ChannelLut.brightness(-300), v -> 0, "brightness -300");
+    assertTable(ChannelLut.contrast(1.5), v -> (int) Math.round((v - 127.5) * 1.5 + 127.5),
+                "contrast 1.5");
+    assertTable(ChannelLut.gamma(2.2), v -> (int) Math.round(255 * Math.pow(v / 255.0, 1 / 2.2)),
+                "gamma 2.2");
+    assertTable(ChannelLut.levels(50, 200, 1, 10, 100),
+                v -> v <= 50 ? 10 : (v >= 200 ? 100 : (int) Math.round((v - 50) * 90 / 150.0 + 10)),
+                "levels");
+    assertTable(ChannelLut.clearLow(3), v -> v & ~7, "clearLow 3");
+    assertTable(ChannelLut.reveal(2), v -> (v & 3) << 6, "reveal 2");
+    ChannelLut zeroBlue = ChannelLut.ZERO_BLUE;
+    assert zeroBlue.getRed(77) == 77 && zeroBlue.getGreen(77) == 77 && zeroBlue.getBlue(77) == 0 :
+      zeroBlue.toString();
+
+    for (double gamma : new double[] {0, -1, Double.NaN})
+    {
+      try
+      {
+        ChannelLut.gamma(gamma);
+        assert false : "gamma " + gamma + " was taken";
+      }
+      catch (IllegalArgumentException ex)
+      {
+        // expected
+      }
+    }
+    try
+    {
+      ChannelLut.levels(100, 100, 1, 0, 255);
+      assert false : "levels with inWhite at inBlack was taken";
+    }
+    catch (IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+
+  /**
+   * Tests that the reveal table does what Steganography.reveal does
+   */
+  public void testRevealMatchesSteganography()
+  {
+    PointKernel kernel = Steganography.TWO_BITS.revealKernel();
+    ChannelLut lut = ChannelLut.reveal(2);
+    for (int rgb = 0; rgb < 0x1000000; rgb += 0x010203)
+    {
+      int argb = 0xff000000 | rgb;
+      assert lut.apply(argb) == kernel.apply(argb) : Integer.toHexString(argb);
+    }
+  }
+
+  /**
+   * Tests that a joined table matches running the tables one after the
+   * other, and joining with a kernel that isn't a table still works
+   */
+  public void testAndThen()
+  {
+    ChannelLut first = ChannelLut.of(v -> v * 2, v -> 255 - v, v -> v / 3);
+    ChannelLut second = ChannelLut.contrast(1.3);
+    PointKernel joined = first.andThen((PointKernel) second);
+    assert joined instanceof ChannelLut : "two tables didn't make one table";
+    PointKernel mixed = first.andThen(ImageApp.NEGATIVE_COLOR);
+    for (int rgb = 0; rgb < 0x1000000; rgb += 0x030507)
+    {
+      int argb = 0x80000000 | rgb;
+      assert joined.apply(argb) == second.apply(first.apply(argb)) : Integer.toHexString(argb);
+      assert mixed.apply(argb) == ImageApp.NEGATIVE_COLOR.apply(first.apply(argb)) :
+        Integer.toHexString(argb);
+    }
+  }
+
+  /**
+   * Tests apply on a rectangle of a picture with an int array, serially
+   * and in parallel, against one pixel at a time, with alpha kept
+   */
+  public void testApplyRectangle()
+  {
+    ChannelLut lut = ChannelLut.levels(20, 230, 0.7, 5, 250);
+    Picture source = PictureFixtures.random(150, 110, 1);
+    for (int y = 0; y < source.getHeight(); y++)
+      source.setBasicPixel(y, y, source.getBasicPixel(y, y) & 0x40ffffff);
+    Picture expected = new Picture(source);
+    applyByPixel(expected, lut, 13, 7, 120, 95);
+    Picture serial = new Picture(source);
+    Picture parallel = new Picture(source);
+    PictureFixtures.serially(() -> lut.apply(serial, 13, 7, 120, 95));
+    PictureFixtures.inParallel(() -> lut.apply(parallel, 13, 7, 120, 95));
+    PictureFixtures.assertSameColors(expected, serial, "serially");
+    PictureFixtures.assertSameColors(expected, parallel, "in parallel");
+    for (int y = 0; y < source.getHeight(); y++)
+      assert (parallel.getBasicPixel(y, y) >>> 24) == (source.getBasicPixel(y, y) >>> 24) :
+        "alpha changed at (" + y + ", " + y + ")";
+
+    try
+    {
+      lut.apply(parallel, 100, 100, 60, 20);
+      assert false : "a rectangle past the picture was taken";
+    }
+    catch (ArrayIndexOutOfBoundsException ex)
+    {
+      // expected
+    }
+  }
+
+  /**
+   * Tests apply on a picture with no int array, and the Picture methods
+   * that use tables
+   */
+  public void testOtherPictures()
+  {
+    Picture source = PictureFixtures.shapes(90, 60);
+    OffHeapPicture offHeap = OffHeapPicture.copyOf(source);
+    ChannelLut.gamma(1.8).apply(offHeap);
+    Picture expected = new Picture(source);
+    applyByPixel(expected, ChannelLut.gamma(1.8), 0, 0, 90, 60);
+    PictureFixtures.assertSameColors(expected, offHeap, "off the heap");
+
+    Picture brighter = new Picture(source);
+    brighter.adjustBrightness(-20);
+    brighter.adjustContrast(1.2);
+    Picture byPixel = new Picture(source);
+    applyByPixel(byPixel, ChannelLut.brightness(-20).andThen(ChannelLut.contrast(1.2)), 0, 0, 90, 60);
+    PictureFixtures.assertSameColors(byPixel, brighter, "adjustBrightness and adjustContrast");
+  }
+}
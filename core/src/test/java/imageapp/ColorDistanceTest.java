@@ -0,0 +1,224 @@
+package imageapp;
+
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * Tests for ColorDistance and the methods that compare colors with it:
+ * each metric matches its formula worked out in doubles, a negative
+ * tolerance matches nothing, and edgeDetection, the difference mask and
+ * insertImage match checking one pixel at a time.
+ */
+public final class ColorDistanceTest
+{
+  /**
+   * Method to work out a squared distance in doubles, with no tables
+   * @param metric the metric
+   * @param rgb1 the first color as a packed int
+   * @param rgb2 the second color as a packed int
+   * @return the distance squared
+   */
+  private static double reference(ColorDistance metric, int rgb1, int rgb2)
+  {
+    int red1 = (rgb1 >> 16) & 0xff, green1 = (rgb1 >> 8) & 0xff, blue1 = rgb1 & 0xff;
+    int red2 = (rgb2 >> 16) & 0xff, green2 = (rgb2 >> 8) & 0xff, blue2 = rgb2 & 0xff;
+    double red = red1 - red2, green = green1 - green2, blue = blue1 - blue2;
+    switch (metric)
+    {
+      case EUCLIDEAN:
+        return red * red + green * green + blue * blue;
+      case REDMEAN:
+        int mean = (red1 + red2) / 2;
+        return (2 + mean / 256.0) * red * red + 4 * green * green
+          + (2 + (255 - mean) / 256.0) * blue * blue;
+      default:
+        double[] lab1 = lab(red1, green1, blue1);
+        double[] lab2 = lab(red2, green2, blue2);
+        double l = lab1[0] - lab2[0], a = lab1[1] - lab2[1], b = lab1[2] - lab2[2];
+        return l * l + a * a + b * b;
+    }
+  }
+
+  /**
+   * Method to turn an sRGB color into L*a*b* (D65 white)
+   * @param red the red value
+   * @param green the green value
+   * @param blue the blue value
+   * @return L*, a* and b*
+   */
+  private static double[] lab(int red, int green, int blue)
+  {
+    double r = linear(red), g = linear(green), b = linear(blue);
+    double fx = f((0.4124 * r + 0.3576 * g + 0.1805 * b) / 0.95047);
+    double fy = f(0.2126 * r + 0.7152 * g + 0.0722 * b);
+    double fz = f((0.0193 * r + 0.1192 * g + 0.9505 * b) / 1.08883);
+    return new double[] {116 * fy - 16, 500 * (fx - fy), 200 * (fy - fz)};
+  }
+
+  /**
+   * Method to turn an sRGB value into linear light
+   * @param value the value, 0 to 255
+   * @return the linear light, 0 to 1
+   */
+  private static double linear(int value)
+  {
+    double c = value / 255.0;
+    return c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+  }
+
+  /**
+   * Method to work out the L*a*b* f(t)
+   * @param t the value
+   * @return f(t)
+   */
+  private static double f(double t)
+  {
+    double delta = 6.0 / 29;
+    return t > delta * delta * delta ? Math.cbrt(t) : t / (3 * delta * delta) + 4.0 / 29;
+  }
+
+  /**
+   * Tests each metric against its formula for random pairs of colors
+   * and some pairs at the ends of the range
+   */
+  public void testMatchesFormulas()
+  {
+    Random random = new Random(1);
+    int[][] pairs = new int[2000][];
+    pairs[0] = new int[] {0x000000, 0xffffff};
+    pairs[1] = new int[] {0xff0000, 0x0000ff};
+    pairs[2] = new int[] {0x123456, 0x123456};
+    pairs[3] = new int[] {0x010101, 0x000000};
+    for (int i = 4; i < pairs.length; i++)
+      pairs[i] = new int[] {random.nextInt(), random.nextInt()};
+
+    for (int[] pair : pairs)
+    {
+      String what = Integer.toHexString(pair[0]) + " and " + Integer.toHexString(pair[1]);
+      assert ColorDistance.EUCLIDEAN.squared(pair[0], pair[1])
+        == reference(ColorDistance.EUCLIDEAN, pair[0], pair[1]) : "EUCLIDEAN " + what;
+      // the integer shifts can each drop just under one
+      assert Math.abs(ColorDistance.REDMEAN.squared(pair[0], pair[1])
+                      - reference(ColorDistance.REDMEAN, pair[0], pair[1])) < 2 : "REDMEAN " + what;
+      double lab = Math.sqrt(reference(ColorDistance.LAB, pair[0], pair[1]));
+      assert Math.abs(ColorDistance.LAB.distance(pair[0], pair[1]) - lab) < 0.05 : "LAB " + what;
+      for (ColorDistance metric : ColorDistance.values())
+      {
+        assert metric.squared(pair[0], pair[1]) == metric.squared(pair[1], pair[0]) :
+          metric + " isn't symmetric for " + what;
+        assert metric.squared(pair[0], pair[0] ^ 0xff000000) == 0 : metric + " looks at alpha";
+      }
+    }
+    assert Math.abs(ColorDistance.LAB.distance(0x000000, 0xffffff) - 100) < 0.05 :
+      "black to white isn't 100 in L*a*b*";
+  }
+
+  /**
+   * Tests within at the tolerance, just under it, and with a negative
+   * tolerance
+   */
+  public void testWithin()
+  {
+    float five = ColorDistance.squaredTolerance(5);
+    assert ColorDistance.EUCLIDEAN.within(0x000000, 0x030400, five) : "3-4-5 isn't within 5";
+    assert !ColorDistance.EUCLIDEAN.within(0x000000, 0x030401, five) : "past 5 is within 5";
+    assert ColorDistance.EUCLIDEAN.within(0x808080, 0x808080, 0) : "a color isn't within 0 of itself";
+    float none = ColorDistance.squaredTolerance(-1);
+    for (ColorDistance metric : ColorDistance.values())
+      assert !metric.within(0x808080, 0x808080, none) : metric + " matched a negative tolerance";
+  }
+
+  /**
+   * Tests that edgeDetection(int) matches the square root it used to
+   * take for each pixel, and the other metrics match one pixel at a time
+   */
+  public void testEdgeDetection()
+  {
+    Picture source = PictureFixtures.random(70, 40, 2);
+    for (ColorDistance metric : ColorDistance.values())
+    {
+      double edgeDist = metric == ColorDistance.LAB ? 40 : 150;
+      Picture expected = new Picture(source);
+      for (int y = 0; y < source.getHeight(); y++)
+      {
+        for (int x = 0; x < source.getWidth() - 1; x++)
+        {
+          int left = source.getBasicPixel(x, y);
+          boolean edge = Math.sqrt(reference(metric, left, source.getBasicPixel(x + 1, y))) > edgeDist;
+          expected.setBasicPixel(x, y, edge ? 0xff000000 : 0xffffffff);
+        }
+      }
+      Picture actual = new Picture(source);
+      if (metric == ColorDistance.EUCLIDEAN)
+        PictureFixtures.inParallel(() -> actual.edgeDetection((int) edgeDist));
+      else
+        PictureFixtures.inParallel(() -> actual.edgeDetection(edgeDist, metric));
+      // LAB and REDMEAN may land on the other side of the line for a pair
+      // right at it, so those only need to match nearly everywhere
+      PixelMask wrong = PixelMask.difference(expected, actual);
+      assert metric == ColorDistance.EUCLIDEAN ? wrong.isEmpty() : wrong.count() <= 3 :
+        metric + ": " + wrong;
+    }
+  }
+
+  /**
+   * Tests the difference mask with a tolerance against one pixel at a
+   * time, and that a negative tolerance is refused
+   */
+  public void testDifferenceMask()
+  {
+    Picture pic1 = PictureFixtures.random(150, 90, 3);
+    Picture pic2 = new Picture(pic1);
+    Random random = new Random(4);
+    for (int i = 0; i < 2000; i++)
+    {
+      int x = random.nextInt(150);
+      int y = random.nextInt(90);
+      pic2.setBasicPixel(x, y, pic2.getBasicPixel(x, y) ^ random.nextInt(0x40) * 0x010101);
+    }
+    PixelMask mask = Picture.findDifferenceMask(pic1, pic2, ColorDistance.EUCLIDEAN, 40);
+    for (int y = 0; y < 90; y++)
+    {
+      for (int x = 0; x < 150; x++)
+      {
+        boolean far = reference(ColorDistance.EUCLIDEAN, pic1.getBasicPixel(x, y),
+                                pic2.getBasicPixel(x, y)) > 40 * 40;
+        assert mask.get(x, y) == far : "pixel (" + x + ", " + y + ")";
+      }
+    }
+    assert !mask.isEmpty() && mask.count() < PixelMask.difference(pic1, pic2).count() :
+      "the tolerance didn't drop the small changes";
+    try
+    {
+      PixelMask.difference(pic1, pic2, ColorDistance.LAB, -1);
+      assert false : "a negative tolerance was taken";
+    }
+    catch (IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+
+  /**
+   * Tests that insertImage skips only the pixels near the background
+   */
+  public void testInsertSkipsBackground()
+  {
+    Picture large = PictureFixtures.random(60, 50, 5);
+    Picture small = PictureFixtures.random(20, 15, 6);
+    for (int x = 0; x < 20; x++)
+      small.setBasicPixel(x, 7, 0xff0000f0 + x / 2);
+    Picture expected = new Picture(large);
+    for (int y = 0; y < 15; y++)
+    {
+      for (int x = 0; x < 20; x++)
+      {
+        int pixel = small.getBasicPixel(x, y);
+        if (reference(ColorDistance.EUCLIDEAN, pixel, 0x0000ff) > 10 * 10)
+          expected.setBasicPixel(x + 35, y + 30, pixel);
+      }
+    }
+    ImageApp.insertImage(large, small, 30, 35, Color.BLUE, ColorDistance.EUCLIDEAN, 10);
+    PictureFixtures.assertSameColors(expected, large, "inserted");
+  }
+}
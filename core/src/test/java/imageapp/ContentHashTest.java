@@ -0,0 +1,107 @@
+package imageapp;
+
+import java.awt.Color;
+
+/**
+ * Tests for SimplePicture.getContentHash and Picture.isSame: the hash
+ * follows the colors, every kind of write makes it be made again, and
+ * writes from the bands of a filter are seen.
+ */
+public final class ContentHashTest
+{
+  /**
+   * Tests that pictures with the same colors have the same hash, alpha
+   * left out, and that the hash is kept until a write
+   */
+  public void testSameColorsSameHash()
+  {
+    Picture picture = PictureFixtures.random(70, 45, 1);
+    Picture copy = new Picture(picture);
+    assert !picture.hasContentHash() : "a new picture has a hash";
+    assert picture.getContentHash() == copy.getContentHash() : "copies hash differently";
+    assert picture.hasContentHash() : "the hash wasn't kept";
+
+    copy.setBasicPixel(10, 10, copy.getBasicPixel(10, 10) & 0x00ffffff);
+    assert picture.getContentHash() == copy.getContentHash() : "alpha changed the hash";
+  }
+
+  /**
+   * Tests that each way of writing pixels makes a new hash
+   */
+  public void testWritesChangeHash()
+  {
+    Picture picture = PictureFixtures.random(40, 30, 2);
+    long hash = picture.getContentHash();
+
+    picture.setBasicPixel(3, 4, picture.getBasicPixel(3, 4) ^ 0x010101);
+    assert !picture.hasContentHash() : "setBasicPixel kept the hash";
+    assert picture.getContentHash() != hash : "setBasicPixel didn't change the hash";
+
+    hash = picture.getContentHash();
+    picture.setRGB(5, 6, 2, 1, new int[] {0xff000000, 0xffffffff}, 0, 2);
+    assert picture.getContentHash() != hash : "setRGB didn't change the hash";
+
+    hash = picture.getContentHash();
+    picture.getPixel(20, 20).setColor(Color.MAGENTA);
+    assert picture.getContentHash() != hash : "Pixel.setColor didn't change the hash";
+
+    hash = picture.getContentHash();
+    picture.getRasterData()[0] ^= 0x00ff00;
+    assert picture.getContentHash() != hash : "a write through the array was missed";
+  }
+
+  /**
+   * Tests that a write through an array kept from earlier is seen after
+   * invalidateContentHash
+   */
+  public void testKeptArrayNeedsInvalidate()
+  {
+    Picture picture = PictureFixtures.random(16, 16, 3);
+    int[] data = picture.getRasterData();
+    long hash = picture.getContentHash();
+    data[17] ^= 0x0000ff;
+    picture.invalidateContentHash();
+    assert picture.getContentHash() != hash : "invalidateContentHash didn't drop the hash";
+    assert picture.getContentHash() == new Picture(picture).getContentHash() :
+      "the new hash doesn't match the pixels";
+  }
+
+  /**
+   * Tests that the hash after a filter run in bands on several threads
+   * matches the hash of the same colors made on one thread
+   */
+  public void testHashAfterParallelWrites()
+  {
+    Picture picture = PictureFixtures.random(90, 200, 4);
+    Picture expected = new Picture(picture);
+    picture.getContentHash();
+    PictureFixtures.inParallel(() -> TileEngine.apply(picture, ImageApp.NEGATIVE_COLOR));
+    PictureFixtures.serially(() -> TileEngine.apply(expected, ImageApp.NEGATIVE_COLOR));
+    long[] hashes = new long[1];
+    PictureFixtures.inParallel(() -> hashes[0] = picture.getContentHash());
+    assert hashes[0] == expected.getContentHash() : "the hash missed some band's writes";
+  }
+
+  /**
+   * Tests isSame with and without hashes made on either side
+   */
+  public void testIsSame()
+  {
+    Picture picture = PictureFixtures.random(50, 50, 5);
+    Picture same = new Picture(picture);
+    Picture other = new Picture(picture);
+    other.setBasicPixel(49, 49, other.getBasicPixel(49, 49) ^ 0x000100);
+
+    assert Picture.isSame(picture, same) : "copies aren't the same";
+    assert !Picture.isSame(picture, other) : "a one pixel change was missed";
+    assert !picture.hasContentHash() && !other.hasContentHash() :
+      "isSame made hashes it didn't need";
+
+    picture.getContentHash();
+    other.getContentHash();
+    same.getContentHash();
+    assert Picture.isSame(picture, same) : "copies with hashes aren't the same";
+    assert !Picture.isSame(picture, other) : "different hashes were the same";
+    assert !Picture.isSame(picture, PictureFixtures.random(50, 49, 5)) : "sizes differ";
+  }
+}
@@ -0,0 +1,177 @@
+package imageapp;
+
+/**
+ * Tests for Convolution and the convolution methods of Picture: every
+ * border mode and both kinds of kernel match adding up the weighted
+ * pixels one at a time, serially and in bands on several threads, and
+ * the in place methods match the ones that make a new picture.
+ */
+public final class ConvolutionTest
+{
+  /** a kernel that isn't separable and isn't square */
+  private static final ConvolutionKernel UNEVEN =
+    ConvolutionKernel.of(5, 3, 0.1f, 0f, -0.2f, 0.05f, 0.3f,
+                               0.2f, 0.4f, 0.1f, 0f, -0.1f,
+                               0f, 0.1f, 0.2f, 0.1f, -0.05f);
+
+  /**
+   * Method to convolve a picture one pixel at a time
+   * @param source the picture
+   * @param kernel the kernel
+   * @param border what to use past the edges
+   * @return the new pixels, row after row
+   */
+  private static int[] reference(Picture source, ConvolutionKernel kernel, BorderMode border)
+  {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    int radiusX = kernel.getWidth() / 2;
+    int radiusY = kernel.getHeight() / 2;
+    int[] result = new int[width * height];
+    for (int y = 0; y < height; y++)
+    {
+      for (int x = 0; x < width; x++)
+      {
+        double red = 0, green = 0, blue = 0;
+        for (int ky = 0; ky < kernel.getHeight(); ky++)
+        {
+          int sy = border.map(y + ky - radiusY, height);
+          for (int kx = 0; kx < kernel.getWidth(); kx++)
+          {
+            int sx = border.map(x + kx - radiusX, width);
+            if (sx < 0 || sy < 0)
+              continue;
+            int pixel = source.getBasicPixel(sx, sy);
+            double weight = kernel.getWeight(kx, ky);
+            red += weight * ((pixel >> 16) & 0xff);
+            green += weight * ((pixel >> 8) & 0xff);
+            blue += weight * (pixel & 0xff);
+          }
+        }
+        result[y * width + x] = (clamp(red) << 16) | (clamp(green) << 8) | clamp(blue);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Method to round a sum to a color value
+   * @param value the sum
+   * @return the value kept to 0 to 255
+   */
+  private static int clamp(double value)
+  {
+    return (int) Math.max(0, Math.min(255, Math.round(value)));
+  }
+
+  /**
+   * Method to check a picture against reference pixels, allowing one
+   * step of rounding difference (the sums are floats, not doubles)
+   * @param expected the reference pixels
+   * @param actual the picture
+   * @param what what is being checked, for the message
+   */
+  private static void assertClose(int[] expected, Picture actual, String what)
+  {
+    int width = actual.getWidth();
+    for (int i = 0; i < expected.length; i++)
+    {
+      int pixel = actual.getBasicPixel(i % width, i / width);
+      for (int shift = 0; shift <= 16; shift += 8)
+      {
+        int difference = ((pixel >> shift) & 0xff) - ((expected[i] >> shift) & 0xff);
+        assert Math.abs(difference) <= 1 : what + ": pixel (" + i % width + ", " + i / width
+          + ") is " + Integer.toHexString(pixel) + ", not " + Integer.toHexString(expected[i]);
+      }
+    }
+  }
+
+  /**
+   * Tests each border mode with a separable kernel, a kernel that isn't
+   * separable, and a kernel wider than the picture
+   */
+  public void testBorderModes()
+  {
+    ConvolutionKernel[] kernels = {ConvolutionKernel.gaussian(1.2), ConvolutionKernel.SHARPEN,
+                                   UNEVEN, ConvolutionKernel.box(9)};
+    int[][] sizes = {{37, 23}, {3, 40}, {1, 1}};
+    for (BorderMode border : BorderMode.values())
+    {
+      for (ConvolutionKernel kernel : kernels)
+      {
+        for (int[] size : sizes)
+        {
+          Picture source = PictureFixtures.random(size[0], size[1], size[0] + size[1]);
+          int[] expected = reference(source, kernel, border);
+          Picture serial = new Picture(source);
+          Picture parallel = new Picture(source);
+          PictureFixtures.serially(() -> serial.convolve(kernel, border));
+          PictureFixtures.inParallel(() -> parallel.convolve(kernel, border));
+          String what = border + " " + kernel + " " + size[0] + "x" + size[1];
+          assertClose(expected, serial, what);
+          assertClose(expected, parallel, what + " in parallel");
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that the convolution in place matches the one that makes a
+   * new picture, and the source of that one doesn't change
+   */
+  public void testInPlaceMatchesNewPicture()
+  {
+    Picture source = PictureFixtures.shapes(90, 70);
+    Picture before = new Picture(source);
+    Picture made = Convolution.convolve(source, UNEVEN, BorderMode.MIRROR);
+    PictureFixtures.assertSameColors(before, source, "the source");
+    source.convolve(UNEVEN, BorderMode.MIRROR);
+    PictureFixtures.assertSameColors(made, source, "in place");
+  }
+
+  /**
+   * Tests that the edge strength in place matches the new picture, for
+   * each edge operator
+   */
+  public void testEdgeMagnitudeInPlace()
+  {
+    for (EdgeOperator operator : EdgeOperator.values())
+    {
+      Picture source = PictureFixtures.shapes(80, 64);
+      Picture made = Convolution.gradientMagnitude(source, operator, BorderMode.CLAMP);
+      PictureFixtures.inParallel(() -> source.edgeMagnitude(operator));
+      PictureFixtures.assertSameColors(made, source, "edges " + operator);
+      assert (made.getBasicPixel(40, 32) & 0xff) == 0 : "an edge in the flat middle";
+      assert (made.getBasicPixel(20, 32) & 0xff) > 100 : "no edge at the side of the square";
+    }
+  }
+
+  /**
+   * Tests the float plane convolution and that it refuses to write over
+   * its source
+   */
+  public void testPlane()
+  {
+    float[] source = new float[6 * 4];
+    source[2 * 6 + 3] = 1f;
+    float[] target = new float[source.length];
+    Convolution.convolve(source, target, 6, 4, ConvolutionKernel.box(3), BorderMode.ZERO);
+    for (int y = 0; y < 4; y++)
+    {
+      for (int x = 0; x < 6; x++)
+      {
+        boolean near = Math.abs(x - 3) <= 1 && Math.abs(y - 2) <= 1;
+        assert Math.abs(target[y * 6 + x] - (near ? 1f / 9 : 0f)) < 1e-6 : "(" + x + ", " + y + ")";
+      }
+    }
+    try
+    {
+      Convolution.convolve(source, source, 6, 4, ConvolutionKernel.box(3), BorderMode.ZERO);
+      assert false : "the source was used as the target";
+    }
+    catch (IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package imageapp;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Tests for ImageCache and the pictures loaded through it: hits and
+ * misses, loads that don't keep their image, and that a change to one
+ * picture never reaches the cached image or the other pictures.
+ */
+public final class ImageCacheTest
+{
+  /**
+   * Method to write a small png to a new temporary file
+   * @param seed the seed for the colors
+   * @return the file
+   * @throws IOException if it can't be written
+   */
+  private static File writeImage(long seed) throws IOException
+  {
+    File file = File.createTempFile("cache", ".png");
+    file.deleteOnExit();
+    PictureFixtures.random(20, 10, seed).writeOrFail(file.getPath());
+    return file;
+  }
+
+  /**
+   * Tests that the second get of a file is a hit with the same image
+   * @throws IOException if the test image can't be written or read
+   */
+  public void testSecondGetIsHit() throws IOException
+  {
+    File file = writeImage(1);
+    ImageCache cache = new ImageCache(1 << 20);
+    BufferedImage first = cache.get(file);
+    BufferedImage second = cache.get(file);
+    assert first == second : "the cached image wasn't used";
+    assert cache.getMisses() == 1 && cache.getHits() == 1 : cache.toString();
+    assert cache.getSize() == 1 && cache.getBytes() == 4L * 20 * 10 : cache.toString();
+  }
+
+  /**
+   * Tests that a get that doesn't keep its image leaves the cache empty
+   * but still finds an image that is already there
+   * @throws IOException if the test image can't be written or read
+   */
+  public void testGetWithoutKeep() throws IOException
+  {
+    File file = writeImage(2);
+    ImageCache cache = new ImageCache(1 << 20);
+    cache.get(file, false);
+    assert cache.getSize() == 0 && cache.getBytes() == 0 : cache.toString();
+    BufferedImage kept = cache.get(file);
+    BufferedImage found = cache.get(file, false);
+    assert found == kept : "the cached image wasn't used";
+    assert cache.getSize() == 1 && cache.getHits() == 1 : cache.toString();
+  }
+
+  /**
+   * Tests that the least recently used image is dropped when the cache
+   * is full
+   * @throws IOException if the test images can't be written or read
+   */
+  public void testEvictsLeastRecentlyUsed() throws IOException
+  {
+    File a = writeImage(3);
+    File b = writeImage(4);
+    File c = writeImage(5);
+    ImageCache cache = new ImageCache(2 * 4L * 20 * 10);
+    cache.get(a);
+    cache.get(b);
+    cache.get(a);
+    cache.get(c);
+    assert cache.getEvictions() == 1 && cache.getSize() == 2 : cache.toString();
+    long misses = cache.getMisses();
+    cache.get(a);
+    assert cache.getMisses() == misses : "a was dropped instead of b";
+  }
+
+  /**
+   * Tests that pictures loaded from the same file share the image until
+   * one of them changes, and the change stays in that picture
+   * @throws IOException if the test image can't be written or read
+   */
+  public void testCopyOnWrite() throws IOException
+  {
+    File file = writeImage(6);
+    Picture first = new Picture();
+    Picture second = new Picture();
+    first.loadOrFail(file.getPath());
+    second.loadOrFail(file.getPath());
+    BufferedImage shared = ImageCache.shared().get(file);
+    assert first.peekBufferedImage() == shared && second.peekBufferedImage() == shared :
+      "the pictures don't share the cached image";
+
+    Picture before = new Picture(second);
+    first.setBasicPixel(3, 4, 0xff123456);
+    assert first.peekBufferedImage() != shared : "the write didn't copy the image";
+    assert second.peekBufferedImage() == shared : "the other picture lost the shared image";
+    assert (shared.getRGB(3, 4) & 0xffffff) != 0x123456 : "the cached image changed";
+    PictureFixtures.assertSameColors(before, second, "other picture");
+    assert (first.getBasicPixel(3, 4) & 0xffffff) == 0x123456 : "the write was lost";
+
+    // handing out the image for writing copies it too
+    BufferedImage written = second.getBufferedImage();
+    assert written != shared : "getBufferedImage gave out the cached image";
+  }
+
+  /**
+   * Tests that a load that doesn't keep its image reads the same pixels
+   * without adding to the shared cache
+   * @throws IOException if the test image can't be written or read
+   */
+  public void testLoadWithoutKeep() throws IOException
+  {
+    File file = writeImage(7);
+    int size = ImageCache.shared().getSize();
+    Picture once = new Picture();
+    once.loadOrFail(file.getPath(), false);
+    assert ImageCache.shared().getSize() == size : "the image was kept";
+    Picture kept = new Picture();
+    kept.loadOrFail(file.getPath());
+    PictureFixtures.assertSameColors(kept, once, "uncached load");
+  }
+}
@@ -0,0 +1,59 @@
+package imageapp;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Tests for ImagePipeline: jobs run through all three stages, a failed
+ * job gives its permit back, and a closed pipeline takes no more jobs.
+ */
+public final class ImagePipelineTest
+{
+  /**
+   * Tests that the steps run in order and a failure doesn't keep the
+   * only permit
+   */
+  public void testFailedJobReleasesPermit()
+  {
+    try (ImagePipeline pipeline = new ImagePipeline(1, 1, 1, 1))
+    {
+      CompletableFuture<Integer> failed = pipeline.run(() -> {
+        throw new IOException("no such file");
+      }, n -> n + 1, n -> n * 2);
+      try
+      {
+        failed.join();
+        assert false : "the failed job completed";
+      }
+      catch (CompletionException ex)
+      {
+        assert ex.getCause() instanceof IOException : ex.getCause();
+      }
+      // with one permit this blocks forever if the failed job kept it
+      int value = pipeline.run(() -> 3, n -> n + 1, n -> n * 2).join();
+      assert value == 8 : value;
+    }
+  }
+
+  /**
+   * Tests that a closed pipeline refuses jobs and keeps no permit
+   */
+  public void testClosedPipelineRefusesJobs()
+  {
+    ImagePipeline pipeline = new ImagePipeline(1, 1, 1, 2);
+    pipeline.close();
+    for (int i = 0; i < 3; i++)
+    {
+      try
+      {
+        pipeline.run(() -> 1, null, null);
+        assert false : "a closed pipeline took a job";
+      }
+      catch (IllegalStateException ex)
+      {
+        // expected
+      }
+    }
+  }
+}
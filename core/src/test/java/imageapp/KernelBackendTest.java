@@ -0,0 +1,217 @@
+package imageapp;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for KernelBackend: every kernel the VECTOR backend runs gives
+ * the same ints as the SCALAR loops, for runs that aren't a multiple of
+ * the register width and start anywhere in the array, with any top byte,
+ * and on pictures with and without alpha.  The tests run with
+ * --add-modules jdk.incubator.vector (see the surefire argLine).
+ */
+public final class KernelBackendTest
+{
+  /**
+   * Method to make the kernels the backends run
+   * @return the kernels
+   */
+  private static PointKernel[] kernels()
+  {
+    List<PointKernel> kernels = new ArrayList<PointKernel>(Arrays.asList(
+      ImageApp.GRAYSCALE, ImageApp.NEGATIVE_COLOR, ImageApp.CHANGE_COLOR,
+      Picture.ZERO_BLUE, Picture.CLEAR_LOW, Picture.REVEAL));
+    Color color = new Color(0xa5, 0x3c, 0x7e);
+    for (int bits = 1; bits <= 4; bits++)
+    {
+      Steganography engine = Steganography.forBits(bits);
+      kernels.add(engine.clearLowKernel());
+      kernels.add(engine.setLowKernel(color));
+      kernels.add(engine.revealKernel());
+    }
+    return kernels.toArray(new PointKernel[0]);
+  }
+
+  /**
+   * Method to make pixels to run the kernels on: every sum of red, green
+   * and blue from 0 to 765 (for the divide by 3 in grayscale), then
+   * random ints
+   * @param topByte the alpha of each pixel, or -1 for random ones
+   * @param seed the seed for the random pixels
+   * @return the pixels
+   */
+  private static int[] pixels(int topByte, long seed)
+  {
+    Random random = new Random(seed);
+    int[] pixels = new int[766 + 300];
+    for (int i = 0; i < pixels.length; i++)
+    {
+      int rgb;
+      if (i <= 765)
+      {
+        // red, green and blue that add up to i
+        int red = Math.min(255, i);
+        int green = Math.min(255, i - red);
+        rgb = (red << 16) | (green << 8) | (i - red - green);
+      }
+      else
+        rgb = random.nextInt() & 0x00ffffff;
+      int alpha = topByte < 0 ? random.nextInt(256) : topByte;
+      pixels[i] = (alpha << 24) | rgb;
+    }
+    return pixels;
+  }
+
+  /**
+   * Method to run a kernel over part of an array with a backend
+   * @param backend the backend to use
+   * @param kernel the kernel to run
+   * @param pixels the pixels (not changed)
+   * @param from the index of the first pixel to change
+   * @param to the index just past the last pixel to change
+   * @return the changed copy of the pixels
+   */
+  private static int[] run(KernelBackend backend, PointKernel kernel, int[] pixels,
+                           int from, int to)
+  {
+    int[] copy = pixels.clone();
+    KernelBackend.setActive(backend);
+    kernel.apply(copy, from, to);
+    return copy;
+  }
+
+  /**
+   * Method to check the backends agree on runs of every length up to a
+   * few registers, starting at every offset up to a register and more
+   * @param pixels the pixels to run the kernels on
+   * @param what what the pixels are, for the messages
+   */
+  private static void assertBackendsAgree(int[] pixels, String what)
+  {
+    int lanes = VectorKernels.lanes();
+    PointKernel[] kernels = kernels();
+    for (int k = 0; k < kernels.length; k++)
+    {
+      PointKernel kernel = kernels[k];
+      for (int from = 0; from <= lanes + 1; from++)
+      {
+        for (int length = 0; length <= 3 * lanes + 1; length++)
+        {
+          int to = from + length;
+          int[] scalar = run(KernelBackend.SCALAR, kernel, pixels, from, to);
+          int[] vector = run(KernelBackend.VECTOR, kernel, pixels, from, to);
+          assert Arrays.equals(scalar, vector) : what + ": kernel " + k + " from " + from
+            + " to " + to + " (" + lanes + " lanes)";
+        }
+      }
+      // a long run, with the kernel a pixel at a time as well
+      int[] vector = run(KernelBackend.VECTOR, kernel, pixels, 3, pixels.length - 2);
+      for (int i = 0; i < pixels.length; i++)
+      {
+        int expected = (i < 3 || i >= pixels.length - 2) ? pixels[i] : kernel.apply(pixels[i]);
+        assert vector[i] == expected : what + ": kernel " + k + " at " + i + " gave "
+          + Integer.toHexString(vector[i]) + ", not " + Integer.toHexString(expected);
+      }
+    }
+  }
+
+  /**
+   * Method to make a picture of random colors of a type of image
+   * @param type the image type, like BufferedImage.TYPE_INT_ARGB
+   * @param seed the seed for the colors
+   * @return the new picture
+   */
+  private static Picture picture(int type, long seed)
+  {
+    BufferedImage image = new BufferedImage(37, 23, type);
+    Random random = new Random(seed);
+    for (int y = 0; y < image.getHeight(); y++)
+    {
+      for (int x = 0; x < image.getWidth(); x++)
+        image.setRGB(x, y, random.nextInt());
+    }
+    return new Picture(image);
+  }
+
+  /**
+   * Tests every kernel on both backends over runs of all lengths and
+   * offsets, with the top byte clear (an RGB raster), set (an opaque
+   * ARGB one) and random
+   */
+  public void testBackendsAgree()
+  {
+    assert KernelBackend.VECTOR.isAvailable() :
+      "VECTOR kernels can't run; the tests need --add-modules jdk.incubator.vector";
+    KernelBackend before = KernelBackend.getActive();
+    try
+    {
+      assertBackendsAgree(pixels(0x00, 1), "top byte 00");
+      assertBackendsAgree(pixels(0xff, 2), "top byte ff");
+      assertBackendsAgree(pixels(-1, 3), "random top byte");
+    }
+    finally
+    {
+      KernelBackend.setActive(before);
+    }
+  }
+
+  /**
+   * Tests the kernels on pictures with and without alpha, with a width
+   * that isn't a multiple of the register width, through TileEngine
+   * serially and in parallel, comparing the int arrays themselves
+   */
+  public void testPicturesAgree()
+  {
+    KernelBackend before = KernelBackend.getActive();
+    try
+    {
+      PointKernel[] kernels = kernels();
+      for (int type : new int[] {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB})
+      {
+        Picture source = picture(type, type);
+        for (int k = 0; k < kernels.length; k++)
+        {
+          PointKernel kernel = kernels[k];
+          Picture scalar = new Picture(source);
+          Picture vector = new Picture(source);
+          KernelBackend.setActive(KernelBackend.SCALAR);
+          PictureFixtures.serially(() -> TileEngine.apply(scalar, kernel));
+          KernelBackend.setActive(KernelBackend.VECTOR);
+          PictureFixtures.inParallel(() -> TileEngine.apply(vector, kernel));
+          // the arrays hold the top byte as it is in the raster
+          assert Arrays.equals(scalar.getRasterData(), vector.getRasterData()) :
+            "type " + type + ", kernel " + k;
+        }
+      }
+    }
+    finally
+    {
+      KernelBackend.setActive(before);
+    }
+  }
+
+  /**
+   * Tests that the backend in use can be changed and SCALAR is always
+   * there
+   */
+  public void testSetActive()
+  {
+    KernelBackend before = KernelBackend.getActive();
+    try
+    {
+      assert KernelBackend.SCALAR.isAvailable() : "SCALAR isn't available";
+      KernelBackend.setActive(KernelBackend.SCALAR);
+      assert KernelBackend.getActive() == KernelBackend.SCALAR && !KernelBackend.vector();
+      KernelBackend.setActive(KernelBackend.VECTOR);
+      assert KernelBackend.getActive() == KernelBackend.VECTOR && KernelBackend.vector();
+    }
+    finally
+    {
+      KernelBackend.setActive(before);
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package imageapp;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Tests for LazyPicture: random chains of point filters, turns, flips
+ * and unfused steps give the same picture as doing each step on its own
+ * with the Picture and RasterTransform methods, the picture the chain
+ * starts from never changes, and point filters around turns are fused
+ * into one pass.
+ */
+public final class LazyPictureTest
+{
+  /** the steps a chain is made of, added to a LazyPicture */
+  private static final Consumer<LazyPicture>[] LAZY = steps();
+
+  /** the same steps done right away, returning the result */
+  private static final UnaryOperator<Picture>[] EAGER = eagerSteps();
+
+  /** the names of the steps, for the messages */
+  private static final String[] NAMES = {
+    "grayscale", "negative", "recolor", "zeroBlue", "clearLow", "setLow", "reveal",
+    "brightness", "contrast", "clockwise", "counterclockwise", "180", "flipHorizontal",
+    "flipVertical", "transpose", "blur"};
+
+  /**
+   * Method to make the lazy steps
+   * @return the steps, in the order of NAMES
+   */
+  @SuppressWarnings("unchecked")
+  private static Consumer<LazyPicture>[] steps()
+  {
+    return new Consumer[] {
+      (Consumer<LazyPicture>) l -> l.grayscale(),
+      (Consumer<LazyPicture>) l -> l.negative(),
+      (Consumer<LazyPicture>) l -> l.recolor(),
+      (Consumer<LazyPicture>) l -> l.zeroBlue(),
+      (Consumer<LazyPicture>) l -> l.clearLow(),
+      (Consumer<LazyPicture>) l -> l.setLow(Color.ORANGE),
+      (Consumer<LazyPicture>) l -> l.reveal(),
+      (Consumer<LazyPicture>) l -> l.point(ChannelLut.brightness(30)),
+      (Consumer<LazyPicture>) l -> l.point(ChannelLut.contrast(1.4)),
+      (Consumer<LazyPicture>) l -> l.rotateClockwise(),
+      (Consumer<LazyPicture>) l -> l.rotateCounterclockwise(),
+      (Consumer<LazyPicture>) l -> l.rotate180(),
+      (Consumer<LazyPicture>) l -> l.flipHorizontal(),
+      (Consumer<LazyPicture>) l -> l.flipVertical(),
+      (Consumer<LazyPicture>) l -> l.transpose(),
+      (Consumer<LazyPicture>) l -> l.apply(p -> { p.blur(0.8); return p; })};
+  }
+
+  /**
+   * Method to make the eager steps
+   * @return the steps, in the order of NAMES
+   */
+  @SuppressWarnings("unchecked")
+  private static UnaryOperator<Picture>[] eagerSteps()
+  {
+    return new UnaryOperator[] {
+      (UnaryOperator<Picture>) p -> { TileEngine.apply(p, ImageApp.GRAYSCALE); return p; },
+      (UnaryOperator<Picture>) p -> { TileEngine.apply(p, ImageApp.NEGATIVE_COLOR); return p; },
+      (UnaryOperator<Picture>) p -> { TileEngine.apply(p, ImageApp.CHANGE_COLOR); return p; },
+      (UnaryOperator<Picture>) p -> { p.zeroBlue(); return p; },
+      (UnaryOperator<Picture>) p -> { p.clearLow(); return p; },
+      (UnaryOperator<Picture>) p -> { p.setLow(Color.ORANGE); return p; },
+      (UnaryOperator<Picture>) p -> { p.reveal(); return p; },
+      (UnaryOperator<Picture>) p -> { p.adjustBrightness(30); return p; },
+      (UnaryOperator<Picture>) p -> { p.adjustContrast(1.4); return p; },
+      (UnaryOperator<Picture>) p -> RasterTransform.rotateClockwise(p),
+      (UnaryOperator<Picture>) p -> RasterTransform.rotateCounterclockwise(p),
+      (UnaryOperator<Picture>) p -> RasterTransform.rotate180(p),
+      (UnaryOperator<Picture>) p -> RasterTransform.flipHorizontal(p),
+      (UnaryOperator<Picture>) p -> RasterTransform.flipVertical(p),
+      (UnaryOperator<Picture>) p -> RasterTransform.transpose(p),
+      (UnaryOperator<Picture>) p -> { p.blur(0.8); return p; }};
+  }
+
+  /**
+   * Method to run a chain of steps both ways and check the results are
+   * the same and the source didn't change
+   * @param source the picture to start from
+   * @param chain the indexes of the steps, in order
+   */
+  private static void assertChain(Picture source, int[] chain)
+  {
+    Picture before = new Picture(source);
+    LazyPicture lazy = source.lazy();
+    Picture eager = new Picture(source);
+    StringBuilder what = new StringBuilder();
+    for (int step : chain)
+    {
+      LAZY[step].accept(lazy);
+      eager = EAGER[step].apply(eager);
+      what.append(NAMES[step]).append(' ');
+    }
+    Picture result = lazy.get();
+    PictureFixtures.assertSameColors(eager, result, what.toString());
+    PictureFixtures.assertSameColors(before, source, "the source after " + what);
+  }
+
+  /**
+   * Tests each step on its own and each pair of steps
+   */
+  public void testPairs()
+  {
+    Picture source = PictureFixtures.random(23, 17, 1);
+    for (int first = 0; first < NAMES.length; first++)
+    {
+      assertChain(source, new int[] {first});
+      for (int second = 0; second < NAMES.length; second++)
+        assertChain(source, new int[] {first, second});
+    }
+  }
+
+  /**
+   * Tests random chains of up to twelve steps, serially and in parallel
+   */
+  public void testRandomChains()
+  {
+    Random random = new Random(2);
+    Picture source = PictureFixtures.random(61, 40, 3);
+    for (int i = 0; i < 300; i++)
+    {
+      int[] chain = new int[1 + random.nextInt(12)];
+      for (int j = 0; j < chain.length; j++)
+        chain[j] = random.nextInt(NAMES.length);
+      if (i % 2 == 0)
+        PictureFixtures.serially(() -> assertChain(source, chain));
+      else
+        PictureFixtures.inParallel(() -> assertChain(source, chain));
+    }
+  }
+
+  /**
+   * Tests that point filters before and after turns are one pass, a
+   * step on the last column after a turn starts another, and get does
+   * the steps only once
+   */
+  public void testPasses()
+  {
+    Picture source = PictureFixtures.shapes(40, 30);
+    LazyPicture lazy = source.lazy().grayscale().rotateClockwise().negative().flipVertical()
+      .point(ChannelLut.gamma(2)).point(ChannelLut.contrast(0.5));
+    assert lazy.toString().endsWith("1 passes to do") : lazy.toString();
+    lazy.clearLow();
+    assert lazy.toString().endsWith("2 passes to do") : lazy.toString();
+
+    Picture first = lazy.get();
+    assert lazy.toString().endsWith("0 passes to do") : lazy.toString();
+    Picture copy = new Picture(first);
+    Picture second = lazy.rotate180().get();
+    PictureFixtures.assertSameColors(copy, first, "the first result after more steps");
+    PictureFixtures.assertSameColors(RasterTransform.rotate180(copy), second, "the second result");
+    assert lazy.get() != second : "get with no steps didn't make a new picture";
+  }
+}
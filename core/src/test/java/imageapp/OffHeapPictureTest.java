@@ -0,0 +1,188 @@
+package imageapp;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Tests for OffHeapPicture: the files it writes a stripe at a time are
+ * the same as the ones a picture on the heap writes, its BufferedImage
+ * is a view of its pixels, load draws an image the same way as on the
+ * heap, and close gives the buffers back and keeps a mapped file.
+ */
+public final class OffHeapPictureTest
+{
+  /**
+   * Method to make a picture with alpha, with random colors and alpha
+   * @param width the width in pixels
+   * @param height the height in pixels
+   * @param seed the seed for the colors
+   * @return the new picture
+   */
+  private static Picture withAlpha(int width, int height, long seed)
+  {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    Random random = new Random(seed);
+    for (int y = 0; y < height; y++)
+    {
+      for (int x = 0; x < width; x++)
+        image.setRGB(x, y, random.nextInt());
+    }
+    return new Picture(image);
+  }
+
+  /**
+   * Method to make a temporary file that is deleted when the tests end
+   * @param suffix the suffix, like .png
+   * @return the file
+   * @throws IOException if it can't be made
+   */
+  private static File tempFile(String suffix) throws IOException
+  {
+    File file = File.createTempFile("offheap", suffix);
+    file.deleteOnExit();
+    return file;
+  }
+
+  /**
+   * Method to read an image file back as packed ints, alpha included
+   * @param file the file
+   * @return the pixels, row after row
+   * @throws IOException if it can't be read
+   */
+  private static int[] readBack(File file) throws IOException
+  {
+    BufferedImage image = ImageIO.read(file);
+    assert image != null : file + " can't be read back";
+    return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+  }
+
+  /**
+   * Method to write a picture on the heap and a copy off it to the same
+   * format and check the files hold the same pixels
+   * @param heap the picture on the heap
+   * @param suffix the suffix of the files, like .png
+   * @throws IOException if a file can't be written or read
+   */
+  private static void assertSameFile(Picture heap, String suffix) throws IOException
+  {
+    File expected = tempFile(suffix);
+    File actual = tempFile(suffix);
+    heap.writeOrFail(expected.getPath());
+    OffHeapPicture offHeap = OffHeapPicture.copyOf(heap);
+    offHeap.writeOrFail(actual.getPath());
+    offHeap.close();
+    int[] expectedPixels = readBack(expected);
+    int[] actualPixels = readBack(actual);
+    assert expectedPixels.length == actualPixels.length : suffix + ": sizes differ";
+    for (int i = 0; i < expectedPixels.length; i++)
+    {
+      assert expectedPixels[i] == actualPixels[i] : suffix + ": pixel " + i + " is "
+        + Integer.toHexString(actualPixels[i]) + ", not " + Integer.toHexString(expectedPixels[i]);
+    }
+  }
+
+  /**
+   * Tests writing png, bmp and jpg files against the same picture on the
+   * heap, with a picture tall enough for two stripes
+   * @throws IOException if a file can't be written or read
+   */
+  public void testWriteMatchesHeap() throws IOException
+  {
+    Picture opaque = PictureFixtures.shapes(2000, 700);
+    assertSameFile(opaque, ".png");
+    assertSameFile(opaque, ".bmp");
+    assertSameFile(opaque, ".jpg");
+    assertSameFile(withAlpha(1100, 1000, 1), ".png");
+  }
+
+  /**
+   * Tests that the BufferedImage is a view: changes either way show in
+   * the other, and it is the same image each time
+   */
+  public void testBufferedImageIsView()
+  {
+    Picture source = withAlpha(120, 90, 2);
+    OffHeapPicture picture = OffHeapPicture.copyOf(source);
+    BufferedImage view = picture.getBufferedImage();
+    assert picture.getBufferedImage() == view : "a new view was made";
+    for (int y = 0; y < 90; y += 7)
+    {
+      for (int x = 0; x < 120; x += 5)
+        assert view.getRGB(x, y) == source.getBasicPixel(x, y) : "(" + x + ", " + y + ")";
+    }
+
+    picture.setBasicPixel(3, 4, 0x12345678);
+    assert view.getRGB(3, 4) == 0x12345678 : Integer.toHexString(view.getRGB(3, 4));
+    Graphics2D graphics = view.createGraphics();
+    graphics.setColor(Color.RED);
+    graphics.fillRect(50, 60, 10, 5);
+    graphics.dispose();
+    assert picture.getBasicPixel(55, 62) == 0xffff0000 :
+      Integer.toHexString(picture.getBasicPixel(55, 62));
+    assert picture.getBasicPixel(55, 65) == source.getBasicPixel(55, 65) : "drew past the rectangle";
+    picture.close();
+  }
+
+  /**
+   * Tests load with an image that is smaller than the picture and has
+   * clear pixels, against the same load on the heap, on a picture tall
+   * enough for two stripes
+   */
+  public void testLoadImageMatchesHeap()
+  {
+    Picture heap = PictureFixtures.shapes(1500, 800);
+    OffHeapPicture offHeap = OffHeapPicture.copyOf(heap);
+    Picture image = withAlpha(1400, 750, 3);
+    heap.load(image.getBufferedImage());
+    offHeap.load(image.getBufferedImage());
+    PictureFixtures.assertSameColors(heap, offHeap, "after load");
+    offHeap.close();
+  }
+
+  /**
+   * Tests that close empties a direct picture and that a mapped picture
+   * keeps its pixels in the file
+   * @throws IOException if the file can't be made or opened
+   */
+  public void testClose() throws IOException
+  {
+    OffHeapPicture direct = OffHeapPicture.allocate(40, 30, false);
+    direct.close();
+    assert direct.getWidth() == 0 && direct.getHeight() == 0 : direct.toString();
+    try
+    {
+      direct.getBasicPixel(0, 0);
+      assert false : "a closed picture was read";
+    }
+    catch (ArrayIndexOutOfBoundsException ex)
+    {
+      // expected
+    }
+
+    Path file = tempFile(".iar").toPath();
+    Picture source = PictureFixtures.random(50, 40, 4);
+    OffHeapPicture mapped = OffHeapPicture.create(file, 50, 40, false);
+    BufferedImage view = mapped.getBufferedImage();
+    mapped.setRGB(0, 0, 50, 40, source.getRGB(0, 0, 50, 40, null, 0, 50), 0, 50);
+    mapped.close();
+    try
+    {
+      view.getRGB(0, 0);
+      assert false : "the view of a closed picture was read";
+    }
+    catch (ArrayIndexOutOfBoundsException ex)
+    {
+      // expected
+    }
+    try (OffHeapPicture opened = OffHeapPicture.open(file))
+    {
+      PictureFixtures.assertSameColors(source, opened, "opened after close");
+    }
+  }
+}
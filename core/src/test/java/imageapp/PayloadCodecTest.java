@@ -0,0 +1,188 @@
+package imageapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests for PayloadCodec: bytes come back out the same for every number
+ * of bits, a payload that fills the picture fits, and a damaged header
+ * or payload, or an encode that fails, is reported and not decoded.
+ */
+public final class PayloadCodecTest
+{
+  /**
+   * Method to make some random bytes
+   * @param length the number of bytes
+   * @param seed the seed for the bytes
+   * @return the bytes
+   */
+  private static byte[] bytes(int length, long seed)
+  {
+    byte[] bytes = new byte[length];
+    new Random(seed).nextBytes(bytes);
+    return bytes;
+  }
+
+  /**
+   * Method to get the bytes hidden in a picture
+   * @param codec the codec to use
+   * @param cover the picture
+   * @return the bytes
+   * @throws IOException if there is no payload or it is damaged
+   */
+  private static byte[] decode(PayloadCodec codec, Picture cover) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long length = codec.decode(cover, out);
+    assert length == out.size() : "decode said " + length + " bytes but wrote " + out.size();
+    return out.toByteArray();
+  }
+
+  /**
+   * Method to check that decoding fails because there is no header (not
+   * just because the CRC doesn't match)
+   * @param codec the codec to use
+   * @param cover the picture
+   * @param what what is being checked, for the message
+   */
+  private static void assertNoPayload(PayloadCodec codec, Picture cover, String what)
+  {
+    try
+    {
+      decode(codec, cover);
+    }
+    catch (IOException ex)
+    {
+      assert ex.getMessage().startsWith("no payload") : what + ": " + ex.getMessage();
+      return;
+    }
+    assert false : what + ": a payload was decoded";
+  }
+
+  /**
+   * Tests the round trip for each number of bits and some lengths,
+   * including none and a width that splits bytes across pixels and rows
+   * @throws IOException if a round trip fails
+   */
+  public void testRoundTrip() throws IOException
+  {
+    for (int bits = 1; bits <= 4; bits++)
+    {
+      PayloadCodec codec = new PayloadCodec(bits);
+      for (int length : new int[] {0, 1, 7, 1000, 40000})
+      {
+        Picture cover = PictureFixtures.random(373, 300, length);
+        Picture before = new Picture(cover);
+        byte[] payload = bytes(length, bits * 100 + length);
+        long hidden = codec.encode(new ByteArrayInputStream(payload), cover);
+        assert hidden == length : "encode said " + hidden + " bytes, not " + length;
+        byte[] back = decode(codec, cover);
+        assert Arrays.equals(payload, back) : bits + " bits, " + length + " bytes";
+
+        // only the low bits change
+        int keep = ~(((1 << bits) - 1) * 0x010101);
+        for (int y = 0; y < cover.getHeight(); y++)
+        {
+          for (int x = 0; x < cover.getWidth(); x++)
+            assert (cover.getBasicPixel(x, y) & keep) == (before.getBasicPixel(x, y) & keep);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests a payload that fills the picture exactly and one a byte bigger
+   * @throws IOException if the full payload fails
+   */
+  public void testCapacity() throws IOException
+  {
+    PayloadCodec codec = new PayloadCodec(2);
+    Picture cover = PictureFixtures.random(50, 40, 1);
+    int capacity = (int) codec.getCapacity(cover);
+    byte[] full = bytes(capacity, 2);
+    codec.encode(new ByteArrayInputStream(full), cover);
+    assert Arrays.equals(full, decode(codec, cover)) : "a full payload didn't come back";
+
+    try
+    {
+      codec.encode(new ByteArrayInputStream(bytes(capacity + 1, 3)), cover);
+      assert false : "a payload that doesn't fit was hidden";
+    }
+    catch (IOException ex)
+    {
+      // expected
+    }
+    assertNoPayload(codec, cover, "after a payload too big");
+    assert codec.getCapacity(PictureFixtures.random(2, 2, 4)) == 0 : "a tiny picture holds bytes";
+  }
+
+  /**
+   * Tests that an encode whose stream fails part way leaves no payload,
+   * even where an earlier payload was
+   * @throws IOException if the first payload fails
+   */
+  public void testFailedEncodeClearsHeader() throws IOException
+  {
+    PayloadCodec codec = new PayloadCodec(3);
+    Picture cover = PictureFixtures.random(200, 100, 5);
+    codec.encode(new ByteArrayInputStream(bytes(500, 6)), cover);
+
+    InputStream failing = new InputStream()
+    {
+      private int left = 2000;
+
+      public int read() throws IOException
+      {
+        if (left == 0)
+          throw new IOException("the stream broke");
+        left--;
+        return 42;
+      }
+    };
+    try
+    {
+      codec.encode(failing, cover);
+      assert false : "the broken stream wasn't reported";
+    }
+    catch (IOException ex)
+    {
+      assert ex.getMessage().equals("the stream broke") : ex.getMessage();
+    }
+    assertNoPayload(codec, cover, "after a failed encode");
+  }
+
+  /**
+   * Tests a damaged header, a damaged payload and the wrong number of
+   * bits
+   * @throws IOException if the encode fails
+   */
+  public void testDamage() throws IOException
+  {
+    PayloadCodec codec = new PayloadCodec(2);
+    Picture cover = PictureFixtures.random(120, 80, 7);
+    codec.encode(new ByteArrayInputStream(bytes(3000, 8)), cover);
+
+    Picture badHeader = new Picture(cover);
+    badHeader.setBasicPixel(0, 0, badHeader.getBasicPixel(0, 0) ^ 0x010000);
+    assertNoPayload(codec, badHeader, "damaged magic number");
+
+    Picture badPayload = new Picture(cover);
+    badPayload.setBasicPixel(10, 20, badPayload.getBasicPixel(10, 20) ^ 0x000001);
+    try
+    {
+      decode(codec, badPayload);
+      assert false : "a damaged payload was decoded";
+    }
+    catch (IOException ex)
+    {
+      assert ex.getMessage().contains("CRC") : ex.getMessage();
+    }
+
+    assertNoPayload(new PayloadCodec(1), cover, "wrong number of bits");
+    assertNoPayload(codec, PictureFixtures.random(120, 80, 9), "no payload");
+  }
+}
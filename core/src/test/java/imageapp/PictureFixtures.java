@@ -0,0 +1,140 @@
+package imageapp;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Pictures and checks shared by the tests.  The pictures are made from
+ * a seed so a failing test fails the same way every time.
+ */
+final class PictureFixtures
+{
+
+  /////////////////////// Constructors /////////////////////////
+
+  /** no PictureFixtures objects are made; all the methods are static */
+  private PictureFixtures() { }
+
+  ////////////////////////// Methods //////////////////////////////////
+
+  /**
+   * Method to make a picture of random opaque colors
+   * @param width the width in pixels
+   * @param height the height in pixels
+   * @param seed the seed for the colors
+   * @return the new picture
+   */
+  static Picture random(int width, int height, long seed)
+  {
+    Picture picture = new Picture(height, width);
+    Random random = new Random(seed);
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++)
+    {
+      for (int x = 0; x < width; x++)
+        row[x] = 0xff000000 | random.nextInt(0x1000000);
+      picture.setRow(y, row);
+    }
+    return picture;
+  }
+
+  /**
+   * Method to make a picture with smooth gradients and a bright square,
+   * so it has real edges for the edge filters
+   * @param width the width in pixels
+   * @param height the height in pixels
+   * @return the new picture
+   */
+  static Picture shapes(int width, int height)
+  {
+    Picture picture = new Picture(height, width);
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++)
+    {
+      for (int x = 0; x < width; x++)
+      {
+        boolean inSquare = x >= width / 4 && x < width * 3 / 4
+          && y >= height / 4 && y < height * 3 / 4;
+        int red = inSquare ? 230 : x * 100 / width;
+        int green = inSquare ? 200 : y * 100 / height;
+        int blue = inSquare ? 40 : 60;
+        row[x] = 0xff000000 | (red << 16) | (green << 8) | blue;
+      }
+      picture.setRow(y, row);
+    }
+    return picture;
+  }
+
+  /**
+   * Method to check that two pictures have the same size and colors
+   * (alpha is ignored, since some pictures don't keep it)
+   * @param expected the picture it should be
+   * @param actual the picture it is
+   * @param what what is being checked, for the message
+   */
+  static void assertSameColors(DigitalPicture expected, DigitalPicture actual, String what)
+  {
+    assert expected.getWidth() == actual.getWidth()
+      && expected.getHeight() == actual.getHeight() : what + ": sizes differ";
+    int width = expected.getWidth();
+    int[] expectedRow = new int[width];
+    int[] actualRow = new int[width];
+    for (int y = 0; y < expected.getHeight(); y++)
+    {
+      expected.getRow(y, expectedRow);
+      actual.getRow(y, actualRow);
+      for (int x = 0; x < width; x++)
+      {
+        assert (expectedRow[x] & 0xffffff) == (actualRow[x] & 0xffffff) :
+          what + ": pixel (" + x + ", " + y + ") is " + Integer.toHexString(actualRow[x])
+          + ", not " + Integer.toHexString(expectedRow[x]);
+      }
+    }
+  }
+
+  /**
+   * Method to run some work with the TileEngine splitting everything
+   * into small bands on four threads, then put the settings back
+   * @param work the work to run
+   */
+  static void inParallel(Runnable work)
+  {
+    long threshold = TileEngine.getParallelThreshold();
+    int bandHeight = TileEngine.getBandHeight();
+    ForkJoinPool oldPool = TileEngine.getPool();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try
+    {
+      TileEngine.setPool(pool);
+      TileEngine.setParallelThreshold(0);
+      TileEngine.setBandHeight(3);
+      work.run();
+    }
+    finally
+    {
+      TileEngine.setPool(oldPool);
+      TileEngine.setParallelThreshold(threshold);
+      TileEngine.setBandHeight(bandHeight);
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Method to run some work with the TileEngine on the calling thread
+   * only, then put the setting back
+   * @param work the work to run
+   */
+  static void serially(Runnable work)
+  {
+    long threshold = TileEngine.getParallelThreshold();
+    try
+    {
+      TileEngine.setParallelThreshold(Long.MAX_VALUE);
+      work.run();
+    }
+    finally
+    {
+      TileEngine.setParallelThreshold(threshold);
+    }
+  }
+}
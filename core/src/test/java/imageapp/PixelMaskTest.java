@@ -0,0 +1,156 @@
+package imageapp;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Tests for PixelMask: the mask of a difference matches comparing the
+ * pixels one at a time, on one thread and in bands on several, and the
+ * counts, bounds, searches and points agree with the pixels set.
+ */
+public final class PixelMaskTest
+{
+  /**
+   * Method to change some pixels of a copy of a picture
+   * @param picture the picture to copy
+   * @param changes how many pixels to change (some may repeat)
+   * @param seed the seed for the places
+   * @return the changed copy
+   */
+  private static Picture changed(Picture picture, int changes, long seed)
+  {
+    Picture copy = new Picture(picture);
+    Random random = new Random(seed);
+    for (int i = 0; i < changes; i++)
+    {
+      int x = random.nextInt(copy.getWidth());
+      int y = random.nextInt(copy.getHeight());
+      copy.setBasicPixel(x, y, copy.getBasicPixel(x, y) ^ (1 << random.nextInt(24)));
+    }
+    return copy;
+  }
+
+  /**
+   * Method to check a mask against comparing two pictures pixel by pixel
+   * @param pic1 the first picture
+   * @param pic2 the second picture
+   * @param mask the mask of their differences
+   * @param what what is being checked, for the message
+   */
+  static void assertMatchesPixels(DigitalPicture pic1, DigitalPicture pic2,
+                                  PixelMask mask, String what)
+  {
+    long count = 0;
+    for (int y = 0; y < pic1.getHeight(); y++)
+    {
+      for (int x = 0; x < pic1.getWidth(); x++)
+      {
+        boolean differs = ((pic1.getBasicPixel(x, y) ^ pic2.getBasicPixel(x, y)) & 0xffffff) != 0;
+        assert mask.get(x, y) == differs : what + ": pixel (" + x + ", " + y + ")";
+        if (differs)
+          count++;
+      }
+    }
+    assert mask.count() == count : what + ": count " + mask.count() + ", not " + count;
+  }
+
+  /**
+   * Tests the difference serially and in parallel, for widths that do
+   * and don't fill the last 64 bit word of a row
+   */
+  public void testDifferenceMatchesPixels()
+  {
+    for (int width : new int[] {1, 63, 64, 65, 130})
+    {
+      Picture picture = PictureFixtures.random(width, 70, width);
+      Picture other = changed(picture, width * 3, width + 1);
+      PixelMask[] masks = new PixelMask[2];
+      PictureFixtures.serially(() -> masks[0] = PixelMask.difference(picture, other));
+      PictureFixtures.inParallel(() -> masks[1] = PixelMask.difference(picture, other));
+      assertMatchesPixels(picture, other, masks[0], "width " + width);
+      assertMatchesPixels(picture, other, masks[1], "width " + width + " in parallel");
+    }
+  }
+
+  /**
+   * Tests the difference of pictures that aren't SimplePictures, which
+   * have no tile hashes
+   */
+  public void testDifferenceWithoutTileHashes()
+  {
+    Picture picture = PictureFixtures.random(100, 90, 3);
+    Picture other = changed(picture, 40, 4);
+    OffHeapPicture offHeap = OffHeapPicture.copyOf(other);
+    PixelMask mask = PixelMask.difference(picture, offHeap);
+    assertMatchesPixels(picture, other, mask, "off heap");
+  }
+
+  /**
+   * Tests that alpha isn't compared and pictures of different sizes
+   * give an empty mask
+   */
+  public void testAlphaAndSizes()
+  {
+    Picture picture = PictureFixtures.random(20, 20, 5);
+    Picture clear = new Picture(picture);
+    clear.setBasicPixel(2, 2, clear.getBasicPixel(2, 2) & 0x00ffffff);
+    assert PixelMask.difference(picture, clear).isEmpty() : "alpha was compared";
+
+    PixelMask mask = PixelMask.difference(picture, PictureFixtures.random(20, 21, 5));
+    assert mask.isEmpty() && mask.getWidth() == 20 && mask.getHeight() == 20 : mask.toString();
+  }
+
+  /**
+   * Tests count, countRow, getBounds and the row searches on a mask set
+   * by hand
+   */
+  public void testQueries()
+  {
+    PixelMask mask = new PixelMask(150, 10);
+    assert mask.isEmpty() && mask.getBounds() == null : "a new mask isn't empty";
+    mask.set(3, 2);
+    mask.set(63, 2);
+    mask.set(64, 2);
+    mask.set(140, 7);
+    assert mask.count() == 4 && mask.countRow(2) == 3 && mask.countRow(3) == 0 : mask.toString();
+    assert mask.getBounds().equals(new Rectangle(3, 2, 138, 6)) : mask.getBounds().toString();
+
+    assert mask.nextSetInRow(2, 0) == 3;
+    assert mask.nextSetInRow(2, 4) == 63;
+    assert mask.nextSetInRow(2, 65) == -1;
+    assert mask.nextClearInRow(2, 63) == 65;
+    assert mask.nextClearInRow(7, 140) == 141;
+    assert mask.nextSetInRow(7, 149) == -1;
+
+    mask.clear(63, 2);
+    assert !mask.get(63, 2) && mask.count() == 3 : "clear didn't clear";
+
+    for (int x = 0; x < 150; x++)
+      mask.set(x, 9);
+    assert mask.nextClearInRow(9, 0) == 150 : "a full row has a clear pixel";
+  }
+
+  /**
+   * Tests that toPoints and fromPoints give back the same pixels, row
+   * by row like the old findDifferences
+   */
+  public void testPointsRoundTrip()
+  {
+    Picture picture = PictureFixtures.random(75, 33, 6);
+    Picture other = changed(picture, 200, 7);
+    PixelMask mask = PixelMask.difference(picture, other);
+    ArrayList<Point> points = mask.toPoints();
+    assert points.size() == mask.count() : "one point for each pixel";
+    for (int i = 1; i < points.size(); i++)
+    {
+      Point last = points.get(i - 1);
+      Point next = points.get(i);
+      assert last.getRow() < next.getRow()
+        || (last.getRow() == next.getRow() && last.getCol() < next.getCol()) : "not row by row";
+    }
+    PixelMask back = PixelMask.fromPoints(75, 33, points);
+    assertMatchesPixels(picture, other, back, "from points");
+    assert Picture.findDifferences(picture, other).size() == points.size() : "findDifferences";
+  }
+}
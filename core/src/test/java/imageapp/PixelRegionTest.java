@@ -0,0 +1,172 @@
+package imageapp;
+
+import java.awt.Rectangle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for PixelMask.findRegions: the groups match a plain flood fill,
+ * on one thread and with bands of a few rows on several, and pixels
+ * that touch only at a corner or only far below are in one group.
+ */
+public final class PixelRegionTest
+{
+  /**
+   * Method to find the groups of a mask with a flood fill, in the order
+   * of their first pixel
+   * @param mask the mask
+   * @param minArea the fewest pixels a group needs to be kept
+   * @return the groups
+   */
+  private static List<PixelRegion> floodFill(PixelMask mask, int minArea)
+  {
+    int width = mask.getWidth();
+    int height = mask.getHeight();
+    boolean[] seen = new boolean[width * height];
+    List<PixelRegion> regions = new ArrayList<PixelRegion>();
+    ArrayDeque<int[]> todo = new ArrayDeque<int[]>();
+    for (int y = 0; y < height; y++)
+    {
+      for (int x = 0; x < width; x++)
+      {
+        if (!mask.get(x, y) || seen[y * width + x])
+          continue;
+        int minX = x, maxX = x, minY = y, maxY = y;
+        long count = 0;
+        seen[y * width + x] = true;
+        todo.add(new int[] {x, y});
+        while (!todo.isEmpty())
+        {
+          int[] p = todo.poll();
+          count++;
+          minX = Math.min(minX, p[0]);
+          maxX = Math.max(maxX, p[0]);
+          minY = Math.min(minY, p[1]);
+          maxY = Math.max(maxY, p[1]);
+          for (int dy = -1; dy <= 1; dy++)
+          {
+            for (int dx = -1; dx <= 1; dx++)
+            {
+              int nx = p[0] + dx;
+              int ny = p[1] + dy;
+              if (nx >= 0 && nx < width && ny >= 0 && ny < height
+                  && mask.get(nx, ny) && !seen[ny * width + nx])
+              {
+                seen[ny * width + nx] = true;
+                todo.add(new int[] {nx, ny});
+              }
+            }
+          }
+        }
+        if (count >= minArea)
+          regions.add(new PixelRegion(minX, minY, maxX - minX + 1, maxY - minY + 1, count));
+      }
+    }
+    return regions;
+  }
+
+  /**
+   * Method to check two lists of groups have the same boxes and counts
+   * @param expected the groups it should be
+   * @param actual the groups it is
+   * @param what what is being checked, for the message
+   */
+  private static void assertSameRegions(List<PixelRegion> expected, List<PixelRegion> actual,
+                                        String what)
+  {
+    assert expected.size() == actual.size() :
+      what + ": " + actual.size() + " regions, not " + expected.size();
+    for (int i = 0; i < expected.size(); i++)
+    {
+      PixelRegion e = expected.get(i);
+      PixelRegion a = actual.get(i);
+      assert e.getBounds().equals(a.getBounds()) && e.getPixelCount() == a.getPixelCount() :
+        what + ": region " + i + " is " + a + ", not " + e;
+    }
+  }
+
+  /**
+   * Tests small groups set by hand: a corner touch joins, a gap of one
+   * pixel doesn't, and minArea drops the small ones
+   */
+  public void testGroupsByHand()
+  {
+    PixelMask mask = new PixelMask(20, 10);
+    for (int y = 1; y <= 3; y++)
+    {
+      for (int x = 1; x <= 4; x++)
+        mask.set(x, y);
+    }
+    mask.set(5, 4);      // touches (4, 3) at a corner
+    mask.set(10, 1);     // alone
+    mask.set(12, 1);     // a gap of one from (10, 1)
+    mask.set(19, 9);
+
+    List<PixelRegion> regions = mask.findRegions(1);
+    assert regions.size() == 4 : regions.toString();
+    assert regions.get(0).getBounds().equals(new Rectangle(1, 1, 5, 4)) : regions.get(0).toString();
+    assert regions.get(0).getPixelCount() == 13 : regions.get(0).toString();
+    assert regions.get(1).getBounds().equals(new Rectangle(10, 1, 1, 1)) : regions.get(1).toString();
+    assert regions.get(2).getBounds().equals(new Rectangle(12, 1, 1, 1)) : regions.get(2).toString();
+    assert regions.get(3).getBounds().equals(new Rectangle(19, 9, 1, 1)) : regions.get(3).toString();
+
+    assert mask.findRegions(2).size() == 1 : "minArea didn't drop the single pixels";
+    assert new PixelMask(5, 5).findRegions(1).isEmpty() : "an empty mask has regions";
+  }
+
+  /**
+   * Tests a U shape whose arms only meet at the bottom, many bands below
+   * where they start, so the join has to cross bands
+   */
+  public void testJoinAcrossBands()
+  {
+    PixelMask mask = new PixelMask(30, 40);
+    for (int y = 0; y < 40; y++)
+    {
+      mask.set(2, y);
+      mask.set(27, y);
+    }
+    for (int x = 2; x < 28; x++)
+      mask.set(x, 39);
+    List<PixelRegion> regions = new ArrayList<PixelRegion>();
+    PictureFixtures.inParallel(() -> regions.addAll(mask.findRegions(1)));
+    assert regions.size() == 1 : regions.toString();
+    assert regions.get(0).getBounds().equals(new Rectangle(2, 0, 26, 40)) :
+      regions.get(0).toString();
+    assert regions.get(0).getPixelCount() == 40 + 40 + 24 : regions.get(0).toString();
+  }
+
+  /**
+   * Tests random masks against a flood fill, serially and in parallel
+   */
+  public void testMatchesFloodFill()
+  {
+    for (int seed = 0; seed < 4; seed++)
+    {
+      Random random = new Random(seed);
+      PixelMask mask = new PixelMask(97, 83);
+      int percent = 20 + seed * 10;
+      for (int y = 0; y < mask.getHeight(); y++)
+      {
+        for (int x = 0; x < mask.getWidth(); x++)
+        {
+          if (random.nextInt(100) < percent)
+            mask.set(x, y);
+        }
+      }
+      for (int minArea : new int[] {1, 5})
+      {
+        List<PixelRegion> expected = floodFill(mask, minArea);
+        List<PixelRegion> serial = new ArrayList<PixelRegion>();
+        List<PixelRegion> parallel = new ArrayList<PixelRegion>();
+        PictureFixtures.serially(() -> serial.addAll(mask.findRegions(minArea)));
+        PictureFixtures.inParallel(() -> parallel.addAll(mask.findRegions(minArea)));
+        String what = percent + "% set, minArea " + minArea;
+        assertSameRegions(expected, serial, what);
+        assertSameRegions(expected, parallel, what + " in parallel");
+      }
+    }
+  }
+}
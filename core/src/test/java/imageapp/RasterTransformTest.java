@@ -0,0 +1,118 @@
+package imageapp;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Tests for RasterTransform: each tiled turn and flip matches moving the
+ * pixels one at a time, for sizes that don't fill the last tile, on one
+ * thread and in bands on several.
+ */
+public final class RasterTransformTest
+{
+  /** sizes smaller than, equal to and past the tile size */
+  private static final int[][] SIZES = {{1, 1}, {5, 3}, {64, 64}, {130, 67}, {67, 130}};
+
+  /** Where a transform sends each pixel of a width by height picture */
+  private interface Mapping
+  {
+    /**
+     * Method to get the new x and y of a pixel
+     * @param x the old x
+     * @param y the old y
+     * @param width the old width
+     * @param height the old height
+     * @return the new x and y
+     */
+    int[] map(int x, int y, int width, int height);
+  }
+
+  /**
+   * Method to move every pixel of a picture one at a time
+   * @param source the picture to move
+   * @param mapping where each pixel goes
+   * @param turned true if width and height swap
+   * @return the moved picture
+   */
+  private static Picture reference(Picture source, Mapping mapping, boolean turned)
+  {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    Picture result = turned ? new Picture(width, height) : new Picture(height, width);
+    for (int y = 0; y < height; y++)
+    {
+      for (int x = 0; x < width; x++)
+      {
+        int[] to = mapping.map(x, y, width, height);
+        result.setBasicPixel(to[0], to[1], source.getBasicPixel(x, y));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Method to check every size serially and in parallel
+   * @param name the name of the transform
+   * @param transform the transform to check
+   * @param mapping where each pixel should go
+   * @param turned true if width and height swap
+   */
+  private static void check(String name, UnaryOperator<Picture> transform,
+                            Mapping mapping, boolean turned)
+  {
+    for (int[] size : SIZES)
+    {
+      Picture source = PictureFixtures.random(size[0], size[1], size[0] * 31 + size[1]);
+      Picture expected = reference(source, mapping, turned);
+      Picture[] results = new Picture[2];
+      PictureFixtures.serially(() -> results[0] = transform.apply(new Picture(source)));
+      PictureFixtures.inParallel(() -> results[1] = transform.apply(new Picture(source)));
+      String what = name + " " + size[0] + "x" + size[1];
+      PictureFixtures.assertSameColors(expected, results[0], what);
+      PictureFixtures.assertSameColors(expected, results[1], what + " in parallel");
+    }
+  }
+
+  /**
+   * Tests the quarter turns and the transpose
+   */
+  public void testTurns()
+  {
+    check("clockwise", RasterTransform::rotateClockwise,
+          (x, y, w, h) -> new int[] {h - 1 - y, x}, true);
+    check("counterclockwise", RasterTransform::rotateCounterclockwise,
+          (x, y, w, h) -> new int[] {y, w - 1 - x}, true);
+    check("transpose", RasterTransform::transpose,
+          (x, y, w, h) -> new int[] {y, x}, true);
+  }
+
+  /**
+   * Tests the half turn and flips, both as copies and in place
+   */
+  public void testHalfTurnAndFlips()
+  {
+    Mapping half = (x, y, w, h) -> new int[] {w - 1 - x, h - 1 - y};
+    Mapping horizontal = (x, y, w, h) -> new int[] {w - 1 - x, y};
+    Mapping vertical = (x, y, w, h) -> new int[] {x, h - 1 - y};
+    check("rotate180", RasterTransform::rotate180, half, false);
+    check("flipHorizontal", RasterTransform::flipHorizontal, horizontal, false);
+    check("flipVertical", RasterTransform::flipVertical, vertical, false);
+    check("rotate180InPlace", p -> { RasterTransform.rotate180InPlace(p); return p; },
+          half, false);
+    check("flipHorizontalInPlace", p -> { RasterTransform.flipHorizontalInPlace(p); return p; },
+          horizontal, false);
+    check("flipVerticalInPlace", p -> { RasterTransform.flipVerticalInPlace(p); return p; },
+          vertical, false);
+  }
+
+  /**
+   * Tests that four clockwise turns give back the picture
+   */
+  public void testFourTurnsAreIdentity()
+  {
+    Picture source = PictureFixtures.random(130, 67, 9);
+    Picture turned = source;
+    for (int i = 0; i < 4; i++)
+      turned = RasterTransform.rotateClockwise(turned);
+    PictureFixtures.assertSameColors(source, turned, "four turns");
+  }
+}
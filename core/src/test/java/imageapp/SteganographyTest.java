@@ -0,0 +1,217 @@
+package imageapp;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Tests for Steganography: hide, reveal, clearLow and setLow match the
+ * formulas the original Picture methods used a pixel at a time, for 1
+ * to 4 bits, and hiding several secrets in one pass matches hiding them
+ * one after the other, serially and in parallel.
+ */
+public final class SteganographyTest
+{
+  /**
+   * Method to hide a secret one pixel at a time the way the original
+   * Picture.hide did, with 4 * (c / 4) + s / 64 for 2 bits
+   * @param cover the picture to hide the secret in
+   * @param secret the picture to hide
+   * @param x the x in the cover of the secret's left column
+   * @param y the y in the cover of the secret's top row
+   * @param bits the number of low bits of each color to use
+   */
+  private static void hideByPixel(DigitalPicture cover, DigitalPicture secret, int x, int y,
+                                  int bits)
+  {
+    int step = 1 << bits;
+    int width = Math.min(secret.getWidth(), cover.getWidth() - 1 - x);
+    int height = Math.min(secret.getHeight(), cover.getHeight() - y);
+    for (int row = 0; row < height; row++)
+    {
+      for (int col = 0; col < width; col++)
+      {
+        Color c = new Color(cover.getBasicPixel(x + col, y + row));
+        Color s = new Color(secret.getBasicPixel(col, row));
+        cover.setBasicPixel(x + col, y + row, new Color(
+          step * (c.getRed() / step) + s.getRed() / (256 / step),
+          step * (c.getGreen() / step) + s.getGreen() / (256 / step),
+          step * (c.getBlue() / step) + s.getBlue() / (256 / step)).getRGB());
+      }
+    }
+  }
+
+  /**
+   * Method to change every color of a picture but the last column one
+   * pixel at a time
+   * @param picture the picture to change
+   * @param formula the new value of each color value
+   */
+  private static void applyByPixel(DigitalPicture picture, IntUnaryOperator formula)
+  {
+    for (int row = 0; row < picture.getHeight(); row++)
+    {
+      for (int col = 0; col < picture.getWidth() - 1; col++)
+      {
+        Color c = new Color(picture.getBasicPixel(col, row));
+        picture.setBasicPixel(col, row, new Color(formula.applyAsInt(c.getRed()),
+                                                  formula.applyAsInt(c.getGreen()),
+                                                  formula.applyAsInt(c.getBlue())).getRGB());
+      }
+    }
+  }
+
+  /**
+   * Method to check that the last column of a picture didn't change
+   * @param before the picture before
+   * @param after the picture after
+   * @param what what was done, for the message
+   */
+  private static void assertLastColumnKept(DigitalPicture before, DigitalPicture after, String what)
+  {
+    int last = before.getWidth() - 1;
+    for (int row = 0; row < before.getHeight(); row++)
+    {
+      assert before.getBasicPixel(last, row) == after.getBasicPixel(last, row) :
+        what + ": the last column changed at row " + row;
+    }
+  }
+
+  /**
+   * Method to run the tests of a number of bits serially and in parallel
+   * @param work the tests to run
+   */
+  private static void bothWays(Runnable work)
+  {
+    PictureFixtures.serially(work);
+    PictureFixtures.inParallel(work);
+  }
+
+  /**
+   * Tests hide, reveal, clearLow and setLow against the formulas a pixel
+   * at a time for 1 to 4 bits
+   */
+  public void testMatchesFormulas()
+  {
+    Picture cover = PictureFixtures.random(97, 83, 1);
+    Picture secret = PictureFixtures.shapes(60, 50);
+    for (int bits = 1; bits <= 4; bits++)
+    {
+      Steganography engine = Steganography.forBits(bits);
+      int step = 1 << bits;
+      String name = bits + " bits";
+      bothWays(() ->
+      {
+        Picture expected = new Picture(cover);
+        hideByPixel(expected, secret, 11, 17, engine.getBits());
+        Picture hidden = new Picture(cover);
+        engine.hide(hidden, secret, 11, 17);
+        PictureFixtures.assertSameColors(expected, hidden, "hide with " + name);
+
+        applyByPixel(expected, v -> (v % step) * (256 / step));
+        engine.reveal(hidden);
+        PictureFixtures.assertSameColors(expected, hidden, "reveal with " + name);
+        assertLastColumnKept(cover, hidden, "reveal with " + name);
+
+        expected = new Picture(cover);
+        applyByPixel(expected, v -> step * (v / step));
+        Picture cleared = new Picture(cover);
+        engine.clearLow(cleared);
+        PictureFixtures.assertSameColors(expected, cleared, "clearLow with " + name);
+
+        Color color = new Color(0x5a, 0xc3, 0x2f);
+        expected = new Picture(cover);
+        Picture set = new Picture(cover);
+        engine.setLow(set, color);
+        for (int row = 0; row < cover.getHeight(); row++)
+        {
+          for (int col = 0; col < cover.getWidth() - 1; col++)
+          {
+            Color c = new Color(cover.getBasicPixel(col, row));
+            expected.setBasicPixel(col, row, new Color(
+              step * (c.getRed() / step) + color.getRed() % step,
+              step * (c.getGreen() / step) + color.getGreen() % step,
+              step * (c.getBlue() / step) + color.getBlue() % step).getRGB());
+          }
+        }
+        PictureFixtures.assertSameColors(expected, set, "setLow with " + name);
+        assertLastColumnKept(cover, set, "setLow with " + name);
+      });
+    }
+
+    Picture viaPicture = new Picture(cover);
+    viaPicture.hide(new Picture(secret), 5, 6);
+    Picture expected = new Picture(cover);
+    hideByPixel(expected, secret, 5, 6, 2);
+    PictureFixtures.assertSameColors(expected, viaPicture, "Picture.hide");
+  }
+
+  /**
+   * Tests hiding several secrets in one pass against hiding each one in
+   * list order: they overlap so the later one wins, some run off the
+   * right and bottom edges or miss the cover, and the last column is
+   * never changed
+   */
+  public void testManySecretsMatchOneByOne()
+  {
+    Picture cover = PictureFixtures.random(120, 90, 2);
+    List<Steganography.Secret> secrets = new ArrayList<Steganography.Secret>(Arrays.asList(
+      new Steganography.Secret(PictureFixtures.random(50, 40, 3), 10, 5),
+      new Steganography.Secret(PictureFixtures.shapes(45, 30), 30, 20),
+      new Steganography.Secret(PictureFixtures.random(40, 35, 4), 95, 10),
+      new Steganography.Secret(PictureFixtures.random(30, 40, 5), 60, 70),
+      new Steganography.Secret(PictureFixtures.shapes(70, 70), 80, 60),
+      new Steganography.Secret(PictureFixtures.random(10, 10, 6), 119, 0),
+      new Steganography.Secret(PictureFixtures.random(10, 10, 7), 0, 90),
+      new Steganography.Secret(PictureFixtures.random(8, 8, 8), 20, 22)));
+    for (int bits = 1; bits <= 4; bits++)
+    {
+      Steganography engine = Steganography.forBits(bits);
+      String name = bits + " bits";
+      bothWays(() ->
+      {
+        Picture byPixel = new Picture(cover);
+        Picture oneByOne = new Picture(cover);
+        for (Steganography.Secret secret : secrets)
+        {
+          hideByPixel(byPixel, secret.getPicture(), secret.getX(), secret.getY(),
+                      engine.getBits());
+          engine.hide(oneByOne, secret.getPicture(), secret.getX(), secret.getY());
+        }
+        Picture together = new Picture(cover);
+        engine.hide(together, secrets);
+        PictureFixtures.assertSameColors(byPixel, oneByOne, "one by one with " + name);
+        PictureFixtures.assertSameColors(oneByOne, together, "in one pass with " + name);
+        assertLastColumnKept(cover, together, "in one pass with " + name);
+      });
+    }
+
+    Picture hideAll = new Picture(cover);
+    hideAll.hideAll(secrets.toArray(new Steganography.Secret[0]));
+    Picture expected = new Picture(cover);
+    Steganography.TWO_BITS.hide(expected, secrets);
+    PictureFixtures.assertSameColors(expected, hideAll, "Picture.hideAll");
+  }
+
+  /**
+   * Tests that forBits takes only 1 to 4
+   */
+  public void testForBits()
+  {
+    assert Steganography.forBits(2) == Steganography.TWO_BITS : "forBits(2) isn't TWO_BITS";
+    for (int bits : new int[] {0, 5, -1})
+    {
+      try
+      {
+        Steganography.forBits(bits);
+        assert false : bits + " bits was taken";
+      }
+      catch (IllegalArgumentException ex)
+      {
+        // expected
+      }
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package imageapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Tests for StripeProcessor: the file it writes a stripe at a time is
+ * the same as filtering the whole picture, for chains of point filters
+ * and convolutions and for stripes from one row to taller than the
+ * picture, and jpg output and writing over the input are refused.
+ */
+public final class StripeProcessorTest
+{
+  /**
+   * Method to make a temporary file that is deleted when the tests end
+   * @param suffix the suffix, like .png
+   * @return the file
+   * @throws IOException if it can't be made
+   */
+  private static File tempFile(String suffix) throws IOException
+  {
+    File file = File.createTempFile("stripes", suffix);
+    file.deleteOnExit();
+    return file;
+  }
+
+  /**
+   * Method to run a chain in stripes and check the file matches the
+   * whole picture filtered at once
+   * @param input the file to read
+   * @param chain the operation names, like blur:2,grayscale
+   * @param whole the same filters for the whole picture
+   * @param suffix the suffix of the output, like .png
+   * @throws IOException if a file can't be read or written
+   */
+  private static void assertMatchesWhole(File input, String chain, Consumer<Picture> whole,
+                                         String suffix) throws IOException
+  {
+    Picture expected = new Picture(input.getPath());
+    whole.accept(expected);
+    for (int stripe : new int[] {1, 7, 64, 1000})
+    {
+      File output = tempFile(suffix);
+      StripeProcessor.parse(chain, stripe).process(input, output);
+      PictureFixtures.assertSameColors(expected, new Picture(output.getPath()),
+                                       chain + " in " + stripe + " row stripes");
+    }
+  }
+
+  /**
+   * Tests point filters, lookup tables, convolutions and the edge
+   * magnitude, alone and chained so their halos add up
+   * @throws IOException if a file can't be read or written
+   */
+  public void testMatchesWholePicture() throws IOException
+  {
+    File input = tempFile(".png");
+    PictureFixtures.shapes(90, 130).writeOrFail(input.getPath());
+    assertMatchesWhole(input, "grayscale,negative",
+                       p -> { TileEngine.apply(p, ImageApp.GRAYSCALE);
+                              TileEngine.apply(p, ImageApp.NEGATIVE_COLOR); }, ".png");
+    assertMatchesWhole(input, "gamma:1.8,contrast:1.3",
+                       p -> { p.adjustGamma(1.8); p.adjustContrast(1.3); }, ".png");
+    assertMatchesWhole(input, "blur:2", p -> p.blur(2), ".png");
+    assertMatchesWhole(input, "blur:1.5,sharpen,edges",
+                       p -> { p.blur(1.5); p.sharpen(); p.edgeMagnitude(EdgeOperator.SOBEL); },
+                       ".bmp");
+
+    File noisy = tempFile(".png");
+    PictureFixtures.random(40, 75, 1).writeOrFail(noisy.getPath());
+    assertMatchesWhole(noisy, "recolor,blur:1,brightness:-10",
+                       p -> { TileEngine.apply(p, ImageApp.CHANGE_COLOR); p.blur(1);
+                              p.adjustBrightness(-10); }, ".png");
+  }
+
+  /**
+   * Tests that jpg output is refused before anything is written
+   * @throws IOException if the input can't be written
+   */
+  public void testRefusesJpg() throws IOException
+  {
+    File input = tempFile(".png");
+    PictureFixtures.random(30, 20, 2).writeOrFail(input.getPath());
+    for (String suffix : new String[] {".jpg", ".JPEG"})
+    {
+      File output = new File(input.getParentFile(), "stripes-refused" + suffix);
+      try
+      {
+        StripeProcessor.parse("grayscale", 8).process(input, output);
+        assert false : suffix + " output was written";
+      }
+      catch (IOException ex)
+      {
+        assert ex.getMessage().startsWith("jpg output") : ex.getMessage();
+      }
+      assert !output.exists() : suffix + " output was made";
+    }
+  }
+
+  /**
+   * Tests that writing over the input, also through another path to the
+   * same file, is refused and leaves the input as it was
+   * @throws IOException if the input can't be written or read
+   */
+  public void testRefusesInputAsOutput() throws IOException
+  {
+    File input = tempFile(".png");
+    PictureFixtures.random(30, 20, 3).writeOrFail(input.getPath());
+    byte[] before = Files.readAllBytes(input.toPath());
+    File[] sameFiles = {input, new File(input.getParentFile(), "." + File.separator + input.getName())};
+    for (File output : sameFiles)
+    {
+      try
+      {
+        StripeProcessor.parse("negative", 8).process(input, output);
+        assert false : "the input was written over through " + output;
+      }
+      catch (IOException ex)
+      {
+        assert ex.getMessage().contains("is the input") : ex.getMessage();
+      }
+      assert Arrays.equals(before, Files.readAllBytes(input.toPath())) : "the input changed";
+    }
+  }
+
+  /**
+   * Tests the halo of a chain and the names the stream mode refuses
+   */
+  public void testParse()
+  {
+    StripeProcessor processor = StripeProcessor.parse("blur:1,sharpen,grayscale", 16);
+    assert processor.getHaloRows()
+      == ConvolutionKernel.gaussian(1).getHeight() / 2 + ConvolutionKernel.SHARPEN.getHeight() / 2 :
+      processor.toString();
+    for (String chain : new String[] {"rotate90", "insert:x.png", "nothing", " , "})
+    {
+      try
+      {
+        StripeProcessor.parse(chain, 16);
+        assert false : chain + " was taken";
+      }
+      catch (IllegalArgumentException ex)
+      {
+        // expected
+      }
+    }
+  }
+}
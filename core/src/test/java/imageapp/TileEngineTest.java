@@ -0,0 +1,85 @@
+package imageapp;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Tests for TileEngine: the bands cover every row once, and a kernel run
+ * in bands on several threads gives the same pixels as one run on the
+ * calling thread.
+ */
+public final class TileEngineTest
+{
+  /**
+   * Tests that every row gets to exactly one band call
+   */
+  public void testBandsCoverEveryRowOnce()
+  {
+    for (int height : new int[] {1, 2, 7, 100, 257})
+    {
+      AtomicIntegerArray seen = new AtomicIntegerArray(height);
+      PictureFixtures.inParallel(() -> TileEngine.forEachBand(50, height, (startRow, endRow) ->
+      {
+        assert startRow < endRow : "empty band " + startRow;
+        for (int y = startRow; y < endRow; y++)
+          seen.incrementAndGet(y);
+      }));
+      for (int y = 0; y < height; y++)
+        assert seen.get(y) == 1 : "row " + y + " of " + height + " ran " + seen.get(y) + " times";
+    }
+  }
+
+  /**
+   * Tests that the tiled run of each color filter matches the serial one
+   */
+  public void testTiledMatchesSerial()
+  {
+    PointKernel[] kernels = {ImageApp.GRAYSCALE, ImageApp.NEGATIVE_COLOR, ImageApp.CHANGE_COLOR,
+                             Picture.ZERO_BLUE, ChannelLut.gamma(0.7)};
+    for (PointKernel kernel : kernels)
+    {
+      Picture serial = PictureFixtures.random(61, 47, 4);
+      Picture tiled = new Picture(serial);
+      PictureFixtures.serially(() -> TileEngine.apply(serial, kernel));
+      PictureFixtures.inParallel(() -> TileEngine.apply(tiled, kernel));
+      PictureFixtures.assertSameColors(serial, tiled, "tiled " + kernel);
+    }
+  }
+
+  /**
+   * Tests that the kernel matches running it one pixel at a time
+   */
+  public void testApplyMatchesPerPixel()
+  {
+    Picture picture = PictureFixtures.random(33, 20, 5);
+    Picture expected = new Picture(picture);
+    for (int y = 0; y < expected.getHeight(); y++)
+    {
+      for (int x = 0; x < expected.getWidth(); x++)
+        expected.setBasicPixel(x, y, ImageApp.grayscale(expected.getBasicPixel(x, y)));
+    }
+    PictureFixtures.inParallel(() -> TileEngine.apply(picture, ImageApp.GRAYSCALE));
+    PictureFixtures.assertSameColors(expected, picture, "grayscale");
+  }
+
+  /**
+   * Tests that a rectangle is changed and nothing outside it is
+   */
+  public void testApplyToRectangleOnly()
+  {
+    Picture picture = PictureFixtures.random(40, 30, 6);
+    Picture before = new Picture(picture);
+    PictureFixtures.inParallel(() ->
+      TileEngine.apply(picture, ImageApp.NEGATIVE_COLOR, 5, 7, 20, 11));
+    for (int y = 0; y < 30; y++)
+    {
+      for (int x = 0; x < 40; x++)
+      {
+        int old = before.getBasicPixel(x, y);
+        boolean inside = x >= 5 && x < 25 && y >= 7 && y < 18;
+        int expected = inside ? ImageApp.NEGATIVE_COLOR.apply(old) : old;
+        assert (picture.getBasicPixel(x, y) & 0xffffff) == (expected & 0xffffff) :
+          "pixel (" + x + ", " + y + ")";
+      }
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package imageapp;
+
+import java.awt.Color;
+import java.awt.Graphics;
+
+/**
+ * Tests for the tile hashes a SimplePicture keeps and the differences
+ * found through them: writes through the picture mark their tiles, and
+ * writes through an array or image handed out earlier are never missed.
+ */
+public final class TileHashGridTest
+{
+  /**
+   * Tests that only the tiles under a write get a new hash, and a grid
+   * with no writes since is handed back as it is
+   */
+  public void testWritesMarkTheirTiles()
+  {
+    Picture picture = PictureFixtures.random(200, 150, 1);
+    Picture before = new Picture(picture);
+    TileHashGrid old = before.getTileHashes();
+    TileHashGrid grid = picture.getTileHashes();
+    assert picture.getTileHashes() == grid : "the grid was made again with no writes";
+
+    picture.setBasicPixel(70, 10, picture.getBasicPixel(70, 10) ^ 0x010000);
+    picture.setRGB(130, 140, 3, 1, new int[] {0, 0, 0}, 0, 3);
+    boolean[] different = picture.getTileHashes().differentTiles(old);
+    for (int row = 0; row < grid.getRows(); row++)
+    {
+      for (int column = 0; column < grid.getColumns(); column++)
+      {
+        boolean written = (column == 1 && row == 0) || (column == 2 && row == 2);
+        assert different[row * grid.getColumns() + column] == written :
+          "tile (" + column + ", " + row + ")";
+      }
+    }
+  }
+
+  /**
+   * Tests a write through an array kept from before the grid was made
+   */
+  public void testKeptArrayAfterGrid()
+  {
+    Picture picture = PictureFixtures.random(150, 130, 2);
+    Picture before = new Picture(picture);
+    int[] data = picture.getRasterData();
+    PixelMask.difference(picture, before);
+    data[100 * 150 + 120] ^= 0x00ff00;
+    assert picture.getTileHashes() == null : "tile hashes after the array was handed out";
+    PixelMask mask = PixelMask.difference(picture, before);
+    PixelMaskTest.assertMatchesPixels(picture, before, mask, "kept array");
+    assert mask.count() == 1 : mask.toString();
+  }
+
+  /**
+   * Tests drawing on an image and a graphics object kept from earlier
+   */
+  public void testKeptImageAndGraphics()
+  {
+    Picture picture = PictureFixtures.random(140, 100, 3);
+    Picture before = new Picture(picture);
+    Graphics graphics = picture.getGraphics();
+    PixelMask.difference(picture, before);
+    graphics.setColor(Color.RED);
+    graphics.fillRect(80, 70, 5, 5);
+    graphics.dispose();
+    PixelMaskTest.assertMatchesPixels(picture, before, PixelMask.difference(picture, before),
+                                      "kept graphics");
+
+    Picture other = new Picture(before);
+    other.getBufferedImage().setRGB(1, 1, 0xff00ff00);
+    PixelMaskTest.assertMatchesPixels(other, before, PixelMask.difference(other, before),
+                                      "kept image");
+  }
+
+  /**
+   * Tests that writes from the bands of a filter on several threads
+   * mark their tiles
+   */
+  public void testParallelWrites()
+  {
+    Picture picture = PictureFixtures.random(300, 260, 4);
+    Picture before = new Picture(picture);
+    PixelMask.difference(picture, before);
+    PictureFixtures.inParallel(() ->
+      TileEngine.apply(picture, ImageApp.NEGATIVE_COLOR, 70, 100, 90, 130));
+    PixelMaskTest.assertMatchesPixels(picture, before, PixelMask.difference(picture, before),
+                                      "parallel writes");
+  }
+
+  /**
+   * Tests that the filters of this package that change the array keep
+   * the tile hashes working, and copies start from the same hashes
+   */
+  public void testEditsKeepGrid()
+  {
+    Picture picture = PictureFixtures.random(130, 90, 5);
+    Picture before = new Picture(picture);
+    picture.getTileHashes();
+    RasterTransform.flipHorizontalInPlace(picture);
+    ChannelLut.gamma(0.5).apply(picture, 0, 0, 10, 10);
+    assert picture.getTileHashes() != null : "an edit in the package dropped the tile hashes";
+    PixelMaskTest.assertMatchesPixels(picture, before, PixelMask.difference(picture, before),
+                                      "after edits");
+
+    Picture copy = new Picture(picture);
+    copy.setBasicPixel(0, 0, copy.getBasicPixel(0, 0) ^ 0x000001);
+    PixelMask mask = PixelMask.difference(picture, copy);
+    assert mask.count() == 1 && mask.get(0, 0) : mask.toString();
+  }
+
+  /**
+   * Tests that each edit is counted once its pixels are written: the
+   * content hash and the tile hashes asked for after it match a new
+   * picture given the same pixels
+   */
+  public void testEditsCounted()
+  {
+    Picture picture = PictureFixtures.random(150, 110, 6);
+    Picture image = PictureFixtures.shapes(60, 40);
+    Runnable[] edits = {
+      () -> ChannelLut.NEGATIVE.apply(picture, 20, 30, 100, 50),
+      () -> RasterTransform.rotate180InPlace(picture),
+      () -> RasterTransform.flipVerticalInPlace(picture),
+      () -> picture.load(image.getBufferedImage()),
+      () -> picture.addMessage("edit", 10, 100)};
+    for (int i = 0; i < edits.length; i++)
+    {
+      long hash = picture.getContentHash();
+      TileHashGrid grid = picture.getTileHashes();
+      edits[i].run();
+      Picture fresh = new Picture(110, 150);
+      fresh.setRGB(0, 0, 150, 110, picture.getRGB(0, 0, 150, 110, null, 0, 150), 0, 150);
+      assert picture.getContentHash() != hash : "edit " + i + " kept the content hash";
+      assert picture.getContentHash() == fresh.getContentHash() : "edit " + i;
+      TileHashGrid after = picture.getTileHashes();
+      assert after != grid : "edit " + i + " kept the tile hashes";
+      for (boolean different : after.differentTiles(fresh.getTileHashes()))
+        assert !different : "edit " + i + " has a tile hashed before the write";
+    }
+  }
+}
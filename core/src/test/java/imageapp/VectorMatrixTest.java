@@ -1,3 +1,5 @@
+package imageapp;
+
 /**
  * Test class for Vector1by2 and Matrix2by2 classes.
  * Contains unit tests for all public methods.
@@ -5,17 +7,18 @@
 public class VectorMatrixTest {
     
     public static void main(String[] args) {
+        VectorMatrixTest test = new VectorMatrixTest();
         System.out.println("=== Testing Vector1by2 Class ===");
-        testVectorClass();
+        test.testVectorClass();
         
         System.out.println("\n=== Testing Matrix2by2 Class ===");
-        testMatrixClass();
+        test.testMatrixClass();
         
         System.out.println("\n=== Testing Dot Product Function ===");
-        testDotProduct();
+        test.testDotProduct();
         
         System.out.println("\n=== Testing Matrix Multiplication Function ===");
-        testMatrixMultiplication();
+        test.testMatrixMultiplication();
         
         System.out.println("\nAll tests passed!");
     }
@@ -23,7 +26,7 @@ public class VectorMatrixTest {
     /**
      * Tests all Vector1by2 class methods
      */
-    public static void testVectorClass() {
+    public void testVectorClass() {
         // Test constructors
         Vector1by2 v1 = new Vector1by2(3, 4);
         Vector1by2 v2 = new Vector1by2(1, 2);
@@ -66,7 +69,7 @@ public class VectorMatrixTest {
     /**
      * Tests all Matrix2by2 class methods
      */
-    public static void testMatrixClass() {
+    public void testMatrixClass() {
         // Test constructor
         Matrix2by2 m1 = new Matrix2by2(1, 2, 3, 4);
         
@@ -117,7 +120,7 @@ public class VectorMatrixTest {
     /**
      * Tests the dot product function
      */
-    public static void testDotProduct() {
+    public void testDotProduct() {
         Vector1by2 v1 = new Vector1by2(3, 4);
         Vector1by2 v2 = new Vector1by2(1, 2);
         
@@ -141,7 +144,7 @@ public class VectorMatrixTest {
     /**
      * Tests matrix-vector multiplication function
      */
-    public static void testMatrixMultiplication() {
+    public void testMatrixMultiplication() {
         // Create a 45 degree rotation matrix
         Matrix2by2 rot45 = new Matrix2by2();
         rot45.setRotationMatrix(45);
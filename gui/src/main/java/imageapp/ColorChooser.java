@@ -1,3 +1,5 @@
+package imageapp;
+
  
 
 import javax.swing.JColorChooser;
@@ -1,7 +1,8 @@
+package imageapp;
+
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import java.io.*;
-import java.net.*;
   
 /**
  * A class to make working with a file chooser easier
@@ -22,12 +23,7 @@ public class FileChooser
    */
   public static String getMediaPath(String fileName) 
   {
-    String path = null;
-    String directory = getMediaDirectory();
-    
-    // get the full path
-    path = directory + fileName;
-    return path;
+    return SimplePicture.getMediaPath(fileName);
   }
   
   /**
@@ -99,40 +95,7 @@ public class FileChooser
    */
   public static String getMediaDirectory() 
   {
-    String directory = null;
-    File dirFile = null;
-    
-    // First, try the current directory
-    try {
-      directory = System.getProperty("user.dir");
-      dirFile = new File(directory);
-      if (dirFile.exists()) {
-        return directory + File.separator;
-      }
-    } catch (Exception ex) {
-    }
-    
-    // try to find the images directory
-    try {
-      // get the URL for where we loaded this class 
-      URL classURL = FileChooser.class.getResource("FileChooser.class");
-      if (classURL != null) {
-        // Use URI to avoid deprecated URL constructor
-        URI uri = classURL.toURI();
-        File classFile = new File(uri.getPath());
-        File parentDir = classFile.getParentFile();
-        File imagesDir = new File(parentDir, "images");
-        
-        if (imagesDir.exists()) {
-          return imagesDir.getPath() + File.separator;
-        }
-      }
-    } catch (Exception ex) {
-      // Fall through to default directory
-    }
-    
-    // Last resort: try current directory
-    return System.getProperty("user.dir") + File.separator;
+    return SimplePicture.getMediaDirectory();
   }
   
   /**
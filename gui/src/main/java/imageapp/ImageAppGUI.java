@@ -0,0 +1,283 @@
+package imageapp;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Simple GUI menu for image processing operations.  Opening a file
+ * only decodes a subsampled preview about the size of the view (see
+ * ImageCache.decodePreview), so even a 40 megapixel photo shows up
+ * right away.  The full resolution picture is loaded on a background
+ * thread the first time an edit or save needs it; edits made while it
+ * loads wait for it and then run in order.
+ */
+public class ImageAppGUI extends JFrame {
+    /** the size of the area the picture is shown in */
+    private static final int VIEW_WIDTH = 600;
+    private static final int VIEW_HEIGHT = 400;
+    
+    private Picture currentPicture;   // full resolution, null until needed
+    private String currentFile;       // the file opened, null if none
+    private CompletableFuture<Picture> pending;   // the full load and edits waiting on it
+    private int openCount;            // tells work for an old file to stop
+    private JLabel imageLabel;
+    private JLabel statusBar;
+    private ImageIcon imageIcon;
+    
+    public ImageAppGUI() {
+        setTitle("Image Processing App");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLayout(new BorderLayout());
+        
+        // Create menu bar
+        JMenuBar menuBar = new JMenuBar();
+        
+        // File menu
+        JMenu fileMenu = new JMenu("File");
+        JMenuItem openItem = new JMenuItem("Open Image");
+        JMenuItem saveItem = new JMenuItem("Save Image");
+        JMenuItem exitItem = new JMenuItem("Exit");
+        
+        fileMenu.add(openItem);
+        fileMenu.add(saveItem);
+        fileMenu.addSeparator();
+        fileMenu.add(exitItem);
+        
+        // Edit menu
+        JMenu editMenu = new JMenu("Edit");
+        JMenuItem recolorItem = new JMenuItem("Recolor Image");
+        JMenuItem negativeItem = new JMenuItem("Negative Image");
+        JMenuItem grayscaleItem = new JMenuItem("Grayscale Image");
+        
+        editMenu.add(recolorItem);
+        editMenu.add(negativeItem);
+        editMenu.add(grayscaleItem);
+        
+        // Transform menu
+        JMenu transformMenu = new JMenu("Transform");
+        JMenuItem rotate180Item = new JMenuItem("Rotate 180°");
+        JMenuItem rotate90Item = new JMenuItem("Rotate 90° CCW");
+        JMenuItem rotateNeg90Item = new JMenuItem("Rotate 90° CW");
+        
+        transformMenu.add(rotate180Item);
+        transformMenu.add(rotate90Item);
+        transformMenu.add(rotateNeg90Item);
+        
+        // Add menus to menu bar
+        menuBar.add(fileMenu);
+        menuBar.add(editMenu);
+        menuBar.add(transformMenu);
+        
+        setJMenuBar(menuBar);
+        
+        // Image display area
+        imageLabel = new JLabel("No image loaded", SwingConstants.CENTER);
+        imageLabel.setHorizontalAlignment(JLabel.CENTER);
+        add(imageLabel, BorderLayout.CENTER);
+        
+        // Status bar
+        statusBar = new JLabel("Ready");
+        add(statusBar, BorderLayout.SOUTH);
+        
+        // Add action listeners
+        openItem.addActionListener(e -> openImage());
+        saveItem.addActionListener(e -> saveImage());
+        exitItem.addActionListener(e -> System.exit(0));
+        
+        recolorItem.addActionListener(e ->
+            edit(p -> { ImageApp.changeColor(p); return p; }, "Image recolored"));
+        
+        negativeItem.addActionListener(e ->
+            edit(p -> { ImageApp.negativeColor(p); return p; }, "Negative image created"));
+        
+        grayscaleItem.addActionListener(e ->
+            edit(p -> { ImageApp.grayscale(p); return p; }, "Grayscale image created"));
+        
+        rotate180Item.addActionListener(e ->
+            edit(p -> { ImageApp.rotate180(p); return p; }, "Image rotated 180°"));
+        
+        rotate90Item.addActionListener(e -> edit(ImageApp::rotate90, "Image rotated 90° CCW"));
+        
+        rotateNeg90Item.addActionListener(e -> edit(ImageApp::rotateNeg90, "Image rotated 90° CW"));
+        
+        // Set window size and make visible
+        setSize(800, 600);
+        setLocationRelativeTo(null);
+        setVisible(true);
+    }
+    
+    private void openImage() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setCurrentDirectory(new java.io.File("."));
+        int result = fileChooser.showOpenDialog(this);
+        
+        if (result == JFileChooser.APPROVE_OPTION) {
+            try {
+                File file = fileChooser.getSelectedFile();
+                long start = System.nanoTime();
+                BufferedImage preview = ImageCache.decodePreview(file, VIEW_WIDTH, VIEW_HEIGHT);
+                currentFile = file.getPath();
+                currentPicture = null;
+                pending = null;
+                openCount++;
+                showImage(preview);
+                statusBar.setText(String.format("Preview of %s in %.0f ms", file.getName(),
+                                                (System.nanoTime() - start) / 1e6));
+            } catch (Exception e) {
+                JOptionPane.showMessageDialog(this, "Error loading image: " + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+    
+    private void saveImage() {
+        if (currentFile == null) {
+            JOptionPane.showMessageDialog(this, "No image to save", 
+                "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setCurrentDirectory(new java.io.File("."));
+        int result = fileChooser.showSaveDialog(this);
+        
+        if (result == JFileChooser.APPROVE_OPTION) {
+            String filePath = fileChooser.getSelectedFile().getPath();
+            if (!filePath.toLowerCase().endsWith(".jpg")) {
+                filePath += ".jpg";
+            }
+            String savePath = filePath;
+            withFullPicture(p -> {
+                p.write(savePath);
+                statusBar.setText("Saved " + savePath);
+            });
+        }
+    }
+    
+    /**
+     * Method to run an edit on the full resolution picture and show the
+     * result
+     * @param edit the edit; it may change the picture and return it or
+     * return a new one
+     * @param message the status to show when it is done
+     */
+    private void edit(UnaryOperator<Picture> edit, String message) {
+        withFullPicture(p -> {
+            currentPicture = edit.apply(p);
+            updateImage();
+            statusBar.setText(message);
+        });
+    }
+    
+    /**
+     * Method to run some work on the full resolution picture on the
+     * event thread.  If the picture isn't loaded yet it is loaded on a
+     * decode thread of the shared ImagePipeline first, and the work
+     * waits for it (after any work already waiting).
+     * @param work the work to do
+     */
+    private void withFullPicture(Consumer<Picture> work) {
+        if (currentFile == null) {
+            return;
+        }
+        if (pending == null && currentPicture != null) {
+            work.accept(currentPicture);
+            return;
+        }
+        if (pending == null) {
+            statusBar.setText("Loading full resolution...");
+            pending = Picture.loadAsync(currentFile);
+        }
+        int opened = openCount;
+        CompletableFuture<Picture> next = pending.thenApplyAsync(p -> {
+            if (opened == openCount) {
+                currentPicture = p;
+                work.accept(p);
+            }
+            return currentPicture;
+        }, SwingUtilities::invokeLater);
+        pending = next;
+        next.whenCompleteAsync((p, ex) -> {
+            if (pending != next) {
+                return;   // more work is waiting, or another file was opened
+            }
+            pending = null;
+            if (ex != null) {
+                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                statusBar.setText("Ready");
+                JOptionPane.showMessageDialog(this, "Error loading image: " + cause.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, SwingUtilities::invokeLater);
+    }
+    
+    private void updateImage() {
+        if (currentPicture != null) {
+            showImage(currentPicture.peekBufferedImage());
+        }
+    }
+    
+    /**
+     * Method to show an image fit in the view
+     * @param image the image to show
+     */
+    private void showImage(BufferedImage image) {
+        imageIcon = new ImageIcon(fit(image, VIEW_WIDTH, VIEW_HEIGHT));
+        imageLabel.setIcon(imageIcon);
+        imageLabel.setText("");
+    }
+    
+    /**
+     * Method to scale an image to fit in a box, keeping its shape.  Big
+     * images are halved with bilinear filtering until they are less than
+     * twice the size and then scaled the rest of the way, which looks as
+     * smooth as getScaledInstance with SCALE_SMOOTH at a small part of
+     * the cost.
+     * @param image the image to scale
+     * @param maxWidth the width of the box
+     * @param maxHeight the height of the box
+     * @return the scaled image
+     */
+    private static BufferedImage fit(BufferedImage image, int maxWidth, int maxHeight) {
+        double scale = Math.min((double) maxWidth / image.getWidth(),
+                                (double) maxHeight / image.getHeight());
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        BufferedImage result = image;
+        while (result.getWidth() / 2 >= width && result.getHeight() / 2 >= height) {
+            result = scale(result, result.getWidth() / 2, result.getHeight() / 2);
+        }
+        if (result.getWidth() != width || result.getHeight() != height) {
+            result = scale(result, width, height);
+        }
+        return result;
+    }
+    
+    /**
+     * Method to scale an image with bilinear filtering
+     * @param image the image to scale
+     * @param width the new width
+     * @param height the new height
+     * @return the scaled image
+     */
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB
+            : BufferedImage.TYPE_INT_RGB;
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                                  RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return scaled;
+    }
+    
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> new ImageAppGUI());
+    }
+}
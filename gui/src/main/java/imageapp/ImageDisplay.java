@@ -1,3 +1,5 @@
+package imageapp;
+
 import javax.swing.*;
 import java.awt.*;
 
@@ -212,4 +214,4 @@ public class ImageDisplay extends JPanel implements Scrollable
     }
   }
   
-}
\ No newline at end of file
+}
\ No newline at end of file
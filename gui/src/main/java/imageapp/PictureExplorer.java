@@ -1,3 +1,5 @@
+package imageapp;
+
 
 import java.awt.*;
 import java.awt.event.*;
@@ -185,7 +187,7 @@ public class PictureExplorer implements MouseMotionListener, ActionListener, Mou
   {
     scrollPane = new JScrollPane();
     
-    BufferedImage bimg = picture.getBufferedImage();
+    BufferedImage bimg = imageToShow();
     imageDisplay = new ImageDisplay(bimg);
     imageDisplay.addMouseMotionListener(this);
     imageDisplay.addMouseListener(this);
@@ -223,9 +225,9 @@ public class PictureExplorer implements MouseMotionListener, ActionListener, Mou
   private void setUpNextAndPreviousButtons()
   {
     // create the image icons for the buttons
-    Icon prevIcon = new ImageIcon(DigitalPicture.class.getResource("lib/leftArrow.gif"), 
+    Icon prevIcon = new ImageIcon(PictureExplorer.class.getResource("lib/leftArrow.gif"), 
                                   "previous index");
-    Icon nextIcon = new ImageIcon(DigitalPicture.class.getResource("lib/rightArrow.gif"), 
+    Icon nextIcon = new ImageIcon(PictureExplorer.class.getResource("lib/rightArrow.gif"), 
                                   "next index");
     // create the arrow buttons
     colPrevButton = new JButton(prevIcon);
@@ -476,7 +478,7 @@ public class PictureExplorer implements MouseMotionListener, ActionListener, Mou
     // calculate the new width and height and get an image that size
     int width = (int) (picture.getWidth()*zoomFactor);
     int height = (int) (picture.getHeight()*zoomFactor);
-    BufferedImage bimg = picture.getBufferedImage();
+    BufferedImage bimg = imageToShow();
     
     // set the scroll image icon to the new image
     imageDisplay.setImage(bimg.getScaledInstance(width, height, Image.SCALE_DEFAULT));
@@ -486,6 +488,17 @@ public class PictureExplorer implements MouseMotionListener, ActionListener, Mou
     checkScroll();  // check if need to reposition scroll
   }
   
+  /**
+   * Method to get the picture's image to show.  A SimplePicture gives
+   * its image to read, so a picture shared with the ImageCache isn't
+   * copied just to be looked at.
+   * @return the image to show
+   */
+  private BufferedImage imageToShow()
+  {
+    return SimplePicture.readImage(picture);
+  }
+  
   /**
    * Repaints the image on the scrollpane.  
    */
@@ -797,4 +810,4 @@ public class PictureExplorer implements MouseMotionListener, ActionListener, Mou
     pix.explore();
   }
   
-}
\ No newline at end of file
+}
\ No newline at end of file
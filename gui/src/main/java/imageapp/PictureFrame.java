@@ -1,11 +1,14 @@
+package imageapp;
+
 import javax.swing.*;
+import java.awt.Image;
 
 /**
  * Class that holds a digital picture and displays it using a JFrame
  * 
  * @author Barb Ericson 
  */
-public class PictureFrame
+public class PictureFrame implements PictureDisplay
 {
   
   ////////////////// fields ////////////////////////////
@@ -57,11 +60,22 @@ public class PictureFrame
   public void setPicture(Picture picture)
   {
     this.picture = picture;
-    imageIcon.setImage(picture.getImage());
+    imageIcon.setImage(imageToShow());
     frame.pack();
     frame.repaint();
   }
   
+  /**
+   * Method to get the picture's image to show.  A SimplePicture gives
+   * its image to read, so a picture shared with the ImageCache isn't
+   * copied just to be shown.
+   * @return the image to show
+   */
+  private Image imageToShow()
+  {
+    return SimplePicture.readImage(picture);
+  }
+  
   /**
    * A method to update the picture frame image with the image  
    * in the picture 
@@ -72,7 +86,7 @@ public class PictureFrame
     if (picture != null)
     {
       // set the image for the image icon from the picture
-      imageIcon.setImage(picture.getImage());
+      imageIcon.setImage(imageToShow());
       
       // set the title of the frame to the title of the picture
       frame.setTitle(picture.getTitle());
@@ -171,4 +185,4 @@ public class PictureFrame
     frame.setVisible(true);
   }
   
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package imageapp;
+
+/**
+ * The picture viewer for the gui module.  It shows pictures in a
+ * PictureFrame and explores them with a PictureExplorer.  SimplePicture
+ * finds it through META-INF/services/imageapp.PictureViewer.
+ */
+public class SwingPictureViewer implements PictureViewer
+{
+  /**
+   * Method to show a picture in a new picture frame
+   * @param picture the picture to show
+   * @return the new picture frame
+   */
+  public PictureDisplay show(DigitalPicture picture)
+  {
+    return new PictureFrame(picture);
+  }
+
+  /**
+   * Method to open a picture explorer on a picture
+   * @param picture the picture to explore
+   */
+  public void explore(DigitalPicture picture)
+  {
+    new PictureExplorer(picture);
+  }
+}
@@ -1,3 +1,5 @@
+package imageapp;
+
 /**
  * This class contains class (static) methods
  * that will help you test the Picture class 
@@ -73,6 +75,11 @@ public class PictureTester
     beach.hide(flower1, 280, 110);
     beach.hide(flower2, 322, 432);
     beach.explore();
+    
+    // one box for each hidden picture
+    PixelMask mask = Picture.findDifferenceMask(new Picture("beach.jpg"), beach);
+    System.out.println("Regions found: " + mask.findRegions(100));
+    Picture.showDifferentAreas(beach, mask, 100).explore();
     ArrayList<Point> pointList = Picture.findDifferences(beach2, beach);
     System.out.println("PointList has a size of " + pointList.size());
     Picture beach3 = Picture.colorDifference(beach, pointList);
@@ -131,6 +138,11 @@ public class PictureTester
     beach.hide(flower2, 322, 432);
     beach.explore();
     
+    // one box for each hidden picture
+    PixelMask mask = Picture.findDifferenceMask(new Picture("beach.jpg"), beach);
+    System.out.println("Regions found: " + mask.findRegions(100));
+    Picture.showDifferentAreas(beach, mask, 100).explore();
+    
     beach.unhide();
     beach.explore();
  }